@@ -15,6 +15,9 @@ import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
 import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.listener.SaTokenListener;
 import cn.dev33.satoken.listener.SaTokenListenerDefaultImpl;
+import cn.dev33.satoken.session.SaSessionCodec;
+import cn.dev33.satoken.session.SaSessionCodecDefaultImpl;
+import cn.dev33.satoken.stp.SaPermissionRegistry;
 import cn.dev33.satoken.stp.StpInterface;
 import cn.dev33.satoken.stp.StpInterfaceDefaultImpl;
 import cn.dev33.satoken.stp.StpLogic;
@@ -192,6 +195,42 @@ public class SaManager {
 		}
 		return saTemp;
 	}
+
+	/**
+	 * Session 编解码器 Bean  
+	 */
+	private volatile static SaSessionCodec saSessionCodec;
+	public static void setSaSessionCodec(SaSessionCodec saSessionCodec) {
+		SaManager.saSessionCodec = saSessionCodec;
+	}
+	public static SaSessionCodec getSaSessionCodec() {
+		if (saSessionCodec == null) {
+			synchronized (SaManager.class) {
+				if (saSessionCodec == null) {
+					setSaSessionCodec(new SaSessionCodecDefaultImpl());
+				}
+			}
+		}
+		return saSessionCodec;
+	}
+	
+	/**
+	 * 权限码注册表 Bean  
+	 */
+	private volatile static SaPermissionRegistry saPermissionRegistry;
+	public static void setSaPermissionRegistry(SaPermissionRegistry saPermissionRegistry) {
+		SaManager.saPermissionRegistry = saPermissionRegistry;
+	}
+	public static SaPermissionRegistry getSaPermissionRegistry() {
+		if (saPermissionRegistry == null) {
+			synchronized (SaManager.class) {
+				if (saPermissionRegistry == null) {
+					setSaPermissionRegistry(new SaPermissionRegistry());
+				}
+			}
+		}
+		return saPermissionRegistry;
+	}
 	
 	/**
 	 * StpLogic集合, 记录框架所有成功初始化的StpLogic 
@@ -14,6 +14,7 @@ import cn.dev33.satoken.annotation.SaCheckSafe;
 import cn.dev33.satoken.basic.SaBasicUtil;
 import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.strategy.SaStrategy;
+import cn.dev33.satoken.util.SaElementMatcher;
 import cn.dev33.satoken.util.SaFoxUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
 
@@ -80,20 +81,8 @@ public class SaTokenActionDefaultImpl implements SaTokenAction {
 			return false;
 		}
 
-		// 先尝试一下简单匹配，如果可以匹配成功则无需继续模糊匹配 
-		if (list.contains(element)) {
-			return true;
-		}
-		
-		// 开始模糊匹配 
-		for (String patt : list) {
-			if(SaFoxUtil.vagueMatch(patt, element)) {
-				return true;
-			}
-		}
-		
-		// 走出for循环说明没有一个元素可以匹配成功 
-		return false;
+		// 使用预编译的匹配器 (同一个集合只编译一次，精确匹配与模糊匹配均无需正则表达式) 
+		return SaElementMatcher.of(list).match(element);
 	}
 
 	/**
@@ -47,12 +47,24 @@ public class SaTokenConfig implements Serializable {
 	/** 默认dao层实现类中，每次清理过期数据间隔的时间 (单位: 秒) ，默认值30秒，设置为-1代表不启动定时清理 */
 	private int dataRefreshPeriod = 30;
 
+	/** 默认dao层实现类中，最多存储的数据条数，超出后按淘汰策略清理多余数据 (默认-1代表不限制) */
+	private int dataMaxSize = -1;
+
+	/** 是否开启 Session 延迟写入 (开启后同一请求内对 Session 的多次写值，会在请求结束时由全局过滤器统一写入持久库) */
+	private Boolean isSessionWriteBehind = false;
+
 	/** 获取[token专属session]时是否必须登录 (如果配置为true，会在每次获取[token-session]时校验是否登录) */
 	private Boolean tokenSessionCheckLogin = true;
 
 	/** 是否打开自动续签 (如果此值为true, 框架会在每次直接或间接调用getLoginId()时进行一次过期检查与续签操作)  */
 	private Boolean autoRenew = true;
 
+	/** 自动续签的最小间隔 (单位: 秒)，距离上次续签不足此时间时不再写入持久层，默认0代表每次都续签 (此值应小于activityTimeout，超出时按activityTimeout的一半计算) */
+	private long autoRenewInterval = 0;
+
+	/** 是否将 [最后操作时间] 折叠进 token->loginId 映射值中存储 (开启后一次读取即可同时完成登录校验与临时过期校验，旧格式数据会在续签时自动迁移；关闭后不再解析折叠格式，已折叠的映射需等待其过期或重新登录) */
+	private Boolean isFoldLastActivity = false;
+
 	/** token前缀, 格式样例(satoken: Bearer xxxx-xxxx-xxxx-xxxx) */
 	private String tokenPrefix;
 
@@ -257,6 +269,38 @@ public class SaTokenConfig implements Serializable {
 		return this;
 	}
 
+	/**
+	 * @return 默认dao层实现类中，最多存储的数据条数，超出后按淘汰策略清理多余数据 (默认-1代表不限制)
+	 */
+	public int getDataMaxSize() {
+		return dataMaxSize;
+	}
+
+	/**
+	 * @param dataMaxSize 默认dao层实现类中，最多存储的数据条数，超出后按淘汰策略清理多余数据 (默认-1代表不限制)
+	 * @return 对象自身
+	 */
+	public SaTokenConfig setDataMaxSize(int dataMaxSize) {
+		this.dataMaxSize = dataMaxSize;
+		return this;
+	}
+
+	/**
+	 * @return 是否开启 Session 延迟写入 (开启后同一请求内对 Session 的多次写值，会在请求结束时由全局过滤器统一写入持久库)
+	 */
+	public Boolean getIsSessionWriteBehind() {
+		return isSessionWriteBehind;
+	}
+
+	/**
+	 * @param isSessionWriteBehind 是否开启 Session 延迟写入 (开启后同一请求内对 Session 的多次写值，会在请求结束时由全局过滤器统一写入持久库)
+	 * @return 对象自身
+	 */
+	public SaTokenConfig setIsSessionWriteBehind(Boolean isSessionWriteBehind) {
+		this.isSessionWriteBehind = isSessionWriteBehind;
+		return this;
+	}
+
 	/**
 	 * @return 获取[token专属session]时是否必须登录 (如果配置为true，会在每次获取[token-session]时校验是否登录)
 	 */
@@ -290,6 +334,38 @@ public class SaTokenConfig implements Serializable {
 		return this;
 	}
 
+	/**
+	 * @return 自动续签的最小间隔 (单位: 秒)，距离上次续签不足此时间时不再写入持久层，默认0代表每次都续签 (此值应小于activityTimeout，超出时按activityTimeout的一半计算)
+	 */
+	public long getAutoRenewInterval() {
+		return autoRenewInterval;
+	}
+
+	/**
+	 * @param autoRenewInterval 自动续签的最小间隔 (单位: 秒)，距离上次续签不足此时间时不再写入持久层，默认0代表每次都续签 (此值应小于activityTimeout，超出时按activityTimeout的一半计算)
+	 * @return 对象自身
+	 */
+	public SaTokenConfig setAutoRenewInterval(long autoRenewInterval) {
+		this.autoRenewInterval = autoRenewInterval;
+		return this;
+	}
+
+	/**
+	 * @return 是否将 [最后操作时间] 折叠进 token->loginId 映射值中存储 (开启后一次读取即可同时完成登录校验与临时过期校验，旧格式数据会在续签时自动迁移；关闭后不再解析折叠格式，已折叠的映射需等待其过期或重新登录)
+	 */
+	public Boolean getIsFoldLastActivity() {
+		return isFoldLastActivity;
+	}
+
+	/**
+	 * @param isFoldLastActivity 是否将 [最后操作时间] 折叠进 token->loginId 映射值中存储 (开启后一次读取即可同时完成登录校验与临时过期校验，旧格式数据会在续签时自动迁移；关闭后不再解析折叠格式，已折叠的映射需等待其过期或重新登录)
+	 * @return 对象自身
+	 */
+	public SaTokenConfig setIsFoldLastActivity(Boolean isFoldLastActivity) {
+		this.isFoldLastActivity = isFoldLastActivity;
+		return this;
+	}
+
 	/**
 	 * @return token前缀, 格式样例(satoken: Bearer xxxx-xxxx-xxxx-xxxx)
 	 */
@@ -463,8 +539,12 @@ public class SaTokenConfig implements Serializable {
 				+ ", isReadCookie=" + isReadCookie
 				+ ", tokenStyle=" + tokenStyle
 				+ ", dataRefreshPeriod=" + dataRefreshPeriod 
+				+ ", dataMaxSize=" + dataMaxSize 
+				+ ", isSessionWriteBehind=" + isSessionWriteBehind 
 				+ ", tokenSessionCheckLogin=" + tokenSessionCheckLogin
 				+ ", autoRenew=" + autoRenew 
+				+ ", autoRenewInterval=" + autoRenewInterval 
+				+ ", isFoldLastActivity=" + isFoldLastActivity 
 				+ ", tokenPrefix=" + tokenPrefix
 				+ ", isPrint=" + isPrint 
 				+ ", isLog=" + isLog 
@@ -0,0 +1,45 @@
+package cn.dev33.satoken.context;
+
+import cn.dev33.satoken.context.model.SaRequest;
+import cn.dev33.satoken.context.model.SaResponse;
+import cn.dev33.satoken.context.model.SaStorage;
+
+/**
+ * Sa-Token 上下文处理器 [ScopedValue版本]，适合运行在虚拟线程上的项目
+ *
+ * <p>
+ * 	使用 [ScopedValue版本] 上下文处理器需要在全局过滤器或者拦截器内将后续处理包裹在
+ * 	SaTokenContextForScopedValueStorage.runWithBox(req, res, sto, () -&gt; { ... }) 中执行
+ * </p>
+ *
+ * @author kong
+ *
+ */
+public class SaTokenContextForScopedValue implements SaTokenContext {
+
+	@Override
+	public SaRequest getRequest() {
+		return SaTokenContextForScopedValueStorage.getRequest();
+	}
+
+	@Override
+	public SaResponse getResponse() {
+		return SaTokenContextForScopedValueStorage.getResponse();
+	}
+
+	@Override
+	public SaStorage getStorage() {
+		return SaTokenContextForScopedValueStorage.getStorage();
+	}
+
+	@Override
+	public boolean matchPath(String pattern, String path) {
+		return false;
+	}
+
+	@Override
+	public boolean isValid() {
+		return SaTokenContextForScopedValueStorage.getBox() != null;
+	}
+
+}
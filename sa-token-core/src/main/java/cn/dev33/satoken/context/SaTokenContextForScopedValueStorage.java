@@ -0,0 +1,171 @@
+package cn.dev33.satoken.context;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import cn.dev33.satoken.context.SaTokenContextForThreadLocalStorage.Box;
+import cn.dev33.satoken.context.model.SaRequest;
+import cn.dev33.satoken.context.model.SaResponse;
+import cn.dev33.satoken.context.model.SaStorage;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaFunction;
+
+/**
+ * Sa-Token 上下文处理器 [ScopedValue版本] ---- 对象存储器
+ *
+ * <p> 运行在支持 java.lang.ScopedValue 的 JDK 上时，[Box存储器] 绑定在 ScopedValue 上：绑定只在 run 函数执行期间有效，
+ * 不会像 InheritableThreadLocal 那样在创建子线程 (包括虚拟线程) 时复制，也不会因为忘记清除而残留在池化的线程上
+ *
+ * <p> 不支持 ScopedValue 的 JDK 上退化为普通的 (不可继承的) ThreadLocal，run 函数结束后自动恢复为执行前的值
+ *
+ * <p> ScopedValue 通过 MethodHandle 调用，因此本类仍可在 JDK 8 上编译运行
+ *
+ * @author kong
+ *
+ */
+public class SaTokenContextForScopedValueStorage {
+
+	/**
+	 * ScopedValue 对象 (当前 JDK 不支持时为 null)
+	 */
+	private static final Object SCOPED_VALUE;
+
+	/** ScopedValue.where(ScopedValue, Object) */
+	private static final MethodHandle WHERE;
+
+	/** ScopedValue.Carrier.run(Runnable) */
+	private static final MethodHandle RUN;
+
+	/** ScopedValue.isBound() */
+	private static final MethodHandle IS_BOUND;
+
+	/** ScopedValue.get() */
+	private static final MethodHandle GET;
+
+	static {
+		Object scopedValue = null;
+		MethodHandle where = null, run = null, isBound = null, get = null;
+		try {
+			Class<?> scopedValueClass = Class.forName("java.lang.ScopedValue");
+			Class<?> carrierClass = Class.forName("java.lang.ScopedValue$Carrier");
+			MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+			scopedValue = lookup.findStatic(scopedValueClass, "newInstance", MethodType.methodType(scopedValueClass)).invoke();
+			where = lookup.findStatic(scopedValueClass, "where", MethodType.methodType(carrierClass, scopedValueClass, Object.class)).bindTo(scopedValue);
+			run = lookup.findVirtual(carrierClass, "run", MethodType.methodType(void.class, Runnable.class));
+			isBound = lookup.findVirtual(scopedValueClass, "isBound", MethodType.methodType(boolean.class)).bindTo(scopedValue);
+			get = lookup.findVirtual(scopedValueClass, "get", MethodType.methodType(Object.class)).bindTo(scopedValue);
+			// 试运行一次，预览版 JDK 未开启 --enable-preview 时会在此处失败
+			Object carrier = where.invoke((Object) null);
+			run.invoke(carrier, (Runnable) () -> {});
+		} catch (Throwable e) {
+			scopedValue = null;
+		}
+		SCOPED_VALUE = scopedValue;
+		WHERE = where;
+		RUN = run;
+		IS_BOUND = isBound;
+		GET = get;
+	}
+
+	/**
+	 * 不支持 ScopedValue 时使用的 [Box存储器] (不可继承，避免创建子线程时复制)
+	 */
+	public static final ThreadLocal<Box> boxThreadLocal = new ThreadLocal<Box>();
+
+	/**
+	 * @return 当前 JDK 是否支持 ScopedValue
+	 */
+	public static boolean isScopedValueSupported() {
+		return SCOPED_VALUE != null;
+	}
+
+	/**
+	 * 初始化 [Box存储器]，并在其有效期间执行函数 (函数结束后 [Box存储器] 随即失效)
+	 * @param request {@link SaRequest}
+	 * @param response {@link SaResponse}
+	 * @param storage {@link SaStorage}
+	 * @param fun 要执行的函数
+	 */
+	public static void runWithBox(SaRequest request, SaResponse response, SaStorage storage, SaFunction fun) {
+		Box box = new Box(request, response, storage);
+		if(SCOPED_VALUE == null) {
+			Box oldBox = boxThreadLocal.get();
+			boxThreadLocal.set(box);
+			try {
+				fun.run();
+			} finally {
+				if(oldBox == null) {
+					boxThreadLocal.remove();
+				} else {
+					boxThreadLocal.set(oldBox);
+				}
+			}
+			return;
+		}
+		try {
+			RUN.invoke(WHERE.invoke((Object) box), (Runnable) fun::run);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new SaTokenException(e);
+		}
+	}
+
+	/**
+	 * 获取 [Box存储器]
+	 * @return see note
+	 */
+	public static Box getBox() {
+		if(SCOPED_VALUE == null) {
+			return boxThreadLocal.get();
+		}
+		try {
+			return (boolean) IS_BOUND.invoke() ? (Box) GET.invoke() : null;
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new SaTokenException(e);
+		}
+	}
+
+	/**
+	 * 获取 [Box存储器], 如果为空则抛出异常
+	 * @return see note
+	 */
+	public static Box getBoxNotNull() {
+		Box box = getBox();
+		if(box ==  null) {
+			throw new SaTokenException("未成功初始化上下文");
+		}
+		return box;
+	}
+
+	/**
+	 * 在 [Box存储器] 获取 [Request] 对象
+	 *
+	 * @return see note
+	 */
+	public static SaRequest getRequest() {
+		return getBoxNotNull().getRequest();
+	}
+
+	/**
+	 * 在 [Box存储器] 获取 [Response] 对象
+	 *
+	 * @return see note
+	 */
+	public static SaResponse getResponse() {
+		return getBoxNotNull().getResponse();
+	}
+
+	/**
+	 * 在 [Box存储器] 获取 [存储器] 对象
+	 *
+	 * @return see note
+	 */
+	public static SaStorage getStorage() {
+		return getBoxNotNull().getStorage();
+	}
+
+}
@@ -0,0 +1,43 @@
+package cn.dev33.satoken.dao;
+
+import java.util.Collection;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+/**
+ * 本地缓存失效通知总线 (供 SaTokenDaoNearCache 在集群节点间广播数据变更) 
+ * 
+ * @author kong
+ *
+ */
+public interface SaNearCacheBus {
+
+	/**
+	 * 广播一个key已发生变更，所有节点 (包括当前节点) 的订阅者都会收到通知 
+	 * @param key 发生变更的key 
+	 */
+	public void publish(String key);
+
+	/**
+	 * 广播一批key已发生变更 (默认逐个广播，基于网络的实现可重写为只发送一条消息) 
+	 * @param keyList 发生变更的key集合 
+	 */
+	public default void publish(Collection<String> keyList) {
+		for (String key : keyList) {
+			publish(key);
+		}
+	}
+
+	/**
+	 * 订阅变更通知 
+	 * @param listener 收到通知时执行的函数，参数为发生变更的key 
+	 */
+	public void subscribe(SaParamFunction<String> listener);
+
+	/**
+	 * 关闭总线，释放其占用的连接或线程 (关闭后不再收到通知) 
+	 */
+	public default void close() {
+	}
+
+}
@@ -0,0 +1,33 @@
+package cn.dev33.satoken.dao;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import cn.dev33.satoken.fun.SaParamFunction;
+
+/**
+ * 本地缓存失效通知总线默认实现类 (只在当前 JVM 内广播，适用于单机部署与测试环境) 
+ * 
+ * @author kong
+ *
+ */
+public class SaNearCacheBusDefaultImpl implements SaNearCacheBus {
+
+	/**
+	 * 所有订阅者 
+	 */
+	public List<SaParamFunction<String>> listenerList = new CopyOnWriteArrayList<>();
+
+	@Override
+	public void publish(String key) {
+		for (SaParamFunction<String> listener : listenerList) {
+			listener.run(key);
+		}
+	}
+
+	@Override
+	public void subscribe(SaParamFunction<String> listener) {
+		listenerList.add(listener);
+	}
+
+}
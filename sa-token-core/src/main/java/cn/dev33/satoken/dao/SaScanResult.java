@@ -0,0 +1,88 @@
+package cn.dev33.satoken.dao;
+
+import java.util.List;
+
+import cn.dev33.satoken.exception.SaTokenException;
+
+/**
+ * 游标式搜索结果Model: 一页数据 + 用于获取下一页的游标
+ * <p> 首次查询时游标传入 "0"，之后每次传入上一次返回的游标，直到返回的游标为 "0" 时代表遍历结束
+ *
+ * @author kong
+ *
+ */
+public class SaScanResult {
+
+	/** 游标值: 代表从头开始 / 遍历结束 */
+	public static final String CURSOR_END = "0";
+
+	/** 下一次查询时使用的游标 ("0"代表遍历结束) */
+	public String cursor;
+
+	/** 本次查询到的数据 */
+	public List<String> data;
+
+	public SaScanResult() {
+	}
+
+	/**
+	 * 构建一个搜索结果
+	 * @param cursor 下一次查询时使用的游标
+	 * @param data 本次查询到的数据
+	 */
+	public SaScanResult(String cursor, List<String> data) {
+		this.cursor = cursor;
+		this.data = data;
+	}
+
+	/**
+	 * @return 下一次查询时使用的游标 ("0"代表遍历结束)
+	 */
+	public String getCursor() {
+		return cursor;
+	}
+
+	/**
+	 * @param cursor 下一次查询时使用的游标 ("0"代表遍历结束)
+	 */
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+
+	/**
+	 * @return 本次查询到的数据
+	 */
+	public List<String> getData() {
+		return data;
+	}
+
+	/**
+	 * @param data 本次查询到的数据
+	 */
+	public void setData(List<String> data) {
+		this.data = data;
+	}
+
+	/**
+	 * @return 是否已经遍历结束
+	 */
+	public boolean isFinished() {
+		return cursor == null || CURSOR_END.equals(cursor);
+	}
+
+	/**
+	 * 校验每页期望获取的数量 (必须大于0，否则每页都是空的，游标永远不会结束)
+	 * @param count 每页期望获取的数量
+	 */
+	public static void checkCount(int count) {
+		if(count <= 0) {
+			throw new SaTokenException("游标式搜索的 count 必须大于0: " + count);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "SaScanResult [cursor=" + cursor + ", data=" + data + "]";
+	}
+
+}
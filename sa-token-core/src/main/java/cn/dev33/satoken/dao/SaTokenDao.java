@@ -1,8 +1,14 @@
 package cn.dev33.satoken.dao;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import cn.dev33.satoken.fun.SaFunction;
 import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.TokenSign;
+import cn.dev33.satoken.util.SaFoxUtil;
 
 /**
  * Sa-Token持久层接口 
@@ -162,6 +168,151 @@ public interface SaTokenDao {
 	}
 	
 	
+	/**
+	 * 持久化 Session 上单个值的写入 (调用前值已写入 session) 
+	 * <p> 默认实现为整体写回 Session；Redis 等实现可重写为只写入变化的字段 
+	 * @param session 要更新的session对象 
+	 * @param key 写入的key 
+	 * @param value 写入的值 
+	 */
+	public default void updateSessionData(SaSession session, String key, Object value) {
+		updateSession(session);
+	}
+	
+	/**
+	 * 持久化 Session 上单个值的删除 (调用前值已从 session 删除) 
+	 * <p> 默认实现为整体写回 Session；Redis 等实现可重写为只删除变化的字段 
+	 * @param session 要更新的session对象 
+	 * @param key 删除的key 
+	 */
+	public default void deleteSessionData(SaSession session, String key) {
+		updateSession(session);
+	}
+	
+	/**
+	 * 批量持久化 Session 上多个值的写入与删除 (调用前值已写入 session) 
+	 * <p> 默认实现为整体写回一次 Session；Redis 等实现可重写为在一次往返中只写入变化的字段 
+	 * @param session 要更新的session对象 
+	 * @param dataMap 变化的值 (值为 null 代表删除此key) 
+	 */
+	public default void updateSessionData(SaSession session, Map<String, Object> dataMap) {
+		updateSession(session);
+	}
+	
+	/**
+	 * 从持久库中直接读取 Session 上的单个值 (无需读取整个Session) 
+	 * @param sessionId sessionId 
+	 * @param key 要读取的key 
+	 * @return 值 (Session不存在或无此值时返回null) 
+	 */
+	public default Object getSessionData(String sessionId, String key) {
+		SaSession session = getSession(sessionId);
+		return session == null ? null : session.get(key);
+	}
+	
+	/**
+	 * 持久化 Session 上新增的token签名 (调用前签名已加入 session 的签名列表) 
+	 * <p> 默认实现为整体写回 Session；Redis 等实现可重写为原子操作，避免并发登录时相互覆盖签名 
+	 * @param session 要更新的session对象 
+	 * @param tokenSign 新增的token签名 
+	 * @param timeout Session的过期时间 (单位: 秒, 传入 NOT_VALUE_EXPIRE 代表保持不变) 
+	 */
+	public default void addTokenSign(SaSession session, TokenSign tokenSign, long timeout) {
+		if(timeout == NOT_VALUE_EXPIRE) {
+			updateSession(session);
+		} else {
+			setSession(session, timeout);
+		}
+	}
+	
+	/**
+	 * 持久化 Session 上被移除的token签名 (调用前签名已从 session 的签名列表移除) 
+	 * <p> 默认实现为整体写回 Session；Redis 等实现可重写为原子操作，并以持久库中剩余的签名回填 session 
+	 * @param session 要更新的session对象 
+	 * @param tokenValueList 被移除的token值集合 
+	 */
+	public default void removeTokenSign(SaSession session, Collection<String> tokenValueList) {
+		updateSession(session);
+	}
+	
+	
+	// --------------------- 批量读写 ---------------------
+	
+	/**
+	 * 批量获取Value 
+	 * <p> 默认实现为逐个读取，Redis 等实现可重写为一次网络交互完成 
+	 * @param keyList 键名称集合 
+	 * @return value集合 (与 keyList 顺序一一对应，不存在的key对应null) 
+	 */
+	public default List<String> multiGet(Collection<String> keyList) {
+		List<String> list = new ArrayList<String>(keyList.size());
+		for (String key : keyList) {
+			list.add(get(key));
+		}
+		return list;
+	}
+	
+	/**
+	 * 批量写入Value，并设定相同的存活时间 (单位: 秒)
+	 * @param map 键值对集合 
+	 * @param timeout 过期时间 (值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储)
+	 */
+	public default void multiSet(Map<String, String> map, long timeout) {
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			set(entry.getKey(), entry.getValue(), timeout);
+		}
+	}
+	
+	/**
+	 * 批量修改Value (各自的过期时间不变, 不存在的key将被忽略) 
+	 * @param map 键值对集合 
+	 */
+	public default void multiUpdate(Map<String, String> map) {
+		for (Map.Entry<String, String> entry : map.entrySet()) {
+			update(entry.getKey(), entry.getValue());
+		}
+	}
+	
+	/**
+	 * 批量删除Value 
+	 * @param keyList 键名称集合 
+	 */
+	public default void multiDelete(Collection<String> keyList) {
+		for (String key : keyList) {
+			delete(key);
+		}
+	}
+	
+	/**
+	 * 更新Value (过期时间不变)，仅当当前值等于期望值时才更新 
+	 * <p> 默认实现为先读后写，并非原子操作，持久层支持时应覆写为原子操作 
+	 * @param key 键名称 
+	 * @param expect 期望的当前值 
+	 * @param value 新值 
+	 * @return 是否更新成功 
+	 */
+	public default boolean compareAndUpdate(String key, String expect, String value) {
+		String current = get(key);
+		if(current == null || current.equals(expect) == false) {
+			return false;
+		}
+		update(key, value);
+		return true;
+	}
+	
+	
+	/**
+	 * 将一组写操作集中在一次批量提交中执行 (例如 Redis 的管道) 
+	 * <p> 默认实现为逐个顺序执行 
+	 * <p> 注意：函数内只能包含写操作 (包括内部会先读取再写入的方法，例如 update、updateObject 需要先读取剩余存活时间)，
+	 * 管道中的命令在提交前都得不到返回值，Redis 实现会在函数内执行读操作时直接抛出异常；需要的数据应在调用本方法之前读取完毕 
+	 * @param fun 要执行的写操作 
+	 */
+	public default void pipeline(SaFunction fun) {
+		fun.run();
+	}
+	
+	
 	// --------------------- 会话管理 ---------------------
 
 	/**
@@ -174,5 +325,22 @@ public interface SaTokenDao {
 	 */
 	public List<String> searchData(String prefix, String keyword, int start, int size);
 	
+	/**
+	 * 游标式搜索数据 (适合逐页遍历大量数据，每次只返回一页) 
+	 * <p> 默认实现以偏移量作为游标，基于 searchData 分页；Redis 等实现可重写为基于 SCAN 的非阻塞遍历 
+	 * @param prefix 前缀 
+	 * @param keyword 关键字 
+	 * @param cursor 游标 (首次查询传入"0"，之后传入上一次返回的游标) 
+	 * @param count 每次期望获取的数量 (必须大于0，某些实现中仅作为参考值，实际返回数量可能多于或少于此值) 
+	 * @return 查询结果 (返回的游标为"0"时代表遍历结束) 
+	 */
+	public default SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		SaScanResult.checkCount(count);
+		int start = SaFoxUtil.isEmpty(cursor) ? 0 : Integer.parseInt(cursor);
+		List<String> list = searchData(prefix, keyword, start, count);
+		String nextCursor = list.isEmpty() || list.size() < count ? SaScanResult.CURSOR_END : String.valueOf(start + list.size());
+		return new SaScanResult(nextCursor, list);
+	}
+	
 	
 }
@@ -1,12 +1,26 @@
 package cn.dev33.satoken.dao;
 
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.session.SaSession;
 import cn.dev33.satoken.util.SaFoxUtil;
 
 /**
@@ -15,57 +29,83 @@ import cn.dev33.satoken.util.SaFoxUtil;
  *
  */
 public class SaTokenDaoDefaultImpl implements SaTokenDao {
-	
+
+
+	/**
+	 * 数据条目集合, 每个key对应一个 [值 + 到期时间] 的不可变条目，整体替换以保证原子性
+	 */
+	public Map<String, DataEntry> entryMap = new ConcurrentHashMap<String, DataEntry>();
 
 	/**
-	 * 数据集合 
+	 * 数据集合 (entryMap 的视图，保留以兼容旧版本)
+	 * <p> put 时key已存在则只替换值、过期时间不变，key不存在则写入为 [永不过期]，可随后通过 expireMap.put 设定过期时间
 	 */
-	public Map<String, Object> dataMap = new ConcurrentHashMap<String, Object>();
+	public Map<String, Object> dataMap = new EntryView<Object>(e -> e.value,
+			(e, value) -> new DataEntry(value, e == null ? SaTokenDao.NEVER_EXPIRE : e.expirationTime));
 
 	/**
-	 * 过期时间集合 (单位: 毫秒) , 记录所有key的到期时间 [注意不是剩余存活时间] 
+	 * 过期时间集合 (单位: 毫秒) , 记录所有key的到期时间 [注意不是剩余存活时间] (entryMap 的视图，保留以兼容旧版本)
+	 * <p> put 时只修改已存在的key的过期时间，key不存在时不做任何操作 (需先通过 dataMap.put 写入值)
 	 */
-	public Map<String, Long> expireMap = new ConcurrentHashMap<String, Long>();
-	
+	public Map<String, Long> expireMap = new EntryView<Long>(e -> e.expirationTime,
+			(e, expirationTime) -> e == null ? null : new DataEntry(e.value, expirationTime));
+
+	/**
+	 * 过期时间索引 (时间轮) , 以 [到期时间所在的秒] 为槽位，记录在这一秒内到期的所有key 
+	 * <p> 定时清理时只需要按秒推进，处理已经到期的槽位，而无需遍历全部key 
+	 */
+	public Map<Long, Set<String>> expireWheel = new ConcurrentHashMap<Long, Set<String>>();
+
+	/**
+	 * 时间轮已经推进到的秒 (此秒及之前的槽位均已被处理过) 
+	 */
+	public volatile long wheelSecond = currentSecond() - 1;
+
 	/**
 	 * 构造函数
 	 */
 	public SaTokenDaoDefaultImpl() {
 		initRefreshThread();
 	}
-	
-	
+
+
 	// ------------------------ String 读写操作 
-	
+
 	@Override
 	public String get(String key) {
-		clearKeyByTimeout(key);
-		return (String)dataMap.get(key);
+		return (String)getValue(key);
 	}
 
 	@Override
 	public void set(String key, String value, long timeout) {
-		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
-			return;
-		}
-		dataMap.put(key, value);
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		putValue(key, value, timeout);
 	}
 
 	@Override
 	public void update(String key, String value) {
-		if(getKeyTimeout(key) == SaTokenDao.NOT_VALUE_EXPIRE) {
-			return;
-		}
-		dataMap.put(key, value);
+		updateValue(key, value);
 	}
 
 	@Override
 	public void delete(String key) {
-		dataMap.remove(key);
-		expireMap.remove(key);
+		removeKey(key);
 	}
-	
+
+	@Override
+	public boolean compareAndUpdate(String key, String expect, String value) {
+		for (;;) {
+			DataEntry entry = getEntry(key);
+			if(entry == null || entry.value.equals(expect) == false) {
+				return false;
+			}
+			DataEntry newEntry = new DataEntry(value, entry.expirationTime);
+			newEntry.visited = true;
+			if(entryMap.replace(key, entry, newEntry)) {
+				return true;
+			}
+		}
+	}
+
 	@Override
 	public long getTimeout(String key) {
 		return getKeyTimeout(key);
@@ -73,25 +113,20 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void updateTimeout(String key, long timeout) {
-		expireMap.put(key, System.currentTimeMillis() + timeout * 1000);
+		updateKeyTimeout(key, timeout);
 	}
 
-	
+
 	// ------------------------ Object 读写操作 
-	
+
 	@Override
 	public Object getObject(String key) {
-		clearKeyByTimeout(key);
-		return dataMap.get(key);
+		return getValue(key);
 	}
 
 	@Override
 	public void setObject(String key, Object object, long timeout) {
-		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
-			return;
-		}
-		dataMap.put(key, object);
-		expireMap.put(key, (timeout == SaTokenDao.NEVER_EXPIRE) ? (SaTokenDao.NEVER_EXPIRE) : (System.currentTimeMillis() + timeout * 1000));
+		putValue(key, object, timeout);
 	}
 
 	@Override
@@ -104,8 +139,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void deleteObject(String key) {
-		dataMap.remove(key);
-		expireMap.remove(key);
+		removeKey(key);
 	}
 
 	@Override
@@ -115,13 +149,178 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 
 	@Override
 	public void updateObjectTimeout(String key, long timeout) {
-		expireMap.put(key, System.currentTimeMillis() + timeout * 1000);
+		updateKeyTimeout(key, timeout);
 	}
-	
-	
+
+
 	// ------------------------ Session 读写操作 
 	// 使用接口默认实现 
-	
+
+
+	// ------------------------ 数据条目操作
+
+	/**
+	 * 获取指定key的有效条目, 如果已经过期则立即清除它并返回null
+	 * @param key 指定key 
+	 * @return 有效条目
+	 */
+	DataEntry getEntry(String key) {
+		DataEntry entry = entryMap.get(key);
+		if(entry == null) {
+			return null;
+		}
+		if(entry.isExpired(System.currentTimeMillis())) {
+			removeEntry(key, entry);
+			return null;
+		}
+		// 标记为最近访问过 (已标记时不再重复写入) 
+		if(entry.visited == false) {
+			entry.visited = true;
+		}
+		return entry;
+	}
+
+	/**
+	 * 获取指定key的值
+	 * @param key 指定key 
+	 * @return 值
+	 */
+	Object getValue(String key) {
+		DataEntry entry = getEntry(key);
+		return entry == null ? null : entry.value;
+	}
+
+	/**
+	 * 写入值，并设定存活时间
+	 * @param key 指定key 
+	 * @param value 值
+	 * @param timeout 存活时间 (单位: 秒, 值大于0时限时存储，值=-1时永久存储，值=0或小于-2时不存储)
+	 */
+	void putValue(String key, Object value, long timeout) {
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		DataEntry entry = new DataEntry(value, toExpirationTime(timeout));
+		DataEntry[] holder = new DataEntry[1];
+		entryMap.compute(key, (k, oldEntry) -> {
+			holder[0] = oldEntry;
+			relinkWheel(k, oldEntry, entry);
+			return entry;
+		});
+		DataEntry oldEntry = holder[0];
+		trackEvict(key, oldEntry, entry);
+		if(oldEntry == null) {
+			indexKey(key);
+			evictIfNeeded();
+		}
+	}
+
+	/**
+	 * 更新值 (过期时间不变)
+	 * @param key 指定key 
+	 * @param value 值
+	 */
+	void updateValue(String key, Object value) {
+		for (;;) {
+			DataEntry entry = getEntry(key);
+			if(entry == null) {
+				return;
+			}
+			DataEntry newEntry = new DataEntry(value, entry.expirationTime);
+			newEntry.visited = true;
+			if(entryMap.replace(key, entry, newEntry)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 修改指定key的剩余存活时间 (值不变)
+	 * @param key 指定key 
+	 * @param timeout 存活时间 (单位: 秒, -1代表永不过期) 
+	 */
+	void updateKeyTimeout(String key, long timeout) {
+		for (;;) {
+			DataEntry entry = getEntry(key);
+			if(entry == null) {
+				return;
+			}
+			DataEntry newEntry = new DataEntry(entry.value, toExpirationTime(timeout));
+			newEntry.visited = true;
+			if(replaceEntry(key, entry, newEntry)) {
+				trackEvict(key, entry, newEntry);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * 删除指定key (同时清除其时间轮槽位)
+	 * @param key 指定key 
+	 */
+	void removeKey(String key) {
+		DataEntry[] holder = new DataEntry[1];
+		entryMap.computeIfPresent(key, (k, entry) -> {
+			holder[0] = entry;
+			unlinkWheel(k, entry.expirationTime);
+			return null;
+		});
+		if(holder[0] != null) {
+			unindexKey(key);
+		}
+	}
+
+	/**
+	 * 删除指定key, 仅当其当前条目仍为指定条目时才删除 (避免误删并发写入的新值)
+	 * @param key 指定key 
+	 * @param entry 期望的条目
+	 * @return 是否删除成功 
+	 */
+	boolean removeEntry(String key, DataEntry entry) {
+		boolean[] removed = {false};
+		entryMap.computeIfPresent(key, (k, current) -> {
+			if(current != entry) {
+				return current;
+			}
+			unlinkWheel(k, entry.expirationTime);
+			removed[0] = true;
+			return null;
+		});
+		if(removed[0]) {
+			unindexKey(key);
+		}
+		return removed[0];
+	}
+
+	/**
+	 * 替换指定key的条目, 仅当其当前条目仍为指定条目时才替换 (expect 为null代表key不存在时才写入)
+	 * @param key 指定key 
+	 * @param expect 期望的当前条目
+	 * @param newEntry 新条目
+	 * @return 是否替换成功 
+	 */
+	boolean replaceEntry(String key, DataEntry expect, DataEntry newEntry) {
+		boolean[] replaced = {false};
+		entryMap.compute(key, (k, current) -> {
+			if(current != expect) {
+				return current;
+			}
+			relinkWheel(k, current, newEntry);
+			replaced[0] = true;
+			return newEntry;
+		});
+		return replaced[0];
+	}
+
+	/**
+	 * 将存活时间换算为到期时间
+	 * @param timeout 存活时间 (单位: 秒, -1代表永不过期) 
+	 * @return 到期时间 (单位: 毫秒)
+	 */
+	static long toExpirationTime(long timeout) {
+		return (timeout == SaTokenDao.NEVER_EXPIRE) ? SaTokenDao.NEVER_EXPIRE : (System.currentTimeMillis() + timeout * 1000);
+	}
+
 
 	// ------------------------ 过期时间相关操作 
 
@@ -130,65 +329,167 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 	 * @param key 指定key 
 	 */
 	void clearKeyByTimeout(String key) {
-		Long expirationTime = expireMap.get(key);
-		// 清除条件：如果不为空 && 不是[永不过期] && 已经超过过期时间 
-		if(expirationTime != null && expirationTime != SaTokenDao.NEVER_EXPIRE && expirationTime < System.currentTimeMillis()) {
-			dataMap.remove(key);
-			expireMap.remove(key);
+		getEntry(key);
+	}
+
+	/**
+	 * 条目替换时，将key从旧槽位移动到新槽位 
+	 * <p> 必须在 entryMap 对此key的 compute 中调用：同一个key的替换与槽位移动在桶锁内串行执行，
+	 * 否则并发写入时先写入者的摘除可能晚于后写入者的挂载，使key从它当前所在的槽位上丢失，过期后不再被清理 
+	 * @param key 指定key 
+	 * @param oldEntry 旧条目 (可为null)
+	 * @param newEntry 新条目
+	 */
+	void relinkWheel(String key, DataEntry oldEntry, DataEntry newEntry) {
+		if(oldEntry != null) {
+			if(oldEntry.expirationTime / 1000 == newEntry.expirationTime / 1000) {
+				return;
+			}
+			unlinkWheel(key, oldEntry.expirationTime);
 		}
+		linkWheel(key, newEntry.expirationTime);
+	}
+
+	/**
+	 * 将指定key挂载到时间轮对应的槽位上
+	 * @param key 指定key 
+	 * @param expirationTime 到期时间
+	 */
+	void linkWheel(String key, long expirationTime) {
+		// [永不过期] 的key不进入时间轮 
+		if(expirationTime == SaTokenDao.NEVER_EXPIRE) {
+			return;
+		}
+		for (;;) {
+			// 如果目标槽位已经被推进过了，则挂载到下一个待处理的槽位上 
+			long second = Math.max(expirationTime / 1000, wheelSecond + 1);
+			expireWheel.compute(second, (k, slot) -> {
+				if(slot == null) {
+					slot = ConcurrentHashMap.newKeySet();
+				}
+				slot.add(key);
+				return slot;
+			});
+			// 挂载期间清理线程推进越过了此槽位：该槽位可能是在被清理之后重新创建的，不会再被访问，改挂到下一个待处理的槽位上 
+			if(second > wheelSecond) {
+				return;
+			}
+			unlinkWheel(key, second * 1000);
+		}
+	}
+
+	/**
+	 * 将指定key从时间轮上摘除 
+	 * @param key 指定key 
+	 * @param expirationTime 此key原本的到期时间 
+	 */
+	void unlinkWheel(String key, long expirationTime) {
+		if(expirationTime == SaTokenDao.NEVER_EXPIRE) {
+			return;
+		}
+		// 槽位被摘空后一并移除，避免空槽位堆积 
+		expireWheel.computeIfPresent(expirationTime / 1000, (second, slot) -> {
+			slot.remove(key);
+			return slot.isEmpty() ? null : slot;
+		});
+	}
+
+	/**
+	 * 获取当前时间所在的秒 
+	 * @return / 
+	 */
+	static long currentSecond() {
+		return System.currentTimeMillis() / 1000;
 	}
 
 	/**
 	 * 获取指定key的剩余存活时间 (单位：秒)
 	 */
 	long getKeyTimeout(String key) {
-		// 先检查是否已经过期
-		clearKeyByTimeout(key);
-		// 获取过期时间 
-		Long expire = expireMap.get(key);
+		// 获取条目 (已过期的会被顺带清除)
+		DataEntry entry = getEntry(key);
 		// 如果根本没有这个值 
-		if(expire == null) {
+		if(entry == null) {
 			return SaTokenDao.NOT_VALUE_EXPIRE;
 		}
 		// 如果被标注为永不过期 
-		if(expire == SaTokenDao.NEVER_EXPIRE) {
+		if(entry.expirationTime == SaTokenDao.NEVER_EXPIRE) {
 			return SaTokenDao.NEVER_EXPIRE;
 		}
 		// ---- 计算剩余时间并返回 
-		long timeout = (expire - System.currentTimeMillis()) / 1000;
+		long timeout = (entry.expirationTime - System.currentTimeMillis()) / 1000;
 		// 小于零时，视为不存在 
 		if(timeout < 0) {
-			dataMap.remove(key);
-			expireMap.remove(key);
+			removeEntry(key, entry);
 			return SaTokenDao.NOT_VALUE_EXPIRE;
 		}
 		return timeout;
 	}
-	
-	
+
+
 	// --------------------- 定时清理过期数据  
-	
+
 	/**
 	 * 执行数据清理的线程
 	 */
 	public Thread refreshThread;
-	
+
 	/**
 	 * 是否继续执行数据清理的线程标记
 	 */
 	public volatile boolean refreshFlag;
-	
+
 
 	/**
 	 * 清理所有已经过期的key 
+	 * <p> 推进时间轮，只处理已经完整走过的秒所对应的槽位 
 	 */
 	public void refreshDataMap() {
-		Iterator<String> keys = expireMap.keySet().iterator();
-		while (keys.hasNext()) {
-			clearKeyByTimeout(keys.next());
+		// 只有完整走过的秒才能保证槽位内的key全部到期 
+		long endSecond = currentSecond() - 1;
+		long startSecond = wheelSecond + 1;
+		if(endSecond < startSecond) {
+			return;
+		}
+		// 如果需要推进的秒数多于现存槽位数 (例如系统时间发生了跳变)，则直接遍历槽位，避免空转 
+		if(endSecond - startSecond + 1 > expireWheel.size()) {
+			// 先推进游标再收集槽位，此后新挂载的key不会再落到游标之前的槽位上 
+			wheelSecond = endSecond;
+			List<Long> dueSeconds = new ArrayList<Long>();
+			for (Long second : expireWheel.keySet()) {
+				if(second <= endSecond) {
+					dueSeconds.add(second);
+				}
+			}
+			for (Long second : dueSeconds) {
+				clearSlot(second);
+			}
+			compactEvictQueues();
+			return;
+		}
+		// 逐秒推进 
+		for (long second = startSecond; second <= endSecond; second++) {
+			wheelSecond = second;
+			clearSlot(second);
 		}
+		compactEvictQueues();
 	}
-	
+
+	/**
+	 * 清理时间轮上指定槽位的所有key 
+	 * @param second 槽位所在的秒 
+	 */
+	void clearSlot(long second) {
+		Set<String> slot = expireWheel.remove(second);
+		if(slot == null) {
+			return;
+		}
+		for (String key : slot) {
+			// 槽位中可能残留已被重新设置过期时间的key，此处以 entryMap 中的真实值为准
+			clearKeyByTimeout(key);
+		}
+	}
+
 	/**
 	 * 初始化定时任务 
 	 */
@@ -226,7 +527,7 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 		});
 		this.refreshThread.start();
 	}
-	
+
 	/**
 	 * 结束定时任务
 	 */
@@ -235,20 +536,514 @@ public class SaTokenDaoDefaultImpl implements SaTokenDao {
 	}
 
 
-	
+
+
+	// --------------------- 容量上限与数据淘汰 
+
+	/** 淘汰等级: [last-activity] 数据, 最先被淘汰 */
+	public static final int EVICT_LEVEL_ACTIVITY = 0;
+
+	/** 淘汰等级: 普通数据 (token映射、Token-Session、临时数据等) */
+	public static final int EVICT_LEVEL_DATA = 1;
+
+	/** 淘汰等级: User-Session, 最后被淘汰 */
+	public static final int EVICT_LEVEL_SESSION = 2;
+
+	/** 淘汰等级: 不可淘汰 ([永不过期] 的数据) */
+	public static final int EVICT_LEVEL_NONE = -1;
+
+	/**
+	 * 淘汰队列, 每个淘汰等级对应一个 CLOCK 队列 (近似LRU: 被访问过的key获得一次重新排队的机会) 
+	 * <p> 队列中可能残留已被删除的key，淘汰时以 entryMap 中的真实值为准，并由定时清理线程定期压缩 
+	 */
+	public EvictQueue[] evictQueues = { new EvictQueue(), new EvictQueue(), new EvictQueue() };
+
+	/**
+	 * 累计淘汰的数据条数 
+	 */
+	public AtomicLong evictCount = new AtomicLong();
+
+	/**
+	 * 是否有线程正在执行淘汰 (同一时刻只允许一个线程执行淘汰，其它线程直接跳过) 
+	 */
+	AtomicBoolean evicting = new AtomicBoolean();
+
+	/**
+	 * 获取累计淘汰的数据条数 
+	 * @return / 
+	 */
+	public long getEvictCount() {
+		return evictCount.get();
+	}
+
+	/**
+	 * 获取指定数据的淘汰等级 (等级越小越先被淘汰) 
+	 * <p> 可重写此方法以自定义淘汰优先级 
+	 * @param key 指定key 
+	 * @param value 值
+	 * @param expirationTime 到期时间
+	 * @return 淘汰等级，返回 EVICT_LEVEL_NONE 代表不可淘汰 
+	 */
+	public int getEvictLevel(String key, Object value, long expirationTime) {
+		if(expirationTime == SaTokenDao.NEVER_EXPIRE) {
+			return EVICT_LEVEL_NONE;
+		}
+		if(key.contains(":last-activity:")) {
+			return EVICT_LEVEL_ACTIVITY;
+		}
+		if(value instanceof SaSession && key.contains(":session:")) {
+			return EVICT_LEVEL_SESSION;
+		}
+		return EVICT_LEVEL_DATA;
+	}
+
+	/**
+	 * 条目写入后，将新出现的可淘汰key加入淘汰队列 
+	 * @param key 指定key 
+	 * @param oldEntry 旧条目 (可为null)
+	 * @param newEntry 新条目
+	 */
+	void trackEvict(String key, DataEntry oldEntry, DataEntry newEntry) {
+		if(SaManager.getConfig().getDataMaxSize() <= 0) {
+			return;
+		}
+		// 旧条目已在队列中时无需重复入队 
+		if(oldEntry != null && oldEntry.expirationTime != SaTokenDao.NEVER_EXPIRE) {
+			return;
+		}
+		int level = getEvictLevel(key, newEntry.value, newEntry.expirationTime);
+		if(level != EVICT_LEVEL_NONE) {
+			evictQueues[level].offer(key);
+		}
+	}
+
+	/**
+	 * 如果数据条数超出上限，则按淘汰等级从低到高淘汰多余的数据 
+	 */
+	void evictIfNeeded() {
+		int maxSize = SaManager.getConfig().getDataMaxSize();
+		if(maxSize <= 0 || entryMap.size() <= maxSize) {
+			return;
+		}
+		if(evicting.compareAndSet(false, true) == false) {
+			return;
+		}
+		int evicted = 0;
+		try {
+			for (int level = 0; level < evictQueues.length; level++) {
+				int overSize = entryMap.size() - maxSize;
+				if(overSize <= 0) {
+					break;
+				}
+				evicted += evictLevel(level, overSize);
+			}
+		} finally {
+			evicting.set(false);
+		}
+		if(evicted > 0) {
+			evictCount.addAndGet(evicted);
+			SaManager.getSaTokenListener().doEvictData(evicted);
+		}
+	}
+
+	/**
+	 * 从指定等级的淘汰队列中淘汰数据 
+	 * @param level 淘汰等级 
+	 * @param overSize 需要淘汰的条数 
+	 * @return 实际淘汰的条数 
+	 */
+	int evictLevel(int level, int overSize) {
+		EvictQueue queue = evictQueues[level];
+		int evicted = 0;
+		// 每个key最多被检查两次 (第一次清除访问标记，第二次淘汰)，避免无限循环 
+		int budget = queue.size() * 2;
+		while (evicted < overSize && budget-- > 0) {
+			String key = queue.poll();
+			if(key == null) {
+				break;
+			}
+			DataEntry entry = entryMap.get(key);
+			// 已被删除的残留key 
+			if(entry == null) {
+				continue;
+			}
+			// 等级已发生变化 (例如被修改为永不过期)，移到对应的队列 
+			int nowLevel = getEvictLevel(key, entry.value, entry.expirationTime);
+			if(nowLevel != level) {
+				if(nowLevel != EVICT_LEVEL_NONE) {
+					evictQueues[nowLevel].offer(key);
+				}
+				continue;
+			}
+			// 最近被访问过，清除标记后重新排队 
+			if(entry.visited) {
+				entry.visited = false;
+				queue.offer(key);
+				continue;
+			}
+			if(removeEntry(key, entry)) {
+				evicted++;
+			}
+		}
+		return evicted;
+	}
+
+	/**
+	 * 压缩淘汰队列，清除其中残留的已删除key 
+	 */
+	void compactEvictQueues() {
+		if(evicting.compareAndSet(false, true) == false) {
+			return;
+		}
+		try {
+			for (int level = 0; level < evictQueues.length; level++) {
+				EvictQueue queue = evictQueues[level];
+				// 未开启容量上限时直接清空 
+				if(SaManager.getConfig().getDataMaxSize() <= 0) {
+					queue.clear();
+					continue;
+				}
+				// 残留key不多时无需压缩 
+				if(queue.size() <= entryMap.size() * 2 + 1024) {
+					continue;
+				}
+				int count = queue.size();
+				while (count-- > 0) {
+					String key = queue.poll();
+					if(key == null) {
+						break;
+					}
+					DataEntry entry = entryMap.get(key);
+					if(entry != null && getEvictLevel(key, entry.value, entry.expirationTime) == level) {
+						queue.offer(key);
+					}
+				}
+			}
+		} finally {
+			evicting.set(false);
+		}
+	}
+
 
 	// --------------------- 会话管理 
-	
+
+	/**
+	 * 前缀索引, 以 [被查询过的前缀] 为键，按字典序记录此前缀下的所有key 
+	 * <p> 首次按某个前缀查询时建立索引，之后随数据的写入与删除同步维护 
+	 */
+	public Map<String, NavigableSet<String>> prefixIndex = new ConcurrentHashMap<String, NavigableSet<String>>();
+
+	/**
+	 * 最多建立索引的前缀数量, 超出后新的前缀将退化为全量遍历查询 
+	 */
+	public int maxIndexPrefix = 16;
+
 	@Override
 	public List<String> searchData(String prefix, String keyword, int start, int size) {
-		return SaFoxUtil.searchList(expireMap.keySet(), prefix, keyword, start, size);
+		NavigableSet<String> index = getPrefixIndex(prefix);
+		if(index == null) {
+			return SaFoxUtil.searchList(entryMap.keySet(), prefix, keyword, start, size);
+		}
+		if(keyword == null) {
+			keyword = "";
+		}
+		// 按字典序遍历索引，跳过前 start 条后取 size 条即可返回，无需遍历全部key 
+		List<String> list = new ArrayList<String>();
+		int skip = start;
+		for (String key : index) {
+			if(start >= 0 && list.size() >= size) {
+				break;
+			}
+			if(key.indexOf(keyword) == -1) {
+				continue;
+			}
+			// 索引中可能残留并发建立索引时已被删除的key，此处以 entryMap 中的真实值为准 
+			if(getEntry(key) == null) {
+				if(entryMap.containsKey(key) == false) {
+					index.remove(key);
+				}
+				continue;
+			}
+			if(skip > 0) {
+				skip--;
+				continue;
+			}
+			list.add(key);
+		}
+		return list;
 	}
 
+	/**
+	 * 游标式搜索数据 (有前缀索引时以上一页的最后一个key作为游标，翻页无需再跳过前面的数据) 
+	 */
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		SaScanResult.checkCount(count);
+		NavigableSet<String> index = getPrefixIndex(prefix);
+		if(index == null) {
+			return SaTokenDao.super.scanData(prefix, keyword, cursor, count);
+		}
+		if(keyword == null) {
+			keyword = "";
+		}
+		boolean isFirst = SaFoxUtil.isEmpty(cursor) || SaScanResult.CURSOR_END.equals(cursor);
+		List<String> list = new ArrayList<String>();
+		String lastKey = null;
+		for (String key : isFirst ? index : index.tailSet(cursor, false)) {
+			if(list.size() >= count) {
+				return new SaScanResult(lastKey, list);
+			}
+			if(key.indexOf(keyword) == -1 || getEntry(key) == null) {
+				continue;
+			}
+			list.add(key);
+			lastKey = key;
+		}
+		return new SaScanResult(SaScanResult.CURSOR_END, list);
+	}
 
-	
+	/**
+	 * 获取指定前缀的索引, 尚未建立时立即建立 
+	 * @param prefix 前缀 
+	 * @return 索引 (前缀为空或前缀数量已达上限时返回null) 
+	 */
+	NavigableSet<String> getPrefixIndex(String prefix) {
+		if(SaFoxUtil.isEmpty(prefix)) {
+			return null;
+		}
+		NavigableSet<String> index = prefixIndex.get(prefix);
+		if(index != null || prefixIndex.size() >= maxIndexPrefix) {
+			return index;
+		}
+		NavigableSet<String> newIndex = new ConcurrentSkipListSet<String>();
+		index = prefixIndex.putIfAbsent(prefix, newIndex);
+		if(index != null) {
+			return index;
+		}
+		// 先注册再遍历，保证遍历期间新写入的key也能进入索引 
+		for (String key : entryMap.keySet()) {
+			if(key.startsWith(prefix)) {
+				newIndex.add(key);
+			}
+		}
+		return newIndex;
+	}
 
+	/**
+	 * 将新写入的key加入所有匹配的前缀索引 
+	 * @param key 指定key 
+	 */
+	void indexKey(String key) {
+		if(prefixIndex.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<String, NavigableSet<String>> e : prefixIndex.entrySet()) {
+			if(key.startsWith(e.getKey())) {
+				e.getValue().add(key);
+			}
+		}
+	}
+
+	/**
+	 * 将被删除的key从所有匹配的前缀索引中移除 (在 entryMap 删除此key之后调用) 
+	 * @param key 指定key 
+	 */
+	void unindexKey(String key) {
+		if(prefixIndex.isEmpty()) {
+			return;
+		}
+		for (Map.Entry<String, NavigableSet<String>> e : prefixIndex.entrySet()) {
+			if(key.startsWith(e.getKey())) {
+				e.getValue().remove(key);
+			}
+		}
+		// 删除之后、移出索引之前，此key可能又被并发写入，而写入方加入索引的动作可能被上面的移除抵消，此处重新加入 
+		// (反过来多出的索引项在查询时会以 entryMap 为准被过滤掉，因此只需保证不漏) 
+		if(entryMap.containsKey(key)) {
+			indexKey(key);
+		}
+	}
+
+
+	// --------------------- 内部类
+
+	/**
+	 * 数据条目: 值 + 到期时间 (不可变对象，修改时整体替换)
+	 * @author kong
+	 */
+	public static class DataEntry {
+
+		/** 值 */
+		public final Object value;
+
+		/** 到期时间 (单位: 毫秒, -1代表永不过期) */
+		public final long expirationTime;
+
+		/** 最近是否被访问过 (供淘汰策略使用, 允许并发下的短暂不一致) */
+		public boolean visited;
+
+		public DataEntry(Object value, long expirationTime) {
+			this.value = value;
+			this.expirationTime = expirationTime;
+		}
+
+		/**
+		 * 在指定时间点，此条目是否已经过期
+		 * @param now 当前时间戳
+		 * @return /
+		 */
+		public boolean isExpired(long now) {
+			return expirationTime != SaTokenDao.NEVER_EXPIRE && expirationTime < now;
+		}
+
+		@Override
+		public String toString() {
+			return "DataEntry [value=" + value + ", expirationTime=" + expirationTime + "]";
+		}
+
+	}
+
+	/**
+	 * 淘汰队列 (附带长度计数, 避免 ConcurrentLinkedQueue.size() 的遍历开销)
+	 * @author kong
+	 */
+	public static class EvictQueue {
+
+		/** 排队中的key */
+		final Queue<String> keys = new ConcurrentLinkedQueue<String>();
+
+		/** 队列长度 */
+		final AtomicInteger size = new AtomicInteger();
+
+		public void offer(String key) {
+			keys.offer(key);
+			size.incrementAndGet();
+		}
+
+		public String poll() {
+			String key = keys.poll();
+			if(key != null) {
+				size.decrementAndGet();
+			}
+			return key;
+		}
+
+		public int size() {
+			return size.get();
+		}
+
+		public void clear() {
+			while (poll() != null) {
+			}
+		}
+
+	}
+
+	/**
+	 * entryMap 的视图, 用于兼容旧版本的 dataMap、expireMap 字段 (读取、写入、删除均直接作用于 entryMap)
+	 * @author kong
+	 * @param <V> 视图值类型
+	 */
+	class EntryView<V> extends AbstractMap<String, V> {
+
+		/** 从条目中取出视图值 */
+		final Function<DataEntry, V> mapper;
+
+		/** 根据旧条目 (可为null) 与写入的视图值计算新条目 (返回null代表不写入) */
+		final BiFunction<DataEntry, V, DataEntry> putter;
+
+		EntryView(Function<DataEntry, V> mapper, BiFunction<DataEntry, V, DataEntry> putter) {
+			this.mapper = mapper;
+			this.putter = putter;
+		}
+
+		@Override
+		public V put(String key, V value) {
+			if(key == null || value == null) {
+				throw new NullPointerException();
+			}
+			for (;;) {
+				DataEntry entry = entryMap.get(key);
+				DataEntry newEntry = putter.apply(entry, value);
+				if(newEntry == null) {
+					return null;
+				}
+				if(entry == null) {
+					if(replaceEntry(key, null, newEntry)) {
+						trackEvict(key, null, newEntry);
+						indexKey(key);
+						evictIfNeeded();
+						return null;
+					}
+				} else if(replaceEntry(key, entry, newEntry)) {
+					trackEvict(key, entry, newEntry);
+					return mapper.apply(entry);
+				}
+			}
+		}
+
+		@Override
+		public V get(Object key) {
+			DataEntry entry = entryMap.get(key);
+			return entry == null ? null : mapper.apply(entry);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return entryMap.containsKey(key);
+		}
+
+		@Override
+		public V remove(Object key) {
+			DataEntry entry = entryMap.get(key);
+			if(entry == null) {
+				return null;
+			}
+			removeKey((String)key);
+			return mapper.apply(entry);
+		}
+
+		@Override
+		public int size() {
+			return entryMap.size();
+		}
+
+		@Override
+		public Set<String> keySet() {
+			return entryMap.keySet();
+		}
+
+		@Override
+		public Set<Map.Entry<String, V>> entrySet() {
+			return new AbstractSet<Map.Entry<String, V>>() {
+				@Override
+				public Iterator<Map.Entry<String, V>> iterator() {
+					Iterator<Map.Entry<String, DataEntry>> it = entryMap.entrySet().iterator();
+					return new Iterator<Map.Entry<String, V>>() {
+						String lastKey;
+						@Override
+						public boolean hasNext() {
+							return it.hasNext();
+						}
+						@Override
+						public Map.Entry<String, V> next() {
+							Map.Entry<String, DataEntry> e = it.next();
+							lastKey = e.getKey();
+							return new SimpleImmutableEntry<String, V>(lastKey, mapper.apply(e.getValue()));
+						}
+						@Override
+						public void remove() {
+							removeKey(lastKey);
+						}
+					};
+				}
+				@Override
+				public int size() {
+					return entryMap.size();
+				}
+			};
+		}
+
+	}
 
-	
-	
-	
 }
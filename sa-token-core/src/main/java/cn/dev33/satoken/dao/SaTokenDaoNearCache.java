@@ -0,0 +1,411 @@
+package cn.dev33.satoken.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.fun.SaRetFunction;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.TokenSign;
+import cn.dev33.satoken.util.SaLocalCache;
+
+/**
+ * Sa-Token 持久层装饰类: 在任意 SaTokenDao 前增加一层本地缓存 (L1)
+ *
+ * <p> 只缓存 get / getObject 的读取结果 (包括值不存在的结果)，每条缓存只在 timeout 毫秒内有效；
+ * 对可缓存的key的写入、删除操作都会先清除本地缓存，再通过 SaNearCacheBus 通知其它节点清除，
+ * 因此在通知正常送达时，注销、踢人下线等操作会立即在集群内生效，通知丢失时最迟也会在 timeout 毫秒后生效
+ *
+ * <p> [最后操作时间] 这类每次续签都会写入的key不做缓存 (见 isCacheableKey)，写入时也不必广播；
+ * 折叠存储模式下续签使用 compareAndUpdate 改写 token 映射值，只改变其中的最后操作时间，因此只更新本节点的缓存，
+ * 其它节点最多在 timeout 毫秒内读到较早的最后操作时间
+ *
+ * <p> 使用方式：
+ * <pre>
+ * 		SaManager.setSaTokenDao(new SaTokenDaoNearCache(saTokenDao, saNearCacheBus));
+ * </pre>
+ *
+ * @author kong
+ *
+ */
+public class SaTokenDaoNearCache implements SaTokenDao {
+
+	/** 被装饰的持久层对象 */
+	public SaTokenDao target;
+
+	/** 缓存失效通知总线 */
+	public SaNearCacheBus bus;
+
+	/** 本地缓存 (默认每条有效期 3000 毫秒，这也是集群内数据不一致的最长时间，最多存储 10000 条) */
+	public SaLocalCache<Object> cache = new SaLocalCache<>(3000, 10000);
+
+	/** 当前线程在 pipeline 中积攒的待失效key (不在 pipeline 中时为null) */
+	protected final ThreadLocal<List<String>> pendingKeyList = new ThreadLocal<>();
+
+	/**
+	 * 构建一个只在当前 JVM 内广播失效通知的本地缓存
+	 * @param target 被装饰的持久层对象
+	 */
+	public SaTokenDaoNearCache(SaTokenDao target) {
+		this(target, new SaNearCacheBusDefaultImpl());
+	}
+
+	/**
+	 * 构建一个本地缓存
+	 * @param target 被装饰的持久层对象
+	 * @param bus 缓存失效通知总线
+	 */
+	public SaTokenDaoNearCache(SaTokenDao target, SaNearCacheBus bus) {
+		this.target = target;
+		this.bus = bus;
+		bus.subscribe(key -> cache.remove(key));
+	}
+
+	/**
+	 * 设置每条本地缓存的有效期
+	 * @param timeout 有效期 (单位: 毫秒)
+	 * @return 对象自身
+	 */
+	public SaTokenDaoNearCache setTimeout(long timeout) {
+		this.cache.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * 设置本地缓存最多存储的条数
+	 * @param maxSize 条数
+	 * @return 对象自身
+	 */
+	public SaTokenDaoNearCache setMaxSize(int maxSize) {
+		this.cache.maxSize = maxSize;
+		return this;
+	}
+
+	/**
+	 * 关闭缓存失效通知总线 (应用停止时调用)
+	 */
+	public void close() {
+		bus.close();
+	}
+
+
+	// ------------------------ 本地缓存操作
+
+	/**
+	 * 判断一个key的读取结果是否需要缓存，不需要缓存的key写入时也无需广播
+	 * <p> 默认不缓存 [最后操作时间] 与 Session，可重写此方法调整
+	 * @param key 键名称
+	 * @return /
+	 */
+	public boolean isCacheableKey(String key) {
+		return key.contains(":last-activity:") == false && key.contains(":session:") == false;
+	}
+
+	/**
+	 * 读取一个值，本地缓存未命中时从被装饰对象读取并写入缓存
+	 * @param key 键名称
+	 * @param loader 从被装饰对象读取的函数
+	 * @return 值
+	 */
+	protected Object getThrough(String key, SaRetFunction loader) {
+		if(isCacheableKey(key) == false) {
+			return loader.run();
+		}
+		SaLocalCache.Entry<Object> entry = cache.get(key);
+		if(entry != null) {
+			return entry.value;
+		}
+		long version = cache.version(key);
+		Object value = loader.run();
+		cache.put(key, value, version);
+		return value;
+	}
+
+	/**
+	 * 一个key的值发生了变更: 清除本地缓存，并通知其它节点 (在 pipeline 中时积攒到 pipeline 结束后一次性处理)
+	 * @param key 键名称
+	 */
+	public void invalidate(String key) {
+		if(isCacheableKey(key) == false) {
+			return;
+		}
+		List<String> pending = pendingKeyList.get();
+		if(pending != null) {
+			pending.add(key);
+			return;
+		}
+		cache.remove(key);
+		bus.publish(key);
+	}
+
+	/**
+	 * 一批key的值发生了变更: 清除本地缓存，并通过一次广播通知其它节点
+	 * @param keyList 键名称集合
+	 */
+	public void invalidate(Collection<String> keyList) {
+		List<String> list = new ArrayList<>(keyList.size());
+		for (String key : keyList) {
+			if(isCacheableKey(key)) {
+				list.add(key);
+			}
+		}
+		if(list.isEmpty()) {
+			return;
+		}
+		List<String> pending = pendingKeyList.get();
+		if(pending != null) {
+			pending.addAll(list);
+			return;
+		}
+		for (String key : list) {
+			cache.remove(key);
+		}
+		bus.publish(list);
+	}
+
+	/**
+	 * 清空本地缓存
+	 */
+	public void clearCache() {
+		cache.clear();
+	}
+
+
+	// ------------------------ String 读写操作
+
+	@Override
+	public String get(String key) {
+		return (String) getThrough(key, () -> target.get(key));
+	}
+
+	@Override
+	public void set(String key, String value, long timeout) {
+		target.set(key, value, timeout);
+		invalidate(key);
+	}
+
+	@Override
+	public void update(String key, String value) {
+		target.update(key, value);
+		invalidate(key);
+	}
+
+	@Override
+	public void delete(String key) {
+		target.delete(key);
+		invalidate(key);
+	}
+
+	@Override
+	public long getTimeout(String key) {
+		return target.getTimeout(key);
+	}
+
+	@Override
+	public boolean compareAndUpdate(String key, String expect, String value) {
+		// 只用于续签时改写折叠存储的最后操作时间，无需通知其它节点，只更新本节点的缓存
+		long version = cache.version(key);
+		boolean result = target.compareAndUpdate(key, expect, value);
+		if(result && isCacheableKey(key) && pendingKeyList.get() == null) {
+			cache.put(key, value, version);
+		} else {
+			cache.remove(key);
+		}
+		return result;
+	}
+
+	@Override
+	public void updateTimeout(String key, long timeout) {
+		// 值没有变化，只需清除本地缓存，无需通知其它节点
+		target.updateTimeout(key, timeout);
+		cache.remove(key);
+	}
+
+
+	// ------------------------ Object 读写操作
+
+	@Override
+	public Object getObject(String key) {
+		return getThrough(key, () -> target.getObject(key));
+	}
+
+	@Override
+	public void setObject(String key, Object object, long timeout) {
+		target.setObject(key, object, timeout);
+		invalidate(key);
+	}
+
+	@Override
+	public void updateObject(String key, Object object) {
+		target.updateObject(key, object);
+		invalidate(key);
+	}
+
+	@Override
+	public void deleteObject(String key) {
+		target.deleteObject(key);
+		invalidate(key);
+	}
+
+	@Override
+	public long getObjectTimeout(String key) {
+		return target.getObjectTimeout(key);
+	}
+
+	@Override
+	public void updateObjectTimeout(String key, long timeout) {
+		target.updateObjectTimeout(key, timeout);
+		cache.remove(key);
+	}
+
+
+	// ------------------------ Session 读写操作 (不缓存，直接交由被装饰对象处理)
+
+	@Override
+	public SaSession getSession(String sessionId) {
+		return target.getSession(sessionId);
+	}
+
+	@Override
+	public void setSession(SaSession session, long timeout) {
+		target.setSession(session, timeout);
+	}
+
+	@Override
+	public void updateSession(SaSession session) {
+		target.updateSession(session);
+	}
+
+	@Override
+	public void deleteSession(String sessionId) {
+		target.deleteSession(sessionId);
+	}
+
+	@Override
+	public long getSessionTimeout(String sessionId) {
+		return target.getSessionTimeout(sessionId);
+	}
+
+	@Override
+	public void updateSessionTimeout(String sessionId, long timeout) {
+		target.updateSessionTimeout(sessionId, timeout);
+	}
+
+	@Override
+	public void updateSessionData(SaSession session, String key, Object value) {
+		target.updateSessionData(session, key, value);
+	}
+
+	@Override
+	public void updateSessionData(SaSession session, Map<String, Object> dataMap) {
+		target.updateSessionData(session, dataMap);
+	}
+
+	@Override
+	public void deleteSessionData(SaSession session, String key) {
+		target.deleteSessionData(session, key);
+	}
+
+	@Override
+	public Object getSessionData(String sessionId, String key) {
+		return target.getSessionData(sessionId, key);
+	}
+
+	@Override
+	public void addTokenSign(SaSession session, TokenSign tokenSign, long timeout) {
+		target.addTokenSign(session, tokenSign, timeout);
+	}
+
+	@Override
+	public void removeTokenSign(SaSession session, Collection<String> tokenValueList) {
+		target.removeTokenSign(session, tokenValueList);
+	}
+
+
+	// ------------------------ 批量操作
+
+	@Override
+	public List<String> multiGet(Collection<String> keyList) {
+		List<String> valueList = new ArrayList<>(keyList.size());
+		List<String> missKeyList = new ArrayList<>();
+		List<Integer> missIndexList = new ArrayList<>();
+		List<Long> missVersionList = new ArrayList<>();
+		for (String key : keyList) {
+			SaLocalCache.Entry<Object> entry = isCacheableKey(key) ? cache.get(key) : null;
+			if(entry == null) {
+				missKeyList.add(key);
+				missIndexList.add(valueList.size());
+				missVersionList.add(cache.version(key));
+			}
+			valueList.add(entry == null ? null : (String) entry.value);
+		}
+		if(missKeyList.isEmpty() == false) {
+			List<String> missValueList = target.multiGet(missKeyList);
+			for (int i = 0; i < missKeyList.size(); i++) {
+				String key = missKeyList.get(i);
+				valueList.set(missIndexList.get(i), missValueList.get(i));
+				if(isCacheableKey(key)) {
+					cache.put(key, missValueList.get(i), missVersionList.get(i));
+				}
+			}
+		}
+		return valueList;
+	}
+
+	@Override
+	public void multiSet(Map<String, String> map, long timeout) {
+		target.multiSet(map, timeout);
+		invalidate(map.keySet());
+	}
+
+	@Override
+	public void multiUpdate(Map<String, String> map) {
+		target.multiUpdate(map);
+		invalidate(map.keySet());
+	}
+
+	@Override
+	public void multiDelete(Collection<String> keyList) {
+		target.multiDelete(keyList);
+		invalidate(keyList);
+	}
+
+	@Override
+	public void pipeline(SaFunction fun) {
+		// 嵌套调用时由最外层统一处理
+		if(pendingKeyList.get() != null) {
+			target.pipeline(fun);
+			return;
+		}
+		// pipeline 中的写入在结束时才真正执行，因此失效操作也积攒到结束后，通过一次广播通知其它节点
+		List<String> pending = new ArrayList<>();
+		pendingKeyList.set(pending);
+		try {
+			target.pipeline(fun);
+		} finally {
+			pendingKeyList.remove();
+			if(pending.isEmpty() == false) {
+				for (String key : pending) {
+					cache.remove(key);
+				}
+				bus.publish(pending);
+			}
+		}
+	}
+
+
+	// ------------------------ 会话管理
+
+	@Override
+	public List<String> searchData(String prefix, String keyword, int start, int size) {
+		return target.searchData(prefix, keyword, start, size);
+	}
+
+	@Override
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		return target.scanData(prefix, keyword, cursor, count);
+	}
+
+}
@@ -69,4 +69,23 @@ public interface SaTokenListener {
 	 */
 	public void doLogoutSession(String id);
 	
+	/**
+	 * 每次默认dao层实现类因数据条数超出上限而淘汰数据时触发 
+	 * @param evictCount 本次被淘汰的数据条数 
+	 */
+	public default void doEvictData(int evictCount) {
+		
+	}
+	
+	/**
+	 * 每次延迟写入的 Session 在请求收尾时写入持久库失败时触发 (此时响应可能已经发出，异常无法再抛给调用方) 
+	 * <p> 默认输出到标准错误流，可重写此方法接入自己的日志框架或告警 
+	 * @param sessionId SessionId 
+	 * @param e 写入时发生的异常 
+	 */
+	public default void doSessionFlushFail(String sessionId, Throwable e) {
+		System.err.println("SaLog -->: Session[" + sessionId + "] 延迟写入失败，本次请求对该 Session 的修改已丢失");
+		e.printStackTrace();
+	}
+	
 }
@@ -78,6 +78,14 @@ public class SaTokenListenerDefaultImpl implements SaTokenListener {
 		println("Session[" + id + "]注销成功");
 	}
 
+	/**
+	 * 每次淘汰数据时触发
+	 */
+	@Override
+	public void doEvictData(int evictCount) {
+		println("数据条数超出上限，淘汰[" + evictCount + "]条数据");
+	}
+
 	/**
 	 * 日志输出的前缀
 	 */
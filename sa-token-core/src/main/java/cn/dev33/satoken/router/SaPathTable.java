@@ -0,0 +1,306 @@
+package cn.dev33.satoken.router;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.context.SaTokenContext;
+
+/**
+ * 路由表: 将一组路由匹配符预先编译，用于过滤器中 [拦截路由] / [放行路由] 这类固定且数量较多的集合
+ *
+ * <p> 编译结果分为三部分：
+ * <p> 1. 不带通配符的匹配符放入 HashSet，与请求路径完全相同时只需一次哈希查找即可判定命中
+ * <p> 2. 全部匹配符按通配符之前的固定目录放入一棵按路径分段的前缀树，匹配时只有沿请求路径走到的节点上的匹配符才需要交给 SaTokenContext.matchPath 判断，
+ *     例如请求 /user/info 时，挂在 /static、/api 下的匹配符会被直接跳过
+ * <p> 3. 每个请求路径的匹配结果会被缓存 (条数与路径总字符数均有上限，超出后清空重建；过长的路径不缓存，避免大量随机长路径的请求占用内存)
+ *
+ * <p> 前缀树只用于缩小候选范围，最终是否命中仍由当前 SaTokenContext 的 matchPath 决定，因此与逐个调用 SaRouter.isMatch 的结果一致
+ *
+ * @author kong
+ *
+ */
+public class SaPathTable {
+
+	/**
+	 * 判定为通配符的字符 (包括 Ant 风格的 * ? 与路径变量 { )
+	 */
+	public static final String WILDCARD_CHARS = "*?{";
+
+	/**
+	 * 匹配结果缓存最多存储的条数 (超出后清空重建)
+	 */
+	public static int cacheMaxSize = 10000;
+
+	/**
+	 * 匹配结果缓存中全部路径的字符数之和的上限 (超出后清空重建)
+	 */
+	public static long cacheMaxChars = 256 * 1024;
+
+	/**
+	 * 可以被缓存的路径的最大长度 (更长的路径每次都重新匹配)
+	 */
+	public static int cacheMaxPathLength = 256;
+
+	/** 编译时使用的路由匹配符集合 */
+	public final List<String> sourceList;
+
+	/** 编译时 sourceList 的长度 (用于判断集合在编译后是否又被追加了元素) */
+	public final int sourceSize;
+
+	/** 不带通配符的匹配符 */
+	public final Set<String> exactSet = new HashSet<>();
+
+	/** 按路径分段的前缀树 */
+	public final Node root = new Node();
+
+	/** 匹配结果缓存 (以请求路径为键) */
+	public final Map<String, Boolean> cache = new ConcurrentHashMap<>();
+
+	/** 匹配结果缓存中全部路径的字符数之和 */
+	public final AtomicLong cacheChars = new AtomicLong();
+
+	/** 写入 cache 时使用的 SaTokenContext，上下文发生变化时需要清空 cache */
+	public volatile SaTokenContext cacheContext;
+
+	/**
+	 * 编译一组路由匹配符
+	 * @param patterns 路由匹配符集合
+	 */
+	public SaPathTable(List<String> patterns) {
+		this.sourceList = patterns;
+		this.sourceSize = patterns == null ? 0 : patterns.size();
+		if(patterns == null) {
+			return;
+		}
+		for (String pattern : patterns) {
+			if(pattern == null) {
+				continue;
+			}
+			if(isExact(pattern)) {
+				exactSet.add(pattern);
+			}
+			Node node = root;
+			// 带有连续分隔符或空白字符的匹配符，各框架的规范化方式不一，不参与前缀过滤
+			if(pattern.contains("//") == false && hasWhitespace(pattern) == false) {
+				for (String segment : splitPath(fixedPrefix(pattern))) {
+					node = node.children.computeIfAbsent(segment, k -> new Node());
+				}
+			}
+			node.patterns.add(pattern);
+		}
+	}
+
+	/**
+	 * 判断此路由表是否仍与指定集合一致 (集合被替换或追加了元素时需要重新编译)
+	 * @param patterns 路由匹配符集合
+	 * @return /
+	 */
+	public boolean isCompiledFrom(List<String> patterns) {
+		return sourceList == patterns && sourceSize == (patterns == null ? 0 : patterns.size());
+	}
+
+	/**
+	 * 路由匹配
+	 * @param path 被匹配的路由
+	 * @return 是否命中其中任意一个匹配符
+	 */
+	public boolean match(String path) {
+		if(path == null || sourceSize == 0) {
+			return false;
+		}
+		if(exactSet.contains(path)) {
+			return true;
+		}
+		SaTokenContext context = SaManager.getSaTokenContextOrSecond();
+		if(path.length() > cacheMaxPathLength) {
+			return doMatch(context, path);
+		}
+		if(cacheContext != context) {
+			clearCache();
+			cacheContext = context;
+		}
+		Boolean result = cache.get(path);
+		if(result == null) {
+			result = doMatch(context, path);
+			if(cache.size() >= cacheMaxSize || cacheChars.get() + path.length() > cacheMaxChars) {
+				clearCache();
+			}
+			if(cache.put(path, result) == null) {
+				cacheChars.addAndGet(path.length());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * 路由匹配 (使用当前URI)
+	 * @return 是否命中其中任意一个匹配符
+	 */
+	public boolean matchCurrURI() {
+		return match(SaHolder.getRequest().getRequestPath());
+	}
+
+	/**
+	 * 路由匹配 (不读写匹配结果缓存，供自行缓存结果的调用方使用)
+	 * @param context 上下文
+	 * @param path 被匹配的路由
+	 * @return 是否命中其中任意一个匹配符
+	 */
+	public boolean matchNoCache(SaTokenContext context, String path) {
+		if(path == null || sourceSize == 0) {
+			return false;
+		}
+		return exactSet.contains(path) || doMatch(context, path);
+	}
+
+	/**
+	 * 沿前缀树取出候选匹配符，逐个交给 SaTokenContext 判断
+	 * @param context 上下文
+	 * @param path 被匹配的路由
+	 * @return 是否命中
+	 */
+	protected boolean doMatch(SaTokenContext context, String path) {
+		// 带有连续分隔符或空白字符的路径，不做前缀过滤，全部匹配符都作为候选
+		if(path.contains("//") || hasWhitespace(path)) {
+			for (String pattern : sourceList) {
+				if(pattern != null && context.matchPath(pattern, path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		Node node = root;
+		if(matchAny(context, node.patterns, path)) {
+			return true;
+		}
+		for (String segment : splitPath(path)) {
+			node = node.children.get(segment);
+			if(node == null) {
+				return false;
+			}
+			if(matchAny(context, node.patterns, path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 判断一组匹配符中是否有任意一个可以匹配路径
+	 * @param context 上下文
+	 * @param patterns 匹配符
+	 * @param path 被匹配的路由
+	 * @return /
+	 */
+	protected boolean matchAny(SaTokenContext context, List<String> patterns, String path) {
+		for (String pattern : patterns) {
+			if(context.matchPath(pattern, path)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 清空匹配结果缓存
+	 */
+	public void clearCache() {
+		cache.clear();
+		cacheChars.set(0);
+	}
+
+
+	// ------------------------ 工具方法
+
+	/**
+	 * 判断匹配符是否不带任何通配符
+	 * @param pattern 匹配符
+	 * @return /
+	 */
+	public static boolean isExact(String pattern) {
+		return indexOfWildcard(pattern) == -1;
+	}
+
+	/**
+	 * 获取匹配符中通配符之前的固定目录，例如: /static/img/*.png -> /static/img，/static/** -> /static，/user* -> 空字符串
+	 * @param pattern 匹配符
+	 * @return 固定目录 (不带通配符的匹配符返回其自身)
+	 */
+	public static String fixedPrefix(String pattern) {
+		int index = indexOfWildcard(pattern);
+		if(index == -1) {
+			return pattern;
+		}
+		int slash = pattern.lastIndexOf('/', index);
+		return slash <= 0 ? "" : pattern.substring(0, slash);
+	}
+
+	/**
+	 * 将路径拆分为小写的目录片段 (忽略空片段)，部分框架的路由匹配不区分大小写，因此前缀树统一按小写存储
+	 * @param path 路径
+	 * @return 片段集合
+	 */
+	public static List<String> splitPath(String path) {
+		List<String> list = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i <= path.length(); i++) {
+			if(i == path.length() || path.charAt(i) == '/') {
+				if(i > start) {
+					list.add(path.substring(start, i).toLowerCase());
+				}
+				start = i + 1;
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * 获取第一个通配符的位置
+	 * @param pattern 匹配符
+	 * @return 位置，没有通配符时返回 -1
+	 */
+	static int indexOfWildcard(String pattern) {
+		for (int i = 0; i < pattern.length(); i++) {
+			if(WILDCARD_CHARS.indexOf(pattern.charAt(i)) != -1) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 判断字符串中是否含有空白字符
+	 * @param str 字符串
+	 * @return /
+	 */
+	static boolean hasWhitespace(String str) {
+		for (int i = 0; i < str.length(); i++) {
+			if(Character.isWhitespace(str.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 前缀树节点
+	 */
+	public static class Node {
+
+		/** 子节点 (以目录片段为键) */
+		public final Map<String, Node> children = new HashMap<>();
+
+		/** 固定目录恰好到此节点为止的匹配符 */
+		public final List<String> patterns = new ArrayList<>();
+
+	}
+
+}
@@ -0,0 +1,207 @@
+package cn.dev33.satoken.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.fun.SaFunction;
+
+/**
+ * 路由规则: 规则集 {@link SaRouteRuleSet} 中的一条规则，在项目启动时声明，之后每次请求只需判断是否命中
+ *
+ * <p> 写法与 SaRouterStaff 的链式调用保持一致，例如：
+ * <pre>
+ * 	ruleSet.rule().match("/admin/**").notMatch("/admin/login").match(SaHttpMethod.POST).check(() -&gt; StpUtil.checkRole("admin")).stop();
+ * </pre>
+ * <p> 多次调用 match / notMatch 时，各条件之间为 "并且" 关系，同一次调用中的多个匹配符之间为 "或者" 关系
+ *
+ * @author kong
+ *
+ */
+public class SaRouteRule {
+
+	/** 所属的规则集 */
+	public final SaRouteRuleSet ruleSet;
+
+	/** 路由匹配条件 (每一项都需要命中) */
+	public final List<SaPathTable> includeTableList = new ArrayList<>();
+
+	/** 路由匹配排除条件 (每一项都不能命中) */
+	public final List<SaPathTable> excludeTableList = new ArrayList<>();
+
+	/** 允许的请求方式 (按 SaHttpMethod 的序号存储为位图，默认允许全部) */
+	public int methodMask = -1;
+
+	/** 命中后执行的校验函数 */
+	public SaFunction action;
+
+	/** 命中后是否停止匹配后续规则 */
+	public boolean stop;
+
+	/** 命中后向前端返回的结果 (设置后同时停止匹配后续规则) */
+	public Object backResult;
+
+	public SaRouteRule(SaRouteRuleSet ruleSet) {
+		this.ruleSet = ruleSet;
+	}
+
+
+	// ----------------- path匹配
+
+	/**
+	 * 路由匹配
+	 * @param patterns 路由匹配符数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule match(String... patterns) {
+		return match(Arrays.asList(patterns));
+	}
+
+	/**
+	 * 路由匹配排除
+	 * @param patterns 路由匹配符排除数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatch(String... patterns) {
+		return notMatch(Arrays.asList(patterns));
+	}
+
+	/**
+	 * 路由匹配
+	 * @param patterns 路由匹配符集合
+	 * @return 对象自身
+	 */
+	public SaRouteRule match(List<String> patterns) {
+		includeTableList.add(new SaPathTable(new ArrayList<>(patterns)));
+		ruleSet.clearCache();
+		return this;
+	}
+
+	/**
+	 * 路由匹配排除
+	 * @param patterns 路由匹配符排除集合
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatch(List<String> patterns) {
+		excludeTableList.add(new SaPathTable(new ArrayList<>(patterns)));
+		ruleSet.clearCache();
+		return this;
+	}
+
+
+	// ----------------- Method匹配
+
+	/**
+	 * Http请求方式匹配 (Enum)
+	 * @param methods Http请求方法断言数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule match(SaHttpMethod... methods) {
+		methodMask &= toMethodMask(methods);
+		return this;
+	}
+
+	/**
+	 * Http请求方法匹配排除 (Enum)
+	 * @param methods Http请求方法断言排除数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatch(SaHttpMethod... methods) {
+		methodMask &= ~toMethodMask(methods);
+		return this;
+	}
+
+	/**
+	 * Http请求方法匹配 (String)
+	 * @param methods Http请求方法断言数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule matchMethod(String... methods) {
+		return match(SaHttpMethod.toEnumArray(methods));
+	}
+
+	/**
+	 * Http请求方法匹配排除 (String)
+	 * @param methods Http请求方法断言排除数组
+	 * @return 对象自身
+	 */
+	public SaRouteRule notMatchMethod(String... methods) {
+		return notMatch(SaHttpMethod.toEnumArray(methods));
+	}
+
+
+	// ----------------- 命中后的动作
+
+	/**
+	 * 命中后执行的校验函数
+	 * @param fun 要执行的函数
+	 * @return 对象自身
+	 */
+	public SaRouteRule check(SaFunction fun) {
+		this.action = fun;
+		return this;
+	}
+
+	/**
+	 * 命中后停止匹配后续规则
+	 * @return 对象自身
+	 */
+	public SaRouteRule stop() {
+		this.stop = true;
+		return this;
+	}
+
+	/**
+	 * 命中后停止匹配后续规则，并向前端返回结果
+	 * @param result 要返回的结果
+	 * @return 对象自身
+	 */
+	public SaRouteRule back(Object result) {
+		this.backResult = result;
+		this.stop = true;
+		return this;
+	}
+
+
+	// ----------------- 判断
+
+	/**
+	 * 判断路径是否命中此规则的全部路由条件 (不包括请求方式)
+	 * @param context 上下文
+	 * @param path 被匹配的路由
+	 * @return 是否命中
+	 */
+	public boolean isPathHit(SaTokenContext context, String path) {
+		for (SaPathTable pathTable : includeTableList) {
+			if(pathTable.matchNoCache(context, path) == false) {
+				return false;
+			}
+		}
+		for (SaPathTable pathTable : excludeTableList) {
+			if(pathTable.matchNoCache(context, path)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 将请求方式数组转换为位图
+	 * @param methods 请求方式
+	 * @return 位图
+	 */
+	public static int toMethodMask(SaHttpMethod... methods) {
+		int mask = 0;
+		for (SaHttpMethod method : methods) {
+			if(method == SaHttpMethod.ALL) {
+				return -1;
+			}
+			if(method != null) {
+				mask |= 1 << method.ordinal();
+			}
+		}
+		return mask;
+	}
+
+}
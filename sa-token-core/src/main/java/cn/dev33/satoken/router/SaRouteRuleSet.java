@@ -0,0 +1,227 @@
+package cn.dev33.satoken.router;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.context.SaTokenContext;
+import cn.dev33.satoken.context.model.SaRequest;
+import cn.dev33.satoken.fun.SaFunction;
+
+/**
+ * 路由规则集: 在项目启动时一次性声明全部路由规则，之后每次请求按规则顺序执行命中的校验函数
+ *
+ * <p> 与在认证函数中逐条书写 SaRouter.match(...).check(...) 相比：
+ * <p> 1. 路由匹配符在声明时即编译为 {@link SaPathTable}，请求时不再创建 SaRouterStaff、数组与集合
+ * <p> 2. 每个请求路径命中了哪些规则会被缓存 (条数与路径总字符数均有上限，超出后清空重建；过长的路径不缓存)，同一路径再次请求时只需一次哈希查找，再按位判断请求方式
+ * <p> 3. stop() 与 back() 只是结束遍历并返回结果，不再通过抛出 StopMatchException / BackResultException 控制流程
+ *
+ * <p> 用法示例：
+ * <pre>
+ * 	SaRouteRuleSet ruleSet = new SaRouteRuleSet();
+ * 	ruleSet.rule().match("/**").notMatch("/user/doLogin").check(() -&gt; StpUtil.checkLogin());
+ * 	ruleSet.rule().match("/admin/**").check(() -&gt; StpUtil.checkRole("admin"));
+ *
+ * 	new SaServletFilter().addInclude("/**").setAuth(obj -&gt; ruleSet.check());
+ * </pre>
+ *
+ * @author kong
+ *
+ */
+public class SaRouteRuleSet {
+
+	/**
+	 * 代表 [未列入 SaHttpMethod 的请求方式] 的位 (只有匹配 SaHttpMethod.ALL 的规则才能命中)
+	 */
+	public static final int OTHER_METHOD_BIT = 1 << SaHttpMethod.ALL.ordinal();
+
+	/**
+	 * 全部具体的请求方式 (不包括 ALL)
+	 */
+	private static final SaHttpMethod[] METHODS = SaHttpMethod.values();
+
+	/**
+	 * 空规则数组
+	 */
+	private static final SaRouteRule[] EMPTY = new SaRouteRule[0];
+
+	/** 全部规则 (按声明顺序) */
+	public volatile SaRouteRule[] rules = EMPTY;
+
+	/** 路由命中缓存最多存储的条数 (超出后清空重建) */
+	public int cacheMaxSize = 10000;
+
+	/** 路由命中缓存中全部路径的字符数之和的上限 (超出后清空重建) */
+	public long cacheMaxChars = 256 * 1024;
+
+	/** 可以被缓存的路径的最大长度 (更长的路径每次都重新计算命中的规则) */
+	public int cacheMaxPathLength = 256;
+
+	/** 路由命中缓存: 请求路径 -> 路由条件命中的规则 (尚未判断请求方式) */
+	public final Map<String, SaRouteRule[]> cache = new ConcurrentHashMap<>();
+
+	/** 路由命中缓存中全部路径的字符数之和 */
+	public final AtomicLong cacheChars = new AtomicLong();
+
+	/** 写入 cache 时使用的 SaTokenContext，上下文发生变化时需要清空 cache */
+	public volatile SaTokenContext cacheContext;
+
+
+	// ------------------------ 声明规则
+
+	/**
+	 * 追加一条规则
+	 * @return 新规则
+	 */
+	public synchronized SaRouteRule rule() {
+		SaRouteRule rule = new SaRouteRule(this);
+		SaRouteRule[] newRules = Arrays.copyOf(rules, rules.length + 1);
+		newRules[rules.length] = rule;
+		rules = newRules;
+		clearCache();
+		return rule;
+	}
+
+	/**
+	 * 追加一条规则：路由匹配，如果匹配成功则执行认证函数
+	 * @param pattern 路由匹配符
+	 * @param fun 要执行的校验方法
+	 * @return 对象自身
+	 */
+	public SaRouteRuleSet add(String pattern, SaFunction fun) {
+		rule().match(pattern).check(fun);
+		return this;
+	}
+
+	/**
+	 * 追加一条规则：路由匹配 (并指定排除匹配符)，如果匹配成功则执行认证函数
+	 * @param pattern 路由匹配符
+	 * @param excludePattern 要排除的路由匹配符
+	 * @param fun 要执行的校验方法
+	 * @return 对象自身
+	 */
+	public SaRouteRuleSet add(String pattern, String excludePattern, SaFunction fun) {
+		rule().match(pattern).notMatch(excludePattern).check(fun);
+		return this;
+	}
+
+	/**
+	 * 清空路由命中缓存
+	 */
+	public void clearCache() {
+		cache.clear();
+		cacheChars.set(0);
+	}
+
+
+	// ------------------------ 执行
+
+	/**
+	 * 使用当前请求执行规则集
+	 * @return 命中 back(result) 规则时返回其结果，否则返回 null
+	 */
+	public Object run() {
+		SaRequest request = SaHolder.getRequest();
+		return run(request.getRequestPath(), request.getMethod());
+	}
+
+	/**
+	 * 按顺序执行命中的规则
+	 * @param path 请求路径
+	 * @param method 请求方式
+	 * @return 命中 back(result) 规则时返回其结果，否则返回 null
+	 */
+	public Object run(String path, String method) {
+		int methodBit = toMethodBit(method);
+		for (SaRouteRule rule : getPathHitRules(path)) {
+			if((rule.methodMask & methodBit) == 0) {
+				continue;
+			}
+			if(rule.action != null) {
+				rule.action.run();
+			}
+			if(rule.stop) {
+				return rule.backResult;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * 使用当前请求执行规则集，命中 back(result) 规则时将结果返回给前端 (适合在全局过滤器的认证函数中调用)
+	 */
+	public void check() {
+		Object result = run();
+		if(result != null) {
+			SaRouter.back(result);
+		}
+	}
+
+	/**
+	 * 获取路由条件命中的全部规则 (尚未判断请求方式)
+	 * @param path 请求路径
+	 * @return 规则数组
+	 */
+	public SaRouteRule[] getPathHitRules(String path) {
+		SaTokenContext context = SaManager.getSaTokenContextOrSecond();
+		if(path.length() > cacheMaxPathLength) {
+			return findPathHitRules(context, rules, path);
+		}
+		if(cacheContext != context) {
+			clearCache();
+			cacheContext = context;
+		}
+		SaRouteRule[] hitRules = cache.get(path);
+		if(hitRules == null) {
+			SaRouteRule[] allRules = rules;
+			hitRules = findPathHitRules(context, allRules, path);
+			if(cache.size() >= cacheMaxSize || cacheChars.get() + path.length() > cacheMaxChars) {
+				clearCache();
+			}
+			// 计算期间追加了规则，本次结果不写入缓存
+			if(allRules == rules && cache.put(path, hitRules) == null) {
+				cacheChars.addAndGet(path.length());
+			}
+		}
+		return hitRules;
+	}
+
+	/**
+	 * 逐条判断规则的路由条件 (不读写缓存)
+	 * @param context 上下文
+	 * @param allRules 全部规则
+	 * @param path 请求路径
+	 * @return 路由条件命中的规则
+	 */
+	protected SaRouteRule[] findPathHitRules(SaTokenContext context, SaRouteRule[] allRules, String path) {
+		List<SaRouteRule> list = new ArrayList<>();
+		for (SaRouteRule rule : allRules) {
+			if(rule.isPathHit(context, path)) {
+				list.add(rule);
+			}
+		}
+		return list.toArray(EMPTY);
+	}
+
+	/**
+	 * 将请求方式转换为位图中的一位
+	 * @param method 请求方式
+	 * @return /
+	 */
+	public static int toMethodBit(String method) {
+		if(method != null) {
+			for (SaHttpMethod item : METHODS) {
+				if(item != SaHttpMethod.ALL && item.name().equalsIgnoreCase(method)) {
+					return 1 << item.ordinal();
+				}
+			}
+		}
+		return OTHER_METHOD_BIT;
+	}
+
+}
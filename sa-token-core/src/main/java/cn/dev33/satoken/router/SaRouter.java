@@ -170,6 +170,24 @@ public class SaRouter {
 		return new SaRouterStaff().notMatch(patterns);
 	}
 
+	/**
+	 * 路由匹配 (使用预先编译的路由表) 
+	 * @param pathTable 路由表 
+	 * @return SaRouterStaff
+	 */
+	public static SaRouterStaff match(SaPathTable pathTable) {
+		return new SaRouterStaff().match(pathTable);
+	}
+
+	/**
+	 * 路由匹配排除 (使用预先编译的路由表) 
+	 * @param pathTable 路由表 
+	 * @return SaRouterStaff
+	 */
+	public static SaRouterStaff notMatch(SaPathTable pathTable) {
+		return new SaRouterStaff().notMatch(pathTable);
+	}
+
 	// ----------------- Method匹配 
 	
 	/**
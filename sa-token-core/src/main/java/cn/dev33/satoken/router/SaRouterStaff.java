@@ -97,6 +97,30 @@ public class SaRouterStaff {
 		return this;
 	}
 
+	/**
+	 * 路由匹配 (使用预先编译的路由表) 
+	 * @param pathTable 路由表 
+	 * @return 对象自身 
+	 */
+	public SaRouterStaff match(SaPathTable pathTable) {
+		if(isHit)  {
+			isHit = pathTable.matchCurrURI();
+		}
+		return this;
+	}
+
+	/**
+	 * 路由匹配排除 (使用预先编译的路由表) 
+	 * @param pathTable 路由表 
+	 * @return 对象自身 
+	 */
+	public SaRouterStaff notMatch(SaPathTable pathTable) {
+		if(isHit)  {
+			isHit = !pathTable.matchCurrURI();
+		}
+		return this;
+	}
+
 	// ----------------- Method匹配 
 
 	/**
@@ -1,6 +1,9 @@
 package cn.dev33.satoken.session;
 
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -8,6 +11,7 @@ import java.util.Vector;
 import java.util.concurrent.ConcurrentHashMap;
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.fun.SaRetFunction;
 import cn.dev33.satoken.util.SaFoxUtil;
 
@@ -40,6 +44,12 @@ public class SaSession implements Serializable {
 	/** 此Session的所有挂载数据 */
 	private final Map<String, Object> dataMap = new ConcurrentHashMap<>();
 
+	/** 延迟写入时，尚未写入持久库的数据key */
+	private transient Set<String> dirtyKeySet;
+
+	/** 延迟写入时，是否需要整体写入持久库 */
+	private transient boolean dirtyAll;
+
 	// ----------------------- 构建相关
 
 	/**
@@ -146,7 +156,20 @@ public class SaSession implements Serializable {
 		}
 		// 添加并更新
 		tokenSignList.add(tokenSign);
-		update();
+		SaManager.getSaTokenDao().addTokenSign(this, tokenSign, SaTokenDao.NOT_VALUE_EXPIRE);
+	}
+
+	/**
+	 * 添加一个token签名 (只修改此对象上的签名列表，不写回持久库，需由调用方自行保存此Session) 
+	 *
+	 * @param tokenSign token签名
+	 * @return 是否为新添加的签名 (已存在时返回false) 
+	 */
+	public boolean putTokenSign(TokenSign tokenSign) {
+		if (getTokenSign(tokenSign.getValue()) != null) {
+			return false;
+		}
+		return tokenSignList.add(tokenSign);
 	}
 
 	/**
@@ -167,7 +190,37 @@ public class SaSession implements Serializable {
 	public void removeTokenSign(String tokenValue) {
 		TokenSign tokenSign = getTokenSign(tokenValue);
 		if (tokenSignList.remove(tokenSign)) {
-			update();
+			SaManager.getSaTokenDao().removeTokenSign(this, Collections.singletonList(tokenValue));
+		}
+	}
+
+	/**
+	 * 批量移除token签名 (全部移除后只写回一次持久库) 
+	 *
+	 * @param tokenValueList token值集合 
+	 */
+	public void removeTokenSign(Collection<String> tokenValueList) {
+		boolean isRemoved = false;
+		for (String tokenValue : tokenValueList) {
+			TokenSign tokenSign = getTokenSign(tokenValue);
+			if (tokenSign != null && tokenSignList.remove(tokenSign)) {
+				isRemoved = true;
+			}
+		}
+		if (isRemoved) {
+			SaManager.getSaTokenDao().removeTokenSign(this, tokenValueList);
+		}
+	}
+
+	/**
+	 * 以指定集合重置token签名列表 (供持久层在读取到最新的签名数据后回填使用) 
+	 *
+	 * @param tokenSignList token签名集合 
+	 */
+	public void resetTokenSignList(List<TokenSign> tokenSignList) {
+		synchronized (this.tokenSignList) {
+			this.tokenSignList.clear();
+			this.tokenSignList.addAll(tokenSignList);
 		}
 	}
 
@@ -178,11 +231,54 @@ public class SaSession implements Serializable {
 	 * 更新Session（从持久库更新刷新一下）
 	 */
 	public void update() {
-		SaManager.getSaTokenDao().updateSession(this);
+		if(markDirty(null) == false) {
+			SaManager.getSaTokenDao().updateSession(this);
+		}
+	}
+
+	/**
+	 * 在当前请求开启了延迟写入时，记录一个有待写入的key 
+	 * @param key 数据key (null代表需要整体写入) 
+	 * @return 是否记录成功 (返回false代表应立即写入持久库) 
+	 */
+	public boolean markDirty(String key) {
+		if(SaSessionDirtyUtil.markDirty(this) == false) {
+			return false;
+		}
+		if(key == null) {
+			dirtyAll = true;
+		} else if(dirtyAll == false) {
+			if(dirtyKeySet == null) {
+				dirtyKeySet = ConcurrentHashMap.newKeySet();
+			}
+			dirtyKeySet.add(key);
+		}
+		return true;
+	}
+
+	/**
+	 * 将延迟写入期间记录的修改写入持久库 (需要整体写入时调用 updateSession，否则将被修改的key一次性交给 updateSessionData) 
+	 */
+	public void flush() {
+		SaTokenDao dao = SaManager.getSaTokenDao();
+		boolean isDirtyAll = dirtyAll;
+		Set<String> keySet = dirtyKeySet;
+		dirtyAll = false;
+		dirtyKeySet = null;
+		if(isDirtyAll) {
+			dao.updateSession(this);
+		} else if(keySet != null && keySet.isEmpty() == false) {
+			Map<String, Object> changeMap = new LinkedHashMap<>();
+			for (String key : keySet) {
+				changeMap.put(key, dataMap.get(key));
+			}
+			dao.updateSessionData(this, changeMap);
+		}
 	}
 
 	/** 注销Session (从持久库删除) */
 	public void logout() {
+		SaSessionDirtyUtil.removeDirtySession(this.id);
 		SaManager.getSaTokenDao().deleteSession(this.id);
  		// $$ 通知监听器 
  		SaManager.getSaTokenListener().doLogoutSession(id);
@@ -370,7 +466,9 @@ public class SaSession implements Serializable {
 	 */
 	public SaSession set(String key, Object value) {
 		dataMap.put(key, value);
-		update();
+		if(markDirty(key) == false) {
+			SaManager.getSaTokenDao().updateSessionData(this, key, value);
+		}
 		return this;
 	}
 
@@ -383,7 +481,9 @@ public class SaSession implements Serializable {
 	public SaSession setDefaultValue(String key, Object value) {
 		if(has(key) == false) {
 			dataMap.put(key, value);
-			update();
+			if(markDirty(key) == false) {
+				SaManager.getSaTokenDao().updateSessionData(this, key, value);
+			}
 		}
 		return this;
 	}
@@ -404,7 +504,9 @@ public class SaSession implements Serializable {
 	 */
 	public SaSession delete(String key) {
 		dataMap.remove(key);
-		update();
+		if(markDirty(key) == false) {
+			SaManager.getSaTokenDao().deleteSessionData(this, key);
+		}
 		return this;
 	}
 
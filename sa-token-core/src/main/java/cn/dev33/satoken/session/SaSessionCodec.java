@@ -0,0 +1,34 @@
+package cn.dev33.satoken.session;
+
+/**
+ * Session 编解码器接口 (持久层以二进制方式存储 Session 时使用) 
+ * 
+ * <p> 如需自定义编码格式，实现此接口后通过 SaManager.setSaSessionCodec() 注入即可 
+ * 
+ * @author kong
+ *
+ */
+public interface SaSessionCodec {
+
+	/**
+	 * 将 Session 编码为字节数组 
+	 * @param session Session 
+	 * @return 字节数组 
+	 */
+	public byte[] encode(SaSession session);
+
+	/**
+	 * 将字节数组解码为 Session 
+	 * @param bytes 字节数组 
+	 * @return Session 
+	 */
+	public SaSession decode(byte[] bytes);
+
+	/**
+	 * 判断字节数组是否由此编解码器编码 (持久层据此区分新旧格式的数据) 
+	 * @param bytes 字节数组 
+	 * @return 是否由此编解码器编码 
+	 */
+	public boolean isEncoded(byte[] bytes);
+
+}
@@ -0,0 +1,487 @@
+package cn.dev33.satoken.session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * Session 编解码器默认实现类 (紧凑的二进制格式)
+ *
+ * <p> 格式: [魔数 2字节] [版本号 1字节] [Session类名] [id] [创建时间] [token签名列表] [挂载数据]
+ * <p> 挂载数据的每个值都以一个类型标记开头，常见类型 (字符串、数字、布尔、ArrayList、HashSet、HashMap 等) 直接编码，
+ * 其它类型退回 JDK 序列化，因此这些值需要实现 Serializable 接口
+ *
+ * @author kong
+ *
+ */
+public class SaSessionCodecDefaultImpl implements SaSessionCodec {
+
+	/** 魔数 (与 JDK 序列化的 0xACED 以及 JSON 的起始字符均不冲突) */
+	public static final byte[] MAGIC = {'S', 'T'};
+
+	/** 当前格式版本号 */
+	public static final byte VERSION = 1;
+
+	// ------------------------ 类型标记
+
+	public static final byte TYPE_NULL = 0;
+	public static final byte TYPE_STRING = 1;
+	public static final byte TYPE_INTEGER = 2;
+	public static final byte TYPE_LONG = 3;
+	public static final byte TYPE_DOUBLE = 4;
+	public static final byte TYPE_FLOAT = 5;
+	public static final byte TYPE_BOOLEAN = 6;
+	public static final byte TYPE_SHORT = 7;
+	public static final byte TYPE_BYTE = 8;
+	public static final byte TYPE_CHARACTER = 9;
+	public static final byte TYPE_BYTE_ARRAY = 10;
+	public static final byte TYPE_ARRAY_LIST = 11;
+	public static final byte TYPE_HASH_SET = 12;
+	public static final byte TYPE_LINKED_HASH_SET = 13;
+	public static final byte TYPE_HASH_MAP = 14;
+	public static final byte TYPE_LINKED_HASH_MAP = 15;
+	public static final byte TYPE_BIG_DECIMAL = 16;
+	public static final byte TYPE_BIG_INTEGER = 17;
+	public static final byte TYPE_DATE = 18;
+	public static final byte TYPE_SERIALIZABLE = 127;
+
+	@Override
+	public byte[] encode(SaSession session) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.write(MAGIC);
+			out.writeByte(VERSION);
+			writeString(out, session.getClass().getName());
+			writeString(out, session.getId());
+			out.writeLong(session.getCreateTime());
+			List<TokenSign> tokenSignList = session.getTokenSignList();
+			writeVarInt(out, tokenSignList.size());
+			for (TokenSign tokenSign : tokenSignList) {
+				writeString(out, tokenSign.getValue());
+				writeString(out, tokenSign.getDevice());
+			}
+			Map<String, Object> dataMap = session.getDataMap();
+			List<Map.Entry<String, Object>> entryList = new ArrayList<>(dataMap.entrySet());
+			writeVarInt(out, entryList.size());
+			for (Map.Entry<String, Object> entry : entryList) {
+				writeString(out, entry.getKey());
+				writeValue(out, entry.getValue());
+			}
+			out.flush();
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new SaTokenException(e);
+		}
+	}
+
+	@Override
+	public SaSession decode(byte[] bytes) {
+		if(isEncoded(bytes) == false) {
+			throw new SaTokenException("无效的 Session 编码数据");
+		}
+		if(bytes[MAGIC.length] > VERSION) {
+			throw new SaTokenException("不支持的 Session 编码版本：" + bytes[MAGIC.length]);
+		}
+		try {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, MAGIC.length + 1, bytes.length - MAGIC.length - 1));
+			// 通过无参构造创建 Session，避免监听器误以为创建了新的 Session
+			SaSession session = createSession(readString(in));
+			session.setId(readString(in));
+			session.setCreateTime(in.readLong());
+			int tokenSignSize = readSize(in);
+			List<TokenSign> tokenSignList = new ArrayList<>(tokenSignSize);
+			for (int i = 0; i < tokenSignSize; i++) {
+				tokenSignList.add(new TokenSign(readString(in), readString(in)));
+			}
+			session.resetTokenSignList(tokenSignList);
+			int dataSize = readSize(in);
+			Map<String, Object> dataMap = session.getDataMap();
+			for (int i = 0; i < dataSize; i++) {
+				String key = readString(in);
+				Object value = readValue(in);
+				if(value != null) {
+					dataMap.put(key, value);
+				}
+			}
+			return session;
+		} catch (SaTokenException e) {
+			throw e;
+		} catch (IOException | ClassNotFoundException | RuntimeException e) {
+			// 数据被截断或被篡改 (例如 EOF、无效的数字格式) 
+			throw new SaTokenException("无效的 Session 编码数据", e);
+		}
+	}
+
+	@Override
+	public boolean isEncoded(byte[] bytes) {
+		return bytes != null && bytes.length > MAGIC.length && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1];
+	}
+
+	/**
+	 * 根据类名创建一个空的 Session (类名不是 SaSession 的子类时拒绝创建)
+	 * @param className 类名
+	 * @return Session
+	 */
+	public SaSession createSession(String className) {
+		if(className == null || SaSession.class.getName().equals(className)) {
+			return new SaSession();
+		}
+		try {
+			return SaFoxUtil.loadSubclass(className, SaSession.class).getDeclaredConstructor().newInstance();
+		} catch (SaTokenException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SaTokenException(e);
+		}
+	}
+
+	// ------------------------ 值的编解码
+
+	/**
+	 * 写入一个带类型标记的值
+	 * @param out 输出流
+	 * @param value 值
+	 * @throws IOException /
+	 */
+	public void writeValue(DataOutputStream out, Object value) throws IOException {
+		if(value == null) {
+			out.writeByte(TYPE_NULL);
+			return;
+		}
+		Class<?> cs = value.getClass();
+		if(cs == String.class) {
+			out.writeByte(TYPE_STRING);
+			writeString(out, (String) value);
+		} else if(cs == Integer.class) {
+			out.writeByte(TYPE_INTEGER);
+			writeVarLong(out, (Integer) value);
+		} else if(cs == Long.class) {
+			out.writeByte(TYPE_LONG);
+			writeVarLong(out, (Long) value);
+		} else if(cs == Double.class) {
+			out.writeByte(TYPE_DOUBLE);
+			out.writeDouble((Double) value);
+		} else if(cs == Float.class) {
+			out.writeByte(TYPE_FLOAT);
+			out.writeFloat((Float) value);
+		} else if(cs == Boolean.class) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if(cs == Short.class) {
+			out.writeByte(TYPE_SHORT);
+			out.writeShort((Short) value);
+		} else if(cs == Byte.class) {
+			out.writeByte(TYPE_BYTE);
+			out.writeByte((Byte) value);
+		} else if(cs == Character.class) {
+			out.writeByte(TYPE_CHARACTER);
+			out.writeChar((Character) value);
+		} else if(cs == byte[].class) {
+			out.writeByte(TYPE_BYTE_ARRAY);
+			writeBytes(out, (byte[]) value);
+		} else if(cs == ArrayList.class) {
+			out.writeByte(TYPE_ARRAY_LIST);
+			writeCollection(out, (Collection<?>) value);
+		} else if(cs == HashSet.class) {
+			out.writeByte(TYPE_HASH_SET);
+			writeCollection(out, (Collection<?>) value);
+		} else if(cs == LinkedHashSet.class) {
+			out.writeByte(TYPE_LINKED_HASH_SET);
+			writeCollection(out, (Collection<?>) value);
+		} else if(cs == HashMap.class) {
+			out.writeByte(TYPE_HASH_MAP);
+			writeMap(out, (Map<?, ?>) value);
+		} else if(cs == LinkedHashMap.class) {
+			out.writeByte(TYPE_LINKED_HASH_MAP);
+			writeMap(out, (Map<?, ?>) value);
+		} else if(cs == BigDecimal.class) {
+			out.writeByte(TYPE_BIG_DECIMAL);
+			writeString(out, value.toString());
+		} else if(cs == BigInteger.class) {
+			out.writeByte(TYPE_BIG_INTEGER);
+			writeBytes(out, ((BigInteger) value).toByteArray());
+		} else if(cs == Date.class) {
+			out.writeByte(TYPE_DATE);
+			out.writeLong(((Date) value).getTime());
+		} else {
+			out.writeByte(TYPE_SERIALIZABLE);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+				oos.writeObject(value);
+			}
+			writeBytes(out, bytes.toByteArray());
+		}
+	}
+
+	/**
+	 * 读取一个带类型标记的值
+	 * @param in 输入流
+	 * @return 值
+	 * @throws IOException /
+	 * @throws ClassNotFoundException /
+	 */
+	public Object readValue(DataInputStream in) throws IOException, ClassNotFoundException {
+		byte type = in.readByte();
+		switch (type) {
+			case TYPE_NULL: return null;
+			case TYPE_STRING: return readString(in);
+			case TYPE_INTEGER: return (int) readVarLong(in);
+			case TYPE_LONG: return readVarLong(in);
+			case TYPE_DOUBLE: return in.readDouble();
+			case TYPE_FLOAT: return in.readFloat();
+			case TYPE_BOOLEAN: return in.readBoolean();
+			case TYPE_SHORT: return in.readShort();
+			case TYPE_BYTE: return in.readByte();
+			case TYPE_CHARACTER: return in.readChar();
+			case TYPE_BYTE_ARRAY: return readBytes(in);
+			case TYPE_ARRAY_LIST: {
+				int size = readSize(in);
+				return readCollection(in, new ArrayList<Object>(size), size);
+			}
+			case TYPE_HASH_SET: {
+				int size = readSize(in);
+				return readCollection(in, new HashSet<Object>(size * 4 / 3 + 1), size);
+			}
+			case TYPE_LINKED_HASH_SET: {
+				int size = readSize(in);
+				return readCollection(in, new LinkedHashSet<Object>(size * 4 / 3 + 1), size);
+			}
+			case TYPE_HASH_MAP: {
+				int size = readSize(in);
+				return readMap(in, new HashMap<Object, Object>(size * 4 / 3 + 1), size);
+			}
+			case TYPE_LINKED_HASH_MAP: {
+				int size = readSize(in);
+				return readMap(in, new LinkedHashMap<Object, Object>(size * 4 / 3 + 1), size);
+			}
+			case TYPE_BIG_DECIMAL: return new BigDecimal(readString(in));
+			case TYPE_BIG_INTEGER: return new BigInteger(readBytes(in));
+			case TYPE_DATE: return new Date(in.readLong());
+			case TYPE_SERIALIZABLE: {
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes(in)))) {
+					return ois.readObject();
+				}
+			}
+			default: throw new SaTokenException("无效的 Session 数据类型标记：" + type);
+		}
+	}
+
+	/**
+	 * 写入一个集合
+	 * @param out 输出流
+	 * @param collection 集合
+	 * @throws IOException /
+	 */
+	public void writeCollection(DataOutputStream out, Collection<?> collection) throws IOException {
+		writeVarInt(out, collection.size());
+		for (Object item : collection) {
+			writeValue(out, item);
+		}
+	}
+
+	/**
+	 * 读取一个集合
+	 * @param in 输入流
+	 * @param collection 用于装载元素的集合
+	 * @param size 元素数量
+	 * @return 集合
+	 * @throws IOException /
+	 * @throws ClassNotFoundException /
+	 */
+	public Collection<Object> readCollection(DataInputStream in, Collection<Object> collection, int size) throws IOException, ClassNotFoundException {
+		for (int i = 0; i < size; i++) {
+			collection.add(readValue(in));
+		}
+		return collection;
+	}
+
+	/**
+	 * 写入一个 Map
+	 * @param out 输出流
+	 * @param map Map
+	 * @throws IOException /
+	 */
+	public void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+		writeVarInt(out, map.size());
+		for (Map.Entry<?, ?> entry : map.entrySet()) {
+			writeValue(out, entry.getKey());
+			writeValue(out, entry.getValue());
+		}
+	}
+
+	/**
+	 * 读取一个 Map
+	 * @param in 输入流
+	 * @param map 用于装载元素的 Map
+	 * @param size 元素数量
+	 * @return Map
+	 * @throws IOException /
+	 * @throws ClassNotFoundException /
+	 */
+	public Map<Object, Object> readMap(DataInputStream in, Map<Object, Object> map, int size) throws IOException, ClassNotFoundException {
+		for (int i = 0; i < size; i++) {
+			map.put(readValue(in), readValue(in));
+		}
+		return map;
+	}
+
+	// ------------------------ 基础类型的编解码
+
+	/**
+	 * 写入一个字符串 (长度+1 以变长整数存储，0 代表 null)
+	 * @param out 输出流
+	 * @param str 字符串
+	 * @throws IOException /
+	 */
+	public void writeString(DataOutputStream out, String str) throws IOException {
+		if(str == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length + 1);
+		out.write(bytes);
+	}
+
+	/**
+	 * 读取一个字符串
+	 * @param in 输入流
+	 * @return 字符串
+	 * @throws IOException /
+	 */
+	public String readString(DataInputStream in) throws IOException {
+		int length = readVarInt(in);
+		if(length == 0) {
+			return null;
+		}
+		if(length < 0 || length - 1 > in.available()) {
+			throw new SaTokenException("无效的 Session 编码数据：字符串长度超出剩余字节数");
+		}
+		byte[] bytes = new byte[length - 1];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * 写入一个字节数组
+	 * @param out 输出流
+	 * @param bytes 字节数组
+	 * @throws IOException /
+	 */
+	public void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	/**
+	 * 读取一个字节数组
+	 * @param in 输入流
+	 * @return 字节数组
+	 * @throws IOException /
+	 */
+	public byte[] readBytes(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[readSize(in)];
+		in.readFully(bytes);
+		return bytes;
+	}
+
+	/**
+	 * 读取一个长度或元素数量 (每个字节、每个元素至少占用一个字节，因此不能超过剩余的字节数)
+	 * @param in 输入流
+	 * @return 长度或元素数量
+	 * @throws IOException /
+	 */
+	public int readSize(DataInputStream in) throws IOException {
+		int size = readVarInt(in);
+		if(size < 0 || size > in.available()) {
+			throw new SaTokenException("无效的 Session 编码数据：长度超出剩余字节数");
+		}
+		return size;
+	}
+
+	/**
+	 * 写入一个非负变长整数
+	 * @param out 输出流
+	 * @param value 值
+	 * @throws IOException /
+	 */
+	public void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * 读取一个非负变长整数
+	 * @param in 输入流
+	 * @return 值
+	 * @throws IOException /
+	 */
+	public int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new SaTokenException("无效的变长整数编码");
+	}
+
+	/**
+	 * 写入一个有符号变长整数 (ZigZag 编码，绝对值较小的负数同样占用较少字节)
+	 * @param out 输出流
+	 * @param value 值
+	 * @throws IOException /
+	 */
+	public void writeVarLong(DataOutputStream out, long value) throws IOException {
+		long zigzag = (value << 1) ^ (value >> 63);
+		while ((zigzag & ~0x7FL) != 0) {
+			out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+			zigzag >>>= 7;
+		}
+		out.writeByte((int) zigzag);
+	}
+
+	/**
+	 * 读取一个有符号变长整数
+	 * @param in 输入流
+	 * @return 值
+	 * @throws IOException /
+	 */
+	public long readVarLong(DataInputStream in) throws IOException {
+		long zigzag = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.readByte();
+			zigzag |= (long) (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				return (zigzag >>> 1) ^ -(zigzag & 1);
+			}
+		}
+		throw new SaTokenException("无效的变长整数编码");
+	}
+
+}
@@ -45,7 +45,8 @@ public class SaSessionCustomUtil {
 	 * @return 是否存在
 	 */
 	public static boolean isExists(String sessionId) {
-		return SaManager.getSaTokenDao().getSession(splicingSessionKey(sessionId)) != null;
+		return SaSessionDirtyUtil.getDirtySession(splicingSessionKey(sessionId)) != null 
+				|| SaManager.getSaTokenDao().getSession(splicingSessionKey(sessionId)) != null;
 	}
 
 	/**
@@ -56,7 +57,10 @@ public class SaSessionCustomUtil {
 	 * @return SaSession
 	 */
 	public static SaSession getSessionById(String sessionId, boolean isCreate) {
-		SaSession session = SaManager.getSaTokenDao().getSession(splicingSessionKey(sessionId));
+		SaSession session = SaSessionDirtyUtil.getDirtySession(splicingSessionKey(sessionId));
+		if (session == null) {
+			session = SaManager.getSaTokenDao().getSession(splicingSessionKey(sessionId));
+		}
 		if (session == null && isCreate) {
 			session = SaStrategy.me.createSession.apply(splicingSessionKey(sessionId));
 			SaManager.getSaTokenDao().setSession(session, SaManager.getConfig().getTimeout());		
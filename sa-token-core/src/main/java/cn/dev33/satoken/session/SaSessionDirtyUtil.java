@@ -0,0 +1,153 @@
+package cn.dev33.satoken.session;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.context.SaTokenContext;
+
+/**
+ * Session 延迟写入工具类
+ *
+ * <p> 配置 isSessionWriteBehind=true 后，在一次请求内对 Session 的多次写值只会记录被修改的key，
+ * 直到响应提交之前再统一写入持久库 (Sa-Token 的全局过滤器会自动完成此过程，使客户端收到响应时 Session 已经写入，下一次请求不会读到旧数据)
+ *
+ * <p> 如果你没有使用全局过滤器，也可以在请求的开始与结束处手动调用：
+ * <pre>
+ * 		SaSessionDirtyUtil.begin();
+ * 		try {
+ * 			// ... 处理请求 (不包括写出响应)
+ * 		} finally {
+ * 			SaSessionDirtyUtil.flush();
+ * 		}
+ * 		// ... 写出响应
+ * </pre>
+ *
+ * <p> flush() 之后同一请求内对 Session 的写值会立即写入持久库
+ *
+ * <p> 未调用 begin() 的请求，以及不在请求上下文中的代码，对 Session 的写值仍然会立即写入持久库
+ *
+ * @author kong
+ *
+ */
+public class SaSessionDirtyUtil {
+
+	/**
+	 * 在 [Request作用域] 里存储待写入 Session 集合的key
+	 */
+	public static final String DIRTY_MAP_KEY = "SA_SESSION_DIRTY_MAP";
+
+	/**
+	 * 在当前请求中开启 Session 延迟写入 (配置未开启时不做任何操作)
+	 * @return 是否已开启
+	 */
+	public static boolean begin() {
+		if(SaManager.getConfig().getIsSessionWriteBehind() == false) {
+			return false;
+		}
+		// 不在请求上下文中时不开启 (上下文问题交由过滤器原有的异常处理流程处理)
+		SaTokenContext context = SaManager.getSaTokenContextOrSecond();
+		if(context.isValid() == false) {
+			return false;
+		}
+		context.getStorage().set(DIRTY_MAP_KEY, new LinkedHashMap<String, SaSession>());
+		return true;
+	}
+
+	/**
+	 * 获取当前请求中待写入的 Session 集合
+	 * @return 集合 (当前请求未开启延迟写入，或不在请求上下文中时返回null)
+	 */
+	@SuppressWarnings("unchecked")
+	public static Map<String, SaSession> getDirtyMap() {
+		if(SaManager.getConfig().getIsSessionWriteBehind() == false) {
+			return null;
+		}
+		// 不在请求上下文中
+		SaTokenContext context = SaManager.getSaTokenContextOrSecond();
+		if(context.isValid() == false) {
+			return null;
+		}
+		return (Map<String, SaSession>) context.getStorage().get(DIRTY_MAP_KEY);
+	}
+
+	/**
+	 * 记录一个有待写入的 Session
+	 * @param session Session
+	 * @return 是否记录成功 (返回false代表当前请求未开启延迟写入，调用方应立即写入)
+	 */
+	public static boolean markDirty(SaSession session) {
+		Map<String, SaSession> dirtyMap = getDirtyMap();
+		if(dirtyMap == null) {
+			return false;
+		}
+		SaSession old = dirtyMap.put(session.getId(), session);
+		// 同一个 Session 在本次请求中被读取了两份，先写入之前那一份的修改
+		if(old != null && old != session) {
+			old.flush();
+		}
+		return true;
+	}
+
+	/**
+	 * 获取当前请求中待写入的 Session (使同一请求内的后续读取可以看到尚未写入的修改)
+	 * @param sessionId SessionId
+	 * @return Session (不存在时返回null)
+	 */
+	public static SaSession getDirtySession(String sessionId) {
+		Map<String, SaSession> dirtyMap = getDirtyMap();
+		return dirtyMap == null ? null : dirtyMap.get(sessionId);
+	}
+
+	/**
+	 * 移除当前请求中待写入的 Session (Session被注销时调用)
+	 * @param sessionId SessionId
+	 */
+	public static void removeDirtySession(String sessionId) {
+		Map<String, SaSession> dirtyMap = getDirtyMap();
+		if(dirtyMap != null) {
+			dirtyMap.remove(sessionId);
+		}
+	}
+
+	/**
+	 * 将当前请求中所有待写入的 Session 写入持久库，并结束本次请求的延迟写入
+	 */
+	public static void flush() {
+		for (SaSession session : takeDirtyList()) {
+			session.flush();
+		}
+	}
+
+	/**
+	 * 同 flush()，但写入失败时不抛出异常，而是逐个交由 SaTokenListener.doSessionFlushFail 处理
+	 * (供全局过滤器在请求收尾时调用，避免覆盖请求本身的异常；一个 Session 写入失败不影响其它 Session 的写入)
+	 */
+	public static void flushQuietly() {
+		for (SaSession session : takeDirtyList()) {
+			try {
+				session.flush();
+			} catch (Throwable e) {
+				SaManager.getSaTokenListener().doSessionFlushFail(session.getId(), e);
+			}
+		}
+	}
+
+	/**
+	 * 取出当前请求中所有待写入的 Session，并结束本次请求的延迟写入
+	 * @return 待写入的 Session 集合 (当前请求未开启延迟写入时返回空集合)
+	 */
+	static List<SaSession> takeDirtyList() {
+		Map<String, SaSession> dirtyMap = getDirtyMap();
+		if(dirtyMap == null) {
+			return Collections.emptyList();
+		}
+		SaHolder.getStorage().delete(DIRTY_MAP_KEY);
+		return new ArrayList<SaSession>(dirtyMap.values());
+	}
+
+}
@@ -0,0 +1,229 @@
+package cn.dev33.satoken.stp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.dev33.satoken.util.SaElementMatcher;
+
+/**
+ * 权限码注册表: 将固定的权限码目录映射为连续的整数id，使每个账号的权限码集合可以编码为位图 (long[])
+ *
+ * <p> 注册表为空时不启用，鉴权逻辑与以往完全一致；注册权限码之后，对已注册权限码的校验将转为按字 (64位) 的位运算：
+ * <p> 1. 账号的权限码集合 (包括其中的通配符) 在首次使用时对照注册表展开为位图，并随 {@link SaElementMatcher} 一起缓存
+ * <p> 2. 待校验的权限码数组中只要有一个未注册，本次校验仍走原有的字符串匹配逻辑
+ *
+ * <p> 使用方式：
+ * <pre>
+ * 		SaManager.getSaPermissionRegistry().register("user-add", "user-delete", "art-add");
+ * </pre>
+ *
+ * <p> 注意：位运算的结果与默认的 hasElement 匹配规则一致，如果你重写了 SaStrategy.me.hasElement 函数或 SaTokenAction，鉴权将自动回退为调用 hasElement
+ *
+ * @author kong
+ *
+ */
+public class SaPermissionRegistry {
+
+	/** 权限码 -> id */
+	public final Map<String, Integer> idMap = new ConcurrentHashMap<>();
+
+	/** id -> 权限码 */
+	public volatile String[] codes = new String[0];
+
+	/** 版本号，每次注册新权限码后递增，用于判断已缓存的位图是否需要重新展开 */
+	public volatile int version = 0;
+
+	/**
+	 * 已展开的位图 (缓存在 SaElementMatcher 上)
+	 */
+	public static class Bits {
+
+		/** 展开时注册表的版本号 */
+		public final int version;
+
+		/** 位图 */
+		public final long[] words;
+
+		public Bits(int version, long[] words) {
+			this.version = version;
+			this.words = words;
+		}
+
+	}
+
+
+	// ------------------------ 注册
+
+	/**
+	 * 注册一组权限码 (重复注册的权限码会被忽略，已分配的id不会改变)
+	 * @param codeArray 权限码
+	 * @return 对象自身
+	 */
+	public SaPermissionRegistry register(String... codeArray) {
+		List<String> codeList = new ArrayList<>(codeArray.length);
+		for (String code : codeArray) {
+			codeList.add(code);
+		}
+		return register(codeList);
+	}
+
+	/**
+	 * 注册一组权限码 (重复注册的权限码会被忽略，已分配的id不会改变)
+	 * @param codeList 权限码集合
+	 * @return 对象自身
+	 */
+	public synchronized SaPermissionRegistry register(Collection<String> codeList) {
+		List<String> newCodes = new ArrayList<>();
+		for (String code : codes) {
+			newCodes.add(code);
+		}
+		for (String code : codeList) {
+			if(code != null && code.indexOf(SaElementMatcher.WILDCARD) == -1 && idMap.containsKey(code) == false) {
+				idMap.put(code, newCodes.size());
+				newCodes.add(code);
+			}
+		}
+		if(newCodes.size() != codes.length) {
+			codes = newCodes.toArray(new String[0]);
+			version++;
+		}
+		return this;
+	}
+
+	/**
+	 * 清空注册表 (清空后不再启用)
+	 */
+	public synchronized void clear() {
+		idMap.clear();
+		codes = new String[0];
+		version++;
+	}
+
+	/**
+	 * @return 注册表是否已启用 (至少注册了一个权限码)
+	 */
+	public boolean isEnabled() {
+		return idMap.isEmpty() == false;
+	}
+
+	/**
+	 * 获取权限码的id
+	 * @param code 权限码
+	 * @return id (未注册时返回-1)
+	 */
+	public int getId(String code) {
+		Integer id = code == null ? null : idMap.get(code);
+		return id == null ? -1 : id;
+	}
+
+
+	// ------------------------ 编码
+
+	/**
+	 * 将待校验的权限码数组编码为位图
+	 * @param codeArray 权限码数组
+	 * @return 位图 (注册表未启用或存在未注册的权限码时返回null)
+	 */
+	public long[] encode(String... codeArray) {
+		if(isEnabled() == false) {
+			return null;
+		}
+		long[] words = new long[0];
+		for (String code : codeArray) {
+			int id = getId(code);
+			if(id == -1) {
+				return null;
+			}
+			int index = id >>> 6;
+			if(index >= words.length) {
+				long[] newWords = new long[index + 1];
+				System.arraycopy(words, 0, newWords, 0, words.length);
+				words = newWords;
+			}
+			words[index] |= 1L << id;
+		}
+		return words;
+	}
+
+	/**
+	 * 获取一个账号权限码集合的位图 (通配符会对照注册表展开，结果随集合的匹配器一起缓存)
+	 * @param list 账号的权限码集合
+	 * @return 位图
+	 */
+	public long[] getBits(List<String> list) {
+		SaElementMatcher matcher = SaElementMatcher.of(list);
+		Bits bits = matcher.bits;
+		int currentVersion = version;
+		if(bits == null || bits.version != currentVersion) {
+			bits = new Bits(currentVersion, expand(matcher));
+			matcher.bits = bits;
+		}
+		return bits.words;
+	}
+
+	/**
+	 * 对照注册表展开一个匹配器
+	 * @param matcher 匹配器
+	 * @return 位图
+	 */
+	public long[] expand(SaElementMatcher matcher) {
+		String[] currentCodes = codes;
+		long[] words = new long[(currentCodes.length + 63) >>> 6];
+		for (int id = 0; id < currentCodes.length; id++) {
+			if(matcher.match(currentCodes[id])) {
+				words[id >>> 6] |= 1L << id;
+			}
+		}
+		return words;
+	}
+
+
+	// ------------------------ 位运算
+
+	/**
+	 * 判断位图中是否包含指定id
+	 * @param words 位图
+	 * @param id id
+	 * @return /
+	 */
+	public static boolean contains(long[] words, int id) {
+		int index = id >>> 6;
+		return index < words.length && (words[index] & (1L << id)) != 0;
+	}
+
+	/**
+	 * 判断 owned 是否包含 required 中的全部id
+	 * @param owned 账号拥有的位图
+	 * @param required 待校验的位图
+	 * @return /
+	 */
+	public static boolean containsAll(long[] owned, long[] required) {
+		for (int i = 0; i < required.length; i++) {
+			long word = i < owned.length ? owned[i] : 0;
+			if((required[i] & ~word) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 判断 owned 是否包含 required 中的任意一个id
+	 * @param owned 账号拥有的位图
+	 * @param required 待校验的位图
+	 * @return /
+	 */
+	public static boolean intersects(long[] owned, long[] required) {
+		int length = Math.min(owned.length, required.length);
+		for (int i = 0; i < length; i++) {
+			if((required[i] & owned[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
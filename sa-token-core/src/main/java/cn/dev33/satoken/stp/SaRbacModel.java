@@ -0,0 +1,299 @@
+package cn.dev33.satoken.stp;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.dev33.satoken.util.SaElementMatcher;
+
+/**
+ * RBAC 模型: 维护 角色继承关系 与 角色->权限码 授权关系，并预先计算每个角色的传递闭包
+ *
+ * <p> 角色继承：addParent("editor", "viewer") 代表 editor 继承 viewer，拥有 viewer 的全部角色身份与权限码，继承关系可以多层、多个
+ * <p> 闭包计算：每个角色继承到的全部角色、拥有的全部权限码在修改时即已算好，修改只会重新计算受影响的角色 (被修改的角色及继承它的角色)，
+ * 鉴权时只需按账号的角色集合取出已算好的结果，多个角色的合并结果同样会被缓存
+ *
+ * <p> 配合 {@link StpInterfaceRbac} 使用
+ *
+ * @author kong
+ *
+ */
+public class SaRbacModel {
+
+	/** 角色 -> 直接继承的角色 */
+	public final Map<String, Set<String>> parentMap = new HashMap<>();
+
+	/** 角色 -> 直接继承它的角色 (parentMap 的反向索引) */
+	public final Map<String, Set<String>> childMap = new HashMap<>();
+
+	/** 角色 -> 直接授予的权限码 */
+	public final Map<String, Set<String>> grantMap = new HashMap<>();
+
+	/** 闭包: 角色 -> 自身及继承到的全部角色 */
+	public final Map<String, List<String>> roleClosureMap = new ConcurrentHashMap<>();
+
+	/** 闭包: 角色 -> 拥有的全部权限码 */
+	public final Map<String, List<String>> permissionClosureMap = new ConcurrentHashMap<>();
+
+	/** 多个角色合并后的角色集合缓存 (以账号的角色集合为键) */
+	public final Map<List<String>, List<String>> roleUnionCache = new ConcurrentHashMap<>();
+
+	/** 多个角色合并后的权限码集合缓存 (以账号的角色集合为键) */
+	public final Map<List<String>, List<String>> permissionUnionCache = new ConcurrentHashMap<>();
+
+	/** 合并结果缓存最多存储的条数 (超出后清空重建) */
+	public int unionCacheMaxSize = 1000;
+
+	/** 版本号，每次修改后递增，避免修改前算出的合并结果在修改后写入缓存 */
+	public volatile int version = 0;
+
+
+	// ------------------------ 修改
+
+	/**
+	 * 添加继承关系
+	 * @param role 角色
+	 * @param parentRoles 被继承的角色
+	 * @return 对象自身
+	 */
+	public synchronized SaRbacModel addParent(String role, String... parentRoles) {
+		for (String parentRole : parentRoles) {
+			parentMap.computeIfAbsent(role, k -> new LinkedHashSet<>()).add(parentRole);
+			childMap.computeIfAbsent(parentRole, k -> new LinkedHashSet<>()).add(role);
+		}
+		refresh(role, true);
+		return this;
+	}
+
+	/**
+	 * 移除继承关系
+	 * @param role 角色
+	 * @param parentRoles 被继承的角色
+	 * @return 对象自身
+	 */
+	public synchronized SaRbacModel removeParent(String role, String... parentRoles) {
+		for (String parentRole : parentRoles) {
+			removeFrom(parentMap, role, parentRole);
+			removeFrom(childMap, parentRole, role);
+		}
+		refresh(role, true);
+		return this;
+	}
+
+	/**
+	 * 为角色授予权限码
+	 * @param role 角色
+	 * @param permissions 权限码 (可带 * 通配符)
+	 * @return 对象自身
+	 */
+	public synchronized SaRbacModel grant(String role, String... permissions) {
+		Set<String> grantSet = grantMap.computeIfAbsent(role, k -> new LinkedHashSet<>());
+		Collections.addAll(grantSet, permissions);
+		refresh(role, false);
+		return this;
+	}
+
+	/**
+	 * 收回角色的权限码
+	 * @param role 角色
+	 * @param permissions 权限码
+	 * @return 对象自身
+	 */
+	public synchronized SaRbacModel revoke(String role, String... permissions) {
+		for (String permission : permissions) {
+			removeFrom(grantMap, role, permission);
+		}
+		refresh(role, false);
+		return this;
+	}
+
+	/**
+	 * 删除一个角色 (同时删除它的授权以及与它有关的继承关系)
+	 * @param role 角色
+	 * @return 对象自身
+	 */
+	public synchronized SaRbacModel removeRole(String role) {
+		Set<String> childSet = childMap.remove(role);
+		Set<String> parentSet = parentMap.remove(role);
+		if(parentSet != null) {
+			for (String parentRole : parentSet) {
+				removeFrom(childMap, parentRole, role);
+			}
+		}
+		grantMap.remove(role);
+		roleClosureMap.remove(role);
+		permissionClosureMap.remove(role);
+		if(childSet != null) {
+			for (String childRole : childSet) {
+				removeFrom(parentMap, childRole, role);
+				refresh(childRole, true);
+			}
+		}
+		clearUnionCache();
+		return this;
+	}
+
+
+	// ------------------------ 查询
+
+	/**
+	 * 获取一个角色自身及继承到的全部角色
+	 * @param role 角色
+	 * @return 只读集合
+	 */
+	public List<String> getRoleClosure(String role) {
+		List<String> list = roleClosureMap.get(role);
+		return list == null ? Collections.singletonList(role) : list;
+	}
+
+	/**
+	 * 获取一个角色拥有的全部权限码
+	 * @param role 角色
+	 * @return 只读集合
+	 */
+	public List<String> getPermissionClosure(String role) {
+		List<String> list = permissionClosureMap.get(role);
+		return list == null ? Collections.emptyList() : list;
+	}
+
+	/**
+	 * 获取一组角色展开继承关系后的全部角色
+	 * @param roleList 角色集合
+	 * @return 只读集合 (已编译为匹配器)
+	 */
+	public List<String> getRoleList(List<String> roleList) {
+		List<String> list = roleUnionCache.get(roleList);
+		if(list == null) {
+			int currentVersion = version;
+			Set<String> set = new LinkedHashSet<>();
+			for (String role : roleList) {
+				set.addAll(getRoleClosure(role));
+			}
+			list = putUnionCache(roleUnionCache, roleList, set, currentVersion);
+		}
+		return list;
+	}
+
+	/**
+	 * 获取一组角色拥有的全部权限码
+	 * @param roleList 角色集合
+	 * @return 只读集合 (已编译为匹配器)
+	 */
+	public List<String> getPermissionList(List<String> roleList) {
+		List<String> list = permissionUnionCache.get(roleList);
+		if(list == null) {
+			int currentVersion = version;
+			Set<String> set = new LinkedHashSet<>();
+			for (String role : roleList) {
+				set.addAll(getPermissionClosure(role));
+			}
+			list = putUnionCache(permissionUnionCache, roleList, set, currentVersion);
+		}
+		return list;
+	}
+
+
+	// ------------------------ 闭包计算
+
+	/**
+	 * 重新计算一个角色及所有继承它的角色的闭包
+	 * @param role 被修改的角色
+	 * @param isRoleChanged 继承关系是否发生变化 (为false时只需重新计算权限码)
+	 */
+	protected void refresh(String role, boolean isRoleChanged) {
+		// 先收集全部受影响的角色，再逐一计算，计算权限码时依赖的角色闭包必须已是最新
+		List<String> affectedList = new ArrayList<>(collect(childMap, role));
+		if(isRoleChanged) {
+			for (String affected : affectedList) {
+				roleClosureMap.put(affected, Collections.unmodifiableList(new ArrayList<>(collect(parentMap, affected))));
+			}
+		}
+		for (String affected : affectedList) {
+			Set<String> permissionSet = new LinkedHashSet<>();
+			for (String closureRole : getRoleClosure(affected)) {
+				Set<String> grantSet = grantMap.get(closureRole);
+				if(grantSet != null) {
+					permissionSet.addAll(grantSet);
+				}
+			}
+			permissionClosureMap.put(affected, Collections.unmodifiableList(new ArrayList<>(permissionSet)));
+		}
+		clearUnionCache();
+	}
+
+	/**
+	 * 沿指定方向遍历，收集起点及所有可达的角色 (可容忍环)
+	 * @param edgeMap 边
+	 * @param start 起点
+	 * @return 角色集合
+	 */
+	protected Set<String> collect(Map<String, Set<String>> edgeMap, String start) {
+		Set<String> visited = new LinkedHashSet<>();
+		Deque<String> queue = new ArrayDeque<>();
+		queue.add(start);
+		while (queue.isEmpty() == false) {
+			String role = queue.poll();
+			if(visited.add(role)) {
+				Set<String> nextSet = edgeMap.get(role);
+				if(nextSet != null) {
+					queue.addAll(nextSet);
+				}
+			}
+		}
+		return visited;
+	}
+
+	/**
+	 * 写入一条合并结果缓存
+	 * @param cache 缓存
+	 * @param roleList 账号的角色集合
+	 * @param set 合并结果
+	 * @param computeVersion 开始计算时的版本号
+	 * @return 编译后的只读集合
+	 */
+	protected List<String> putUnionCache(Map<List<String>, List<String>> cache, List<String> roleList, Set<String> set, int computeVersion) {
+		List<String> list = new SaElementMatcher(new ArrayList<>(set)).list;
+		if(cache.size() >= unionCacheMaxSize) {
+			cache.clear();
+		}
+		cache.put(new ArrayList<>(roleList), list);
+		// 计算期间模型发生了修改，丢弃本次结果 
+		if(computeVersion != version) {
+			cache.remove(roleList);
+		}
+		return list;
+	}
+
+	/**
+	 * 清空合并结果缓存
+	 */
+	protected void clearUnionCache() {
+		version++;
+		roleUnionCache.clear();
+		permissionUnionCache.clear();
+	}
+
+	/**
+	 * 从 Map<String, Set> 结构中移除一个值
+	 * @param map /
+	 * @param key /
+	 * @param value /
+	 */
+	protected void removeFrom(Map<String, Set<String>> map, String key, String value) {
+		Set<String> set = map.get(key);
+		if(set != null) {
+			set.remove(value);
+			if(set.isEmpty()) {
+				map.remove(key);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,248 @@
+package cn.dev33.satoken.stp;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.dev33.satoken.dao.SaNearCacheBus;
+import cn.dev33.satoken.dao.SaNearCacheBusDefaultImpl;
+import cn.dev33.satoken.fun.SaRetFunction;
+import cn.dev33.satoken.util.SaElementMatcher;
+import cn.dev33.satoken.util.SaLocalCache;
+
+/**
+ * 权限认证接口装饰类: 在任意 StpInterface 前增加一层本地缓存，避免每次鉴权都查询数据库或远程服务
+ *
+ * <p> 每个账号的权限码集合与角色集合分别缓存 timeout 毫秒 (超出 maxSize 个账号时淘汰较久未访问的)，缓存的集合在写入时即已编译为 {@link SaElementMatcher}，鉴权时无需再次编译；
+ * 账号的权限或角色发生变更后，调用 invalidate(loginId) 即可使其缓存立即失效，传入 SaNearCacheBus 时失效通知会同时广播到其它节点
+ *
+ * <p> 使用方式：
+ * <pre>
+ * 		StpInterfaceCache stpInterfaceCache = new StpInterfaceCache(stpInterface);
+ * 		SaManager.setStpInterface(stpInterfaceCache);
+ * 		// 账号 10001 的权限发生变更后
+ * 		stpInterfaceCache.invalidate(10001);
+ * </pre>
+ *
+ * @author kong
+ *
+ */
+public class StpInterfaceCache implements StpInterface {
+
+	/** 通知总线中代表 [清空全部缓存] 的消息 */
+	public static final String INVALIDATE_ALL = "*";
+
+	/** 通知总线中代表 [所有账号类型] 的前缀，消息形如 *:10001 */
+	public static final String ANY_TYPE_PREFIX = "*:";
+
+	/** 被装饰的权限认证接口 */
+	public StpInterface target;
+
+	/** 缓存失效通知总线 */
+	public SaNearCacheBus bus;
+
+	/** 权限码集合缓存 (键为 loginType:loginId，默认每条有效期 60 秒，最多缓存 10000 个账号) */
+	public SaLocalCache<List<String>> permissionCache = new SaLocalCache<>(60 * 1000, 10000);
+
+	/** 角色集合缓存 (键为 loginType:loginId，默认每条有效期 60 秒，最多缓存 10000 个账号) */
+	public SaLocalCache<List<String>> roleCache = new SaLocalCache<>(60 * 1000, 10000);
+
+	/** 读取过的全部账号类型 (收到 *:loginId 通知时，只需按账号类型逐个拼接键清除，无需遍历缓存) */
+	public final Set<String> loginTypeSet = ConcurrentHashMap.newKeySet();
+
+	/** 缓存命中次数 */
+	public final AtomicLong hitCount = new AtomicLong();
+
+	/** 缓存未命中次数 */
+	public final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * 构建一个只在当前 JVM 内广播失效通知的缓存
+	 * @param target 被装饰的权限认证接口
+	 */
+	public StpInterfaceCache(StpInterface target) {
+		this(target, new SaNearCacheBusDefaultImpl());
+	}
+
+	/**
+	 * 构建一个缓存
+	 * @param target 被装饰的权限认证接口
+	 * @param bus 缓存失效通知总线 (消息为 loginType:loginId、*:loginId，或代表清空全部的 *)
+	 */
+	public StpInterfaceCache(StpInterface target, SaNearCacheBus bus) {
+		this.target = target;
+		this.bus = bus;
+		bus.subscribe(this::removeLocal);
+	}
+
+	/**
+	 * 设置每条缓存的有效期
+	 * @param timeout 有效期 (单位: 毫秒)
+	 * @return 对象自身
+	 */
+	public StpInterfaceCache setTimeout(long timeout) {
+		this.permissionCache.timeout = timeout;
+		this.roleCache.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * 设置权限码集合与角色集合各自最多缓存的账号数
+	 * @param maxSize 账号数
+	 * @return 对象自身
+	 */
+	public StpInterfaceCache setMaxSize(int maxSize) {
+		this.permissionCache.maxSize = maxSize;
+		this.roleCache.maxSize = maxSize;
+		return this;
+	}
+
+
+	// ------------------------ 读取
+
+	@Override
+	public List<String> getPermissionList(Object loginId, String loginType) {
+		return getThrough(permissionCache, loginId, loginType, () -> target.getPermissionList(loginId, loginType));
+	}
+
+	@Override
+	public List<String> getRoleList(Object loginId, String loginType) {
+		return getThrough(roleCache, loginId, loginType, () -> target.getRoleList(loginId, loginType));
+	}
+
+
+	// ------------------------ 失效
+
+	/**
+	 * 使指定账号在所有账号类型下的缓存失效
+	 * @param loginId 账号id
+	 */
+	public void invalidate(Object loginId) {
+		invalidateKey(ANY_TYPE_PREFIX + loginId);
+	}
+
+	/**
+	 * 使指定账号类型下指定账号的缓存失效
+	 * @param loginId 账号id
+	 * @param loginType 账号类型
+	 */
+	public void invalidate(Object loginId, String loginType) {
+		invalidateKey(splicingKey(loginId, loginType));
+	}
+
+	/**
+	 * 使全部缓存失效
+	 */
+	public void invalidateAll() {
+		invalidateKey(INVALIDATE_ALL);
+	}
+
+
+	// ------------------------ 统计
+
+	/**
+	 * @return 缓存命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * @return 缓存未命中次数 (即访问被装饰对象的次数)
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * @return 缓存命中率 (尚无访问时返回0)
+	 */
+	public double getHitRate() {
+		long hit = hitCount.get();
+		long total = hit + missCount.get();
+		return total == 0 ? 0 : (double) hit / total;
+	}
+
+	/**
+	 * 重置统计数据
+	 */
+	public void resetStats() {
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+
+	// ------------------------ 内部实现
+
+	/**
+	 * 拼接缓存的键
+	 * @param loginId 账号id
+	 * @param loginType 账号类型
+	 * @return 键
+	 */
+	public String splicingKey(Object loginId, String loginType) {
+		return loginType + ":" + loginId;
+	}
+
+	/**
+	 * 读取一个账号的集合，缓存未命中时从被装饰对象读取，编译为匹配器后写入缓存
+	 * @param cache 缓存
+	 * @param loginId 账号id
+	 * @param loginType 账号类型
+	 * @param loader 从被装饰对象读取的函数
+	 * @return 编译后的只读集合
+	 */
+	@SuppressWarnings("unchecked")
+	protected List<String> getThrough(SaLocalCache<List<String>> cache, Object loginId, String loginType, SaRetFunction loader) {
+		String key = splicingKey(loginId, loginType);
+		SaLocalCache.Entry<List<String>> entry = cache.get(key);
+		if(entry != null) {
+			hitCount.incrementAndGet();
+			return entry.value;
+		}
+		missCount.incrementAndGet();
+		loginTypeSet.add(loginType);
+		// 先取版本号再读取，读取期间账号的缓存被清除时丢弃本次结果
+		long version = cache.version(key);
+		List<String> list = (List<String>) loader.run();
+		if(list == null) {
+			return null;
+		}
+		// 被装饰对象返回的集合已经编译过时 (例如 StpInterfaceRbac)，无需再次编译
+		List<String> compiledList = list instanceof SaElementMatcher.MatcherList ? list : new SaElementMatcher(list).list;
+		cache.put(key, compiledList, version);
+		return compiledList;
+	}
+
+	/**
+	 * 清除本地缓存，并通知其它节点
+	 * @param key 键，或 *:loginId、*
+	 */
+	public void invalidateKey(String key) {
+		removeLocal(key);
+		bus.publish(key);
+	}
+
+	/**
+	 * 清除本地缓存 (收到失效通知时调用)
+	 * @param key 键，或 *:loginId、*
+	 */
+	public void removeLocal(String key) {
+		if(INVALIDATE_ALL.equals(key)) {
+			permissionCache.clear();
+			roleCache.clear();
+		} else if(key.startsWith(ANY_TYPE_PREFIX)) {
+			String loginId = key.substring(ANY_TYPE_PREFIX.length());
+			for (String loginType : loginTypeSet) {
+				String typeKey = splicingKey(loginId, loginType);
+				permissionCache.remove(typeKey);
+				roleCache.remove(typeKey);
+			}
+		} else {
+			permissionCache.remove(key);
+			roleCache.remove(key);
+		}
+	}
+
+}
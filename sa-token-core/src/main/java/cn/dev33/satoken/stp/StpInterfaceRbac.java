@@ -0,0 +1,101 @@
+package cn.dev33.satoken.stp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import cn.dev33.satoken.util.SaElementMatcher;
+
+/**
+ * 权限认证接口装饰类: 根据 {@link SaRbacModel} 展开账号的角色继承关系与角色授权
+ *
+ * <p> 被装饰的 StpInterface 只需返回账号直接拥有的角色，继承到的角色、角色授予的权限码均由 SaRbacModel 中预先算好的闭包给出，鉴权时不再需要关联查询；
+ * 返回的集合为 SaRbacModel 缓存的已编译集合，同一组角色的账号共用同一份
+ *
+ * <p> 默认不调用被装饰对象的 getPermissionList，如果账号还有不经过角色、直接授予的权限码，请开启 isDirectPermission
+ *
+ * <p> 使用方式：
+ * <pre>
+ * 		SaRbacModel rbacModel = new SaRbacModel()
+ * 				.addParent("admin", "editor")
+ * 				.grant("editor", "art-add", "art-update")
+ * 				.grant("admin", "user*");
+ * 		// 外层再套一层 StpInterfaceCache，账号的角色集合也无需每次查询
+ * 		SaManager.setStpInterface(new StpInterfaceCache(new StpInterfaceRbac(stpInterface, rbacModel)));
+ * </pre>
+ *
+ * <p> 注意：修改 SaRbacModel 后，如果外层套有 StpInterfaceCache，请调用其 invalidateAll() 使已缓存的结果立即失效
+ *
+ * @author kong
+ *
+ */
+public class StpInterfaceRbac implements StpInterface {
+
+	/** 被装饰的权限认证接口 (返回账号直接拥有的角色与权限码) */
+	public StpInterface target;
+
+	/** RBAC 模型 */
+	public SaRbacModel model;
+
+	/** 是否合并账号直接拥有的权限码 (开启后每次获取权限码集合时会额外调用一次被装饰对象的 getPermissionList) */
+	public boolean isDirectPermission = false;
+
+	/**
+	 * 构建一个装饰类
+	 * @param target 被装饰的权限认证接口
+	 * @param model RBAC 模型
+	 */
+	public StpInterfaceRbac(StpInterface target, SaRbacModel model) {
+		this.target = target;
+		this.model = model;
+	}
+
+	/**
+	 * 设置是否合并账号直接拥有的权限码
+	 * @param isDirectPermission /
+	 * @return 对象自身
+	 */
+	public StpInterfaceRbac setIsDirectPermission(boolean isDirectPermission) {
+		this.isDirectPermission = isDirectPermission;
+		return this;
+	}
+
+	/**
+	 * 返回账号的角色 (含继承到的角色) 被授予的权限码，开启 isDirectPermission 时再合并账号直接拥有的权限码
+	 */
+	@Override
+	public List<String> getPermissionList(Object loginId, String loginType) {
+		List<String> rolePermissionList = model.getPermissionList(getDirectRoleList(loginId, loginType));
+		if(isDirectPermission == false) {
+			return rolePermissionList;
+		}
+		List<String> permissionList = target.getPermissionList(loginId, loginType);
+		if(permissionList == null || permissionList.isEmpty()) {
+			return rolePermissionList;
+		}
+		Set<String> set = new LinkedHashSet<>(permissionList);
+		set.addAll(rolePermissionList);
+		return new SaElementMatcher(new ArrayList<>(set)).list;
+	}
+
+	/**
+	 * 返回账号直接拥有的角色及其继承到的全部角色
+	 */
+	@Override
+	public List<String> getRoleList(Object loginId, String loginType) {
+		return model.getRoleList(getDirectRoleList(loginId, loginType));
+	}
+
+	/**
+	 * 获取账号直接拥有的角色
+	 * @param loginId 账号id
+	 * @param loginType 账号类型
+	 * @return 角色集合
+	 */
+	public List<String> getDirectRoleList(Object loginId, String loginType) {
+		List<String> roleList = target.getRoleList(loginId, loginType);
+		return roleList == null ? new ArrayList<>() : roleList;
+	}
+
+}
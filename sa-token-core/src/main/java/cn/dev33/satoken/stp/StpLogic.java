@@ -1,8 +1,12 @@
 package cn.dev33.satoken.stp;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Consumer;
 
@@ -15,9 +19,11 @@ import cn.dev33.satoken.annotation.SaMode;
 import cn.dev33.satoken.config.SaCookieConfig;
 import cn.dev33.satoken.config.SaTokenConfig;
 import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.context.SaTokenContext;
 import cn.dev33.satoken.context.model.SaCookie;
 import cn.dev33.satoken.context.model.SaRequest;
 import cn.dev33.satoken.context.model.SaStorage;
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.exception.DisableLoginException;
 import cn.dev33.satoken.exception.NotLoginException;
@@ -27,6 +33,7 @@ import cn.dev33.satoken.exception.NotSafeException;
 import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.fun.SaFunction;
 import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionDirtyUtil;
 import cn.dev33.satoken.session.TokenSign;
 import cn.dev33.satoken.strategy.SaStrategy;
 import cn.dev33.satoken.util.SaFoxUtil;
@@ -304,22 +311,44 @@ public class StpLogic {
 			tokenValue = createTokenValue(id, loginModel.getDeviceOrDefault(), loginModel.getTimeout());
 		}
 		
-		// ------ 3. 获取 User-Session , 续期 
-		SaSession session = getSessionByLoginId(id, true);
-		session.updateMinTimeout(loginModel.getTimeout());
+		// ------ 3. 获取 User-Session , 计算续期后的有效期 
+		SaSession session = getSessionByLoginId(id, false);
+		long sessionTimeout;
+		if(session == null) {
+			session = SaStrategy.me.createSession.apply(splicingKeySession(id));
+			sessionTimeout = config.getTimeout();
+		} else {
+			sessionTimeout = session.getTimeout();
+		}
+		// 效果同 session.updateMinTimeout(loginModel.getTimeout()) 
+		if(sessionTimeout < loginModel.getTimeout()) {
+			sessionTimeout = loginModel.getTimeout();
+		}
 		
-		// 在 User-Session 上记录token签名 
-		session.addTokenSign(tokenValue, loginModel.getDeviceOrDefault());
+		// 在 User-Session 上记录token签名 (稍后统一写回) 
+		TokenSign tokenSign = new TokenSign(tokenValue, loginModel.getDeviceOrDefault());
+		session.putTokenSign(tokenSign);
 		
-		// ------ 4. 持久化其它数据 
-		// token -> id 映射关系  
-		saveTokenToIdMapping(tokenValue, id, loginModel.getTimeout());
+		// ------ 4. 持久化数据 (所有写操作集中在一次批量提交中完成，例如 Redis 下只需一次网络往返) 
+		// 注意：函数内不能读取数据，重写 saveTokenToIdMapping、setLastActivityToNow 时同样只能写入 
+		String finalTokenValue = tokenValue;
+		SaSession finalSession = session;
+		long finalSessionTimeout = sessionTimeout;
+		getSaTokenDao().pipeline(() -> {
+			// 写入 User-Session 及其上新增的token签名 
+			getSaTokenDao().addTokenSign(finalSession, tokenSign, finalSessionTimeout);
+			
+			// token -> id 映射关系  
+			saveTokenToIdMapping(finalTokenValue, id, loginModel.getTimeout());
+			
+			// 写入 [token-last-activity] (折叠存储时已随映射值一并写入) 
+			if(isFoldLastActivity() == false) {
+				setLastActivityToNow(finalTokenValue); 
+			}
+		});
 		
 		// 在当前会话写入tokenValue 
 		setTokenValue(tokenValue, loginModel.getCookieTimeout());
-
-		// 写入 [token-last-activity] 
-		setLastActivityToNow(tokenValue); 
 		
 		// $$ 通知监听器，账号xxx 登录成功 
 		SaManager.getSaTokenListener().doLogin(loginType, id, loginModel);
@@ -365,11 +394,13 @@ public class StpLogic {
 	 * @param device 设备标识 (填null代表所有注销设备) 
 	 */
 	public void logout(Object loginId, String device) {
-		clearTokenCommonMethod(loginId, device, tokenValue -> {
-	 		// 删除Token-Id映射 & 清除Token-Session 
-			deleteTokenToIdMapping(tokenValue);
-			deleteTokenSession(tokenValue);
-			SaManager.getSaTokenListener().doLogout(loginType, loginId, tokenValue);
+		clearTokenBatchMethod(loginId, device, tokenValueList -> {
+	 		// 批量删除Token-Id映射 & 清除Token-Session 
+			deleteTokenToIdMapping(tokenValueList);
+			deleteTokenSession(tokenValueList);
+			for (String tokenValue : tokenValueList) {
+				SaManager.getSaTokenListener().doLogout(loginType, loginId, tokenValue);
+			}
 		}, true);
 	}
 	
@@ -425,10 +456,12 @@ public class StpLogic {
 	 * @param device 设备标识 (填null代表踢出所有设备) 
 	 */
 	public void kickout(Object loginId, String device) {
-		clearTokenCommonMethod(loginId, device, tokenValue -> {
-			// 将此 token 标记为已被踢下线  
-			updateTokenToIdMapping(tokenValue, NotLoginException.KICK_OUT);
-	 		SaManager.getSaTokenListener().doKickout(loginType, loginId, tokenValue);
+		clearTokenBatchMethod(loginId, device, tokenValueList -> {
+			// 将这些 token 批量标记为已被踢下线  
+			updateTokenToIdMapping(tokenValueList, NotLoginException.KICK_OUT);
+			for (String tokenValue : tokenValueList) {
+		 		SaManager.getSaTokenListener().doKickout(loginType, loginId, tokenValue);
+			}
 		}, true);
 	}
 
@@ -472,20 +505,25 @@ public class StpLogic {
 	 * @param device 设备标识 (填null代表顶替所有设备) 
 	 */
 	public void replaced(Object loginId, String device) {
-		clearTokenCommonMethod(loginId, device, tokenValue -> {
-			// 将此 token 标记为已被顶替 
-			updateTokenToIdMapping(tokenValue, NotLoginException.BE_REPLACED);
-	 		SaManager.getSaTokenListener().doReplaced(loginType, loginId, tokenValue);
+		clearTokenBatchMethod(loginId, device, tokenValueList -> {
+			// 将这些 token 批量标记为已被顶替 
+			updateTokenToIdMapping(tokenValueList, NotLoginException.BE_REPLACED);
+			for (String tokenValue : tokenValueList) {
+		 		SaManager.getSaTokenListener().doReplaced(loginType, loginId, tokenValue);
+			}
 		}, false);
 	}
 	
 	/**
 	 * 封装 注销、踢人、顶人 三个动作的相同代码（无API含义方法）
+	 * <h1> 本函数设计已过时，未来版本可能移除此函数，请及时更换为 clearTokenBatchMethod() ，追加操作的参数改为本次需要清理的token集合 </h1>
+	 * <p> 为兼容已有的子类，重写了此函数的子类在 注销、踢人、顶人 时仍会逐个token调用此函数，而不使用批量方式 
 	 * @param loginId 账号id 
 	 * @param device 设备标识 
 	 * @param appendFun 追加操作 
 	 * @param isLogoutSession 是否注销 User-Session 
 	 */
+	@Deprecated
 	protected void clearTokenCommonMethod(Object loginId, String device, Consumer<String> appendFun, boolean isLogoutSession) {
 		// 1. 如果此账号尚未登录，则不执行任何操作 
 		SaSession session = getSessionByLoginId(loginId, false);
@@ -512,6 +550,71 @@ public class StpLogic {
 		}
 	}
 	
+	/**
+	 * 封装 注销、踢人、顶人 三个动作的相同代码, 以批量方式操作持久库（无API含义方法）
+	 * @param loginId 账号id 
+	 * @param device 设备标识 
+	 * @param appendFun 追加操作 (参数为本次需要清理的token集合) 
+	 * @param isLogoutSession 是否注销 User-Session 
+	 */
+	protected void clearTokenBatchMethod(Object loginId, String device, Consumer<List<String>> appendFun, boolean isLogoutSession) {
+		// 0. 子类重写了旧的 clearTokenCommonMethod 时，交由其逐个token处理 
+		if(isClearTokenCommonMethodOverridden()) {
+			clearTokenCommonMethod(loginId, device, tokenValue -> appendFun.accept(Collections.singletonList(tokenValue)), isLogoutSession);
+			return;
+		}
+		// 1. 如果此账号尚未登录，则不执行任何操作 
+		SaSession session = getSessionByLoginId(loginId, false);
+		if(session == null) {
+			return;
+		}
+		// 2. 挑选出需要清理的token 
+		List<String> tokenValueList = new ArrayList<String>();
+		for (TokenSign tokenSign : session.getTokenSignList()) {
+			if(device == null || tokenSign.getDevice().equals(device)) {
+				tokenValueList.add(tokenSign.getValue());
+			}
+		}
+		if(tokenValueList.size() > 0) {
+			// s1. 批量清理掉[token-last-activity] 
+			clearLastActivity(tokenValueList);
+			// s2. 从token签名列表批量移除 (只写回一次Session) 
+			session.removeTokenSign(tokenValueList); 
+			// -------- 追加操作 
+			appendFun.accept(tokenValueList);
+		}
+		// 3. 尝试注销session 
+		if(isLogoutSession) {
+			session.logoutByTokenSignCountToZero();
+		}
+	}
+
+	/**
+	 * 子类是否重写了 clearTokenCommonMethod (null代表尚未判断) 
+	 */
+	private Boolean clearTokenCommonMethodOverridden;
+
+	/**
+	 * 判断当前类是否重写了 clearTokenCommonMethod 
+	 * @return / 
+	 */
+	protected boolean isClearTokenCommonMethodOverridden() {
+		if(clearTokenCommonMethodOverridden == null) {
+			boolean result = false;
+			for (Class<?> c = getClass(); c != StpLogic.class && c != null; c = c.getSuperclass()) {
+				try {
+					c.getDeclaredMethod("clearTokenCommonMethod", Object.class, String.class, Consumer.class, boolean.class);
+					result = true;
+					break;
+				} catch (NoSuchMethodException e) {
+					// 继续查找父类 
+				}
+			}
+			clearTokenCommonMethodOverridden = result;
+		}
+		return clearTokenCommonMethodOverridden;
+	}
+	
 	// ---- 会话查询 
 	
  	/** 
@@ -565,7 +668,7 @@ public class StpLogic {
 	 	checkActivityTimeout(tokenValue);
  		// 如果配置了自动续签, 则: 更新[最后操作时间] 
  		if(getConfig().getAutoRenew()) {
- 	 		updateLastActivityToNow(tokenValue);
+ 	 		autoRenewLastActivity(tokenValue);
  		}
  		// 至此，返回loginId 
  		return loginId;
@@ -666,7 +769,9 @@ public class StpLogic {
  	  * @return 账号id
  	  */
  	public String getLoginIdNotHandle(String tokenValue) {
- 		return getSaTokenDao().get(splicingKeyTokenValue(tokenValue));
+ 		String value = getReadCacheValue(splicingKeyTokenValue(tokenValue));
+ 		// 只有开启折叠存储时映射值才是折叠格式，未开启时原样返回 (账号id本身可能形如 #2024#abc) 
+ 		return isFoldLastActivity() ? unfoldLoginId(value) : value;
  	}
  	
 	// ---- 其它操作 
@@ -684,6 +789,19 @@ public class StpLogic {
 	 */
 	public void deleteTokenToIdMapping(String tokenValue) {
 		getSaTokenDao().delete(splicingKeyTokenValue(tokenValue));
+		deleteReadCacheValue(splicingKeyTokenValue(tokenValue));
+	}
+	/**
+	 * 批量删除 Token-Id 映射 
+	 * @param tokenValueList token值集合 
+	 */
+	public void deleteTokenToIdMapping(List<String> tokenValueList) {
+		List<String> keyList = new ArrayList<String>(tokenValueList.size());
+		for (String tokenValue : tokenValueList) {
+			keyList.add(splicingKeyTokenValue(tokenValue));
+		}
+		getSaTokenDao().multiDelete(keyList);
+		deleteReadCacheValue(keyList);
 	}
 	/**
 	 * 更改 Token 指向的 账号Id 值 
@@ -692,16 +810,123 @@ public class StpLogic {
 	 */
 	public void updateTokenToIdMapping(String tokenValue, Object loginId) {
 		SaTokenException.throwBy(SaFoxUtil.isEmpty(loginId), "LoginId 不能为空");
-		getSaTokenDao().update(splicingKeyTokenValue(tokenValue), loginId.toString());
+		getSaTokenDao().update(splicingKeyTokenValue(tokenValue), toTokenMappingValue(loginId));
+		deleteReadCacheValue(splicingKeyTokenValue(tokenValue));
+	}
+	/**
+	 * 批量更改 Token 指向的 账号Id 值 
+	 * @param tokenValueList token值集合 
+	 * @param loginId 新的账号Id值
+	 */
+	public void updateTokenToIdMapping(List<String> tokenValueList, Object loginId) {
+		SaTokenException.throwBy(SaFoxUtil.isEmpty(loginId), "LoginId 不能为空");
+		Map<String, String> map = new LinkedHashMap<String, String>();
+		for (String tokenValue : tokenValueList) {
+			map.put(splicingKeyTokenValue(tokenValue), toTokenMappingValue(loginId));
+		}
+		getSaTokenDao().multiUpdate(map);
+		deleteReadCacheValue(map.keySet());
 	}
 	/**
 	 * 存储 Token-Id 映射 
+	 * <p> 登录时会在 SaTokenDao.pipeline 中调用，重写时只能写入数据，不能读取 
 	 * @param tokenValue token值 
 	 * @param loginId 账号id 
 	 * @param timeout 会话有效期 (单位: 秒) 
 	 */
 	public void saveTokenToIdMapping(String tokenValue, Object loginId, long timeout) {
-		getSaTokenDao().set(splicingKeyTokenValue(tokenValue), String.valueOf(loginId), timeout);
+		getSaTokenDao().set(splicingKeyTokenValue(tokenValue), toTokenMappingValue(loginId), timeout);
+		deleteReadCacheValue(splicingKeyTokenValue(tokenValue));
+	}
+	/**
+	 * 计算 Token-Id 映射的存储值 (折叠存储时为 "#最后操作时间#账号id"，否则为账号id本身) 
+	 * @param loginId 账号id 
+	 * @return 存储值 
+	 */
+	public String toTokenMappingValue(Object loginId) {
+		if(isFoldLastActivity() && isValidLoginId(loginId)) {
+			return foldTokenMappingValue(loginId.toString(), System.currentTimeMillis());
+		}
+		return String.valueOf(loginId);
+	}
+	
+	
+	// ------------------- [最后操作时间] 折叠存储 -------------------  
+	
+	/**
+	 * 是否将 [最后操作时间] 折叠进 Token-Id 映射值中存储 (使一次读取即可同时完成登录校验与临时过期校验) 
+	 * @return / 
+	 */
+	public boolean isFoldLastActivity() {
+		return getConfig().getIsFoldLastActivity() && getConfig().getActivityTimeout() != SaTokenDao.NEVER_EXPIRE;
+	}
+	
+	/**
+	 * 将账号id与 [最后操作时间] 折叠为一个映射值 
+	 * @param loginId 账号id 
+	 * @param lastActivityTime 最后操作时间 (毫秒时间戳) 
+	 * @return 映射值，形如: #1650000000000#10001 
+	 */
+	public String foldTokenMappingValue(String loginId, long lastActivityTime) {
+		return SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX + lastActivityTime + SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX + loginId;
+	}
+	
+	/**
+	 * 从映射值中解析出账号id (兼容未折叠的旧格式) 
+	 * <p> 仅在开启折叠存储时调用：未折叠的旧数据中，形如 #数字#xxx 的账号id无法与折叠格式区分 
+	 * @param value 映射值 
+	 * @return 账号id 
+	 */
+	public String unfoldLoginId(String value) {
+		int index = indexOfFoldSeparator(value);
+		return index == -1 ? value : value.substring(index + 1);
+	}
+	
+	/**
+	 * 从映射值中解析出 [最后操作时间] 
+	 * @param value 映射值 
+	 * @return 最后操作时间 (毫秒时间戳)，映射值为旧格式时返回null 
+	 */
+	public String unfoldLastActivityTime(String value) {
+		int index = indexOfFoldSeparator(value);
+		return index == -1 ? null : value.substring(SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX.length(), index);
+	}
+	
+	/**
+	 * 查找映射值中时间戳与账号id之间分隔符的位置 
+	 * @param value 映射值 
+	 * @return 位置 (映射值不是折叠格式时返回-1) 
+	 */
+	protected int indexOfFoldSeparator(String value) {
+		if(value == null || value.startsWith(SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX) == false) {
+			return -1;
+		}
+		int index = value.indexOf(SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX, SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX.length());
+		if(index <= SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX.length()) {
+			return -1;
+		}
+		for (int i = SaTokenConsts.TOKEN_MAPPING_FOLD_PREFIX.length(); i < index; i++) {
+			if(Character.isDigit(value.charAt(i)) == false) {
+				return -1;
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * 获取指定token的 [最后操作时间] 
+	 * <p> 折叠存储时优先从 Token-Id 映射值中解析，映射值仍为旧格式时回退读取独立的 [最后操作时间] 键，使两种格式可以平滑过渡 
+	 * @param tokenValue 指定token 
+	 * @return 最后操作时间 (毫秒时间戳)，不存在时返回null 
+	 */
+	public String getLastActivityTime(String tokenValue) {
+		if(isFoldLastActivity()) {
+			String lastActivityTime = unfoldLastActivityTime(getReadCacheValue(splicingKeyTokenValue(tokenValue)));
+			if(lastActivityTime != null) {
+				return lastActivityTime;
+			}
+		}
+		return getReadCacheValue(splicingKeyLastActivityTime(tokenValue));
 	}
 	
 	
@@ -715,7 +940,11 @@ public class StpLogic {
 	 * @return Session对象 
 	 */
 	public SaSession getSessionBySessionId(String sessionId, boolean isCreate) {
-		SaSession session = getSaTokenDao().getSession(sessionId);
+		// 当前请求中有尚未写入的修改时，直接返回这一份 
+		SaSession session = SaSessionDirtyUtil.getDirtySession(sessionId);
+		if(session == null) {
+			session = getSaTokenDao().getSession(sessionId);
+		}
 		if(session == null && isCreate) {
 			session = SaStrategy.me.createSession.apply(sessionId);
 			getSaTokenDao().setSession(session, getConfig().getTimeout());
@@ -831,11 +1060,24 @@ public class StpLogic {
 	public void deleteTokenSession(String tokenValue) {
 		getSaTokenDao().delete(splicingKeyTokenSession(tokenValue));
 	}
+
+	/**
+	 * 批量删除Token-Session 
+	 * @param tokenValueList token值集合 
+	 */
+	public void deleteTokenSession(List<String> tokenValueList) {
+		List<String> keyList = new ArrayList<String>(tokenValueList.size());
+		for (String tokenValue : tokenValueList) {
+			keyList.add(splicingKeyTokenSession(tokenValue));
+		}
+		getSaTokenDao().multiDelete(keyList);
+	}
  	
 	// ------------------- [临时有效期] 验证相关 -------------------  
 
 	/**
  	 * 写入指定token的 [最后操作时间] 为当前时间戳 
+ 	 * <p> 登录时会在 SaTokenDao.pipeline 中调用，重写时只能写入数据，不能读取 
  	 * @param tokenValue 指定token 
  	 */
  	protected void setLastActivityToNow(String tokenValue) {
@@ -845,6 +1087,7 @@ public class StpLogic {
  		}
  		// 将[最后操作时间]标记为当前时间戳 
  		getSaTokenDao().set(splicingKeyLastActivityTime(tokenValue), String.valueOf(System.currentTimeMillis()), getConfig().getTimeout());
+ 		deleteReadCacheValue(splicingKeyLastActivityTime(tokenValue));
  	}
  	
  	/**
@@ -858,6 +1101,27 @@ public class StpLogic {
  		}
  		// 删除[最后操作时间]
  		getSaTokenDao().delete(splicingKeyLastActivityTime(tokenValue));
+ 		deleteReadCacheValue(splicingKeyLastActivityTime(tokenValue));
+ 		// 清除标记 
+ 		SaHolder.getStorage().delete(SaTokenConsts.TOKEN_ACTIVITY_TIMEOUT_CHECKED_KEY);
+ 	}
+ 	
+ 	/**
+ 	 * 批量清除指定token的 [最后操作时间] 
+ 	 * @param tokenValueList token值集合 
+ 	 */
+ 	protected void clearLastActivity(List<String> tokenValueList) {
+ 		// 如果设置了[永不过期], 则立即返回 
+ 		if(getConfig().getActivityTimeout() == SaTokenDao.NEVER_EXPIRE) {
+ 			return;
+ 		}
+ 		// 批量删除[最后操作时间]
+ 		List<String> keyList = new ArrayList<String>(tokenValueList.size());
+ 		for (String tokenValue : tokenValueList) {
+ 			keyList.add(splicingKeyLastActivityTime(tokenValue));
+ 		}
+ 		getSaTokenDao().multiDelete(keyList);
+ 		deleteReadCacheValue(keyList);
  		// 清除标记 
  		SaHolder.getStorage().delete(SaTokenConsts.TOKEN_ACTIVITY_TIMEOUT_CHECKED_KEY);
  	}
@@ -909,7 +1173,59 @@ public class StpLogic {
  		if(tokenValue == null || getConfig().getActivityTimeout() == SaTokenDao.NEVER_EXPIRE) {
  			return;
  		}
- 		getSaTokenDao().update(splicingKeyLastActivityTime(tokenValue), String.valueOf(System.currentTimeMillis()));
+ 		// 折叠存储: 仅当映射值未被改动 (例如已被踢下线) 时才写入新的映射值，旧格式的映射值也在此时完成迁移 
+ 		if(isFoldLastActivity()) {
+ 			String mappingKey = splicingKeyTokenValue(tokenValue);
+ 			String oldValue = getReadCacheValue(mappingKey);
+ 			String loginId = unfoldLoginId(oldValue);
+ 			if(isValidLoginId(loginId)) {
+ 				String newValue = foldTokenMappingValue(loginId, System.currentTimeMillis());
+ 				boolean result = getSaTokenDao().compareAndUpdate(mappingKey, oldValue, newValue);
+ 				Map<String, String> readCache = getReadCache(false);
+ 				if(result && readCache != null) {
+ 					readCache.put(mappingKey, newValue);
+ 				} else {
+ 					deleteReadCacheValue(mappingKey);
+ 				}
+ 				return;
+ 			}
+ 		}
+ 		String key = splicingKeyLastActivityTime(tokenValue);
+ 		String now = String.valueOf(System.currentTimeMillis());
+ 		getSaTokenDao().update(key, now);
+ 		// 本次请求已读取过且值存在时，update 必然成功，直接将缓存改为新值，省去一次读取 
+ 		Map<String, String> readCache = getReadCache(false);
+ 		if(readCache != null && readCache.get(key) != null) {
+ 			readCache.put(key, now);
+ 		} else {
+ 			deleteReadCacheValue(key);
+ 		}
+ 	}
+
+ 	/**
+ 	 * 自动续签指定token：距离上次续签超过 [autoRenewInterval] 时才将 [最后操作时间] 更新为当前时间戳 
+ 	 * @param tokenValue 指定token 
+ 	 */
+ 	public void autoRenewLastActivity(String tokenValue) {
+ 		// 如果token == null 或者 设置了[永不过期], 则立即返回 
+ 		long activityTimeout = getConfig().getActivityTimeout();
+ 		if(tokenValue == null || activityTimeout == SaTokenDao.NEVER_EXPIRE) {
+ 			return;
+ 		}
+ 		long interval = getConfig().getAutoRenewInterval();
+ 		if(interval > 0) {
+ 			// 续签间隔不能超过 activityTimeout，否则token会在两次续签之间过期 
+ 			if(interval >= activityTimeout) {
+ 				interval = activityTimeout / 2;
+ 			}
+ 			// [最后操作时间] 通常已在 checkActivityTimeout 中读取过，此处直接取自读取缓存 
+ 			String lastActivityTimeString = getLastActivityTime(tokenValue);
+ 			if(lastActivityTimeString != null 
+ 					&& System.currentTimeMillis() - Long.parseLong(lastActivityTimeString) < interval * 1000) {
+ 				return;
+ 			}
+ 		}
+ 		updateLastActivityToNow(tokenValue);
  	}
 
  	/**
@@ -922,6 +1238,70 @@ public class StpLogic {
  	}
  	
  	
+	// ------------------- 请求级读取缓存 -------------------  
+
+ 	/**
+ 	 * 获取本次请求的读取缓存 (以持久层的key为键，读取到的值为值，值不存在时同样记录为null) 
+ 	 * @param isCreate 不存在时是否创建 
+ 	 * @return 读取缓存 (不在请求上下文中时返回null) 
+ 	 */
+ 	@SuppressWarnings("unchecked")
+	public Map<String, String> getReadCache(boolean isCreate) {
+ 		// 不在请求上下文中，不做缓存 
+ 		SaTokenContext context = SaManager.getSaTokenContextOrSecond();
+ 		if(context.isValid() == false) {
+ 			return null;
+ 		}
+ 		SaStorage storage = context.getStorage();
+ 		Map<String, String> readCache = (Map<String, String>) storage.get(SaTokenConsts.DAO_READ_CACHE_KEY);
+ 		if(readCache == null && isCreate) {
+ 			readCache = new HashMap<String, String>();
+ 			storage.set(SaTokenConsts.DAO_READ_CACHE_KEY, readCache);
+ 		}
+ 		return readCache;
+ 	}
+
+ 	/**
+ 	 * 从持久层读取一个值 (同一请求内只读取一次，之后直接从读取缓存中取值) 
+ 	 * @param key 键名称 
+ 	 * @return 值 
+ 	 */
+ 	public String getReadCacheValue(String key) {
+ 		Map<String, String> readCache = getReadCache(true);
+ 		if(readCache == null) {
+ 			return getSaTokenDao().get(key);
+ 		}
+ 		if(readCache.containsKey(key)) {
+ 			return readCache.get(key);
+ 		}
+ 		String value = getSaTokenDao().get(key);
+ 		readCache.put(key, value);
+ 		return value;
+ 	}
+
+ 	/**
+ 	 * 写入、删除持久层的值之后，清除其在本次请求中的读取缓存 
+ 	 * @param key 键名称 
+ 	 */
+ 	public void deleteReadCacheValue(String key) {
+ 		Map<String, String> readCache = getReadCache(false);
+ 		if(readCache != null) {
+ 			readCache.remove(key);
+ 		}
+ 	}
+
+ 	/**
+ 	 * 批量清除读取缓存 
+ 	 * @param keyList 键名称集合 
+ 	 */
+ 	public void deleteReadCacheValue(Collection<String> keyList) {
+ 		Map<String, String> readCache = getReadCache(false);
+ 		if(readCache != null) {
+ 			readCache.keySet().removeAll(keyList);
+ 		}
+ 	}
+
+
 	// ------------------- 过期时间相关 -------------------  
 
  	/**
@@ -999,8 +1379,7 @@ public class StpLogic {
  		}
  		// ------ 开始查询 
  		// 获取相关数据 
- 		String keyLastActivityTime = splicingKeyLastActivityTime(tokenValue);
- 		String lastActivityTimeString = getSaTokenDao().get(keyLastActivityTime);
+ 		String lastActivityTimeString = getLastActivityTime(tokenValue);
  		// 查不到，返回-2 
  		if(lastActivityTimeString == null) {
  			return SaTokenDao.NOT_VALUE_EXPIRE;
@@ -1159,7 +1538,7 @@ public class StpLogic {
  	 * @return 是否含有指定权限
  	 */
  	public boolean hasPermission(String permission) {
- 		return hasElement(getPermissionList(), permission);
+ 		return hasPermissionElement(getPermissionList(), permission);
  	}
 
  	/** 
@@ -1169,7 +1548,22 @@ public class StpLogic {
  	 * @return 是否含有指定权限
  	 */
  	public boolean hasPermission(Object loginId, String permission) {
- 		return hasElement(getPermissionList(loginId), permission);
+ 		return hasPermissionElement(getPermissionList(loginId), permission);
+ 	}
+ 	
+ 	/** 
+ 	 * 判断：权限码集合中是否含有指定权限 (未重写 hasElement 时，已注册到权限码注册表的权限码按位判断，否则使用 hasElement 匹配) 
+ 	 * @param permissionList 权限码集合
+ 	 * @param permission 权限码
+ 	 * @return 是否含有指定权限
+ 	 */
+ 	public boolean hasPermissionElement(List<String> permissionList, String permission) {
+ 		SaPermissionRegistry registry = SaManager.getSaPermissionRegistry();
+ 		int id = registry.getId(permission);
+ 		if(id != -1 && permissionList != null && SaStrategy.me.isDefaultHasElement()) {
+ 			return SaPermissionRegistry.contains(registry.getBits(permissionList), id);
+ 		}
+ 		return hasElement(permissionList, permission);
  	}
  	
  	/** 
@@ -1217,6 +1611,20 @@ public class StpLogic {
  	public void checkPermissionAnd(String... permissionArray){
  		Object loginId = getLoginId();
  		List<String> permissionList = getPermissionList(loginId);
+ 		// 全部为已注册的权限码、且未重写 hasElement：按字进行位运算 
+ 		SaPermissionRegistry registry = SaManager.getSaPermissionRegistry();
+ 		long[] required = SaStrategy.me.isDefaultHasElement() ? registry.encode(permissionArray) : null;
+ 		if(required != null && permissionList != null) {
+ 			long[] owned = registry.getBits(permissionList);
+ 			if(SaPermissionRegistry.containsAll(owned, required)) {
+ 				return;
+ 			}
+ 			for (String permission : permissionArray) {
+ 				if(SaPermissionRegistry.contains(owned, registry.getId(permission)) == false) {
+ 					throw new NotPermissionException(permission, this.loginType);	
+ 				}
+ 			}
+ 		}
  		for (String permission : permissionArray) {
  			if(!hasElement(permissionList, permission)) {
  				throw new NotPermissionException(permission, this.loginType);	
@@ -1231,11 +1639,20 @@ public class StpLogic {
  	public void checkPermissionOr(String... permissionArray){
  		Object loginId = getLoginId();
  		List<String> permissionList = getPermissionList(loginId);
- 		for (String permission : permissionArray) {
- 			if(hasElement(permissionList, permission)) {
- 				// 有的话提前退出
- 				return;		
+ 		// 全部为已注册的权限码、且未重写 hasElement：按字进行位运算 
+ 		SaPermissionRegistry registry = SaManager.getSaPermissionRegistry();
+ 		long[] required = SaStrategy.me.isDefaultHasElement() ? registry.encode(permissionArray) : null;
+ 		if(required != null && permissionList != null) {
+ 			if(SaPermissionRegistry.intersects(registry.getBits(permissionList), required)) {
+ 				return;
  			}
+ 		} else {
+	 		for (String permission : permissionArray) {
+	 			if(hasElement(permissionList, permission)) {
+	 				// 有的话提前退出
+	 				return;		
+	 			}
+	 		}
  		}
 		if(permissionArray.length > 0) {
 	 		throw new NotPermissionException(permissionArray[0], this.loginType);
@@ -1366,6 +1783,39 @@ public class StpLogic {
 	public List<String> searchTokenSessionId(String keyword, int start, int size) {
 		return getSaTokenDao().searchData(splicingKeyTokenSession(""), keyword, start, size);
 	}
+
+	/**
+	 * 根据条件游标式查询Token 
+	 * @param keyword 关键字 
+	 * @param cursor 游标 (首次查询传入"0"，之后传入上一次返回的游标) 
+	 * @param count 每次期望获取的数量 
+	 * @return 查询结果 (返回的游标为"0"时代表遍历结束) 
+	 */
+	public SaScanResult scanTokenValue(String keyword, String cursor, int count) {
+		return getSaTokenDao().scanData(splicingKeyTokenValue(""), keyword, cursor, count);
+	}
+
+	/**
+	 * 根据条件游标式查询SessionId 
+	 * @param keyword 关键字 
+	 * @param cursor 游标 (首次查询传入"0"，之后传入上一次返回的游标) 
+	 * @param count 每次期望获取的数量 
+	 * @return 查询结果 (返回的游标为"0"时代表遍历结束) 
+	 */
+	public SaScanResult scanSessionId(String keyword, String cursor, int count) {
+		return getSaTokenDao().scanData(splicingKeySession(""), keyword, cursor, count);
+	}
+
+	/**
+	 * 根据条件游标式查询Token专属Session的Id 
+	 * @param keyword 关键字 
+	 * @param cursor 游标 (首次查询传入"0"，之后传入上一次返回的游标) 
+	 * @param count 每次期望获取的数量 
+	 * @return 查询结果 (返回的游标为"0"时代表遍历结束) 
+	 */
+	public SaScanResult scanTokenSessionId(String keyword, String cursor, int count) {
+		return getSaTokenDao().scanData(splicingKeyTokenSession(""), keyword, cursor, count);
+	}
 	
 
 	// ------------------- 注解鉴权 -------------------  
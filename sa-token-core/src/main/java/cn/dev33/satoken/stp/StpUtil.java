@@ -3,6 +3,7 @@ package cn.dev33.satoken.stp;
 import java.util.List;
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.fun.SaFunction;
 import cn.dev33.satoken.session.SaSession;
 
@@ -661,6 +662,39 @@ public class StpUtil {
 		return stpLogic.searchTokenSessionId(keyword, start, size);
 	}
 
+	/**
+	 * 根据条件游标式查询Token 
+	 * @param keyword 关键字 
+	 * @param cursor 游标 (首次查询传入"0"，之后传入上一次返回的游标) 
+	 * @param count 每次期望获取的数量 
+	 * @return 查询结果 (返回的游标为"0"时代表遍历结束) 
+	 */
+	public static SaScanResult scanTokenValue(String keyword, String cursor, int count) {
+		return stpLogic.scanTokenValue(keyword, cursor, count);
+	}
+
+	/**
+	 * 根据条件游标式查询SessionId 
+	 * @param keyword 关键字 
+	 * @param cursor 游标 (首次查询传入"0"，之后传入上一次返回的游标) 
+	 * @param count 每次期望获取的数量 
+	 * @return 查询结果 (返回的游标为"0"时代表遍历结束) 
+	 */
+	public static SaScanResult scanSessionId(String keyword, String cursor, int count) {
+		return stpLogic.scanSessionId(keyword, cursor, count);
+	}
+
+	/**
+	 * 根据条件游标式查询Token专属Session的Id 
+	 * @param keyword 关键字 
+	 * @param cursor 游标 (首次查询传入"0"，之后传入上一次返回的游标) 
+	 * @param count 每次期望获取的数量 
+	 * @return 查询结果 (返回的游标为"0"时代表遍历结束) 
+	 */
+	public static SaScanResult scanTokenSessionId(String keyword, String cursor, int count) {
+		return stpLogic.scanTokenSessionId(keyword, cursor, count);
+	}
+
 	
 	// ------------------- 账号封禁 -------------------  
 
@@ -0,0 +1,349 @@
+package cn.dev33.satoken.strategy;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.annotation.SaCheckBasic;
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.dev33.satoken.annotation.SaCheckSafe;
+import cn.dev33.satoken.basic.SaBasicUtil;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.listener.SaTokenListenerDefaultImpl;
+
+/**
+ * 注解鉴权的检查计划: 将一个 Method (及其所属 Class) 上的鉴权注解预先读取为一组检查步骤，并按 Method 缓存
+ *
+ * <p> 之后每次调用该 Method 只需依次执行这些步骤，不再需要反射读取注解；没有任何鉴权注解的 Method 会得到一个空计划，直接跳过
+ *
+ * <p> 检查步骤的顺序与 SaTokenActionDefaultImpl.validateAnnotation 完全一致: 先 Class 后 Method，
+ * 每个元素上依次为 @SaCheckLogin、@SaCheckRole、@SaCheckPermission、@SaCheckSafe、@SaCheckBasic
+ *
+ * <p> 如果项目在编译时引入了 sa-token-apt 注解处理器，检查步骤将直接取自编译期生成的代码；
+ * 默认仍会在首次构建时反射读取注解，与生成代码时记录的注解描述比对，不一致 (生成的代码已过期，或方法键不匹配) 时抛出异常，
+ * 确认生成的代码总是随源码一同重新编译后 (例如 GraalVM native-image 构建)，可将 isVerifyGenerated 设为 false 跳过比对；
+ * 登记文件中的类无法加载时跳过该类并输出日志，其对应的 Method 退回反射读取注解
+ *
+ * @author kong
+ *
+ */
+public class SaAnnotationCheckPlan {
+
+	/**
+	 * 检查计划缓存 (按 Method 所属的 Class 分组，挂在 Class 上而不是全局集合中，
+	 * 因此不会阻止热部署、插件卸载等场景下旧的 ClassLoader 被回收)
+	 */
+	private static volatile ClassValue<Map<Method, SaAnnotationCheckPlan>> cache = newCache();
+
+	/**
+	 * 创建一个空的检查计划缓存
+	 * @return /
+	 */
+	private static ClassValue<Map<Method, SaAnnotationCheckPlan>> newCache() {
+		return new ClassValue<Map<Method, SaAnnotationCheckPlan>>() {
+			@Override
+			protected Map<Method, SaAnnotationCheckPlan> computeValue(Class<?> type) {
+				return new ConcurrentHashMap<>();
+			}
+		};
+	}
+
+	/**
+	 * 获取一个 Method 的检查计划 (首次获取时构建，之后直接取自缓存)
+	 * @param method Method
+	 * @return 检查计划
+	 */
+	public static SaAnnotationCheckPlan of(Method method) {
+		Map<Method, SaAnnotationCheckPlan> planMap = cache.get(method.getDeclaringClass());
+		SaAnnotationCheckPlan plan = planMap.get(method);
+		// 构建后 [获取注解] 的策略被重写过，需要重新构建
+		if(plan == null || plan.getAnnotation != SaStrategy.me.getAnnotation) {
+			plan = build(method);
+			planMap.put(method, plan);
+		}
+		return plan;
+	}
+
+	/**
+	 * 清空检查计划缓存 (编译期生成的代码也会在下次构建时重新加载)
+	 */
+	public static void clearCache() {
+		cache = newCache();
+		synchronized (SaAnnotationCheckPlan.class) {
+			generatedCheckerMap = null;
+		}
+	}
+
+	/**
+	 * 使用编译期生成的检查步骤前，是否先反射读取注解与生成代码时记录的描述比对 (不一致时抛出异常)
+	 */
+	public static boolean isVerifyGenerated = true;
+
+	/**
+	 * 编译期生成的检查步骤 (首次使用时通过 ServiceLoader 加载)
+	 */
+	private static volatile Map<String, SaFunction[]> generatedCheckerMap;
+
+	/**
+	 * 编译期生成代码时记录的注解描述
+	 */
+	private static volatile Map<String, String> generatedDescriptorMap;
+
+	/**
+	 * 生成过代码的类 (全类名)
+	 */
+	private static volatile Set<String> generatedClassSet;
+
+	/**
+	 * 获取编译期生成的检查步骤
+	 * @return 以 methodKey 为键的检查步骤 (没有生成任何代码时为空集合)
+	 */
+	public static Map<String, SaFunction[]> getGeneratedCheckerMap() {
+		loadGenerated();
+		return generatedCheckerMap;
+	}
+
+	/**
+	 * 获取编译期生成代码时记录的注解描述
+	 * @return 以 methodKey 为键的注解描述 (没有生成任何代码时为空集合)
+	 */
+	public static Map<String, String> getGeneratedDescriptorMap() {
+		loadGenerated();
+		return generatedDescriptorMap;
+	}
+
+	/**
+	 * 通过 ServiceLoader 加载编译期生成的代码 (只加载一次)
+	 */
+	private static void loadGenerated() {
+		if (generatedCheckerMap == null) {
+			synchronized (SaAnnotationCheckPlan.class) {
+				if (generatedCheckerMap == null) {
+					Map<String, SaFunction[]> checkerMap = new HashMap<>();
+					Map<String, String> descriptorMap = new HashMap<>();
+					Iterator<SaAnnotationCheckerProvider> iterator = ServiceLoader.load(SaAnnotationCheckerProvider.class).iterator();
+					while (true) {
+						try {
+							if(iterator.hasNext() == false) {
+								break;
+							}
+							SaAnnotationCheckerProvider provider = iterator.next();
+							provider.register(checkerMap);
+							provider.describe(descriptorMap);
+						} catch (ServiceConfigurationError e) {
+							// 登记文件中的类无法加载 (例如源码删除后未清理编译目录)：跳过该类，其对应的 Method 退回反射读取注解，过期代码的严格检查由 verifyGenerated 负责
+							System.err.println(SaTokenListenerDefaultImpl.LOG_PREFIX + "sa-token-apt 生成的鉴权代码无法加载，已跳过 (请清理编译目录后重新编译)：" + e.getMessage());
+						}
+					}
+					Set<String> classSet = new HashSet<>();
+					for (String key : checkerMap.keySet()) {
+						classSet.add(key.substring(0, key.indexOf('#')));
+					}
+					generatedDescriptorMap = descriptorMap;
+					generatedClassSet = classSet;
+					generatedCheckerMap = checkerMap;
+				}
+			}
+		}
+	}
+
+	/**
+	 * 计算 Method 在编译期生成代码中的键，形如: com.pj.UserController#add(java.lang.String,int[])
+	 * @param method Method
+	 * @return 键
+	 */
+	public static String methodKey(Method method) {
+		StringBuilder sb = new StringBuilder(method.getDeclaringClass().getName()).append('#').append(method.getName()).append('(');
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if(i > 0) {
+				sb.append(',');
+			}
+			sb.append(parameterTypes[i].getTypeName());
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * 构建一个 Method 的检查计划
+	 * @param method Method
+	 * @return 检查计划
+	 */
+	public static SaAnnotationCheckPlan build(Method method) {
+		BiFunction<AnnotatedElement, Class<? extends Annotation>, Annotation> getAnnotation = SaStrategy.me.getAnnotation;
+		// 优先使用编译期生成的检查步骤 (编译期只能按jdk默认的方式识别注解，[获取注解] 的策略被重写过时不可使用)
+		if(SaStrategy.me.isDefaultGetAnnotation()) {
+			String key = methodKey(method);
+			SaFunction[] steps = getGeneratedCheckerMap().get(key);
+			if(isVerifyGenerated && (steps != null || generatedClassSet.contains(method.getDeclaringClass().getName()))) {
+				verifyGenerated(method, key);
+			}
+			if(steps != null) {
+				return new SaAnnotationCheckPlan(steps, getAnnotation);
+			}
+		}
+		return buildByReflect(method, getAnnotation);
+	}
+
+	/**
+	 * 构建一个 Method 的检查计划 (反射读取注解，不使用编译期生成的检查步骤)
+	 * @param method Method
+	 * @param getAnnotation 获取注解的策略
+	 * @return 检查计划
+	 */
+	public static SaAnnotationCheckPlan buildByReflect(Method method, BiFunction<AnnotatedElement, Class<? extends Annotation>, Annotation> getAnnotation) {
+		List<SaFunction> stepList = new ArrayList<>();
+		addSteps(stepList, getAnnotation, method.getDeclaringClass());
+		addSteps(stepList, getAnnotation, method);
+		return new SaAnnotationCheckPlan(stepList.toArray(new SaFunction[0]), getAnnotation);
+	}
+
+	/**
+	 * 比对方法上的注解与生成代码时记录的描述，不一致时抛出异常
+	 * @param method Method
+	 * @param key 方法键
+	 */
+	public static void verifyGenerated(Method method, String key) {
+		String expected = describe(method);
+		String generated = getGeneratedDescriptorMap().get(key);
+		if(expected.equals(generated == null ? "" : generated) == false) {
+			throw new SaTokenException("sa-token-apt 生成的鉴权代码与 " + key + " 上的注解不一致 (生成的代码已过期，请重新编译)，"
+					+ "注解: [" + expected + "]，生成的代码: [" + (generated == null ? "无" : generated) + "]");
+		}
+	}
+
+	/**
+	 * 以 jdk 默认的方式读取 Method (及其所属 Class) 上的鉴权注解，生成描述字符串，与 sa-token-apt 生成代码时记录的描述格式一致
+	 * <p> 格式形如: SaCheckLogin(type=login);SaCheckRole(value=[admin, super-admin],mode=OR,type=login)
+	 * @param method Method
+	 * @return 描述 (没有任何鉴权注解时为空字符串)
+	 */
+	public static String describe(Method method) {
+		List<String> list = new ArrayList<>();
+		addDescriptors(list, method.getDeclaringClass());
+		addDescriptors(list, method);
+		return String.join(";", list);
+	}
+
+	/**
+	 * 读取一个元素上的鉴权注解，转换为描述
+	 * @param list 描述集合
+	 * @param target 元素
+	 */
+	protected static void addDescriptors(List<String> list, AnnotatedElement target) {
+		SaCheckLogin checkLogin = target.getAnnotation(SaCheckLogin.class);
+		if(checkLogin != null) {
+			list.add("SaCheckLogin(type=" + checkLogin.type() + ")");
+		}
+		SaCheckRole checkRole = target.getAnnotation(SaCheckRole.class);
+		if(checkRole != null) {
+			list.add("SaCheckRole(value=" + Arrays.toString(checkRole.value()) + ",mode=" + checkRole.mode() + ",type=" + checkRole.type() + ")");
+		}
+		SaCheckPermission checkPermission = target.getAnnotation(SaCheckPermission.class);
+		if(checkPermission != null) {
+			list.add("SaCheckPermission(value=" + Arrays.toString(checkPermission.value()) + ",mode=" + checkPermission.mode()
+					+ ",type=" + checkPermission.type() + ",orRole=" + Arrays.toString(checkPermission.orRole()) + ")");
+		}
+		SaCheckSafe checkSafe = target.getAnnotation(SaCheckSafe.class);
+		if(checkSafe != null) {
+			list.add("SaCheckSafe(type=" + checkSafe.type() + ")");
+		}
+		SaCheckBasic checkBasic = target.getAnnotation(SaCheckBasic.class);
+		if(checkBasic != null) {
+			list.add("SaCheckBasic(realm=" + checkBasic.realm() + ",account=" + checkBasic.account() + ")");
+		}
+	}
+
+	/**
+	 * 读取一个元素上的鉴权注解，转换为检查步骤
+	 * @param stepList 检查步骤集合
+	 * @param getAnnotation 获取注解的策略
+	 * @param target 元素
+	 */
+	protected static void addSteps(List<SaFunction> stepList,
+			BiFunction<AnnotatedElement, Class<? extends Annotation>, Annotation> getAnnotation, AnnotatedElement target) {
+
+		// @SaCheckLogin 注解
+		SaCheckLogin checkLogin = (SaCheckLogin) getAnnotation.apply(target, SaCheckLogin.class);
+		if(checkLogin != null) {
+			String type = checkLogin.type();
+			stepList.add(() -> SaManager.getStpLogic(type).checkByAnnotation(checkLogin));
+		}
+
+		// @SaCheckRole 注解
+		SaCheckRole checkRole = (SaCheckRole) getAnnotation.apply(target, SaCheckRole.class);
+		if(checkRole != null) {
+			String type = checkRole.type();
+			stepList.add(() -> SaManager.getStpLogic(type).checkByAnnotation(checkRole));
+		}
+
+		// @SaCheckPermission 注解
+		SaCheckPermission checkPermission = (SaCheckPermission) getAnnotation.apply(target, SaCheckPermission.class);
+		if(checkPermission != null) {
+			String type = checkPermission.type();
+			stepList.add(() -> SaManager.getStpLogic(type).checkByAnnotation(checkPermission));
+		}
+
+		// @SaCheckSafe 注解
+		SaCheckSafe checkSafe = (SaCheckSafe) getAnnotation.apply(target, SaCheckSafe.class);
+		if(checkSafe != null) {
+			String type = checkSafe.type();
+			stepList.add(() -> SaManager.getStpLogic(type).checkByAnnotation(checkSafe));
+		}
+
+		// @SaCheckBasic 注解
+		SaCheckBasic checkBasic = (SaCheckBasic) getAnnotation.apply(target, SaCheckBasic.class);
+		if(checkBasic != null) {
+			String realm = checkBasic.realm();
+			String account = checkBasic.account();
+			stepList.add(() -> SaBasicUtil.check(realm, account));
+		}
+	}
+
+
+	// ------------------------ 实例部分
+
+	/** 检查步骤 */
+	public final SaFunction[] steps;
+
+	/** 构建时使用的 [获取注解] 策略 */
+	public final BiFunction<AnnotatedElement, Class<? extends Annotation>, Annotation> getAnnotation;
+
+	public SaAnnotationCheckPlan(SaFunction[] steps, BiFunction<AnnotatedElement, Class<? extends Annotation>, Annotation> getAnnotation) {
+		this.steps = steps;
+		this.getAnnotation = getAnnotation;
+	}
+
+	/**
+	 * @return 是否没有任何检查步骤
+	 */
+	public boolean isEmpty() {
+		return steps.length == 0;
+	}
+
+	/**
+	 * 依次执行全部检查步骤
+	 */
+	public void check() {
+		for (SaFunction step : steps) {
+			step.run();
+		}
+	}
+
+}
@@ -0,0 +1,269 @@
+package cn.dev33.satoken.strategy;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.dev33.satoken.annotation.SaCheckSafe;
+import cn.dev33.satoken.annotation.SaMode;
+import cn.dev33.satoken.basic.SaBasicUtil;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaFunction;
+
+/**
+ * 根据注解属性值直接创建检查步骤 (供编译期生成的代码调用，运行时无需读取注解)
+ *
+ * <p> 每个步骤都会构造一个与注解属性值相同的注解对象，再交给 StpLogic.checkByAnnotation 处理，
+ * 因此与运行时读取注解的效果完全一致，StpLogic 子类对 checkByAnnotation 的重写同样有效
+ *
+ * <p> 构造的注解对象按 {@link Annotation} 的约定实现了 equals、hashCode、toString，可与 jdk 读取到的注解对象互相比较；
+ * 数组属性在创建步骤时复制一次，之后每次鉴权直接返回这份副本，调用方不应修改返回的数组
+ *
+ * @author kong
+ *
+ */
+public class SaAnnotationCheckSteps {
+
+	/**
+	 * 创建 @SaCheckLogin 检查步骤
+	 * @param type 账号类型
+	 * @return 检查步骤
+	 */
+	public static SaFunction checkLogin(String type) {
+		SaCheckLogin at = new SaCheckLogin() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return SaCheckLogin.class;
+			}
+			@Override
+			public String type() {
+				return type;
+			}
+			@Override
+			public boolean equals(Object obj) {
+				return annotationEquals(this, obj);
+			}
+			@Override
+			public int hashCode() {
+				return annotationHashCode(this);
+			}
+			@Override
+			public String toString() {
+				return annotationToString(this);
+			}
+		};
+		return () -> SaManager.getStpLogic(type).checkByAnnotation(at);
+	}
+
+	/**
+	 * 创建 @SaCheckRole 检查步骤
+	 * @param value 角色标识
+	 * @param mode 验证模式
+	 * @param type 账号类型
+	 * @return 检查步骤
+	 */
+	public static SaFunction checkRole(String[] value, SaMode mode, String type) {
+		String[] valueCopy = value.clone();
+		SaCheckRole at = new SaCheckRole() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return SaCheckRole.class;
+			}
+			@Override
+			public String[] value() {
+				return valueCopy;
+			}
+			@Override
+			public SaMode mode() {
+				return mode;
+			}
+			@Override
+			public String type() {
+				return type;
+			}
+			@Override
+			public boolean equals(Object obj) {
+				return annotationEquals(this, obj);
+			}
+			@Override
+			public int hashCode() {
+				return annotationHashCode(this);
+			}
+			@Override
+			public String toString() {
+				return annotationToString(this);
+			}
+		};
+		return () -> SaManager.getStpLogic(type).checkByAnnotation(at);
+	}
+
+	/**
+	 * 创建 @SaCheckPermission 检查步骤
+	 * @param value 权限码
+	 * @param mode 验证模式
+	 * @param type 账号类型
+	 * @param orRole 权限认证未通过时的次要选择角色
+	 * @return 检查步骤
+	 */
+	public static SaFunction checkPermission(String[] value, SaMode mode, String type, String[] orRole) {
+		String[] valueCopy = value.clone();
+		String[] orRoleCopy = orRole.clone();
+		SaCheckPermission at = new SaCheckPermission() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return SaCheckPermission.class;
+			}
+			@Override
+			public String[] value() {
+				return valueCopy;
+			}
+			@Override
+			public SaMode mode() {
+				return mode;
+			}
+			@Override
+			public String type() {
+				return type;
+			}
+			@Override
+			public String[] orRole() {
+				return orRoleCopy;
+			}
+			@Override
+			public boolean equals(Object obj) {
+				return annotationEquals(this, obj);
+			}
+			@Override
+			public int hashCode() {
+				return annotationHashCode(this);
+			}
+			@Override
+			public String toString() {
+				return annotationToString(this);
+			}
+		};
+		return () -> SaManager.getStpLogic(type).checkByAnnotation(at);
+	}
+
+	/**
+	 * 创建 @SaCheckSafe 检查步骤
+	 * @param type 账号类型
+	 * @return 检查步骤
+	 */
+	public static SaFunction checkSafe(String type) {
+		SaCheckSafe at = new SaCheckSafe() {
+			@Override
+			public Class<? extends Annotation> annotationType() {
+				return SaCheckSafe.class;
+			}
+			@Override
+			public String type() {
+				return type;
+			}
+			@Override
+			public boolean equals(Object obj) {
+				return annotationEquals(this, obj);
+			}
+			@Override
+			public int hashCode() {
+				return annotationHashCode(this);
+			}
+			@Override
+			public String toString() {
+				return annotationToString(this);
+			}
+		};
+		return () -> SaManager.getStpLogic(type).checkByAnnotation(at);
+	}
+
+	/**
+	 * 创建 @SaCheckBasic 检查步骤
+	 * @param realm 领域
+	 * @param account 账号密码
+	 * @return 检查步骤
+	 */
+	public static SaFunction checkBasic(String realm, String account) {
+		return () -> SaBasicUtil.check(realm, account);
+	}
+
+
+	// ------------------------ 注解对象的 equals、hashCode、toString (按 java.lang.annotation.Annotation 的约定)
+
+	/**
+	 * 判断两个注解对象是否相等: 注解类型相同，且每个属性值都相等 (数组属性比较元素)
+	 * @param at 注解对象
+	 * @param obj 另一个对象
+	 * @return /
+	 */
+	public static boolean annotationEquals(Annotation at, Object obj) {
+		if(at == obj) {
+			return true;
+		}
+		if(at.annotationType().isInstance(obj) == false) {
+			return false;
+		}
+		for (Method member : at.annotationType().getDeclaredMethods()) {
+			Object value = memberValue(member, at);
+			Object otherValue = memberValue(member, obj);
+			boolean equals = value instanceof Object[] && otherValue instanceof Object[]
+					? Arrays.equals((Object[]) value, (Object[]) otherValue)
+					: value.equals(otherValue);
+			if(equals == false) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 计算注解对象的哈希值: 每个属性的 (127 * 属性名的哈希值) ^ 属性值的哈希值 之和
+	 * @param at 注解对象
+	 * @return /
+	 */
+	public static int annotationHashCode(Annotation at) {
+		int hashCode = 0;
+		for (Method member : at.annotationType().getDeclaredMethods()) {
+			Object value = memberValue(member, at);
+			int valueHashCode = value instanceof Object[] ? Arrays.hashCode((Object[]) value) : value.hashCode();
+			hashCode += (127 * member.getName().hashCode()) ^ valueHashCode;
+		}
+		return hashCode;
+	}
+
+	/**
+	 * 输出注解对象的描述，形如: @cn.dev33.satoken.annotation.SaCheckRole(value=[admin], mode=AND, type=login)
+	 * @param at 注解对象
+	 * @return /
+	 */
+	public static String annotationToString(Annotation at) {
+		StringBuilder sb = new StringBuilder("@").append(at.annotationType().getName()).append('(');
+		Method[] members = at.annotationType().getDeclaredMethods();
+		Arrays.sort(members, (a, b) -> a.getName().compareTo(b.getName()));
+		for (int i = 0; i < members.length; i++) {
+			Object value = memberValue(members[i], at);
+			sb.append(i == 0 ? "" : ", ").append(members[i].getName()).append('=')
+				.append(value instanceof Object[] ? Arrays.toString((Object[]) value) : String.valueOf(value));
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * 读取注解对象的一个属性值
+	 * @param member 属性
+	 * @param at 注解对象
+	 * @return 属性值
+	 */
+	static Object memberValue(Method member, Object at) {
+		try {
+			return member.invoke(at);
+		} catch (IllegalAccessException | InvocationTargetException e) {
+			throw new SaTokenException(e);
+		}
+	}
+
+}
@@ -0,0 +1,32 @@
+package cn.dev33.satoken.strategy;
+
+import java.util.Map;
+
+import cn.dev33.satoken.fun.SaFunction;
+
+/**
+ * 编译期生成的注解鉴权检查步骤提供者 
+ * 
+ * <p> 由 sa-token-apt 模块的注解处理器在编译期为每个带有鉴权注解的类生成实现，并登记到 
+ * META-INF/services/cn.dev33.satoken.strategy.SaAnnotationCheckerProvider，运行时通过 ServiceLoader 加载，
+ * 使 SaAnnotationCheckPlan 无需反射读取注解即可构建检查计划 
+ * 
+ * @author kong
+ *
+ */
+public interface SaAnnotationCheckerProvider {
+
+	/**
+	 * 登记检查步骤 
+	 * @param checkerMap 以 {@link SaAnnotationCheckPlan#methodKey(java.lang.reflect.Method)} 为键，检查步骤为值 
+	 */
+	public void register(Map<String, SaFunction[]> checkerMap);
+
+	/**
+	 * 登记生成代码时读取到的注解描述，供运行时校验生成的代码是否已过期 
+	 * @param descriptorMap 以 methodKey 为键，{@link SaAnnotationCheckPlan#describe(java.lang.reflect.Method)} 格式的注解描述为值 
+	 */
+	public default void describe(Map<String, String> descriptorMap) {
+	}
+
+}
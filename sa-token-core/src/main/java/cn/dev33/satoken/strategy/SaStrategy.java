@@ -9,6 +9,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.action.SaTokenActionDefaultImpl;
 import cn.dev33.satoken.session.SaSession;
 
 /**
@@ -66,12 +67,23 @@ public final class SaStrategy {
 		return SaManager.getSaTokenAction().hasElement(list, element);
 	};
 
+	/**
+	 * [集合包含元素] 策略的默认实现，用于判断其是否被重写 
+	 */
+	private final BiFunction<List<String>, String, Boolean> defaultHasElement = hasElement;
+
 	/**
 	 * 对一个 [Method] 对象进行注解校验 （注解鉴权内部实现） 
 	 * <p> 参数 [Method句柄] 
 	 */
 	public Consumer<Method> checkMethodAnnotation = (method) -> {
 
+		// 未重写注解校验逻辑时，使用按 Method 缓存的检查计划，不再每次反射读取注解 
+		if(me.isDefaultCheckElementAnnotation()) {
+			SaAnnotationCheckPlan.of(method).check();
+			return;
+		}
+
 		// 先校验 Method 所属 Class 上的注解 
 		me.checkElementAnnotation.accept(method.getDeclaringClass());
 
@@ -88,6 +100,31 @@ public final class SaStrategy {
 		SaManager.getSaTokenAction().validateAnnotation(element);
 	};
 
+	/**
+	 * [元素注解校验] 策略的默认实现，用于判断其是否被重写 
+	 */
+	private final Consumer<AnnotatedElement> defaultCheckElementAnnotation = checkElementAnnotation;
+
+	/**
+	 * 判断 [元素注解校验] 逻辑是否仍为框架默认实现 (策略与 SaTokenAction 均未被重写) 
+	 * @return / 
+	 */
+	@SuppressWarnings("deprecation")
+	public boolean isDefaultCheckElementAnnotation() {
+		return checkElementAnnotation == defaultCheckElementAnnotation 
+				&& SaManager.getSaTokenAction().getClass() == SaTokenActionDefaultImpl.class;
+	}
+
+	/**
+	 * 判断 [集合包含元素] 逻辑是否仍为框架默认实现 (策略与 SaTokenAction 均未被重写) 
+	 * @return / 
+	 */
+	@SuppressWarnings("deprecation")
+	public boolean isDefaultHasElement() {
+		return hasElement == defaultHasElement 
+				&& SaManager.getSaTokenAction().getClass() == SaTokenActionDefaultImpl.class;
+	}
+
 	/**
 	 * 从元素上获取注解（注解鉴权内部实现） 
 	 * <p> 参数 [element元素，要获取的注解类型] 
@@ -96,6 +133,19 @@ public final class SaStrategy {
 		// 默认使用jdk的注解处理器 
 		return element.getAnnotation(annotationClass);
 	};
+
+	/**
+	 * [获取注解] 策略的默认实现，用于判断其是否被重写 
+	 */
+	private final BiFunction<AnnotatedElement, Class<? extends Annotation> , Annotation> defaultGetAnnotation = getAnnotation;
+
+	/**
+	 * 判断 [获取注解] 策略是否仍为框架默认实现 
+	 * @return / 
+	 */
+	public boolean isDefaultGetAnnotation() {
+		return getAnnotation == defaultGetAnnotation;
+	}
 	
 
 	// 
@@ -0,0 +1,279 @@
+package cn.dev33.satoken.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.dev33.satoken.stp.SaPermissionRegistry;
+
+/**
+ * 集合元素匹配器: 将一组 权限码/角色标识 (可带 * 通配符) 预先编译，之后的每次匹配都不再需要正则表达式
+ *
+ * <p> 编译结果分为三部分：
+ * <p> 1. 不带通配符的元素放入 HashSet，精确匹配只需一次哈希查找
+ * <p> 2. 只在末尾带一个 * 的元素 (例如 user*、user-*，最常见的写法) 放入前缀树，匹配耗时只与待匹配字符串的长度有关
+ * <p> 3. 其它形式的通配符元素拆分为若干片段，匹配时按顺序查找片段
+ *
+ * <p> 同一个集合编译后会被缓存 (以集合内容为键)，通过 {@link #of(List)} 获取，集合传入后被原地修改时，下次传入会按新内容重新查找
+ * <p> 编译时会生成一份只读的集合副本 {@link #list}，将它交给调用方后，再次传入时直接取得匹配器，无需计算集合的哈希值
+ *
+ * @author kong
+ *
+ */
+public class SaElementMatcher {
+
+	/**
+	 * 通配符
+	 */
+	public static final char WILDCARD = '*';
+
+	/**
+	 * 编译结果缓存最多存储的条数 (超出后清空重建)
+	 */
+	public static int cacheMaxSize = 1000;
+
+	/**
+	 * 编译结果缓存 (以元素集合的内容为键)
+	 */
+	public static final Map<List<String>, SaElementMatcher> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * 获取一个集合的匹配器 (同一个集合只编译一次)
+	 * @param list 元素集合
+	 * @return 匹配器
+	 */
+	public static SaElementMatcher of(List<String> list) {
+		if(list instanceof MatcherList) {
+			return ((MatcherList) list).matcher;
+		}
+		SaElementMatcher matcher = CACHE.get(list);
+		if(matcher == null) {
+			// 以编译时生成的只读副本作为缓存的键，避免调用方在之后修改集合
+			matcher = new SaElementMatcher(list);
+			if(CACHE.size() >= cacheMaxSize) {
+				CACHE.clear();
+			}
+			CACHE.put(matcher.list, matcher);
+		}
+		return matcher;
+	}
+
+	/**
+	 * 清空编译结果缓存
+	 */
+	public static void clearCache() {
+		CACHE.clear();
+	}
+
+	/**
+	 * 判断一个带 * 通配符的表达式能否匹配指定字符串 (不编译正则表达式)
+	 * @param patt 表达式
+	 * @param str 待匹配的字符串
+	 * @return 是否可以匹配
+	 */
+	public static boolean globMatch(String patt, String str) {
+		if(patt.indexOf(WILDCARD) == -1) {
+			return patt.equals(str);
+		}
+		return globMatch(splitPattern(patt), str);
+	}
+
+
+	// ------------------------ 实例部分
+
+	/** 编译时生成的只读集合副本 (持有此匹配器的引用) */
+	public final List<String> list;
+
+	/** 不带通配符的元素 */
+	public final Set<String> exactSet = new HashSet<>();
+
+	/** 只在末尾带一个 * 的元素，去掉 * 后组成的前缀树 */
+	public final TrieNode prefixTrie = new TrieNode();
+
+	/** 其它通配符元素，拆分后的片段 */
+	public final List<String[]> globList = new ArrayList<>();
+
+	/** 是否存在单独的 * 元素 (可匹配任意字符串) */
+	public boolean matchAll = false;
+
+	/** 对照权限码注册表展开后的位图 (首次使用时计算) */
+	public volatile SaPermissionRegistry.Bits bits;
+
+	/**
+	 * 编译一组元素
+	 * @param list 元素集合
+	 */
+	public SaElementMatcher(List<String> list) {
+		this.list = new MatcherList(list.toArray(new String[0]), this);
+		for (String patt : list) {
+			if(patt == null) {
+				continue;
+			}
+			int index = patt.indexOf(WILDCARD);
+			if(index == -1) {
+				exactSet.add(patt);
+			} else if(index == patt.length() - 1) {
+				if(index == 0) {
+					matchAll = true;
+				} else {
+					prefixTrie.put(patt.substring(0, index));
+				}
+			} else {
+				globList.add(splitPattern(patt));
+			}
+		}
+	}
+
+	/**
+	 * 判断指定元素能否被集合中的任意一项匹配
+	 * @param element 元素
+	 * @return 是否可以匹配
+	 */
+	public boolean match(String element) {
+		if(element == null) {
+			return false;
+		}
+		if(matchAll || exactSet.contains(element) || prefixTrie.matchPrefix(element)) {
+			return true;
+		}
+		for (String[] parts : globList) {
+			if(globMatch(parts, element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	// ------------------------ 内部实现
+
+	/**
+	 * 将表达式按 * 拆分为片段 (首尾片段为空字符串时代表以 * 开头或结尾)
+	 * @param patt 表达式
+	 * @return 片段数组
+	 */
+	public static String[] splitPattern(String patt) {
+		List<String> parts = new ArrayList<>();
+		int start = 0;
+		for (int i = 0; i < patt.length(); i++) {
+			if(patt.charAt(i) == WILDCARD) {
+				parts.add(patt.substring(start, i));
+				start = i + 1;
+			}
+		}
+		parts.add(patt.substring(start));
+		return parts.toArray(new String[0]);
+	}
+
+	/**
+	 * 使用拆分后的片段匹配字符串：首片段必须是前缀，尾片段必须是后缀，中间片段按顺序出现即可
+	 * @param parts 片段数组 (长度至少为2)
+	 * @param str 待匹配的字符串
+	 * @return 是否可以匹配
+	 */
+	public static boolean globMatch(String[] parts, String str) {
+		String first = parts[0];
+		String last = parts[parts.length - 1];
+		if(str.length() < first.length() + last.length() || str.startsWith(first) == false || str.endsWith(last) == false) {
+			return false;
+		}
+		int from = first.length();
+		int end = str.length() - last.length();
+		for (int i = 1; i < parts.length - 1; i++) {
+			String part = parts[i];
+			if(part.isEmpty()) {
+				continue;
+			}
+			int index = str.indexOf(part, from);
+			if(index == -1 || index + part.length() > end) {
+				return false;
+			}
+			from = index + part.length();
+		}
+		return true;
+	}
+
+	/**
+	 * 只读集合副本，持有编译得到的匹配器
+	 */
+	public static class MatcherList extends AbstractList<String> {
+
+		/** 元素 */
+		private final String[] elements;
+
+		/** 编译得到的匹配器 */
+		public final SaElementMatcher matcher;
+
+		public MatcherList(String[] elements, SaElementMatcher matcher) {
+			this.elements = elements;
+			this.matcher = matcher;
+		}
+
+		@Override
+		public String get(int index) {
+			return elements[index];
+		}
+
+		@Override
+		public int size() {
+			return elements.length;
+		}
+
+	}
+
+	/**
+	 * 前缀树节点
+	 */
+	public static class TrieNode {
+
+		/** 子节点 */
+		public Map<Character, TrieNode> children;
+
+		/** 是否有前缀在此节点结束 */
+		public boolean end;
+
+		/**
+		 * 添加一个前缀
+		 * @param prefix 前缀
+		 */
+		public void put(String prefix) {
+			TrieNode node = this;
+			for (int i = 0; i < prefix.length(); i++) {
+				if(node.children == null) {
+					node.children = new HashMap<>();
+				}
+				node = node.children.computeIfAbsent(prefix.charAt(i), k -> new TrieNode());
+			}
+			node.end = true;
+		}
+
+		/**
+		 * 判断字符串是否以树中任意一个前缀开头
+		 * @param str 字符串
+		 * @return /
+		 */
+		public boolean matchPrefix(String str) {
+			TrieNode node = this;
+			for (int i = 0; i < str.length(); i++) {
+				if(node.children == null) {
+					return false;
+				}
+				node = node.children.get(str.charAt(i));
+				if(node == null) {
+					return false;
+				}
+				if(node.end) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -149,6 +149,7 @@ public class SaFoxUtil {
 	 * <p>example:
 	 * <p> user* user-add   --  true 
 	 * <p> user* art-add    --  false  
+	 * <p> 注意：表达式按正则处理 (* 替换为 .*)，需要其它字符都按字面量匹配时请使用 {@link SaElementMatcher#globMatch(String, String)} 
 	 * @param patt 表达式 
 	 * @param str 待匹配的字符串 
 	 * @return 是否可以匹配 
@@ -161,6 +162,37 @@ public class SaFoxUtil {
 		return Pattern.matches(patt.replaceAll("\\*", ".*"), str);
 	}
 
+	/**
+	 * 按类名加载指定类型的子类 (加载时不执行静态初始化，不是该类型的子类时拒绝加载) 
+	 * <p> 用于根据存储数据中的类名还原对象，避免被篡改的类名实例化任意类 
+	 * <p> 优先使用当前线程的上下文类加载器 (应用服务器、热部署等场景下子类只对它可见)，加载不到时再使用父类型所在的类加载器 
+	 * @param <T> 泛型
+	 * @param className 类名 
+	 * @param superClass 要求的父类型 
+	 * @return 子类 
+	 * @throws ClassNotFoundException 类不存在 
+	 * @throws SaTokenException 不是 superClass 的子类 
+	 */
+	public static <T> Class<? extends T> loadSubclass(String className, Class<T> superClass) throws ClassNotFoundException {
+		Class<?> cs = null;
+		ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+		if(contextLoader != null) {
+			try {
+				cs = Class.forName(className, false, contextLoader);
+			} catch (ClassNotFoundException e) {
+				// 上下文类加载器中不存在，继续使用父类型所在的类加载器 
+			}
+		}
+		// 上下文类加载器中的同名类可能是另一份副本 (与 superClass 不在同一个类加载器中)，此时同样改用父类型所在的类加载器 
+		if(cs == null || superClass.isAssignableFrom(cs) == false) {
+			cs = Class.forName(className, false, superClass.getClassLoader());
+		}
+		if(superClass.isAssignableFrom(cs) == false) {
+			throw new SaTokenException("类型 " + className + " 不是 " + superClass.getName() + " 的子类，拒绝加载");
+		}
+		return cs.asSubclass(superClass);
+	}
+
 	/**
 	 * 将指定值转化为指定类型
 	 * @param <T> 泛型
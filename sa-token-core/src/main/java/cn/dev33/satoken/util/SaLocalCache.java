@@ -0,0 +1,232 @@
+package cn.dev33.satoken.util;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 本地缓存: 每条数据只在 timeout 毫秒内有效，条数超出 maxSize 时按 CLOCK 算法淘汰 (近似 LRU)
+ *
+ * <p> 供 SaTokenDaoNearCache、StpInterfaceCache 这类 "读穿透 + 失效通知" 的缓存使用，读穿透的写法为：
+ * <pre>
+ * 	long version = cache.version(key);
+ * 	Object value = target.get(key);
+ * 	cache.put(key, value, version);
+ * </pre>
+ * <p> 每个键 (按哈希分为若干组) 都有一个版本号，remove / clear 时递增；
+ * 从开始读取到写入缓存的期间如果该键被清除过，本次读取的结果会被丢弃，避免旧值在失效通知之后写入缓存并一直存活到过期
+ *
+ * <p> 读取不加锁：数据存放在 ConcurrentHashMap 中，读取时只标记一次 "最近被访问过"；
+ * 写入时数据按顺序进入淘汰队列，超出上限时从队首开始淘汰，被访问过的数据清除标记后重新排队一次 (同一时刻只有一个线程执行淘汰，其它线程直接跳过)
+ *
+ * @author kong
+ *
+ * @param <V> 值类型
+ */
+public class SaLocalCache<V> {
+
+	/**
+	 * 版本号分组数 (必须为2的幂)
+	 */
+	public static final int VERSION_STRIPES = 64;
+
+	/** 每条数据的有效期 (单位: 毫秒) */
+	public volatile long timeout;
+
+	/** 最多存储的条数 */
+	public volatile int maxSize;
+
+	/** 数据 */
+	protected final Map<String, Entry<V>> map = new ConcurrentHashMap<String, Entry<V>>();
+
+	/** 淘汰队列 (按写入顺序排列，其中已被替换或清除的数据在出队时丢弃) */
+	protected final Queue<Entry<V>> clockQueue = new ConcurrentLinkedQueue<Entry<V>>();
+
+	/** 淘汰队列的长度 (ConcurrentLinkedQueue.size() 需要遍历，单独计数) */
+	protected final AtomicInteger clockQueueSize = new AtomicInteger();
+
+	/** 是否有线程正在执行淘汰 */
+	protected final AtomicBoolean evicting = new AtomicBoolean();
+
+	/** 各组键的版本号 */
+	protected final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+	/**
+	 * 缓存的一条数据
+	 *
+	 * @param <V> 值类型
+	 */
+	public static class Entry<V> {
+
+		/** 键 */
+		public final String key;
+
+		/** 值 (可以为null，代表值不存在) */
+		public final V value;
+
+		/** 过期时间 (单位: 毫秒时间戳) */
+		public final long expireTime;
+
+		/** 写入或上次被淘汰扫描之后是否被访问过 */
+		volatile boolean accessed;
+
+		public Entry(String key, V value, long expireTime) {
+			this.key = key;
+			this.value = value;
+			this.expireTime = expireTime;
+		}
+
+	}
+
+	/**
+	 * @param timeout 每条数据的有效期 (单位: 毫秒)
+	 * @param maxSize 最多存储的条数
+	 */
+	public SaLocalCache(long timeout, int maxSize) {
+		this.timeout = timeout;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * 读取一条数据
+	 * @param key 键
+	 * @return 数据 (不存在或已过期时返回null)
+	 */
+	public Entry<V> get(String key) {
+		Entry<V> entry = map.get(key);
+		if(entry == null) {
+			return null;
+		}
+		if(entry.expireTime < System.currentTimeMillis()) {
+			map.remove(key, entry);
+			return null;
+		}
+		// 已标记过的不再重复写入，热点数据的读取不产生缓存行争用
+		if(entry.accessed == false) {
+			entry.accessed = true;
+		}
+		return entry;
+	}
+
+	/**
+	 * 获取键当前的版本号 (在读取被缓存的数据之前调用)
+	 * @param key 键
+	 * @return 版本号
+	 */
+	public long version(String key) {
+		return versions.get(stripe(key));
+	}
+
+	/**
+	 * 写入一条数据
+	 * @param key 键
+	 * @param value 值
+	 * @param readVersion 开始读取时的版本号
+	 */
+	public void put(String key, V value, long readVersion) {
+		Entry<V> entry = new Entry<V>(key, value, System.currentTimeMillis() + timeout);
+		map.put(key, entry);
+		clockQueue.offer(entry);
+		clockQueueSize.incrementAndGet();
+		// 读取期间该键被清除过，丢弃本次结果
+		if(readVersion != version(key)) {
+			map.remove(key, entry);
+		}
+		evict();
+	}
+
+	/**
+	 * 清除一条数据
+	 * @param key 键
+	 */
+	public void remove(String key) {
+		versions.incrementAndGet(stripe(key));
+		map.remove(key);
+	}
+
+	/**
+	 * 清空全部数据
+	 */
+	public void clear() {
+		for (int i = 0; i < VERSION_STRIPES; i++) {
+			versions.incrementAndGet(i);
+		}
+		map.clear();
+	}
+
+	/**
+	 * @return 当前存储的条数 (包括已过期但尚未清理的数据)
+	 */
+	public int size() {
+		return map.size();
+	}
+
+	/**
+	 * 超出最大条数时按 CLOCK 算法淘汰数据，并丢弃淘汰队列中已失效的节点
+	 */
+	protected void evict() {
+		// 已有线程在淘汰时直接返回，写入线程之间不互相等待；释放后再检查一次，避免遗漏淘汰期间其它线程的写入
+		while (isOverflow() && evicting.compareAndSet(false, true)) {
+			try {
+				evictOnce();
+			} finally {
+				evicting.set(false);
+			}
+		}
+	}
+
+	/**
+	 * 执行一轮淘汰：每个节点先清除访问标记、再次轮到时淘汰，扫描次数超出队列长度后不再给予重新排队的机会，保证本轮一定结束
+	 */
+	protected void evictOnce() {
+		int max = maxSize;
+		int budget = clockQueueSize.get();
+		while (isOverflow()) {
+			boolean overSize = map.size() > max;
+			if(budget-- <= 0 && overSize == false) {
+				break;
+			}
+			Entry<V> entry = clockQueue.poll();
+			if(entry == null) {
+				break;
+			}
+			clockQueueSize.decrementAndGet();
+			// 已被替换或清除
+			if(map.get(entry.key) != entry) {
+				continue;
+			}
+			if(overSize) {
+				if(entry.accessed == false || budget < 0 || entry.expireTime < System.currentTimeMillis()) {
+					map.remove(entry.key, entry);
+					continue;
+				}
+				entry.accessed = false;
+			}
+			clockQueue.offer(entry);
+			clockQueueSize.incrementAndGet();
+		}
+	}
+
+	/**
+	 * @return 是否需要淘汰 (条数超出上限，或淘汰队列中积攒了过多已失效的节点)
+	 */
+	protected boolean isOverflow() {
+		int max = maxSize;
+		return map.size() > max || clockQueueSize.get() > max * 2;
+	}
+
+	/**
+	 * 计算键所在的版本号分组
+	 * @param key 键
+	 * @return 分组
+	 */
+	protected int stripe(String key) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & (VERSION_STRIPES - 1);
+	}
+
+}
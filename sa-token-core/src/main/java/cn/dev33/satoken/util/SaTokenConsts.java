@@ -42,6 +42,16 @@ public class SaTokenConsts {
 	 */
 	public static final String TOKEN_ACTIVITY_TIMEOUT_CHECKED_KEY = "TOKEN_ACTIVITY_TIMEOUT_CHECKED_KEY_"; 	
 
+	/**
+	 * 常量key标记: 本次请求中已从持久层读取过的值 (同一请求内多次读取同一个key时只访问一次持久层)，以此值存储在当前request中 
+	 */
+	public static final String DAO_READ_CACHE_KEY = "DAO_READ_CACHE_KEY_"; 	
+
+	/**
+	 * 常量key标记: 将 [最后操作时间] 折叠进 token->loginId 映射值时使用的前缀与分隔符，映射值形如: #1650000000000#10001 
+	 */
+	public static final String TOKEN_MAPPING_FOLD_PREFIX = "#"; 	
+
 	/**
 	 * 常量key标记: 在登录时，默认使用的设备名称 
 	 */
@@ -0,0 +1,466 @@
+package cn.dev33.satoken.apt;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Sa-Token 注解处理器: 在编译期扫描鉴权注解，为每个带有鉴权注解的类生成一个 SaAnnotationCheckerProvider 实现
+ *
+ * <p> 生成的类登记在 META-INF/services/cn.dev33.satoken.strategy.SaAnnotationCheckerProvider 中，
+ * 运行时由 SaAnnotationCheckPlan 加载，注解鉴权因此无需反射读取注解 (对 GraalVM native-image 尤其友好)
+ *
+ * <p> 生成的类同时记录了生成时读取到的注解描述，运行时 SaAnnotationCheckPlan 会以此校验生成的代码是否已过期
+ *
+ * <p> 使用方式：将 sa-token-apt 加入项目依赖 (或 maven-compiler-plugin 的 annotationProcessorPaths) 即可，无需其它配置
+ *
+ * @author kong
+ *
+ */
+public class SaCheckProcessor extends AbstractProcessor {
+
+	/** 注解所在的包 */
+	public static final String ANNOTATION_PACKAGE = "cn.dev33.satoken.annotation.";
+
+	/** 支持的注解，顺序即生成的检查步骤的顺序 (与运行时读取注解的顺序一致) */
+	public static final List<String> ANNOTATION_LIST = Arrays.asList(
+			ANNOTATION_PACKAGE + "SaCheckLogin",
+			ANNOTATION_PACKAGE + "SaCheckRole",
+			ANNOTATION_PACKAGE + "SaCheckPermission",
+			ANNOTATION_PACKAGE + "SaCheckSafe",
+			ANNOTATION_PACKAGE + "SaCheckBasic"
+			);
+
+	/** 生成的类需要实现的接口 */
+	public static final String PROVIDER_INTERFACE = "cn.dev33.satoken.strategy.SaAnnotationCheckerProvider";
+
+	/** 创建检查步骤的工具类 */
+	public static final String STEPS_CLASS = "cn.dev33.satoken.strategy.SaAnnotationCheckSteps";
+
+	/** 生成的类名后缀 */
+	public static final String CLASS_SUFFIX = "_SaCheckers";
+
+	/** 本次编译已生成的类 (全类名) */
+	public final Set<String> generatedSet = new LinkedHashSet<>();
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return new LinkedHashSet<>(ANNOTATION_LIST);
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if(roundEnv.processingOver()) {
+			writeServiceFile();
+			return false;
+		}
+
+		// 收集所有带有鉴权注解的类 (注解在方法上时取其所属的类)
+		Set<TypeElement> typeSet = new LinkedHashSet<>();
+		for (TypeElement annotation : annotations) {
+			for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+				if(element.getKind() == ElementKind.METHOD) {
+					element = element.getEnclosingElement();
+				}
+				if(element instanceof TypeElement) {
+					typeSet.add((TypeElement) element);
+				}
+			}
+		}
+
+		for (TypeElement type : typeSet) {
+			try {
+				generate(type);
+			} catch (IOException e) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Sa-Token 注解处理器生成代码失败: " + e.getMessage(), type);
+			}
+		}
+		return false;
+	}
+
+
+	// ------------------------ 代码生成
+
+	/**
+	 * 为一个类生成 SaAnnotationCheckerProvider 实现
+	 * @param type 类
+	 * @throws IOException 写入文件失败
+	 */
+	public void generate(TypeElement type) throws IOException {
+		String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+		PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+		String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+		String simpleName = generatedSimpleName(packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1));
+		String className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+		if(generatedSet.contains(className)) {
+			return;
+		}
+		// 生成的类名与项目中已有的类 (不是此前生成的代码) 重名
+		TypeElement existing = processingEnv.getElementUtils().getTypeElement(className);
+		if(existing != null && isGenerated(existing) == false) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Sa-Token 注解处理器生成的类名 " + className + " 与已有的类冲突，请重命名该类", type);
+			return;
+		}
+
+		// 类上的检查步骤，会出现在每个方法的检查计划中
+		List<String> classSteps = readSteps(type);
+		List<String> classDescriptors = readDescriptors(type);
+
+		Map<String, List<String>> methodMap = new LinkedHashMap<>();
+		Map<String, String> descriptorMap = new LinkedHashMap<>();
+		for (Element element : type.getEnclosedElements()) {
+			if(element.getKind() != ElementKind.METHOD) {
+				continue;
+			}
+			ExecutableElement method = (ExecutableElement) element;
+			List<String> steps = new ArrayList<>(classSteps);
+			steps.addAll(readSteps(method));
+			if(steps.isEmpty() == false) {
+				String key = methodKey(binaryName, method);
+				methodMap.put(key, steps);
+				List<String> descriptors = new ArrayList<>(classDescriptors);
+				descriptors.addAll(readDescriptors(method));
+				descriptorMap.put(key, String.join(";", descriptors));
+			}
+		}
+		if(methodMap.isEmpty()) {
+			return;
+		}
+
+		StringBuilder sb = new StringBuilder();
+		if(packageName.isEmpty() == false) {
+			sb.append("package ").append(packageName).append(";\n\n");
+		}
+		sb.append("/**\n * 由 Sa-Token 注解处理器根据 ").append(type.getQualifiedName()).append(" 上的鉴权注解生成，请勿修改\n */\n");
+		sb.append("public class ").append(simpleName).append(" implements ").append(PROVIDER_INTERFACE).append(" {\n\n");
+		sb.append("\t@Override\n");
+		sb.append("\tpublic void register(java.util.Map<String, cn.dev33.satoken.fun.SaFunction[]> checkerMap) {\n");
+		for (Map.Entry<String, List<String>> entry : methodMap.entrySet()) {
+			sb.append("\t\tcheckerMap.put(").append(literal(entry.getKey())).append(", new cn.dev33.satoken.fun.SaFunction[] {\n");
+			for (String step : entry.getValue()) {
+				sb.append("\t\t\t").append(step).append(",\n");
+			}
+			sb.append("\t\t});\n");
+		}
+		sb.append("\t}\n\n");
+		sb.append("\t@Override\n");
+		sb.append("\tpublic void describe(java.util.Map<String, String> descriptorMap) {\n");
+		for (Map.Entry<String, String> entry : descriptorMap.entrySet()) {
+			sb.append("\t\tdescriptorMap.put(").append(literal(entry.getKey())).append(", ").append(literal(entry.getValue())).append(");\n");
+		}
+		sb.append("\t}\n\n}\n");
+
+		JavaFileObject file = processingEnv.getFiler().createSourceFile(className, type);
+		try (Writer writer = file.openWriter()) {
+			writer.write(sb.toString());
+		}
+		generatedSet.add(className);
+	}
+
+	/**
+	 * 读取一个元素上的鉴权注解，转换为创建检查步骤的代码
+	 * @param element 类或方法
+	 * @return 代码集合，每一项为一个 SaAnnotationCheckSteps 调用
+	 */
+	public List<String> readSteps(Element element) {
+		Map<String, AnnotationMirror> mirrorMap = new LinkedHashMap<>();
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			mirrorMap.put(annotationType.getQualifiedName().toString(), mirror);
+		}
+		List<String> steps = new ArrayList<>();
+		for (String annotationName : ANNOTATION_LIST) {
+			AnnotationMirror mirror = mirrorMap.get(annotationName);
+			if(mirror == null) {
+				continue;
+			}
+			Map<String, AnnotationValue> values = readValues(mirror);
+			switch (annotationName.substring(ANNOTATION_PACKAGE.length())) {
+				case "SaCheckLogin":
+					steps.add(STEPS_CLASS + ".checkLogin(" + code(values.get("type")) + ")");
+					break;
+				case "SaCheckRole":
+					steps.add(STEPS_CLASS + ".checkRole(" + code(values.get("value")) + ", " + code(values.get("mode")) + ", " + code(values.get("type")) + ")");
+					break;
+				case "SaCheckPermission":
+					steps.add(STEPS_CLASS + ".checkPermission(" + code(values.get("value")) + ", " + code(values.get("mode")) + ", "
+							+ code(values.get("type")) + ", " + code(values.get("orRole")) + ")");
+					break;
+				case "SaCheckSafe":
+					steps.add(STEPS_CLASS + ".checkSafe(" + code(values.get("type")) + ")");
+					break;
+				case "SaCheckBasic":
+					steps.add(STEPS_CLASS + ".checkBasic(" + code(values.get("realm")) + ", " + code(values.get("account")) + ")");
+					break;
+				default:
+					break;
+			}
+		}
+		return steps;
+	}
+
+	/**
+	 * 读取一个元素上的鉴权注解，转换为描述，须与 SaAnnotationCheckPlan.describe(Method) 的格式一致
+	 * @param element 类或方法
+	 * @return 描述集合，每一项对应一个注解
+	 */
+	public List<String> readDescriptors(Element element) {
+		Map<String, AnnotationMirror> mirrorMap = new LinkedHashMap<>();
+		for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+			TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+			mirrorMap.put(annotationType.getQualifiedName().toString(), mirror);
+		}
+		List<String> descriptors = new ArrayList<>();
+		for (String annotationName : ANNOTATION_LIST) {
+			AnnotationMirror mirror = mirrorMap.get(annotationName);
+			if(mirror == null) {
+				continue;
+			}
+			Map<String, AnnotationValue> values = readValues(mirror);
+			String simpleName = annotationName.substring(ANNOTATION_PACKAGE.length());
+			String[] names;
+			switch (simpleName) {
+				case "SaCheckRole": names = new String[] {"value", "mode", "type"}; break;
+				case "SaCheckPermission": names = new String[] {"value", "mode", "type", "orRole"}; break;
+				case "SaCheckBasic": names = new String[] {"realm", "account"}; break;
+				default: names = new String[] {"type"}; break;
+			}
+			StringBuilder sb = new StringBuilder(simpleName).append('(');
+			for (int i = 0; i < names.length; i++) {
+				sb.append(i == 0 ? "" : ",").append(names[i]).append('=').append(describeValue(values.get(names[i])));
+			}
+			descriptors.add(sb.append(')').toString());
+		}
+		return descriptors;
+	}
+
+	/**
+	 * 将注解属性值转换为描述 (字符串原样输出，数组与 Arrays.toString 格式一致，枚举输出常量名)
+	 * @param value 属性值
+	 * @return 描述
+	 */
+	@SuppressWarnings("unchecked")
+	public String describeValue(AnnotationValue value) {
+		Object v = value.getValue();
+		if(v instanceof VariableElement) {
+			return ((VariableElement) v).getSimpleName().toString();
+		}
+		if(v instanceof List) {
+			StringBuilder sb = new StringBuilder("[");
+			List<? extends AnnotationValue> list = (List<? extends AnnotationValue>) v;
+			for (int i = 0; i < list.size(); i++) {
+				sb.append(i == 0 ? "" : ", ").append(describeValue(list.get(i)));
+			}
+			return sb.append("]").toString();
+		}
+		return String.valueOf(v);
+	}
+
+	/**
+	 * 读取注解的全部属性值 (包括默认值)
+	 * @param mirror 注解
+	 * @return 属性名 -> 属性值
+	 */
+	public Map<String, AnnotationValue> readValues(AnnotationMirror mirror) {
+		Map<String, AnnotationValue> values = new LinkedHashMap<>();
+		for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+				: processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+			values.put(entry.getKey().getSimpleName().toString(), entry.getValue());
+		}
+		return values;
+	}
+
+	/**
+	 * 将注解属性值转换为 Java 代码 (支持 String、String[]、SaMode)
+	 * @param value 属性值
+	 * @return 代码
+	 */
+	@SuppressWarnings("unchecked")
+	public String code(AnnotationValue value) {
+		Object v = value.getValue();
+		if(v instanceof String) {
+			return literal((String) v);
+		}
+		if(v instanceof VariableElement) {
+			VariableElement constant = (VariableElement) v;
+			return ((TypeElement) constant.getEnclosingElement()).getQualifiedName() + "." + constant.getSimpleName();
+		}
+		if(v instanceof List) {
+			StringBuilder sb = new StringBuilder("new String[] {");
+			List<? extends AnnotationValue> list = (List<? extends AnnotationValue>) v;
+			for (int i = 0; i < list.size(); i++) {
+				sb.append(i == 0 ? "" : ", ").append(code(list.get(i)));
+			}
+			return sb.append("}").toString();
+		}
+		return String.valueOf(v);
+	}
+
+
+	// ------------------------ 工具方法
+
+	/**
+	 * 计算生成的类名: 类在包内的二进制名称中的 _ 转义为 __，内部类分隔符 $ 转义为 _0，再加上后缀 _SaCheckers
+	 * <p> 转义后的名称中 _ 之后只会是 _ 或 0，因此不同的类不会得到相同的类名 (例如 Outer$Inner 与 Outer_Inner)
+	 * @param name 类在包内的二进制名称
+	 * @return 生成的类名 (不含包名)
+	 */
+	public static String generatedSimpleName(String name) {
+		StringBuilder sb = new StringBuilder(name.length() + CLASS_SUFFIX.length() + 4);
+		for (char c : name.toCharArray()) {
+			if(c == '_') {
+				sb.append("__");
+			} else if(c == '$') {
+				sb.append("_0");
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append(CLASS_SUFFIX).toString();
+	}
+
+	/**
+	 * 判断一个类是否为注解处理器此前生成的代码 (实现了 SaAnnotationCheckerProvider)
+	 * @param type 类
+	 * @return /
+	 */
+	public boolean isGenerated(TypeElement type) {
+		for (TypeMirror mirror : type.getInterfaces()) {
+			TypeElement element = (TypeElement) ((DeclaredType) mirror).asElement();
+			if(element.getQualifiedName().contentEquals(PROVIDER_INTERFACE)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * 计算方法的键，须与 SaAnnotationCheckPlan.methodKey(Method) 的结果一致
+	 * @param binaryName 所属类的二进制名称
+	 * @param method 方法
+	 * @return 键
+	 */
+	public String methodKey(String binaryName, ExecutableElement method) {
+		StringBuilder sb = new StringBuilder(binaryName).append('#').append(method.getSimpleName()).append('(');
+		List<? extends VariableElement> parameters = method.getParameters();
+		for (int i = 0; i < parameters.size(); i++) {
+			if(i > 0) {
+				sb.append(',');
+			}
+			sb.append(typeName(processingEnv.getTypeUtils().erasure(parameters.get(i).asType())));
+		}
+		return sb.append(')').toString();
+	}
+
+	/**
+	 * 计算类型名称，须与 Class.getTypeName() 的结果一致 (内部类使用 $ 分隔，数组以 [] 结尾)
+	 * @param type 已擦除泛型的类型
+	 * @return 类型名称
+	 */
+	public String typeName(TypeMirror type) {
+		if(type.getKind() == TypeKind.ARRAY) {
+			return typeName(((ArrayType) type).getComponentType()) + "[]";
+		}
+		if(type.getKind() == TypeKind.DECLARED) {
+			return processingEnv.getElementUtils().getBinaryName((TypeElement) ((DeclaredType) type).asElement()).toString();
+		}
+		return type.toString();
+	}
+
+	/**
+	 * 转换为 Java 字符串字面量
+	 * @param str 字符串
+	 * @return 字面量
+	 */
+	public static String literal(String str) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : str.toCharArray()) {
+			switch (c) {
+				case '"': sb.append("\\\""); break;
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default:
+					if(c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * 在编译结束时写入 ServiceLoader 登记文件
+	 * <p> 增量编译时本次只会处理部分类，因此先保留登记文件中已有的类 (已找不到的类除外，运行时无法加载的登记类会被跳过)，
+	 * 再追加本次生成的类；已过期的类由运行时的注解描述比对发现
+	 */
+	public void writeServiceFile() {
+		if(generatedSet.isEmpty()) {
+			return;
+		}
+		Set<String> classSet = new LinkedHashSet<>();
+		try {
+			FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + PROVIDER_INTERFACE);
+			try (Reader reader = existing.openReader(true); BufferedReader bufferedReader = new BufferedReader(reader)) {
+				String line;
+				while ((line = bufferedReader.readLine()) != null) {
+					String className = line.trim();
+					if(className.isEmpty() == false && processingEnv.getElementUtils().getTypeElement(className) != null) {
+						classSet.add(className);
+					}
+				}
+			}
+		} catch (IOException | IllegalArgumentException e) {
+			// 尚无登记文件
+		}
+		classSet.addAll(generatedSet);
+		try {
+			FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + PROVIDER_INTERFACE);
+			try (Writer writer = file.openWriter()) {
+				for (String className : classSet) {
+					writer.write(className);
+					writer.write("\n");
+				}
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Sa-Token 注解处理器写入登记文件失败: " + e.getMessage());
+		}
+	}
+
+}
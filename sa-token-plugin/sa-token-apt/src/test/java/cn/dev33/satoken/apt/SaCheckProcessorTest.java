@@ -0,0 +1,340 @@
+package cn.dev33.satoken.apt;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.dev33.satoken.annotation.SaCheckSafe;
+import cn.dev33.satoken.annotation.SaMode;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.stp.StpLogic;
+import cn.dev33.satoken.stp.StpUtil;
+import cn.dev33.satoken.strategy.SaAnnotationCheckPlan;
+import cn.dev33.satoken.strategy.SaAnnotationCheckSteps;
+import cn.dev33.satoken.strategy.SaAnnotationCheckerProvider;
+import cn.dev33.satoken.strategy.SaStrategy;
+
+/**
+ * Sa-Token 注解处理器测试: 对示例类运行注解处理器，生成的检查计划应与运行时反射读取注解得到的检查计划一致
+ *
+ * @author kong
+ *
+ */
+public class SaCheckProcessorTest {
+
+	/** 鉴权记录 (由 RecordStpLogic 写入) */
+	static List<String> recordList = new ArrayList<>();
+
+	/** 鉴权时收到的注解对象 (由 RecordStpLogic 写入) */
+	static List<Annotation> annotationList = new ArrayList<>();
+
+	/**
+	 * 只记录注解属性值，不做真正鉴权的 StpLogic
+	 */
+	static class RecordStpLogic extends StpLogic {
+		public RecordStpLogic(String loginType) {
+			super(loginType);
+		}
+		@Override
+		public void checkByAnnotation(SaCheckLogin at) {
+			annotationList.add(at);
+			recordList.add(loginType + " login");
+		}
+		@Override
+		public void checkByAnnotation(SaCheckRole at) {
+			annotationList.add(at);
+			recordList.add(loginType + " role " + Arrays.toString(at.value()) + " " + at.mode());
+		}
+		@Override
+		public void checkByAnnotation(SaCheckPermission at) {
+			annotationList.add(at);
+			recordList.add(loginType + " permission " + Arrays.toString(at.value()) + " " + at.mode() + " " + Arrays.toString(at.orRole()));
+		}
+		@Override
+		public void checkByAnnotation(SaCheckSafe at) {
+			annotationList.add(at);
+			recordList.add(loginType + " safe");
+		}
+	}
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 注解处理器测试 star ...");
+		StpUtil.setStpLogic(new RecordStpLogic("login"));
+		SaManager.putStpLogic(new RecordStpLogic("user"));
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 注解处理器测试 end ... \n");
+	}
+
+	// 生成的检查计划与反射读取注解的检查计划一致
+	@Test
+	public void generatedPlanEqualsReflectPlan() throws Exception {
+		File outDir = compile("apt-sample", true, "com/pj/sample/SampleController.java", "com/pj/sample/PlainController.java");
+		try (URLClassLoader loader = new URLClassLoader(new URL[] {outDir.toURI().toURL()}, getClass().getClassLoader())) {
+			Map<String, SaFunction[]> checkerMap = new HashMap<>();
+			Map<String, String> descriptorMap = new HashMap<>();
+			for (SaAnnotationCheckerProvider provider : ServiceLoader.load(SaAnnotationCheckerProvider.class, loader)) {
+				provider.register(checkerMap);
+				provider.describe(descriptorMap);
+			}
+
+			int annotatedCount = 0;
+			String[] classNames = {"com.pj.sample.SampleController", "com.pj.sample.SampleController$Inner", "com.pj.sample.PlainController"};
+			for (String className : classNames) {
+				for (Method method : loader.loadClass(className).getDeclaredMethods()) {
+					String key = SaAnnotationCheckPlan.methodKey(method);
+					SaAnnotationCheckPlan reflectPlan = SaAnnotationCheckPlan.buildByReflect(method, SaStrategy.me.getAnnotation);
+
+					// 注解描述一致
+					String descriptor = descriptorMap.get(key);
+					Assert.assertEquals(key, SaAnnotationCheckPlan.describe(method), descriptor == null ? "" : descriptor);
+
+					// 检查步骤一致 (方法键不一致时生成的步骤会取不到)
+					SaFunction[] generatedSteps = checkerMap.get(key);
+					if(reflectPlan.isEmpty()) {
+						Assert.assertNull(key, generatedSteps);
+						continue;
+					}
+					annotatedCount++;
+					Assert.assertNotNull(key, generatedSteps);
+					Assert.assertEquals(key, run(reflectPlan.steps), run(generatedSteps));
+
+					// 生成的注解对象与 jdk 读取到的注解对象互相 equals，且 hashCode、toString 一致
+					run(reflectPlan.steps);
+					List<Annotation> reflectAnnotations = new ArrayList<>(annotationList);
+					run(generatedSteps);
+					List<Annotation> generatedAnnotations = new ArrayList<>(annotationList);
+					Assert.assertEquals(key, reflectAnnotations.size(), generatedAnnotations.size());
+					for (int i = 0; i < reflectAnnotations.size(); i++) {
+						Annotation reflectAt = reflectAnnotations.get(i);
+						Annotation generatedAt = generatedAnnotations.get(i);
+						Assert.assertNotSame(key, reflectAt, generatedAt);
+						Assert.assertTrue(key, reflectAt.equals(generatedAt));
+						Assert.assertTrue(key, generatedAt.equals(reflectAt));
+						Assert.assertEquals(key, reflectAt.hashCode(), generatedAt.hashCode());
+						Assert.assertTrue(generatedAt.toString(), generatedAt.toString().startsWith("@" + reflectAt.annotationType().getName() + "("));
+					}
+				}
+			}
+			Assert.assertEquals(annotatedCount, checkerMap.size());
+			Assert.assertEquals(11, annotatedCount);
+		}
+	}
+
+	// 内部类 Outer$Inner 与顶层类 Outer_Inner 生成的类名不冲突，两者的检查步骤都被登记
+	@Test
+	public void generatedNamesDoNotCollide() throws Exception {
+		Assert.assertNotEquals(SaCheckProcessor.generatedSimpleName("Outer$Inner"), SaCheckProcessor.generatedSimpleName("Outer_Inner"));
+		Assert.assertNotEquals(SaCheckProcessor.generatedSimpleName("A_0B"), SaCheckProcessor.generatedSimpleName("A$B"));
+
+		File outDir = compile("apt-collision", true, "com/pj/collision/Outer.java", "com/pj/collision/Outer_Inner.java");
+		try (URLClassLoader loader = new URLClassLoader(new URL[] {outDir.toURI().toURL()}, getClass().getClassLoader())) {
+			Map<String, SaFunction[]> checkerMap = new HashMap<>();
+			for (SaAnnotationCheckerProvider provider : ServiceLoader.load(SaAnnotationCheckerProvider.class, loader)) {
+				provider.register(checkerMap);
+			}
+			Assert.assertEquals(2, checkerMap.size());
+			Assert.assertEquals(Arrays.asList("login role [nested] AND"), run(checkerMap.get("com.pj.collision.Outer$Inner#run()")));
+			Assert.assertEquals(Arrays.asList("login role [top] AND"), run(checkerMap.get("com.pj.collision.Outer_Inner#run()")));
+		}
+	}
+
+	// 数组属性在创建步骤时复制一次，之后不受调用方修改的影响，每次鉴权返回同一份副本
+	@Test
+	public void arrayValuesAreCopiedOnce() {
+		String[] value = {"admin"};
+		String[] orRole = {"manager"};
+		SaFunction step = SaAnnotationCheckSteps.checkPermission(value, SaMode.AND, "login", orRole);
+		value[0] = "changed";
+		orRole[0] = "changed";
+		String record = "login permission [admin] AND [manager]";
+		Assert.assertEquals(Arrays.asList(record, record), run(new SaFunction[] {step, step}));
+		SaCheckPermission first = (SaCheckPermission) annotationList.get(0);
+		SaCheckPermission second = (SaCheckPermission) annotationList.get(1);
+		Assert.assertSame(first, second);
+		Assert.assertSame(first.value(), first.value());
+		Assert.assertSame(first.orRole(), first.orRole());
+	}
+
+	// 登记文件中的类无法加载时跳过该类，不抛出异常，对应的 Method 退回反射读取注解
+	@Test
+	public void brokenProviderIsSkipped() throws Exception {
+		ClassLoader oldLoader = Thread.currentThread().getContextClassLoader();
+		File brokenDir = new File(SaCheckProcessorTest.class.getResource("/apt-broken").getFile());
+		try (URLClassLoader loader = new URLClassLoader(new URL[] {brokenDir.toURI().toURL()}, getClass().getClassLoader())) {
+			Thread.currentThread().setContextClassLoader(loader);
+			SaAnnotationCheckPlan.clearCache();
+			Map<String, SaFunction[]> checkerMap = SaAnnotationCheckPlan.getGeneratedCheckerMap();
+			for (String key : checkerMap.keySet()) {
+				Assert.assertFalse(key, key.startsWith("com.pj.broken."));
+			}
+		} finally {
+			Thread.currentThread().setContextClassLoader(oldLoader);
+			SaAnnotationCheckPlan.clearCache();
+		}
+	}
+
+	// 检查计划按 Class 缓存，同一个 Method 再次获取时命中缓存；缓存不会阻止旧的 ClassLoader 被回收 (热部署)
+	@Test
+	public void planCacheDoesNotPinClassLoader() throws Exception {
+		File outDir = compile("apt-stale/v1", false, "com/pj/stale/StaleController.java");
+		WeakReference<ClassLoader> loaderRef = cachePlans(outDir);
+		for (int i = 0; i < 50 && loaderRef.get() != null; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		Assert.assertNull("检查计划缓存不应持有已废弃的 ClassLoader", loaderRef.get());
+	}
+
+	/**
+	 * 在一个新的 ClassLoader 中加载示例类并缓存其检查计划
+	 * @param outDir 编译输出目录
+	 * @return ClassLoader 的弱引用
+	 */
+	static WeakReference<ClassLoader> cachePlans(File outDir) throws Exception {
+		try (URLClassLoader loader = new URLClassLoader(new URL[] {outDir.toURI().toURL()}, SaCheckProcessorTest.class.getClassLoader())) {
+			Method edit = loader.loadClass("com.pj.stale.StaleController").getMethod("edit");
+			SaAnnotationCheckPlan plan = SaAnnotationCheckPlan.of(edit);
+			Assert.assertFalse(plan.isEmpty());
+			Assert.assertSame(plan, SaAnnotationCheckPlan.of(edit));
+			return new WeakReference<>(loader);
+		}
+	}
+
+	// 生成的代码过期时，运行时比对注解描述并抛出异常
+	@Test
+	public void staleGeneratedCodeIsRejected() throws Exception {
+		File v1Dir = compile("apt-stale/v1", true, "com/pj/stale/StaleController.java");
+		File v2Dir = compile("apt-stale/v2", false, "com/pj/stale/StaleController.java");
+		// 修改后的类在前，旧的生成代码与登记文件在后，模拟未经注解处理器重新编译的情况
+		ClassLoader oldLoader = Thread.currentThread().getContextClassLoader();
+		try (URLClassLoader loader = new URLClassLoader(new URL[] {v2Dir.toURI().toURL(), v1Dir.toURI().toURL()}, getClass().getClassLoader())) {
+			Thread.currentThread().setContextClassLoader(loader);
+			SaAnnotationCheckPlan.clearCache();
+			Class<?> c = loader.loadClass("com.pj.stale.StaleController");
+
+			// 注解未变化的方法使用生成的检查步骤
+			Method view = c.getMethod("view");
+			SaAnnotationCheckPlan plan = SaAnnotationCheckPlan.build(view);
+			Assert.assertSame(SaAnnotationCheckPlan.getGeneratedCheckerMap().get(SaAnnotationCheckPlan.methodKey(view)), plan.steps);
+
+			// 没有注解的方法
+			Assert.assertTrue(SaAnnotationCheckPlan.build(c.getMethod("open")).isEmpty());
+
+			// 注解已修改的方法、新增的方法
+			assertRejected(c.getMethod("edit"));
+			assertRejected(c.getMethod("added"));
+
+			// 关闭比对后退回旧行为
+			SaAnnotationCheckPlan.isVerifyGenerated = false;
+			try {
+				Assert.assertFalse(SaAnnotationCheckPlan.build(c.getMethod("edit")).isEmpty());
+			} finally {
+				SaAnnotationCheckPlan.isVerifyGenerated = true;
+			}
+		} finally {
+			Thread.currentThread().setContextClassLoader(oldLoader);
+			SaAnnotationCheckPlan.clearCache();
+		}
+	}
+
+	/**
+	 * 断言构建检查计划时抛出异常
+	 * @param method /
+	 */
+	static void assertRejected(Method method) {
+		try {
+			SaAnnotationCheckPlan.build(method);
+			Assert.fail("生成的代码已过期，应抛出异常: " + method);
+		} catch (SaTokenException e) {
+			Assert.assertTrue(e.getMessage().contains(SaAnnotationCheckPlan.methodKey(method)));
+		}
+	}
+
+	/**
+	 * 依次执行检查步骤，返回鉴权记录 (步骤抛出的异常也计入记录)
+	 * @param steps /
+	 * @return /
+	 */
+	static List<String> run(SaFunction[] steps) {
+		recordList.clear();
+		annotationList.clear();
+		for (SaFunction step : steps) {
+			try {
+				step.run();
+			} catch (RuntimeException e) {
+				recordList.add(e.getClass().getName() + ": " + e.getMessage());
+			}
+		}
+		return new ArrayList<>(recordList);
+	}
+
+	/**
+	 * 编译 src/test/resources 下的示例源码
+	 * @param root 源码根目录
+	 * @param isProcess 是否运行注解处理器
+	 * @param paths 源码路径
+	 * @return 输出目录
+	 */
+	static File compile(String root, boolean isProcess, String... paths) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assert.assertNotNull("需要使用 JDK 运行测试", compiler);
+		File outDir = Files.createTempDirectory("sa-token-apt").toFile();
+		File rootDir = new File(SaCheckProcessorTest.class.getResource("/" + root).getFile());
+		List<File> files = new ArrayList<>();
+		for (String path : paths) {
+			files.add(new File(rootDir, path));
+		}
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+			List<String> options = new ArrayList<>(Arrays.asList("-d", outDir.getPath(), "-classpath", System.getProperty("java.class.path"), "-encoding", "UTF-8"));
+			if(isProcess == false) {
+				options.add("-proc:none");
+			}
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, fileManager.getJavaFileObjectsFromFiles(files));
+			if(isProcess) {
+				task.setProcessors(Arrays.asList(new SaCheckProcessor()));
+			}
+			boolean success = task.call();
+			for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+				System.out.println(diagnostic);
+			}
+			Assert.assertTrue("编译失败", success);
+		}
+		return outDir;
+	}
+
+}
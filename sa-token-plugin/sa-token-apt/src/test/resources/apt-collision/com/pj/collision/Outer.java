@@ -0,0 +1,18 @@
+package com.pj.collision;
+
+import cn.dev33.satoken.annotation.SaCheckRole;
+
+/**
+ * 注解处理器测试用的示例类: 内部类 Outer$Inner 与顶层类 Outer_Inner 生成的类名不能相同 
+ */
+public class Outer {
+
+	public static class Inner {
+
+		@SaCheckRole("nested")
+		public void run() {
+		}
+
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.pj.collision;
+
+import cn.dev33.satoken.annotation.SaCheckRole;
+
+/**
+ * 注解处理器测试用的示例类: 类名中带有 _ 的顶层类 
+ */
+public class Outer_Inner {
+
+	@SaCheckRole("top")
+	public void run() {
+	}
+
+}
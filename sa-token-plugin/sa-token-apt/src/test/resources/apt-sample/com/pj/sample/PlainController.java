@@ -0,0 +1,22 @@
+package com.pj.sample;
+
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+
+/**
+ * 注解处理器测试用的示例类: 类上没有注解，只有部分方法带有注解 
+ */
+public class PlainController {
+
+	@SaCheckLogin(type = "user")
+	public void info() {
+	}
+
+	@SaCheckPermission({})
+	public void empty() {
+	}
+
+	public void open() {
+	}
+
+}
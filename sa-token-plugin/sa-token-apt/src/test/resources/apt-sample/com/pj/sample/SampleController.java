@@ -0,0 +1,71 @@
+package com.pj.sample;
+
+import java.util.List;
+import java.util.Map;
+
+import cn.dev33.satoken.annotation.SaCheckBasic;
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import cn.dev33.satoken.annotation.SaCheckRole;
+import cn.dev33.satoken.annotation.SaCheckSafe;
+import cn.dev33.satoken.annotation.SaMode;
+
+/**
+ * 注解处理器测试用的示例类: 类上注解、数组参数、泛型参数、重载、内部类 
+ */
+@SaCheckLogin
+public class SampleController {
+
+	public String list() {
+		return "list";
+	}
+
+	@SaCheckRole(value = {"admin", "super-admin"}, mode = SaMode.OR)
+	public String add(String[] names, int[][] matrix) {
+		return "add";
+	}
+
+	@SaCheckPermission(value = "user-add", orRole = {"admin", "manager,staff"})
+	public <T extends Number> T get(List<Map<String, T>> list, T t) {
+		return t;
+	}
+
+	@SaCheckPermission(value = {"user-update", "user-get"}, mode = SaMode.AND, type = "user")
+	public void update(Req req, Map<String, ? extends List<Req>> map) {
+	}
+
+	@SaCheckSafe
+	public void delete(long id) {
+	}
+
+	@SaCheckSafe(type = "user")
+	@SaCheckRole("admin")
+	public void delete(String id) {
+	}
+
+	@SaCheckBasic(account = "sa:123456")
+	public void basic() {
+	}
+
+	@SuppressWarnings("unused")
+	private static void helper(char c) {
+	}
+
+	public static class Req {
+	}
+
+	public static class Inner {
+
+		@SaCheckRole("inner \"quoted\" \\ role")
+		public void run(Req req, Inner.Deep[] deep) {
+		}
+
+		public void plain() {
+		}
+
+		public static class Deep {
+		}
+
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.pj.stale;
+
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckRole;
+
+/**
+ * 注解处理器测试用的示例类 (生成代码时的版本) 
+ */
+public class StaleController {
+
+	@SaCheckRole("admin")
+	public void edit() {
+	}
+
+	@SaCheckLogin
+	public void view() {
+	}
+
+	public void open() {
+	}
+
+}
@@ -0,0 +1,27 @@
+package com.pj.stale;
+
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import cn.dev33.satoken.annotation.SaCheckRole;
+
+/**
+ * 注解处理器测试用的示例类 (修改后未经注解处理器重新编译的版本) 
+ */
+public class StaleController {
+
+	@SaCheckRole("super-admin")
+	public void edit() {
+	}
+
+	@SaCheckLogin
+	public void view() {
+	}
+
+	@SaCheckPermission("stale-add")
+	public void added() {
+	}
+
+	public void open() {
+	}
+
+}
@@ -1,5 +1,12 @@
 package cn.dev33.satoken.dao;
 
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.fun.SaFunction;
+import cn.dev33.satoken.fun.SaParamFunction;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionCodec;
+import cn.dev33.satoken.session.TokenSign;
 import cn.dev33.satoken.util.SaFoxUtil;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -11,22 +18,47 @@ import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalTimeSerializer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * Sa-Token持久层接口 [Redis版] (使用 jackson 序列化方式)
@@ -63,6 +95,61 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 	 * 标记：是否已初始化成功
 	 */
 	public boolean isInit;
+
+	/**
+	 * 搜索数据时，每次 SCAN 命令的 COUNT 参考值 
+	 */
+	public int scanCount = 1000;
+
+	/**
+	 * 是否以原子方式维护 User-Session 上的token签名 
+	 * <p> 开启后签名单独存储在 [{SessionId}:token-sign] 哈希中，并发登录同一账号时不会相互覆盖签名 
+	 * <p> 签名哈希的 key 以 SessionId 作为哈希标签，与 Session 落在 Redis Cluster 的同一个槽位，脚本同时操作两个 key 时不会报 CROSSSLOT 
+	 * <p> 注意: 早期版本的签名哈希 key 为 [SessionId:token-sign] (不带哈希标签)，升级后不再读取，请在升级前将其 RENAME 为新 key，或在旧数据过期后再升级 
+	 */
+	public boolean isAtomicTokenSign = false;
+
+	/**
+	 * 是否以哈希结构存储 Session 
+	 * <p> 开启后 Session 的每个挂载数据单独存储为一个哈希字段，写值与删值时只需写入变化的字段，无需整体重写 Session 
+	 * <p> 注意: 开启前后的数据格式不兼容，请勿在已有数据的 Redis 上中途切换 
+	 */
+	public boolean isHashSession = false;
+
+	/**
+	 * 是否使用 SaSessionCodec 以紧凑的二进制格式存储 Session (体积更小，编解码更快) 
+	 * <p> 读取时会根据数据头部自动识别新旧格式，因此开启前写入的 Session 依然可以正常读取 
+	 * <p> 注意: 集群滚动升级期间，未升级的节点无法读取新格式的 Session，请在所有节点升级后再开启 
+	 */
+	public boolean isSessionCodec = false;
+
+	/**
+	 * 是否压缩体积较大的对象值 (如挂载了大量角色、权限缓存的 Session) 
+	 * <p> 压缩后的数据以一个标记字节开头，读取时据此自动识别，因此开启前写入的数据依然可以正常读取 
+	 */
+	public boolean isCompress = false;
+
+	/** 开启压缩时，序列化后超过此字节数的值才会被压缩 */
+	public int compressThreshold = 1024;
+
+	/** 解压后允许的最大字节数，超出时拒绝解压 (防止被篡改的数据在解压时耗尽内存) */
+	public int decompressMaxSize = 16 * 1024 * 1024;
+
+	/** 压缩数据的标记字节 (与 JDK 序列化的 0xAC、JSON 的起始字符以及 SaSessionCodec 的魔数均不冲突) */
+	public static final byte COMPRESS_FLAG = (byte) 0xFD;
+
+	/**
+	 * 从指定游标处继续执行一次 SCAN 的脚本 (返回值: [下一个游标, 本次扫描到的key集合]) 
+	 * <p> 不带 KEYS 的脚本在 Redis Cluster 中只会落在任意一个节点上，因此仅用于单机/哨兵模式 
+	 */
+	@SuppressWarnings("rawtypes")
+	public static final RedisScript<List> SCAN_SCRIPT = new DefaultRedisScript<List>(
+			"return redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])", List.class);
+
+	/**
+	 * 当前连接是否为 Redis Cluster (首次搜索时检测) 
+	 */
+	protected volatile Boolean isCluster;
 	
 	@Autowired
 	public void init(RedisConnectionFactory connectionFactory) {
@@ -102,7 +189,7 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 		template.setConnectionFactory(connectionFactory);
 		template.setKeySerializer(keySerializer);
 		template.setHashKeySerializer(keySerializer);
-		template.setValueSerializer(valueSerializer);
+		template.setValueSerializer(wrapValueSerializer(valueSerializer));
 		template.setHashValueSerializer(valueSerializer);
 		template.afterPropertiesSet();
 		
@@ -113,6 +200,137 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 			this.isInit = true;
 		}
 	}
+
+	/**
+	 * 创建一个基于 Redis 发布订阅的本地缓存失效通知总线，配合 SaTokenDaoNearCache 使用 
+	 * <pre>
+	 * 		SaManager.setSaTokenDao(new SaTokenDaoNearCache(saTokenDao, saTokenDao.createNearCacheBus("satoken:near-cache")));
+	 * </pre>
+	 * <p> 总线内部会启动一个 RedisMessageListenerContainer，应用停止时请调用 close() (或 SaTokenDaoNearCache.close()) 将其停止 
+	 * <p> 一次广播多个key时只发送一条消息，各个key之间以换行符分隔 
+	 * @param channel 发布订阅使用的频道 
+	 * @return 通知总线 
+	 */
+	public SaNearCacheBus createNearCacheBus(String channel) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(stringRedisTemplate.getConnectionFactory());
+		container.afterPropertiesSet();
+		container.start();
+		return new SaNearCacheBus() {
+			@Override
+			public void publish(String key) {
+				stringRedisTemplate.convertAndSend(channel, key);
+			}
+			@Override
+			public void publish(Collection<String> keyList) {
+				stringRedisTemplate.convertAndSend(channel, String.join("\n", keyList));
+			}
+			@Override
+			public void subscribe(SaParamFunction<String> listener) {
+				container.addMessageListener((message, pattern) -> {
+					for (String key : new String(message.getBody(), StandardCharsets.UTF_8).split("\n")) {
+						listener.run(key);
+					}
+				}, new ChannelTopic(channel));
+			}
+			@Override
+			public void close() {
+				try {
+					container.destroy();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		};
+	}
+
+	/**
+	 * 包装值序列化器 
+	 * <p> 开启 isSessionCodec 后 Session 交由 SaSessionCodec 编码，其余值 (以及旧格式的 Session) 仍交由原序列化器处理 
+	 * <p> 开启 isCompress 后，序列化结果超过 compressThreshold 字节时再进行压缩 
+	 * @param serializer 原序列化器 
+	 * @return 包装后的序列化器 
+	 */
+	public RedisSerializer<Object> wrapValueSerializer(RedisSerializer<Object> serializer) {
+		return new RedisSerializer<Object>() {
+			@Override
+			public byte[] serialize(Object value) {
+				byte[] bytes;
+				if(isSessionCodec && value instanceof SaSession) {
+					bytes = SaManager.getSaSessionCodec().encode((SaSession) value);
+				} else {
+					bytes = serializer.serialize(value);
+				}
+				if(isCompress && bytes != null && bytes.length > compressThreshold) {
+					bytes = compress(bytes);
+				}
+				return bytes;
+			}
+			@Override
+			public Object deserialize(byte[] bytes) {
+				if(bytes != null && bytes.length > 0 && bytes[0] == COMPRESS_FLAG) {
+					bytes = decompress(bytes);
+				}
+				SaSessionCodec codec = SaManager.getSaSessionCodec();
+				if(codec.isEncoded(bytes)) {
+					return codec.decode(bytes);
+				}
+				return serializer.deserialize(bytes);
+			}
+		};
+	}
+
+	/**
+	 * 压缩数据 (Deflate)，压缩后体积没有变小时返回原数据 
+	 * @param bytes 原数据 
+	 * @return [标记字节] + 压缩后的数据 
+	 */
+	public byte[] compress(byte[] bytes) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(bytes);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+			out.write(COMPRESS_FLAG);
+			byte[] buffer = new byte[4096];
+			while (deflater.finished() == false) {
+				out.write(buffer, 0, deflater.deflate(buffer));
+			}
+			return out.size() < bytes.length ? out.toByteArray() : bytes;
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * 解压数据 
+	 * @param bytes [标记字节] + 压缩后的数据 
+	 * @return 原数据 
+	 * @throws SaTokenException 数据不完整，或解压后超过 decompressMaxSize 字节 
+	 */
+	public byte[] decompress(byte[] bytes) {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(bytes, 1, bytes.length - 1);
+			ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min((long) bytes.length * 3, decompressMaxSize));
+			byte[] buffer = new byte[4096];
+			while (inflater.finished() == false) {
+				int count = inflater.inflate(buffer);
+				if(count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new SaTokenException("压缩数据不完整");
+				}
+				if(out.size() + count > decompressMaxSize) {
+					throw new SaTokenException("解压后的数据超出上限: " + decompressMaxSize + " 字节");
+				}
+				out.write(buffer, 0, count);
+			}
+			return out.toByteArray();
+		} catch (DataFormatException e) {
+			throw new SaTokenException(e);
+		} finally {
+			inflater.end();
+		}
+	}
 	
 	
 	/**
@@ -120,6 +338,7 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 	 */
 	@Override
 	public String get(String key) {
+		checkNotInPipeline();
 		return stringRedisTemplate.opsForValue().get(key);
 	}
 
@@ -152,6 +371,27 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 		this.set(key, value, expire);
 	}
 	
+	/**
+	 * 比较并更新Value 的脚本 (过期时间不变)  KEYS: [key] ，ARGV: [期望值, 新值] 
+	 */
+	public static final String COMPARE_AND_UPDATE_SCRIPT = 
+			"if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end "
+			+ "local pt = redis.call('PTTL', KEYS[1]) "
+			+ "if pt > 0 then redis.call('SET', KEYS[1], ARGV[2], 'PX', pt) else redis.call('SET', KEYS[1], ARGV[2]) end "
+			+ "return 1";
+
+	/**
+	 * 更新Value (过期时间不变)，仅当当前值等于期望值时才更新 (以脚本原子完成，只需一次网络往返) 
+	 */
+	@Override
+	public boolean compareAndUpdate(String key, String expect, String value) {
+		checkNotInPipeline();
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		Long result = eval(COMPARE_AND_UPDATE_SCRIPT, ReturnType.INTEGER, 1, 
+				serializer.serialize(key), serializer.serialize(expect), serializer.serialize(value));
+		return result != null && result == 1;
+	}
+
 	/**
 	 * 删除Value 
 	 */
@@ -165,6 +405,7 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 	 */
 	@Override
 	public long getTimeout(String key) {
+		checkNotInPipeline();
 		return stringRedisTemplate.getExpire(key);
 	}
 
@@ -194,6 +435,7 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 	 */
 	@Override
 	public Object getObject(String key) {
+		checkNotInPipeline();
 		return objectRedisTemplate.opsForValue().get(key);
 	}
 
@@ -239,6 +481,7 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 	 */
 	@Override
 	public long getObjectTimeout(String key) {
+		checkNotInPipeline();
 		return objectRedisTemplate.getExpire(key);
 	}
 
@@ -261,15 +504,672 @@ public class SaTokenDaoRedisJackson implements SaTokenDao {
 		objectRedisTemplate.expire(key, timeout, TimeUnit.SECONDS);
 	}
 
+
+	/**
+	 * 批量获取Value (MGET) 
+	 */
+	@Override
+	public List<String> multiGet(Collection<String> keyList) {
+		checkNotInPipeline();
+		return stringRedisTemplate.opsForValue().multiGet(keyList);
+	}
+
+	/**
+	 * 批量写入Value (永久存储时使用 MSET，否则以管道批量发送 SETEX) 
+	 */
+	@Override
+	public void multiSet(Map<String, String> map, long timeout) {
+		if(map.isEmpty() || timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		if(timeout == SaTokenDao.NEVER_EXPIRE) {
+			stringRedisTemplate.opsForValue().multiSet(map);
+			return;
+		}
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				connection.setEx(serializer.serialize(entry.getKey()), timeout, serializer.serialize(entry.getValue()));
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * 修改Value 的脚本 (过期时间不变，键不存在时不做任何操作)  KEYS: [key] ，ARGV: [新值] 
+	 */
+	public static final String UPDATE_KEEP_TTL_SCRIPT = 
+			"local pt = redis.call('PTTL', KEYS[1]) "
+			+ "if pt == -1 then redis.call('SET', KEYS[1], ARGV[1]) return 1 end "
+			+ "if pt > 0 then redis.call('SET', KEYS[1], ARGV[1], 'PX', pt) return 1 end "
+			+ "return 0";
+
+	/**
+	 * 批量修改Value (每个键以脚本原子地读取 TTL 并写回，全部脚本在一次管道中提交；
+	 * 读取与写入之间键不会被他人删除后又被重新创建，各键也不要求位于同一个集群槽位) 
+	 */
+	@Override
+	public void multiUpdate(Map<String, String> map) {
+		if(map.isEmpty()) {
+			return;
+		}
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		byte[] script = UPDATE_KEEP_TTL_SCRIPT.getBytes(StandardCharsets.UTF_8);
+		stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			for (Map.Entry<String, String> entry : map.entrySet()) {
+				connection.eval(script, ReturnType.INTEGER, 1, serializer.serialize(entry.getKey()), serializer.serialize(entry.getValue()));
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * 批量删除Value (一次 DEL) 
+	 */
+	@Override
+	public void multiDelete(Collection<String> keyList) {
+		if(keyList.isEmpty()) {
+			return;
+		}
+		stringRedisTemplate.delete(keyList);
+	}
+
+	/** 当前线程是否正在管道中执行 (管道中的命令在提交前都得不到返回值) */
+	protected final ThreadLocal<Boolean> inPipeline = new ThreadLocal<Boolean>();
+
+	/**
+	 * 将一组写操作集中在一次管道中提交 (函数内两个 RedisTemplate 的命令均会进入同一管道) 
+	 * <p> 函数内执行读操作会立即抛出异常，而不是返回 null 
+	 */
+	@Override
+	public void pipeline(SaFunction fun) {
+		// 已在管道中时直接并入当前管道 
+		if(inPipeline.get() != null) {
+			fun.run();
+			return;
+		}
+		inPipeline.set(Boolean.TRUE);
+		try {
+			stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+				@Override
+				public <K, V> Object execute(RedisOperations<K, V> operations) {
+					fun.run();
+					return null;
+				}
+			});
+		} finally {
+			inPipeline.remove();
+		}
+	}
+
+	/**
+	 * 检查当前线程不在管道中 (读操作在管道中只能得到 null，需在读取之前调用) 
+	 */
+	public void checkNotInPipeline() {
+		if(inPipeline.get() != null) {
+			throw new SaTokenException("pipeline 的函数内只能执行写操作，不能读取数据");
+		}
+	}
+
+
+	// ------------------------ Session 存储 (哈希模式 & 原子签名) 
+
+	/** 哈希模式下, 记录 Session 类型的字段 */
+	public static final String HASH_FIELD_CLASS = "@class";
+
+	/** 哈希模式下, 记录 Session 创建时间的字段 */
+	public static final String HASH_FIELD_CREATE_TIME = "@createTime";
+
+	/** 哈希模式下, 记录 Session token签名列表的字段 */
+	public static final String HASH_FIELD_TOKEN_SIGN = "@tokenSign";
+
+	/** 哈希模式下, Session 挂载数据的字段前缀 (字段名 = 前缀 + 挂载数据的key) */
+	public static final String HASH_FIELD_DATA_PREFIX = "data:";
+
+	/**
+	 * 整体写入哈希 Session 的脚本 
+	 * <p> KEYS: [SessionId] ，ARGV: [过期时间(-2代表保持原有过期时间，且Session不存在时不写入), 字段1, 值1, 字段2, 值2 ...] 
+	 */
+	public static final String SET_HASH_SESSION_SCRIPT = 
+			"local t = tonumber(ARGV[1]) "
+			+ "local pt = -1 "
+			+ "if t == -2 then "
+			+ "  pt = redis.call('PTTL', KEYS[1]) "
+			+ "  if pt == -2 then return 0 end "
+			+ "elseif t > 0 then "
+			+ "  pt = t * 1000 "
+			+ "end "
+			+ "redis.call('DEL', KEYS[1]) "
+			+ "redis.call('HMSET', KEYS[1], unpack(ARGV, 2)) "
+			+ "if pt > 0 then redis.call('PEXPIRE', KEYS[1], pt) end "
+			+ "return 1";
+
+	/**
+	 * 写入哈希 Session 单个字段的脚本 (Session不存在时不写入) 
+	 * <p> KEYS: [SessionId] ，ARGV: [字段, 值] 
+	 */
+	public static final String SET_HASH_FIELD_SCRIPT = 
+			"if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+			+ "redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) "
+			+ "return 1";
+
+	/**
+	 * 批量写入、删除哈希 Session 字段的脚本 (Session不存在时不写入) 
+	 * <p> KEYS: [SessionId] ，ARGV: [写入的字段数n, 字段1, 值1, ... 字段n, 值n, 删除的字段1, 删除的字段2 ...] 
+	 */
+	public static final String UPDATE_HASH_FIELDS_SCRIPT = 
+			"if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end "
+			+ "local n = tonumber(ARGV[1]) "
+			+ "if n > 0 then redis.call('HMSET', KEYS[1], unpack(ARGV, 2, n * 2 + 1)) end "
+			+ "for i = n * 2 + 2, #ARGV do redis.call('HDEL', KEYS[1], ARGV[i]) end "
+			+ "return 1";
+
+	/**
+	 * 添加token签名的脚本 
+	 * <p> KEYS: [SessionId, 签名哈希key] ，ARGV: [token值, 设备标识, 过期时间(-2代表与Session保持一致), 存储模式(string/hash), Session数据(仅在Session不存在时写入)...] 
+	 */
+	public static final String ADD_TOKEN_SIGN_SCRIPT = 
+			"local t = tonumber(ARGV[3]) "
+			+ "local keep = (t == -2) "
+			+ "if redis.call('EXISTS', KEYS[1]) == 0 then "
+			+ "  if keep then return 0 end "
+			+ "  if ARGV[4] == 'hash' then redis.call('HMSET', KEYS[1], unpack(ARGV, 5)) else redis.call('SET', KEYS[1], ARGV[5]) end "
+			+ "end "
+			+ "redis.call('HSET', KEYS[2], ARGV[1], ARGV[2]) "
+			+ "if keep then t = redis.call('TTL', KEYS[1]) end "
+			+ "if t == -1 then "
+			+ "  redis.call('PERSIST', KEYS[2]) "
+			+ "  if not keep then redis.call('PERSIST', KEYS[1]) end "
+			+ "elseif t > 0 then "
+			+ "  redis.call('EXPIRE', KEYS[2], t) "
+			+ "  if not keep then redis.call('EXPIRE', KEYS[1], t) end "
+			+ "end "
+			+ "return 1";
+
+	/**
+	 * 移除token签名的脚本 
+	 * <p> KEYS: [签名哈希key] ，ARGV: [要移除的token值...] ，返回: [移除的数量, 剩余的签名(token值与设备标识交替排列)] 
+	 */
+	public static final String REMOVE_TOKEN_SIGN_SCRIPT = 
+			"local n = redis.call('HDEL', KEYS[1], unpack(ARGV)) "
+			+ "return {n, redis.call('HGETALL', KEYS[1])}";
+
+	/**
+	 * 执行 Lua 脚本 (每次发送完整脚本内容，因此也可以在管道中使用) 
+	 * @param <T> 返回值类型 
+	 * @param script 脚本内容 
+	 * @param returnType 返回值类型 
+	 * @param numKeys KEYS 的数量 
+	 * @param keysAndArgs KEYS 与 ARGV 
+	 * @return 脚本返回值 (管道中执行时为null) 
+	 */
+	public <T> T eval(String script, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+		return stringRedisTemplate.execute((RedisCallback<T>) connection -> 
+			connection.eval(script.getBytes(StandardCharsets.UTF_8), returnType, numKeys, keysAndArgs)
+		);
+	}
+
+	/**
+	 * 拼接 Session 对应的token签名哈希的key (以 SessionId 作为哈希标签，保证与 Session 位于 Redis Cluster 的同一个槽位) 
+	 * @param sessionId SessionId 
+	 * @return key
+	 */
+	public String splicingKeyTokenSign(String sessionId) {
+		// SessionId 自身已带有哈希标签时，Redis 只按该标签计算槽位，直接拼接即可 
+		if(hasHashTag(sessionId)) {
+			return sessionId + ":token-sign";
+		}
+		return "{" + sessionId + "}:token-sign";
+	}
+
+	/**
+	 * 判断 key 中是否带有 Redis Cluster 的哈希标签 (第一个 '{' 之后存在 '}'，且二者之间不为空) 
+	 * @param key key 
+	 * @return / 
+	 */
+	public static boolean hasHashTag(String key) {
+		int start = key.indexOf('{');
+		if(start == -1) {
+			return false;
+		}
+		int end = key.indexOf('}', start + 1);
+		return end > start + 1;
+	}
+
+	/**
+	 * 将 Session 转换为哈希字段 
+	 * @param session Session 
+	 * @return 字段集合 (字段名与值均已序列化) 
+	 */
+	public Map<byte[], byte[]> toSessionHash(SaSession session) {
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		@SuppressWarnings("unchecked")
+		RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) objectRedisTemplate.getValueSerializer();
+		Map<byte[], byte[]> hash = new LinkedHashMap<byte[], byte[]>();
+		hash.put(serializer.serialize(HASH_FIELD_CLASS), serializer.serialize(session.getClass().getName()));
+		hash.put(serializer.serialize(HASH_FIELD_CREATE_TIME), serializer.serialize(String.valueOf(session.getCreateTime())));
+		hash.put(serializer.serialize(HASH_FIELD_TOKEN_SIGN), valueSerializer.serialize(new ArrayList<TokenSign>(session.getTokenSignList())));
+		for (Map.Entry<String, Object> entry : session.getDataMap().entrySet()) {
+			hash.put(serializer.serialize(HASH_FIELD_DATA_PREFIX + entry.getKey()), valueSerializer.serialize(entry.getValue()));
+		}
+		return hash;
+	}
+
+	/**
+	 * 将哈希字段还原为 Session 
+	 * @param sessionId SessionId 
+	 * @param hash 字段集合 
+	 * @return Session (字段集合为空时返回null) 
+	 */
+	@SuppressWarnings("unchecked")
+	public SaSession fromSessionHash(String sessionId, Map<byte[], byte[]> hash) {
+		if(hash == null || hash.isEmpty()) {
+			return null;
+		}
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		RedisSerializer<?> valueSerializer = objectRedisTemplate.getValueSerializer();
+		Map<String, byte[]> fieldMap = new LinkedHashMap<String, byte[]>();
+		for (Map.Entry<byte[], byte[]> entry : hash.entrySet()) {
+			fieldMap.put(serializer.deserialize(entry.getKey()), entry.getValue());
+		}
+		// 通过无参构造创建 Session，避免监听器误以为创建了新的 Session (类名不是 SaSession 的子类时拒绝创建) 
+		SaSession session;
+		try {
+			String className = serializer.deserialize(fieldMap.get(HASH_FIELD_CLASS));
+			session = SaFoxUtil.loadSubclass(className, SaSession.class).getDeclaredConstructor().newInstance();
+		} catch (SaTokenException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new SaTokenException(e);
+		}
+		session.setId(sessionId);
+		session.setCreateTime(Long.parseLong(serializer.deserialize(fieldMap.get(HASH_FIELD_CREATE_TIME))));
+		Object tokenSignList = valueSerializer.deserialize(fieldMap.get(HASH_FIELD_TOKEN_SIGN));
+		if(tokenSignList != null) {
+			session.resetTokenSignList((List<TokenSign>) tokenSignList);
+		}
+		for (Map.Entry<String, byte[]> entry : fieldMap.entrySet()) {
+			if(entry.getKey().startsWith(HASH_FIELD_DATA_PREFIX)) {
+				session.getDataMap().put(entry.getKey().substring(HASH_FIELD_DATA_PREFIX.length()), valueSerializer.deserialize(entry.getValue()));
+			}
+		}
+		return session;
+	}
+
+	/**
+	 * 整体写入哈希 Session 
+	 * @param session Session 
+	 * @param timeout 过期时间 (-2代表保持原有过期时间，且Session不存在时不写入) 
+	 */
+	public void setHashSession(SaSession session, long timeout) {
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		List<byte[]> keysAndArgs = new ArrayList<byte[]>();
+		keysAndArgs.add(serializer.serialize(session.getId()));
+		keysAndArgs.add(serializer.serialize(String.valueOf(timeout)));
+		for (Map.Entry<byte[], byte[]> entry : toSessionHash(session).entrySet()) {
+			keysAndArgs.add(entry.getKey());
+			keysAndArgs.add(entry.getValue());
+		}
+		eval(SET_HASH_SESSION_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs.toArray(new byte[0][]));
+	}
+
+	/**
+	 * 写入哈希 Session 的单个字段 (Session不存在时不写入) 
+	 * @param sessionId SessionId 
+	 * @param field 字段名 
+	 * @param value 已序列化的值 
+	 */
+	public void setHashSessionField(String sessionId, String field, byte[] value) {
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		eval(SET_HASH_FIELD_SCRIPT, ReturnType.INTEGER, 1, serializer.serialize(sessionId), serializer.serialize(field), value);
+	}
+
+	/**
+	 * 获取Session (哈希模式下一次读取全部字段；开启原子签名时，同一管道中一并读取其签名哈希) 
+	 */
+	@Override
+	public SaSession getSession(String sessionId) {
+		checkNotInPipeline();
+		if(isHashSession == false && isAtomicTokenSign == false) {
+			return (SaSession)getObject(sessionId);
+		}
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			if(isHashSession) {
+				connection.hGetAll(serializer.serialize(sessionId));
+			} else {
+				connection.get(serializer.serialize(sessionId));
+			}
+			if(isAtomicTokenSign) {
+				connection.hGetAll(serializer.serialize(splicingKeyTokenSign(sessionId)));
+			}
+			return null;
+		}, RedisSerializer.byteArray());
+		SaSession session;
+		if(isHashSession) {
+			@SuppressWarnings("unchecked")
+			Map<byte[], byte[]> hash = (Map<byte[], byte[]>) results.get(0);
+			session = fromSessionHash(sessionId, hash);
+		} else {
+			session = (SaSession) objectRedisTemplate.getValueSerializer().deserialize((byte[]) results.get(0));
+		}
+		if(session == null || isAtomicTokenSign == false) {
+			return session;
+		}
+		@SuppressWarnings("unchecked")
+		Map<byte[], byte[]> signMap = (Map<byte[], byte[]>) results.get(1);
+		// 签名哈希为空时保留 Session 自身记录的签名 (兼容开启原子签名之前写入的数据) 
+		if(signMap != null && signMap.isEmpty() == false) {
+			List<TokenSign> tokenSignList = new ArrayList<TokenSign>();
+			for (Map.Entry<byte[], byte[]> entry : signMap.entrySet()) {
+				tokenSignList.add(new TokenSign(serializer.deserialize(entry.getKey()), serializer.deserialize(entry.getValue())));
+			}
+			session.resetTokenSignList(tokenSignList);
+		}
+		return session;
+	}
+
+	/**
+	 * 写入Session (哈希模式下以脚本原子替换全部字段) 
+	 */
+	@Override
+	public void setSession(SaSession session, long timeout) {
+		if(isHashSession == false) {
+			setObject(session.getId(), session, timeout);
+			return;
+		}
+		if(timeout == 0 || timeout <= SaTokenDao.NOT_VALUE_EXPIRE)  {
+			return;
+		}
+		setHashSession(session, timeout);
+	}
+
+	/**
+	 * 更新Session (哈希模式下以脚本原子替换全部字段，过期时间不变) 
+	 */
+	@Override
+	public void updateSession(SaSession session) {
+		if(isHashSession == false) {
+			updateObject(session.getId(), session);
+			return;
+		}
+		setHashSession(session, SaTokenDao.NOT_VALUE_EXPIRE);
+	}
+
+	/**
+	 * 持久化 Session 上单个值的写入 (哈希模式下只写入这一个字段) 
+	 */
+	@Override
+	public void updateSessionData(SaSession session, String key, Object value) {
+		if(isHashSession == false) {
+			updateSession(session);
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) objectRedisTemplate.getValueSerializer();
+		setHashSessionField(session.getId(), HASH_FIELD_DATA_PREFIX + key, valueSerializer.serialize(value));
+	}
+
+	/**
+	 * 批量持久化 Session 上多个值的写入与删除 (哈希模式下一次往返只写入变化的字段，否则整体写回一次) 
+	 */
+	@Override
+	public void updateSessionData(SaSession session, Map<String, Object> dataMap) {
+		if(isHashSession == false) {
+			updateSession(session);
+			return;
+		}
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		@SuppressWarnings("unchecked")
+		RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) objectRedisTemplate.getValueSerializer();
+		List<byte[]> setList = new ArrayList<>();
+		List<byte[]> deleteList = new ArrayList<>();
+		for (Map.Entry<String, Object> entry : dataMap.entrySet()) {
+			byte[] field = serializer.serialize(HASH_FIELD_DATA_PREFIX + entry.getKey());
+			if(entry.getValue() == null) {
+				deleteList.add(field);
+			} else {
+				setList.add(field);
+				setList.add(valueSerializer.serialize(entry.getValue()));
+			}
+		}
+		List<byte[]> keysAndArgs = new ArrayList<>();
+		keysAndArgs.add(serializer.serialize(session.getId()));
+		keysAndArgs.add(serializer.serialize(String.valueOf(setList.size() / 2)));
+		keysAndArgs.addAll(setList);
+		keysAndArgs.addAll(deleteList);
+		eval(UPDATE_HASH_FIELDS_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs.toArray(new byte[0][]));
+	}
+
+	/**
+	 * 持久化 Session 上单个值的删除 (哈希模式下只删除这一个字段) 
+	 */
+	@Override
+	public void deleteSessionData(SaSession session, String key) {
+		if(isHashSession == false) {
+			updateSession(session);
+			return;
+		}
+		stringRedisTemplate.opsForHash().delete(session.getId(), HASH_FIELD_DATA_PREFIX + key);
+	}
+
+	/**
+	 * 读取 Session 上的单个值 (哈希模式下只读取这一个字段) 
+	 */
+	@Override
+	public Object getSessionData(String sessionId, String key) {
+		checkNotInPipeline();
+		if(isHashSession == false) {
+			return SaTokenDao.super.getSessionData(sessionId, key);
+		}
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		byte[] value = stringRedisTemplate.execute((RedisCallback<byte[]>) connection -> 
+			connection.hGet(serializer.serialize(sessionId), serializer.serialize(HASH_FIELD_DATA_PREFIX + key))
+		);
+		return objectRedisTemplate.getValueSerializer().deserialize(value);
+	}
+
+	/**
+	 * 持久化新增的token签名 (开启原子签名时，以脚本原子写入签名哈希，不再整体覆盖Session) 
+	 */
+	@Override
+	public void addTokenSign(SaSession session, TokenSign tokenSign, long timeout) {
+		if(isAtomicTokenSign == false) {
+			// 哈希模式下，Session已存在时只需写入签名字段 
+			if(isHashSession && timeout == SaTokenDao.NOT_VALUE_EXPIRE) {
+				updateTokenSignField(session);
+				return;
+			}
+			SaTokenDao.super.addTokenSign(session, tokenSign, timeout);
+			return;
+		}
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		@SuppressWarnings("unchecked")
+		RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) objectRedisTemplate.getValueSerializer();
+		List<byte[]> keysAndArgs = new ArrayList<byte[]>();
+		keysAndArgs.add(serializer.serialize(session.getId()));
+		keysAndArgs.add(serializer.serialize(splicingKeyTokenSign(session.getId())));
+		keysAndArgs.add(serializer.serialize(tokenSign.getValue()));
+		keysAndArgs.add(serializer.serialize(tokenSign.getDevice() == null ? "" : tokenSign.getDevice()));
+		keysAndArgs.add(serializer.serialize(String.valueOf(timeout)));
+		if(isHashSession) {
+			keysAndArgs.add(serializer.serialize("hash"));
+			for (Map.Entry<byte[], byte[]> entry : toSessionHash(session).entrySet()) {
+				keysAndArgs.add(entry.getKey());
+				keysAndArgs.add(entry.getValue());
+			}
+		} else {
+			keysAndArgs.add(serializer.serialize("string"));
+			keysAndArgs.add(valueSerializer.serialize(session));
+		}
+		eval(ADD_TOKEN_SIGN_SCRIPT, ReturnType.INTEGER, 2, keysAndArgs.toArray(new byte[0][]));
+	}
+
+	/**
+	 * 持久化被移除的token签名 (开启原子签名时，以脚本原子删除签名，并以剩余的签名回填Session) 
+	 */
+	@Override
+	public void removeTokenSign(SaSession session, Collection<String> tokenValueList) {
+		if(isAtomicTokenSign == false || tokenValueList.isEmpty()) {
+			removeTokenSignNotAtomic(session, tokenValueList);
+			return;
+		}
+		checkNotInPipeline();
+		RedisSerializer<String> serializer = stringRedisTemplate.getStringSerializer();
+		List<byte[]> keysAndArgs = new ArrayList<byte[]>();
+		keysAndArgs.add(serializer.serialize(splicingKeyTokenSign(session.getId())));
+		for (String tokenValue : tokenValueList) {
+			keysAndArgs.add(serializer.serialize(tokenValue));
+		}
+		List<?> result = eval(REMOVE_TOKEN_SIGN_SCRIPT, ReturnType.MULTI, 1, keysAndArgs.toArray(new byte[0][]));
+		List<?> remainList = (List<?>) result.get(1);
+		// 一个都没有删掉并且签名哈希为空：说明是开启原子签名之前写入的数据，按旧方式写回 
+		if(((Number) result.get(0)).longValue() == 0 && remainList.isEmpty()) {
+			removeTokenSignNotAtomic(session, tokenValueList);
+			return;
+		}
+		List<TokenSign> tokenSignList = new ArrayList<TokenSign>();
+		for (int i = 0; i + 1 < remainList.size(); i += 2) {
+			tokenSignList.add(new TokenSign(serializer.deserialize((byte[]) remainList.get(i)), serializer.deserialize((byte[]) remainList.get(i + 1))));
+		}
+		session.resetTokenSignList(tokenSignList);
+	}
+
+	/**
+	 * 以非原子的方式持久化被移除的token签名 (哈希模式下只写入签名字段) 
+	 * @param session Session 
+	 * @param tokenValueList 被移除的token值集合 
+	 */
+	public void removeTokenSignNotAtomic(SaSession session, Collection<String> tokenValueList) {
+		if(isHashSession) {
+			updateTokenSignField(session);
+			return;
+		}
+		SaTokenDao.super.removeTokenSign(session, tokenValueList);
+	}
+
+	/**
+	 * 哈希模式下，只写入 Session 的token签名字段 
+	 * @param session Session 
+	 */
+	public void updateTokenSignField(SaSession session) {
+		@SuppressWarnings("unchecked")
+		RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) objectRedisTemplate.getValueSerializer();
+		setHashSessionField(session.getId(), HASH_FIELD_TOKEN_SIGN, valueSerializer.serialize(new ArrayList<TokenSign>(session.getTokenSignList())));
+	}
+
+	/**
+	 * 删除Session (开启原子签名时一并删除其签名哈希) 
+	 */
+	@Override
+	public void deleteSession(String sessionId) {
+		if(isAtomicTokenSign == false) {
+			deleteObject(sessionId);
+			return;
+		}
+		stringRedisTemplate.delete(Arrays.asList(sessionId, splicingKeyTokenSign(sessionId)));
+	}
+
+	/**
+	 * 修改Session剩余存活时间 (开启原子签名时一并修改其签名哈希) 
+	 */
+	@Override
+	public void updateSessionTimeout(String sessionId, long timeout) {
+		List<String> keyList = new ArrayList<String>();
+		keyList.add(sessionId);
+		if(isAtomicTokenSign) {
+			keyList.add(splicingKeyTokenSign(sessionId));
+		}
+		// 字符串模式且不开启原子签名时，沿用原有逻辑 
+		if(isHashSession == false && isAtomicTokenSign == false) {
+			updateObjectTimeout(sessionId, timeout);
+			return;
+		}
+		for (String key : keyList) {
+			if(timeout == SaTokenDao.NEVER_EXPIRE) {
+				stringRedisTemplate.persist(key);
+			} else {
+				stringRedisTemplate.expire(key, timeout, TimeUnit.SECONDS);
+			}
+		}
+	}
+
 	
 	/**
-	 * 搜索数据 
+	 * 搜索数据 (基于 SCAN 命令分批遍历，不会像 KEYS 命令一样长时间阻塞Redis) 
 	 */
 	@Override
 	public List<String> searchData(String prefix, String keyword, int start, int size) {
-		Set<String> keys = stringRedisTemplate.keys(prefix + "*" + keyword + "*");
-		List<String> list = new ArrayList<String>(keys);
-		return SaFoxUtil.searchList(list, start, size);
+		checkNotInPipeline();
+		ScanOptions options = ScanOptions.scanOptions().match(prefix + "*" + keyword + "*").count(scanCount).build();
+		// 只需遍历到第 start + size 条即可停止 
+		long end = start < 0 ? Long.MAX_VALUE : (long)start + size;
+		return stringRedisTemplate.execute((RedisCallback<List<String>>) connection -> {
+			// SCAN 可能返回重复的key，此处去重 
+			Set<String> keys = new LinkedHashSet<String>();
+			// Redis Cluster 下单个游标只能遍历一个节点，因此依次在每个主节点上执行 SCAN 
+			if(connection instanceof RedisClusterConnection) {
+				RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+				for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+					if(keys.size() >= end) {
+						break;
+					}
+					if(node.isMaster()) {
+						scanKeys(clusterConnection.scan(node, options), keys, end);
+					}
+				}
+			} else {
+				scanKeys(connection.scan(options), keys, end);
+			}
+			return SaFoxUtil.searchList(new ArrayList<String>(keys), start, size);
+		});
 	}
-	
+
+	/**
+	 * 读取 SCAN 游标中的key，直到游标结束或已取得 end 条 
+	 * @param cursor SCAN 游标 
+	 * @param keys 存放结果的集合 
+	 * @param end 最多取得的条数 
+	 */
+	protected void scanKeys(Cursor<byte[]> cursor, Set<String> keys, long end) {
+		try (Cursor<byte[]> c = cursor) {
+			while (c.hasNext() && keys.size() < end) {
+				keys.add(new String(c.next(), StandardCharsets.UTF_8));
+			}
+		} catch (IOException e) {
+			throw new SaTokenException(e);
+		}
+	}
+
+	/**
+	 * 游标式搜索数据 (每次调用只执行一次 SCAN 命令，返回的游标即为 Redis 的游标) 
+	 * <p> Redis Cluster 下单个游标只能遍历一个节点，因此退回以偏移量作为游标的默认实现 (内部仍是在每个主节点上分别执行 SCAN，不会使用 KEYS) 
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public SaScanResult scanData(String prefix, String keyword, String cursor, int count) {
+		checkNotInPipeline();
+		SaScanResult.checkCount(count);
+		if(isClusterConnection()) {
+			return SaTokenDao.super.scanData(prefix, keyword, cursor, count);
+		}
+		if(SaFoxUtil.isEmpty(cursor)) {
+			cursor = SaScanResult.CURSOR_END;
+		}
+		List<Object> result = stringRedisTemplate.execute(SCAN_SCRIPT, Collections.emptyList(), 
+				cursor, prefix + "*" + keyword + "*", String.valueOf(count));
+		return new SaScanResult(String.valueOf(result.get(0)), (List<String>) result.get(1));
+	}
+
+	/**
+	 * 判断当前连接是否为 Redis Cluster 
+	 * @return / 
+	 */
+	public boolean isClusterConnection() {
+		if(isCluster == null) {
+			isCluster = stringRedisTemplate.execute((RedisCallback<Boolean>) connection -> connection instanceof RedisClusterConnection);
+		}
+		return isCluster;
+	}
+
 }
@@ -3,6 +3,7 @@ package cn.dev33.satoken.jwt;
 import java.util.List;
 
 import cn.dev33.satoken.context.SaHolder;
+import cn.dev33.satoken.dao.SaScanResult;
 import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.exception.ApiDisabledException;
 import cn.dev33.satoken.exception.NotLoginException;
@@ -158,6 +159,13 @@ public class StpLogicJwtForMix extends StpLogic {
 	public void deleteTokenToIdMapping(String tokenValue) {
 		// not action 
 	}
+	/**
+	 * 批量删除 Token-Id 映射 
+	 */
+	@Override
+	public void deleteTokenToIdMapping(List<String> tokenValueList) {
+		// not action 
+	}
 	/**
 	 * 更改 Token 指向的 账号Id 值 
 	 */
@@ -165,6 +173,13 @@ public class StpLogicJwtForMix extends StpLogic {
 	public void updateTokenToIdMapping(String tokenValue, Object loginId) {
 		// not action 
 	}
+	/**
+	 * 批量更改 Token 指向的 账号Id 值 
+	 */
+	@Override
+	public void updateTokenToIdMapping(List<String> tokenValueList, Object loginId) {
+		// not action 
+	}
 	/**
 	 * 存储 Token-Id 映射 
 	 */
@@ -173,6 +188,14 @@ public class StpLogicJwtForMix extends StpLogic {
 		// not action 
 	}
  	
+	/**
+	 * 是否将 [最后操作时间] 折叠进 Token-Id 映射值中存储 (此模式下不存在映射值，始终使用独立的 [最后操作时间] 键)
+	 */
+	@Override
+	public boolean isFoldLastActivity() {
+		return false;
+	}
+	
  	// ------------------- 过期时间相关 -------------------  
 
  	/**
@@ -194,6 +217,14 @@ public class StpLogicJwtForMix extends StpLogic {
 		throw new ApiDisabledException(); 
 	}
 	
+	/**
+	 * [禁用] 根据条件游标式查询Token 
+	 */
+	@Override
+	public SaScanResult scanTokenValue(String keyword, String cursor, int count) {
+		throw new ApiDisabledException(); 
+	}
+	
 
 	// ------------------- Bean对象代理 -------------------  
 	
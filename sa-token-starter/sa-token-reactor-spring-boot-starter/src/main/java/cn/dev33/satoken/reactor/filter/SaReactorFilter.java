@@ -16,7 +16,9 @@ import cn.dev33.satoken.filter.SaFilterAuthStrategy;
 import cn.dev33.satoken.filter.SaFilterErrorStrategy;
 import cn.dev33.satoken.reactor.context.SaReactorHolder;
 import cn.dev33.satoken.reactor.context.SaReactorSyncHolder;
+import cn.dev33.satoken.router.SaPathTable;
 import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.session.SaSessionDirtyUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
 import reactor.core.publisher.Mono;
 
@@ -96,6 +98,38 @@ public class SaReactorFilter implements WebFilter {
 		return excludeList;
 	}
 
+	/**
+	 * [拦截路由] 编译后的路由表 
+	 */
+	private SaPathTable includeTable;
+
+	/**
+	 * [放行路由] 编译后的路由表 
+	 */
+	private SaPathTable excludeTable;
+
+	/**
+	 * 获取 [拦截路由] 编译后的路由表 (集合被替换或追加元素后会自动重新编译) 
+	 * @return see note 
+	 */
+	public SaPathTable getIncludeTable() {
+		if(includeTable == null || includeTable.isCompiledFrom(includeList) == false) {
+			includeTable = new SaPathTable(includeList);
+		}
+		return includeTable;
+	}
+
+	/**
+	 * 获取 [放行路由] 编译后的路由表 (集合被替换或追加元素后会自动重新编译) 
+	 * @return see note 
+	 */
+	public SaPathTable getExcludeTable() {
+		if(excludeTable == null || excludeTable.isCompiledFrom(excludeList) == false) {
+			excludeTable = new SaPathTable(excludeList);
+		}
+		return excludeTable;
+	}
+
 
 	// ------------------------ 钩子函数
 	
@@ -160,8 +194,15 @@ public class SaReactorFilter implements WebFilter {
 			// 写入全局上下文 (同步) 
 			SaReactorSyncHolder.setContext(exchange);
 			
+			// 开启 Session 延迟写入 (如果配置了的话)，并在响应提交之前统一写入持久库 
+			if(SaSessionDirtyUtil.begin()) {
+				exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> {
+					SaReactorSyncHolder.setContext(exchange, SaSessionDirtyUtil::flushQuietly);
+				}));
+			}
+			
 			// 执行全局过滤器 
-			SaRouter.match(includeList).notMatch(excludeList).check(r -> {
+			SaRouter.match(getIncludeTable()).notMatch(getExcludeTable()).check(r -> {
 				beforeAuth.run(null);
 				auth.run(null);
 			});
@@ -172,7 +213,10 @@ public class SaReactorFilter implements WebFilter {
 			// 1. 获取异常处理策略结果 
 			String result = (e instanceof BackResultException) ? e.getMessage() : String.valueOf(error.run(e));
 			
-			// 2. 写入输出流
+			// 2. 将已延迟写入的 Session 统一写入持久库 
+			SaSessionDirtyUtil.flushQuietly();
+			
+			// 3. 写入输出流
 			if(exchange.getResponse().getHeaders().getFirst("Content-Type") == null) {
 				exchange.getResponse().getHeaders().set("Content-Type", "text/plain; charset=utf-8");
 			}
@@ -194,8 +238,8 @@ public class SaReactorFilter implements WebFilter {
 			ctx = ctx.put(SaReactorHolder.CONTEXT_KEY, exchange);
 			return ctx;
 		}).doFinally(r -> {
-			// 清除上下文 
-			SaReactorSyncHolder.clearContext();
+			// 响应没有提交时 (例如请求被取消)，在此处将延迟写入的 Session 统一写入持久库 
+			SaReactorSyncHolder.setContext(exchange, SaSessionDirtyUtil::flushQuietly);
 		});
 	}
 	
@@ -20,6 +20,7 @@ import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.id.SaIdTemplate;
 import cn.dev33.satoken.id.SaIdUtil;
 import cn.dev33.satoken.listener.SaTokenListener;
+import cn.dev33.satoken.session.SaSessionCodec;
 import cn.dev33.satoken.solon.integration.SaContextForSolon;
 import cn.dev33.satoken.solon.integration.SaTokenMethodInterceptor;
 import cn.dev33.satoken.sso.SaSsoTemplate;
@@ -84,6 +85,11 @@ public class XPluginImp implements Plugin {
             SaManager.setSaTemp(bw.raw());
         });
 
+        // Session 编解码器 Bean
+        Aop.getAsyn(SaSessionCodec.class, bw->{
+            SaManager.setSaSessionCodec(bw.raw());
+        });
+
         // Sa-Token-Id 身份凭证模块 Bean
         Aop.getAsyn(SaIdTemplate.class, bw->{
         	SaIdUtil.saIdTemplate = bw.raw();
@@ -6,7 +6,9 @@ import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.exception.StopMatchException;
 import cn.dev33.satoken.filter.SaFilterAuthStrategy;
 import cn.dev33.satoken.filter.SaFilterErrorStrategy;
+import cn.dev33.satoken.router.SaPathTable;
 import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.session.SaSessionDirtyUtil;
 import org.noear.solon.core.handle.Context;
 import org.noear.solon.core.handle.Filter;
 import org.noear.solon.core.handle.FilterChain;
@@ -88,6 +90,38 @@ public class SaTokenPathFilter implements Filter {
         return excludeList;
     }
 
+    /**
+     * [拦截路由] 编译后的路由表
+     */
+    private SaPathTable includeTable;
+
+    /**
+     * [放行路由] 编译后的路由表
+     */
+    private SaPathTable excludeTable;
+
+    /**
+     * 获取 [拦截路由] 编译后的路由表 (集合被替换或追加元素后会自动重新编译)
+     * @return see note
+     */
+    public SaPathTable getIncludeTable() {
+        if(includeTable == null || includeTable.isCompiledFrom(includeList) == false) {
+            includeTable = new SaPathTable(includeList);
+        }
+        return includeTable;
+    }
+
+    /**
+     * 获取 [放行路由] 编译后的路由表 (集合被替换或追加元素后会自动重新编译)
+     * @return see note
+     */
+    public SaPathTable getExcludeTable() {
+        if(excludeTable == null || excludeTable.isCompiledFrom(excludeList) == false) {
+            excludeTable = new SaPathTable(excludeList);
+        }
+        return excludeTable;
+    }
+
 
     // ------------------------ 钩子函数
 
@@ -141,9 +175,12 @@ public class SaTokenPathFilter implements Filter {
 
     @Override
     public void doFilter(Context ctx, FilterChain chain) throws Throwable {
+        // 开启 Session 延迟写入 (如果配置了的话)
+        SaSessionDirtyUtil.begin();
+
         try {
             // 执行全局过滤器
-            SaRouter.match(includeList).notMatch(excludeList).check(r -> {
+            SaRouter.match(getIncludeTable()).notMatch(getExcludeTable()).check(r -> {
             	beforeAuth.run(null);
                 auth.run(null);
             });
@@ -154,13 +191,21 @@ public class SaTokenPathFilter implements Filter {
 			// 1. 获取异常处理策略结果 
 			String result = (e instanceof BackResultException) ? e.getMessage() : String.valueOf(error.run(e));
 
-            // 2. 写入输出流
+            // 2. 将已延迟写入的 Session 统一写入持久库
+            SaSessionDirtyUtil.flushQuietly();
+
+            // 3. 写入输出流
             ctx.contentType("text/plain; charset=utf-8");
             ctx.output(result);
             return;
         }
 
         // 执行
-        chain.doFilter(ctx);
+        try {
+            chain.doFilter(ctx);
+        } finally {
+            // 将本次请求延迟写入的 Session 统一写入持久库
+            SaSessionDirtyUtil.flushQuietly();
+        }
     }
 }
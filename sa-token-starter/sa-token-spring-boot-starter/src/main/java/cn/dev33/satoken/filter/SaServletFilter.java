@@ -11,13 +11,16 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.core.annotation.Order;
 
 import cn.dev33.satoken.exception.BackResultException;
 import cn.dev33.satoken.exception.SaTokenException;
 import cn.dev33.satoken.exception.StopMatchException;
+import cn.dev33.satoken.router.SaPathTable;
 import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.session.SaSessionDirtyUtil;
 import cn.dev33.satoken.util.SaTokenConsts;
 
 /**
@@ -96,6 +99,38 @@ public class SaServletFilter implements Filter {
 		return excludeList;
 	}
 
+	/**
+	 * [拦截路由] 编译后的路由表 
+	 */
+	private SaPathTable includeTable;
+
+	/**
+	 * [放行路由] 编译后的路由表 
+	 */
+	private SaPathTable excludeTable;
+
+	/**
+	 * 获取 [拦截路由] 编译后的路由表 (集合被替换或追加元素后会自动重新编译) 
+	 * @return see note 
+	 */
+	public SaPathTable getIncludeTable() {
+		if(includeTable == null || includeTable.isCompiledFrom(includeList) == false) {
+			includeTable = new SaPathTable(includeList);
+		}
+		return includeTable;
+	}
+
+	/**
+	 * 获取 [放行路由] 编译后的路由表 (集合被替换或追加元素后会自动重新编译) 
+	 * @return see note 
+	 */
+	public SaPathTable getExcludeTable() {
+		if(excludeTable == null || excludeTable.isCompiledFrom(excludeList) == false) {
+			excludeTable = new SaPathTable(excludeList);
+		}
+		return excludeTable;
+	}
+
 
 	// ------------------------ 钩子函数
 	
@@ -153,9 +188,14 @@ public class SaServletFilter implements Filter {
 	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
 			throws IOException, ServletException {
 		
+		// 开启 Session 延迟写入 (如果配置了的话)，并在响应开始写出之前统一写入持久库 
+		if(SaSessionDirtyUtil.begin() && response instanceof HttpServletResponse) {
+			response = new SaSessionFlushResponseWrapper((HttpServletResponse) response);
+		}
+		
 		try {
 			// 执行全局过滤器 
-			SaRouter.match(includeList).notMatch(excludeList).check(r -> {
+			SaRouter.match(getIncludeTable()).notMatch(getExcludeTable()).check(r -> {
 				beforeAuth.run(null);
 				auth.run(null);
 			});
@@ -166,7 +206,10 @@ public class SaServletFilter implements Filter {
 			// 1. 获取异常处理策略结果 
 			String result = (e instanceof BackResultException) ? e.getMessage() : String.valueOf(error.run(e));
 			
-			// 2. 写入输出流 
+			// 2. 将已延迟写入的 Session 统一写入持久库 
+			SaSessionDirtyUtil.flushQuietly();
+			
+			// 3. 写入输出流 
 			if(response.getContentType() == null) {
 				response.setContentType("text/plain; charset=utf-8"); 
 			}
@@ -175,7 +218,12 @@ public class SaServletFilter implements Filter {
 		}
 		
 		// 执行 
-		chain.doFilter(request, response);
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			// 业务代码没有写出任何响应时，在此处将延迟写入的 Session 统一写入持久库 
+			SaSessionDirtyUtil.flushQuietly();
+		}
 	}
 
 	@Override
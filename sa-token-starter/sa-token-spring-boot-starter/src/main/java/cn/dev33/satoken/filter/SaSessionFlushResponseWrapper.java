@@ -0,0 +1,79 @@
+package cn.dev33.satoken.filter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import cn.dev33.satoken.session.SaSessionDirtyUtil;
+
+/**
+ * Response 包装类：在响应开始写出之前，将本次请求延迟写入的 Session 统一写入持久库
+ *
+ * <p> 业务代码获取输出流、重定向、返回错误码或刷新缓冲区时，响应随时可能提交给客户端，
+ * 因此在这些操作之前先完成写入，保证客户端收到响应后发起的下一次请求能读到最新的 Session
+ *
+ * @author kong
+ *
+ */
+public class SaSessionFlushResponseWrapper extends HttpServletResponseWrapper {
+
+	/**
+	 * 是否已经写入过
+	 */
+	private boolean flushed = false;
+
+	public SaSessionFlushResponseWrapper(HttpServletResponse response) {
+		super(response);
+	}
+
+	/**
+	 * 将延迟写入的 Session 写入持久库 (只执行一次，写入失败时只打印异常)
+	 */
+	public void flushSession() {
+		if(flushed) {
+			return;
+		}
+		flushed = true;
+		SaSessionDirtyUtil.flushQuietly();
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		flushSession();
+		return super.getOutputStream();
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		flushSession();
+		return super.getWriter();
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		flushSession();
+		super.flushBuffer();
+	}
+
+	@Override
+	public void sendError(int sc, String msg) throws IOException {
+		flushSession();
+		super.sendError(sc, msg);
+	}
+
+	@Override
+	public void sendError(int sc) throws IOException {
+		flushSession();
+		super.sendError(sc);
+	}
+
+	@Override
+	public void sendRedirect(String location) throws IOException {
+		flushSession();
+		super.sendRedirect(location);
+	}
+
+}
@@ -14,6 +14,7 @@ import cn.dev33.satoken.dao.SaTokenDao;
 import cn.dev33.satoken.id.SaIdTemplate;
 import cn.dev33.satoken.id.SaIdUtil;
 import cn.dev33.satoken.listener.SaTokenListener;
+import cn.dev33.satoken.session.SaSessionCodec;
 import cn.dev33.satoken.sso.SaSsoTemplate;
 import cn.dev33.satoken.sso.SaSsoUtil;
 import cn.dev33.satoken.stp.StpInterface;
@@ -109,6 +110,16 @@ public class SaBeanInject {
 		SaManager.setSaTemp(saTemp);
 	}
 
+	/**
+	 * 注入 Session 编解码器 Bean
+	 * 
+	 * @param saSessionCodec saSessionCodec对象 
+	 */
+	@Autowired(required = false)
+	public void setSaSessionCodec(SaSessionCodec saSessionCodec) {
+		SaManager.setSaSessionCodec(saSessionCodec);
+	}
+
 	/**
 	 * 注入 Sa-Id-Token 模块 Bean
 	 * 
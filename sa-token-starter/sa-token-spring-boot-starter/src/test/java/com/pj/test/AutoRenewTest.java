@@ -0,0 +1,151 @@
+package com.pj.test;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * Sa-Token 自动续签间隔测试：距离上次续签不足 autoRenewInterval 时不写入持久层
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class AutoRenewTest {
+
+	/**
+	 * 记录写入次数的持久层
+	 */
+	static class CountDao extends SaTokenDaoDefaultImpl {
+
+		int writeCount = 0;
+
+		@Override
+		public void update(String key, String value) {
+			writeCount++;
+			super.update(key, value);
+		}
+
+		@Override
+		public boolean compareAndUpdate(String key, String expect, String value) {
+			writeCount++;
+			return super.compareAndUpdate(key, expect, value);
+		}
+	}
+
+	static CountDao dao = new CountDao();
+
+	static SaTokenConfig config = new SaTokenConfig();
+
+	/** 使用上述配置与持久层的 StpLogic */
+	static StpLogic stpLogic = new StpLogic("auto-renew-test") {
+		@Override
+		public SaTokenConfig getConfig() {
+			return config;
+		}
+		@Override
+		public SaTokenDao getSaTokenDao() {
+			return dao;
+		}
+	};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 自动续签间隔测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		dao.endRefreshThread();
+		System.out.println("\n------------ 自动续签间隔测试 end ... \n");
+	}
+
+	@After
+	public void after() {
+		config.setActivityTimeout(1800).setAutoRenewInterval(0).setIsFoldLastActivity(false);
+		dao.writeCount = 0;
+	}
+
+	// 测试：距离上次续签不足间隔时跳过，超出间隔时续签
+	@Test
+	public void skipWithinInterval() {
+		config.setActivityTimeout(1800).setAutoRenewInterval(60);
+		String token = saveToken("interval-token", 10);
+		String lastActivityTime = stpLogic.getLastActivityTime(token);
+		stpLogic.autoRenewLastActivity(token);
+		Assert.assertEquals(0, dao.writeCount);
+		Assert.assertEquals(lastActivityTime, dao.get(stpLogic.splicingKeyLastActivityTime(token)));
+
+		token = saveToken("interval-token-2", 120);
+		lastActivityTime = stpLogic.getLastActivityTime(token);
+		stpLogic.autoRenewLastActivity(token);
+		Assert.assertEquals(1, dao.writeCount);
+		Assert.assertTrue(Long.parseLong(dao.get(stpLogic.splicingKeyLastActivityTime(token))) > Long.parseLong(lastActivityTime));
+	}
+
+	// 测试：间隔为0时每次都续签
+	@Test
+	public void zeroIntervalAlwaysRenews() {
+		String token = saveToken("zero-token", 0);
+		for (int i = 0; i < 3; i++) {
+			stpLogic.autoRenewLastActivity(token);
+		}
+		Assert.assertEquals(3, dao.writeCount);
+	}
+
+	// 测试：间隔不小于 activityTimeout 时按 activityTimeout 的一半计算，token 不会在两次续签之间过期
+	@Test
+	public void intervalClampedToHalfTimeout() {
+		config.setActivityTimeout(100).setAutoRenewInterval(500);
+		stpLogic.autoRenewLastActivity(saveToken("clamp-token", 30));
+		Assert.assertEquals(0, dao.writeCount);
+		stpLogic.autoRenewLastActivity(saveToken("clamp-token-2", 60));
+		Assert.assertEquals(1, dao.writeCount);
+	}
+
+	// 测试：折叠存储时按映射值中的 [最后操作时间] 判断间隔
+	@Test
+	public void foldedValue() {
+		config.setActivityTimeout(1800).setAutoRenewInterval(60).setIsFoldLastActivity(true);
+		String token = "fold-token";
+		String mappingKey = stpLogic.splicingKeyTokenValue(token);
+		String value = stpLogic.foldTokenMappingValue("10001", System.currentTimeMillis() - 10 * 1000);
+		dao.set(mappingKey, value, 3600);
+		stpLogic.autoRenewLastActivity(token);
+		Assert.assertEquals(0, dao.writeCount);
+		Assert.assertEquals(value, dao.get(mappingKey));
+
+		dao.set(mappingKey, stpLogic.foldTokenMappingValue("10001", System.currentTimeMillis() - 120 * 1000), 3600);
+		stpLogic.deleteReadCacheValue(mappingKey);
+		stpLogic.autoRenewLastActivity(token);
+		Assert.assertEquals(1, dao.writeCount);
+		Assert.assertNotEquals(value, dao.get(mappingKey));
+		Assert.assertEquals("10001", stpLogic.unfoldLoginId(dao.get(mappingKey)));
+	}
+
+	/**
+	 * 直接在持久层写入一个token的映射与 [最后操作时间]
+	 * @param token token值
+	 * @param secondsAgo [最后操作时间] 距今的秒数
+	 * @return token值
+	 */
+	static String saveToken(String token, long secondsAgo) {
+		dao.set(stpLogic.splicingKeyTokenValue(token), "10001", 3600);
+		dao.set(stpLogic.splicingKeyLastActivityTime(token), String.valueOf(System.currentTimeMillis() - secondsAgo * 1000), 3600);
+		return token;
+	}
+
+}
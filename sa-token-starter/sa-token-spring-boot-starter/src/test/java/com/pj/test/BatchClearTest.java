@@ -0,0 +1,206 @@
+package com.pj.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.exception.NotLoginException;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * Sa-Token 批量读写测试：SaTokenDao 的 multi* 方法，以及按账号注销、踢人、顶人时对持久层的批量调用
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class BatchClearTest {
+
+	/**
+	 * 记录调用的持久层 (数据写入全局持久层，因为 SaSession 的写回始终使用全局持久层)
+	 */
+	static class RecordDao implements InvocationHandler {
+
+		List<String> callList = new ArrayList<>();
+
+		SaTokenDao proxy = (SaTokenDao) Proxy.newProxyInstance(SaTokenDao.class.getClassLoader(), new Class<?>[] {SaTokenDao.class}, this);
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			callList.add(method.getName());
+			try {
+				return method.invoke(SaManager.getSaTokenDao(), args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			}
+		}
+
+		int count(String name) {
+			return Collections.frequency(callList, name);
+		}
+	}
+
+	static RecordDao recordDao = new RecordDao();
+
+	/** 开启 [临时有效期] 的配置，使注销时需要清理 [最后操作时间] */
+	static SaTokenConfig config = new SaTokenConfig().setActivityTimeout(1800);
+
+	/** 使用记录持久层的 StpLogic */
+	static StpLogic stpLogic = new StpLogic("batch-test") {
+		@Override
+		public SaTokenConfig getConfig() {
+			return config;
+		}
+		@Override
+		public SaTokenDao getSaTokenDao() {
+			return recordDao.proxy;
+		}
+	};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 批量读写测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 批量读写测试 end ... \n");
+	}
+
+	// 测试：multi* 默认实现的语义与逐个调用一致
+	@Test
+	public void multiMethods() {
+		SaTokenDaoDefaultImpl dao = new SaTokenDaoDefaultImpl();
+		try {
+			Map<String, String> map = new LinkedHashMap<>();
+			map.put("batch:a", "1");
+			map.put("batch:b", "2");
+			dao.multiSet(map, 600);
+			Assert.assertEquals(Arrays.asList("1", null, "2"), dao.multiGet(Arrays.asList("batch:a", "batch:none", "batch:b")));
+			Assert.assertTrue(dao.getTimeout("batch:a") > 590);
+
+			// multiUpdate 不改变过期时间，不存在的key被忽略
+			map.put("batch:a", "11");
+			map.put("batch:none", "x");
+			dao.multiUpdate(map);
+			Assert.assertEquals(Arrays.asList("11", null), dao.multiGet(Arrays.asList("batch:a", "batch:none")));
+			Assert.assertTrue(dao.getTimeout("batch:a") > 590);
+
+			dao.multiDelete(Arrays.asList("batch:a", "batch:b"));
+			Assert.assertEquals(Arrays.asList(null, null), dao.multiGet(Arrays.asList("batch:a", "batch:b")));
+
+			// timeout=0 时不存储
+			dao.multiSet(map, 0);
+			Assert.assertNull(dao.get("batch:a"));
+		} finally {
+			dao.endRefreshThread();
+		}
+	}
+
+	// 测试：按账号注销多个设备时，每类key只调用一次 multiDelete，不再逐个删除
+	@Test
+	public void logoutInBatch() {
+		List<String> tokenList = loginDevices(60001, "PC", "APP", "H5");
+		recordDao.callList.clear();
+		stpLogic.logout(60001);
+		System.out.println("注销调用: " + recordDao.callList);
+
+		// [最后操作时间]、Token-Id 映射、Token-Session 各一次
+		Assert.assertEquals(3, recordDao.count("multiDelete"));
+		Assert.assertEquals(0, recordDao.count("delete"));
+		for (String token : tokenList) {
+			Assert.assertNull(stpLogic.getLoginIdNotHandle(token));
+			Assert.assertNull(SaManager.getSaTokenDao().get(stpLogic.splicingKeyLastActivityTime(token)));
+		}
+		Assert.assertNull(stpLogic.getSessionByLoginId(60001, false));
+	}
+
+	// 测试：按设备踢人时只标记该设备的token (一次 multiUpdate)，其它设备不受影响
+	@Test
+	public void kickoutByDevice() {
+		List<String> tokenList = loginDevices(60002, "PC", "APP");
+		recordDao.callList.clear();
+		stpLogic.kickout(60002, "PC");
+
+		Assert.assertEquals(1, recordDao.count("multiUpdate"));
+		Assert.assertEquals(0, recordDao.count("update"));
+		Assert.assertEquals(NotLoginException.KICK_OUT, stpLogic.getLoginIdNotHandle(tokenList.get(0)));
+		Assert.assertEquals("60002", stpLogic.getLoginIdNotHandle(tokenList.get(1)));
+		Assert.assertEquals(1, stpLogic.getSessionByLoginId(60002).getTokenSignList().size());
+
+		// 顶人下线：标记为被顶替，User-Session 保留
+		stpLogic.replaced(60002, "APP");
+		Assert.assertEquals(NotLoginException.BE_REPLACED, stpLogic.getLoginIdNotHandle(tokenList.get(1)));
+		Assert.assertNotNull(stpLogic.getSessionByLoginId(60002, false));
+		Assert.assertEquals(0, stpLogic.getSessionByLoginId(60002).getTokenSignList().size());
+	}
+
+	// 测试：重写了旧的 clearTokenCommonMethod 的子类，注销时仍然走重写后的方法
+	@Test
+	public void legacyOverrideStillCalled() {
+		List<String> clearList = new ArrayList<>();
+		StpLogic legacyLogic = new StpLogic("batch-legacy-test") {
+			@Override
+			public SaTokenDao getSaTokenDao() {
+				return recordDao.proxy;
+			}
+			@SuppressWarnings("deprecation")
+			@Override
+			protected void clearTokenCommonMethod(Object loginId, String device, Consumer<String> appendFun, boolean isLogoutSession) {
+				super.clearTokenCommonMethod(loginId, device, tokenValue -> {
+					clearList.add(tokenValue);
+					appendFun.accept(tokenValue);
+				}, isLogoutSession);
+			}
+		};
+		legacyLogic.login(60003, "PC");
+		legacyLogic.login(60003, "APP");
+		String pcToken = legacyLogic.getTokenValueByLoginId(60003, "PC");
+		String appToken = legacyLogic.getTokenValueByLoginId(60003, "APP");
+
+		legacyLogic.logout(60003);
+		Assert.assertEquals(Arrays.asList(pcToken, appToken), clearList);
+		Assert.assertNull(legacyLogic.getLoginIdNotHandle(pcToken));
+		Assert.assertNull(legacyLogic.getLoginIdNotHandle(appToken));
+		Assert.assertNull(legacyLogic.getSessionByLoginId(60003, false));
+	}
+
+	/**
+	 * 以多个设备登录同一账号
+	 * @param loginId 账号id
+	 * @param devices 设备标识
+	 * @return 各设备的token (与 devices 顺序一致)
+	 */
+	static List<String> loginDevices(Object loginId, String... devices) {
+		List<String> tokenList = new ArrayList<>();
+		for (String device : devices) {
+			stpLogic.login(loginId, device);
+			tokenList.add(stpLogic.getTokenValueByLoginId(loginId, device));
+		}
+		return tokenList;
+	}
+
+}
@@ -0,0 +1,479 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaScanResult;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * Sa-Token 默认持久层实现测试 (每个测试使用独立的 SaTokenDaoDefaultImpl，不影响全局持久层)
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class DefaultDaoTest {
+
+	/** 本测试创建的持久层 (测试结束后停止其清理线程) */
+	List<SaTokenDaoDefaultImpl> daoList = new ArrayList<>();
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 默认持久层测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 默认持久层测试 end ... \n");
+	}
+
+	@After
+	public void after() {
+		for (SaTokenDaoDefaultImpl dao : daoList) {
+			dao.endRefreshThread();
+		}
+	}
+
+	/**
+	 * 创建一个新的持久层
+	 * @return /
+	 */
+	SaTokenDaoDefaultImpl newDao() {
+		SaTokenDaoDefaultImpl dao = new SaTokenDaoDefaultImpl();
+		daoList.add(dao);
+		return dao;
+	}
+
+	// 测试：到期的key由时间轮清理，无需再被读取
+	@Test
+	public void expireByWheel() throws InterruptedException {
+		SaTokenDaoDefaultImpl dao = newDao();
+		dao.set("k-expire", "v", 1);
+		dao.set("k-renew", "v", 1);
+		dao.set("k-long", "v", 100);
+		dao.set("k-never", "v", SaTokenDao.NEVER_EXPIRE);
+		dao.updateTimeout("k-renew", 100);
+
+		// [永不过期] 的key不进入时间轮
+		Assert.assertEquals(1, countInWheel(dao, "k-expire"));
+		Assert.assertEquals(1, countInWheel(dao, "k-renew"));
+		Assert.assertEquals(0, countInWheel(dao, "k-never"));
+
+		// 到期的秒完整走过后才会被清理
+		Thread.sleep(2100);
+		dao.refreshDataMap();
+
+		Assert.assertFalse(dao.entryMap.containsKey("k-expire"));
+		Assert.assertEquals(0, countInWheel(dao, "k-expire"));
+		// 续期后挂到了新的槽位上，不会被旧槽位误删
+		Assert.assertEquals("v", dao.get("k-renew"));
+		Assert.assertEquals("v", dao.get("k-long"));
+		Assert.assertEquals("v", dao.get("k-never"));
+		Assert.assertEquals(SaTokenDao.NEVER_EXPIRE, dao.getTimeout("k-never"));
+
+		// 删除后从时间轮上摘除
+		dao.delete("k-long");
+		Assert.assertEquals(0, countInWheel(dao, "k-long"));
+	}
+
+	// 测试：清理线程推进时间轮的同时不断有key写入，推进结束后不会残留游标之前的槽位，到期的key全部被清理
+	@Test
+	public void expireWhileAdvancing() throws InterruptedException {
+		SaTokenDaoDefaultImpl dao = newDao();
+		long endTime = System.currentTimeMillis() + 2500;
+		List<Thread> threadList = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			int index = i;
+			Thread thread = new Thread(() -> {
+				for (int j = 0; System.currentTimeMillis() < endTime; j++) {
+					dao.set("k-" + index + "-" + j % 500, "v", 1);
+				}
+			});
+			threadList.add(thread);
+			thread.start();
+		}
+		while (System.currentTimeMillis() < endTime) {
+			dao.refreshDataMap();
+			// 模拟系统时间跳变：游标落后较多时走直接遍历槽位的分支
+			if(dao.wheelSecond % 2 == 0) {
+				dao.wheelSecond -= 10;
+			}
+		}
+		for (Thread thread : threadList) {
+			thread.join();
+		}
+
+		Thread.sleep(2100);
+		dao.refreshDataMap();
+		for (Long second : dao.expireWheel.keySet()) {
+			Assert.assertTrue(second > dao.wheelSecond);
+		}
+		Assert.assertEquals(0, dao.entryMap.size());
+	}
+
+	// 测试：两个线程同时修改同一个key的过期时间，先修改者在摘除旧槽位前被挂起，结束后key仍挂在其到期时间所在的槽位上
+	@Test
+	public void relinkUnderConcurrentUpdate() throws InterruptedException {
+		SaTokenDaoDefaultImpl dao = newDao();
+		String key = "k-relink";
+		long time10 = System.currentTimeMillis() + 10 * 1000;
+		long time20 = time10 + 10 * 1000;
+		dao.dataMap.put(key, "v");
+		dao.expireMap.put(key, time10);
+
+		// 第一个线程摘除旧槽位时挂起，直到第二个线程修改结束 (最多等待 500ms)
+		Thread[] pauseThread = new Thread[1];
+		CountDownLatch paused = new CountDownLatch(1);
+		CountDownLatch resume = new CountDownLatch(1);
+		dao.expireWheel = new ConcurrentHashMap<Long, Set<String>>() {
+			private static final long serialVersionUID = 1L;
+			@Override
+			public Set<String> computeIfPresent(Long second, BiFunction<? super Long, ? super Set<String>, ? extends Set<String>> function) {
+				if(Thread.currentThread() == pauseThread[0]) {
+					pauseThread[0] = null;
+					paused.countDown();
+					try {
+						resume.await(500, TimeUnit.MILLISECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return super.computeIfPresent(second, function);
+			}
+		};
+		dao.expireWheel.computeIfAbsent(time10 / 1000, k -> ConcurrentHashMap.newKeySet()).add(key);
+
+		Thread thread = new Thread(() -> dao.expireMap.put(key, time20));
+		pauseThread[0] = thread;
+		thread.start();
+		paused.await();
+		dao.expireMap.put(key, time10 + 1);
+		resume.countDown();
+		thread.join();
+
+		Set<String> slot = dao.expireWheel.get(dao.entryMap.get(key).expirationTime / 1000);
+		Assert.assertTrue(slot != null && slot.contains(key));
+	}
+
+	// 测试：比较并更新 (过期时间不变，并发更新不丢失)
+	@Test
+	public void compareAndUpdate() throws InterruptedException {
+		SaTokenDaoDefaultImpl dao = newDao();
+		Assert.assertFalse(dao.compareAndUpdate("k-none", "a", "b"));
+
+		dao.set("k", "a", 100);
+		Assert.assertFalse(dao.compareAndUpdate("k", "x", "b"));
+		Assert.assertEquals("a", dao.get("k"));
+		Assert.assertTrue(dao.compareAndUpdate("k", "a", "b"));
+		Assert.assertEquals("b", dao.get("k"));
+		Assert.assertTrue(dao.getTimeout("k") > 90);
+
+		// 多个线程以 "读取 + 比较并更新" 的方式累加计数，每次累加都不应丢失
+		dao.set("counter", "0", 100);
+		int threadCount = 8;
+		int times = 1000;
+		List<Thread> threadList = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			Thread thread = new Thread(() -> {
+				for (int j = 0; j < times; j++) {
+					for (;;) {
+						String value = dao.get("counter");
+						if(dao.compareAndUpdate("counter", value, String.valueOf(Integer.parseInt(value) + 1))) {
+							break;
+						}
+					}
+				}
+			});
+			threadList.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threadList) {
+			thread.join();
+		}
+		Assert.assertEquals(String.valueOf(threadCount * times), dao.get("counter"));
+	}
+
+	// 测试：兼容旧版本的 dataMap、expireMap 字段
+	@Test
+	public void legacyMapView() {
+		SaTokenDaoDefaultImpl dao = newDao();
+		dao.set("k", "a", 100);
+		Assert.assertEquals("a", dao.dataMap.get("k"));
+		Assert.assertTrue(dao.expireMap.get("k") > System.currentTimeMillis());
+
+		// 旧版本的写法：先写入值，再写入到期时间
+		dao.dataMap.put("k2", "b");
+		Assert.assertEquals(SaTokenDao.NEVER_EXPIRE, dao.getTimeout("k2"));
+		dao.expireMap.put("k2", System.currentTimeMillis() + 50 * 1000);
+		Assert.assertEquals("b", dao.get("k2"));
+		Assert.assertTrue(dao.getTimeout("k2") > 40 && dao.getTimeout("k2") <= 50);
+		Assert.assertEquals(1, countInWheel(dao, "k2"));
+
+		// 替换值时过期时间不变
+		Assert.assertEquals("b", dao.dataMap.put("k2", "c"));
+		Assert.assertEquals("c", dao.get("k2"));
+		Assert.assertTrue(dao.getTimeout("k2") > 40);
+
+		// key不存在时，只写入到期时间不会产生数据
+		Assert.assertNull(dao.expireMap.put("k-none", System.currentTimeMillis() + 1000));
+		Assert.assertFalse(dao.entryMap.containsKey("k-none"));
+
+		// 删除
+		dao.dataMap.remove("k2");
+		Assert.assertNull(dao.get("k2"));
+		Assert.assertEquals(0, countInWheel(dao, "k2"));
+	}
+
+	// 测试：超出容量上限时的淘汰顺序 ([last-activity] → 普通数据 → User-Session，[永不过期] 的数据不淘汰)
+	@Test
+	public void evictByMaxSize() {
+		int oldMaxSize = SaManager.getConfig().getDataMaxSize();
+		SaManager.getConfig().setDataMaxSize(4);
+		try {
+			SaTokenDaoDefaultImpl dao = newDao();
+			dao.set("satoken:never", "v", SaTokenDao.NEVER_EXPIRE);
+			dao.setObject("satoken:login:session:1", new SaSession("satoken:login:session:1"), 100);
+			dao.set("satoken:login:data-1", "v", 100);
+			dao.set("satoken:login:data-2", "v", 100);
+			Assert.assertEquals(0, dao.getEvictCount());
+
+			// 先淘汰 [last-activity]
+			dao.set("satoken:login:last-activity:t1", "v", 100);
+			Assert.assertEquals(1, dao.getEvictCount());
+			Assert.assertNull(dao.get("satoken:login:last-activity:t1"));
+			Assert.assertEquals(4, dao.entryMap.size());
+
+			// 再按写入顺序淘汰普通数据，最近被访问过的数据获得一次重新排队的机会
+			dao.get("satoken:login:data-1");
+			dao.set("satoken:login:data-3", "v", 100);
+			Assert.assertNull(dao.get("satoken:login:data-2"));
+			Assert.assertEquals("v", dao.get("satoken:login:data-1"));
+
+			// 普通数据淘汰完之前，User-Session 与 [永不过期] 的数据一直保留
+			for (int i = 4; i < 20; i++) {
+				dao.set("satoken:login:data-" + i, "v", 100);
+				Assert.assertEquals(4, dao.entryMap.size());
+				Assert.assertNotNull(dao.getSession("satoken:login:session:1"));
+				Assert.assertEquals("v", dao.get("satoken:never"));
+			}
+
+			// 普通数据淘汰完后才淘汰 User-Session (session:1 刚被访问过，先淘汰 session:2)
+			for (int i = 2; i <= 4; i++) {
+				dao.setObject("satoken:login:session:" + i, new SaSession("satoken:login:session:" + i), 100);
+			}
+			Assert.assertEquals(4, dao.entryMap.size());
+			Assert.assertEquals("v", dao.get("satoken:never"));
+			Assert.assertNull(dao.getSession("satoken:login:session:2"));
+			Assert.assertNotNull(dao.getSession("satoken:login:session:1"));
+			Assert.assertNotNull(dao.getSession("satoken:login:session:3"));
+			Assert.assertNotNull(dao.getSession("satoken:login:session:4"));
+
+			// 全部为 [永不过期] 的数据时，允许超出上限
+			SaTokenDaoDefaultImpl neverDao = newDao();
+			for (int i = 0; i < 6; i++) {
+				neverDao.set("satoken:never:" + i, "v", SaTokenDao.NEVER_EXPIRE);
+			}
+			Assert.assertEquals(6, neverDao.entryMap.size());
+			Assert.assertEquals(0, neverDao.getEvictCount());
+		} finally {
+			SaManager.getConfig().setDataMaxSize(oldMaxSize);
+		}
+	}
+
+	// 测试：通过前缀索引分页查询
+	@Test
+	public void searchByPrefixIndex() {
+		SaTokenDaoDefaultImpl dao = newDao();
+		String prefix = "satoken:login:token:";
+		List<String> allList = new ArrayList<>();
+		for (int i = 0; i < 95; i++) {
+			String key = prefix + String.format("%03d", i);
+			dao.set(key, "v", 100);
+			allList.add(key);
+		}
+		dao.set("satoken:login:session:1", "v", 100);
+		dao.set("satoken:other:token:1", "v", 100);
+
+		// 首次查询时建立索引，按字典序分页
+		Assert.assertEquals(allList.subList(0, 10), dao.searchData(prefix, "", 0, 10));
+		Assert.assertTrue(dao.prefixIndex.containsKey(prefix));
+		List<String> pageList = new ArrayList<>();
+		for (int start = 0; ; start += 10) {
+			List<String> page = dao.searchData(prefix, "", start, 10);
+			pageList.addAll(page);
+			if(page.size() < 10) {
+				break;
+			}
+		}
+		Assert.assertEquals(allList, pageList);
+		Assert.assertEquals(allList, dao.searchData(prefix, "", -1, 0));
+		List<String> keywordList = new ArrayList<>();
+		for (String key : allList) {
+			if(key.contains("01")) {
+				keywordList.add(key);
+			}
+		}
+		Assert.assertEquals(keywordList, dao.searchData(prefix, "01", 0, 100));
+		Assert.assertEquals(keywordList.subList(2, 5), dao.searchData(prefix, "01", 2, 3));
+
+		// 建立索引之后写入、删除、过期的key同样反映在查询结果中
+		dao.set(prefix + "100", "v", 100);
+		allList.add(prefix + "100");
+		dao.delete(prefix + "000");
+		allList.remove(prefix + "000");
+		dao.entryMap.put(prefix + "001", new SaTokenDaoDefaultImpl.DataEntry("v", System.currentTimeMillis() - 1000));
+		allList.remove(prefix + "001");
+		Assert.assertEquals(allList, dao.searchData(prefix, "", -1, 0));
+	}
+
+	// 测试：同一批key被多个线程反复写入、删除，结束后每个存活的key都在前缀索引中
+	@Test
+	public void indexUnderConcurrentRewrite() throws InterruptedException {
+		SaTokenDaoDefaultImpl dao = newDao();
+		String prefix = "satoken:login:token:";
+		dao.searchData(prefix, "", 0, 10);
+		List<Thread> threadList = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			Thread thread = new Thread(() -> {
+				Random random = new Random();
+				for (int j = 0; j < 20000; j++) {
+					String key = prefix + random.nextInt(20);
+					if(random.nextBoolean()) {
+						dao.set(key, "v", 100);
+					} else {
+						dao.delete(key);
+					}
+				}
+			});
+			threadList.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threadList) {
+			thread.join();
+		}
+		List<String> liveList = new ArrayList<>();
+		for (String key : dao.entryMap.keySet()) {
+			Assert.assertTrue(key, dao.prefixIndex.get(prefix).contains(key));
+			liveList.add(key);
+		}
+		Collections.sort(liveList);
+		Assert.assertEquals(liveList, dao.searchData(prefix, "", -1, 0));
+	}
+
+	// 测试：通过前缀索引按游标翻页查询
+	@Test
+	public void scanByPrefixIndex() {
+		SaTokenDaoDefaultImpl dao = newDao();
+		String prefix = "satoken:login:token:";
+		List<String> allList = new ArrayList<>();
+		for (int i = 0; i < 95; i++) {
+			String key = prefix + String.format("%03d", i);
+			dao.set(key, "v", 100);
+			allList.add(key);
+		}
+		dao.set("satoken:login:session:1", "v", 100);
+		dao.set("satoken:other:token:1", "v", 100);
+
+		// 游标翻页：每一页从上一页的最后一个key之后开始，遍历结果与全量查询一致
+		List<String> scanList = new ArrayList<>();
+		String cursor = SaScanResult.CURSOR_END;
+		int pageCount = 0;
+		do {
+			SaScanResult result = dao.scanData(prefix, "", cursor, 10);
+			Assert.assertTrue(result.getData().size() <= 10);
+			scanList.addAll(result.getData());
+			cursor = result.getCursor();
+			pageCount++;
+		} while (SaScanResult.CURSOR_END.equals(cursor) == false);
+		Assert.assertEquals(allList, scanList);
+		Assert.assertEquals(10, pageCount);
+
+		// 翻页期间写入的key，只要位于游标之后同样能被遍历到
+		SaScanResult first = dao.scanData(prefix, "", null, 10);
+		dao.set(prefix + "050a", "v", 100);
+		List<String> restList = new ArrayList<>();
+		cursor = first.getCursor();
+		while (SaScanResult.CURSOR_END.equals(cursor) == false) {
+			SaScanResult result = dao.scanData(prefix, "", cursor, 10);
+			restList.addAll(result.getData());
+			cursor = result.getCursor();
+		}
+		Assert.assertTrue(restList.contains(prefix + "050a"));
+		Assert.assertEquals(allList.size() + 1, first.getData().size() + restList.size());
+	}
+
+	// 测试：SaTokenDao 默认的游标式搜索 (以偏移量作为游标) 能遍历结束，count 不合法时直接报错
+	@Test
+	public void scanByOffsetCursor() {
+		SaTokenDaoDefaultImpl dao = newDao();
+		List<String> allList = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			dao.set("scan-k-" + i, "v", 100);
+			allList.add("scan-k-" + i);
+		}
+		// 前缀为空时不建立索引，走 SaTokenDao.scanData 的默认实现
+		List<String> scanList = new ArrayList<>();
+		String cursor = SaScanResult.CURSOR_END;
+		int pageCount = 0;
+		do {
+			SaScanResult result = dao.scanData("", "scan-k-", cursor, 10);
+			scanList.addAll(result.getData());
+			cursor = result.getCursor();
+			pageCount++;
+		} while (SaScanResult.CURSOR_END.equals(cursor) == false && pageCount < 10);
+		Assert.assertTrue(SaScanResult.CURSOR_END.equals(cursor));
+		Assert.assertEquals(3, pageCount);
+		Assert.assertEquals(new HashSet<>(allList), new HashSet<>(scanList));
+
+		for (String prefix : new String[] {"", "scan-k-"}) {
+			try {
+				dao.scanData(prefix, "", null, 0);
+				Assert.fail();
+			} catch (SaTokenException e) {
+				Assert.assertTrue(e.getMessage().contains("count"));
+			}
+		}
+	}
+
+	/**
+	 * 统计指定key在时间轮上出现的次数
+	 * @param dao /
+	 * @param key /
+	 * @return /
+	 */
+	static int countInWheel(SaTokenDaoDefaultImpl dao, String key) {
+		int count = 0;
+		for (Set<String> slot : dao.expireWheel.values()) {
+			if(slot.contains(key)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,124 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.strategy.SaStrategy;
+import cn.dev33.satoken.util.SaElementMatcher;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * Sa-Token 集合元素匹配器测试
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class ElementMatcherTest {
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 集合元素匹配器测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 集合元素匹配器测试 end ... \n");
+	}
+
+	@After
+	public void after() {
+		SaElementMatcher.clearCache();
+	}
+
+	// 测试：按集合内容命中缓存，只读副本直接取得匹配器
+	@Test
+	public void cacheByContent() {
+		List<String> list = new ArrayList<>(Arrays.asList("user*", "art-add"));
+		SaElementMatcher matcher = SaElementMatcher.of(list);
+		Assert.assertSame(matcher, SaElementMatcher.of(list));
+		Assert.assertTrue(matcher.match("user-add"));
+		Assert.assertFalse(matcher.match("art-delete"));
+
+		// 内容相同的新集合按内容命中同一个匹配器
+		Assert.assertSame(matcher, SaElementMatcher.of(new ArrayList<>(list)));
+
+		// 只读副本直接取得匹配器
+		Assert.assertSame(matcher, SaElementMatcher.of(matcher.list));
+
+		// 清空缓存后重新编译
+		SaElementMatcher.clearCache();
+		Assert.assertNotSame(matcher, SaElementMatcher.of(list));
+	}
+
+	// 测试：集合传入后被原地修改，再次传入时按新内容匹配
+	@Test
+	public void mutateInPlace() {
+		List<String> list = new ArrayList<>(Arrays.asList("user*", "art-add"));
+		Assert.assertTrue(SaStrategy.me.hasElement.apply(list, "art-add"));
+		Assert.assertFalse(SaStrategy.me.hasElement.apply(list, "art-delete"));
+
+		list.remove("art-add");
+		list.add("art-delete");
+		Assert.assertFalse(SaStrategy.me.hasElement.apply(list, "art-add"));
+		Assert.assertTrue(SaStrategy.me.hasElement.apply(list, "art-delete"));
+		Assert.assertTrue(SaStrategy.me.hasElement.apply(list, "user-add"));
+
+		list.clear();
+		Assert.assertFalse(SaStrategy.me.hasElement.apply(list, "user-add"));
+	}
+
+	// 测试：globMatch 只有 * 是通配符，正则表达式元字符均按字面量匹配 (权限码/角色及 allowUrl 校验依赖此行为)
+	@Test
+	public void globMatchLiteral() {
+		Assert.assertTrue(SaElementMatcher.globMatch("user*", "user-add"));
+		Assert.assertFalse(SaElementMatcher.globMatch("user*", "art-add"));
+		Assert.assertTrue(SaElementMatcher.globMatch("*", "anything"));
+
+		// . 不能匹配任意字符
+		Assert.assertTrue(SaElementMatcher.globMatch("http://sa-token.dev33.cn/*", "http://sa-token.dev33.cn/sso/login"));
+		Assert.assertFalse(SaElementMatcher.globMatch("http://sa-token.dev33.cn/*", "http://sa-tokenxdev33.cn/sso/login"));
+		Assert.assertFalse(SaElementMatcher.globMatch("a.c", "abc"));
+
+		// ? + [ ] ( ) | ^ $ \ { } 均按字面量匹配
+		Assert.assertTrue(SaElementMatcher.globMatch("http://a.com/cb?x=1*", "http://a.com/cb?x=1&y=2"));
+		Assert.assertFalse(SaElementMatcher.globMatch("http://a.com/cb?x=1*", "http://a.com/cbx=1"));
+		Assert.assertFalse(SaElementMatcher.globMatch("ab+", "abbb"));
+		Assert.assertTrue(SaElementMatcher.globMatch("ab+", "ab+"));
+		Assert.assertFalse(SaElementMatcher.globMatch("[ab]", "a"));
+		Assert.assertTrue(SaElementMatcher.globMatch("[ab]*", "[ab]c"));
+		Assert.assertFalse(SaElementMatcher.globMatch("(a|b)", "a"));
+		Assert.assertTrue(SaElementMatcher.globMatch("^a$", "^a$"));
+		Assert.assertTrue(SaElementMatcher.globMatch("a\\d*", "a\\d1"));
+		Assert.assertFalse(SaElementMatcher.globMatch("a\\d*", "a1"));
+		Assert.assertFalse(SaElementMatcher.globMatch("a{2}", "aa"));
+
+		// 多个 * 按顺序匹配
+		Assert.assertTrue(SaElementMatcher.globMatch("http://*.a.com/*/cb", "http://x.a.com/p/q/cb"));
+		Assert.assertFalse(SaElementMatcher.globMatch("http://*.a.com/*/cb", "http://x.b.com/p/cb"));
+	}
+
+	// 测试：vagueMatch 保持原有的正则语义 (* 替换为 .*)
+	@Test
+	public void vagueMatchRegex() {
+		Assert.assertTrue(SaFoxUtil.vagueMatch("user*", "user-add"));
+		Assert.assertFalse(SaFoxUtil.vagueMatch("user*", "art-add"));
+		Assert.assertTrue(SaFoxUtil.vagueMatch("art-add", "art-add"));
+		Assert.assertTrue(SaFoxUtil.vagueMatch("a.c*", "abc"));
+		Assert.assertTrue(SaFoxUtil.vagueMatch("[ab]*", "a"));
+	}
+
+}
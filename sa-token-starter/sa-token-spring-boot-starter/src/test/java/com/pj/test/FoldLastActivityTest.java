@@ -0,0 +1,198 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.exception.NotLoginException;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * Sa-Token [最后操作时间] 折叠存储测试：映射值的折叠与解析、旧格式数据的兼容与迁移、续签与踢下线并发时不覆盖
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class FoldLastActivityTest {
+
+	/** 独立的持久层 (不影响全局持久层) */
+	static SaTokenDaoDefaultImpl dao = new SaTokenDaoDefaultImpl();
+
+	/** 开启折叠存储的配置 */
+	static SaTokenConfig config = new SaTokenConfig().setIsFoldLastActivity(true).setActivityTimeout(1800);
+
+	/** 使用上述配置与持久层的 StpLogic */
+	static StpLogic stpLogic = new StpLogic("fold-test") {
+		@Override
+		public SaTokenConfig getConfig() {
+			return config;
+		}
+		@Override
+		public SaTokenDao getSaTokenDao() {
+			return dao;
+		}
+	};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 折叠存储测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		dao.endRefreshThread();
+		System.out.println("\n------------ 折叠存储测试 end ... \n");
+	}
+
+	// 测试：写入映射值时折叠 [最后操作时间]，异常值与关闭折叠时原样写入
+	@Test
+	public void toTokenMappingValue() {
+		long before = System.currentTimeMillis();
+		String value = stpLogic.toTokenMappingValue(10001);
+		Assert.assertTrue(value, value.startsWith("#") && value.endsWith("#10001"));
+		Assert.assertEquals("10001", stpLogic.unfoldLoginId(value));
+		long time = Long.parseLong(stpLogic.unfoldLastActivityTime(value));
+		Assert.assertTrue(time >= before && time <= System.currentTimeMillis());
+
+		// 被顶下线、被踢下线等标记值不折叠
+		Assert.assertEquals(NotLoginException.BE_REPLACED, stpLogic.toTokenMappingValue(NotLoginException.BE_REPLACED));
+		Assert.assertEquals(NotLoginException.KICK_OUT, stpLogic.toTokenMappingValue(NotLoginException.KICK_OUT));
+
+		// 关闭折叠，或 activityTimeout 为永不过期时原样写入
+		config.setIsFoldLastActivity(false);
+		try {
+			Assert.assertEquals("10001", stpLogic.toTokenMappingValue(10001));
+		} finally {
+			config.setIsFoldLastActivity(true);
+		}
+		config.setActivityTimeout(SaTokenDao.NEVER_EXPIRE);
+		try {
+			Assert.assertEquals("10001", stpLogic.toTokenMappingValue(10001));
+		} finally {
+			config.setActivityTimeout(1800);
+		}
+	}
+
+	// 测试：账号id中含有 # 时折叠后依然可以原样解析
+	@Test
+	public void loginIdWithSeparator() {
+		String[] loginIds = {"a#b", "#", "##", "#123", "123#", "#123#x", "#1#2#3", "x#1650000000000#y"};
+		for (String loginId : loginIds) {
+			String value = stpLogic.foldTokenMappingValue(loginId, 1650000000000L);
+			Assert.assertEquals(loginId, stpLogic.unfoldLoginId(value));
+			Assert.assertEquals("1650000000000", stpLogic.unfoldLastActivityTime(value));
+		}
+	}
+
+	// 测试：未折叠的旧格式映射值 (包括含有 # 但不符合折叠格式的账号id) 原样解析，不含 [最后操作时间]
+	@Test
+	public void legacyUnfoldedValue() {
+		String[] loginIds = {"10001", "a#b", "#", "##x", "#abc#x", "#12a#x", "123#456"};
+		for (String loginId : loginIds) {
+			Assert.assertEquals(loginId, stpLogic.unfoldLoginId(loginId));
+			Assert.assertNull(loginId, stpLogic.unfoldLastActivityTime(loginId));
+		}
+		Assert.assertNull(stpLogic.unfoldLoginId(null));
+		Assert.assertNull(stpLogic.unfoldLastActivityTime(null));
+	}
+
+	// 测试：账号id形如折叠格式时，关闭折叠原样读取，开启折叠写入后同样原样读取
+	@Test
+	public void foldLikeLoginId() {
+		String token = "fold-like-token";
+		config.setIsFoldLastActivity(false);
+		try {
+			stpLogic.saveTokenToIdMapping(token, "#2024#abc", 3600);
+			Assert.assertEquals("#2024#abc", dao.get(stpLogic.splicingKeyTokenValue(token)));
+			Assert.assertEquals("#2024#abc", stpLogic.getLoginIdNotHandle(token));
+		} finally {
+			config.setIsFoldLastActivity(true);
+		}
+		stpLogic.saveTokenToIdMapping(token, "#2024#abc", 3600);
+		Assert.assertEquals("#2024#abc", stpLogic.getLoginIdNotHandle(token));
+		Assert.assertNotNull(stpLogic.getLastActivityTime(token));
+	}
+
+	// 测试：旧格式数据读取时回退到独立的 [最后操作时间] 键，续签时迁移为折叠格式
+	@Test
+	public void migrateLegacyValueOnRenew() {
+		String token = "legacy-token";
+		String mappingKey = stpLogic.splicingKeyTokenValue(token);
+		String activityKey = stpLogic.splicingKeyLastActivityTime(token);
+		long lastActivityTime = System.currentTimeMillis() - 60 * 1000;
+		dao.set(mappingKey, "10001", 3600);
+		dao.set(activityKey, String.valueOf(lastActivityTime), 3600);
+
+		Assert.assertEquals("10001", stpLogic.getLoginIdNotHandle(token));
+		Assert.assertEquals(String.valueOf(lastActivityTime), stpLogic.getLastActivityTime(token));
+
+		stpLogic.updateLastActivityToNow(token);
+		String value = dao.get(mappingKey);
+		Assert.assertTrue(value, value.startsWith("#") && value.endsWith("#10001"));
+		Assert.assertEquals("10001", stpLogic.getLoginIdNotHandle(token));
+		Assert.assertTrue(Long.parseLong(stpLogic.getLastActivityTime(token)) > lastActivityTime);
+		// 迁移不改变映射的有效期
+		Assert.assertTrue(dao.getTimeout(mappingKey) > 3500);
+	}
+
+	// 测试：续签读取映射值之后、写入之前，该 token 被踢下线，续签不能覆盖踢下线标记
+	@Test
+	public void renewLosesToKickOut() {
+		String token = "race-token";
+		String mappingKey = stpLogic.splicingKeyTokenValue(token);
+		dao.set(mappingKey, stpLogic.foldTokenMappingValue("10001", System.currentTimeMillis() - 1000), 3600);
+
+		// 本次请求已读取过映射值 (读取缓存中为旧值)
+		Assert.assertEquals("10001", stpLogic.getLoginIdNotHandle(token));
+		// 其它请求将其踢下线
+		dao.update(mappingKey, NotLoginException.KICK_OUT);
+		// 本次请求续签
+		stpLogic.updateLastActivityToNow(token);
+
+		Assert.assertEquals(NotLoginException.KICK_OUT, dao.get(mappingKey));
+		Assert.assertEquals(NotLoginException.KICK_OUT, stpLogic.getLoginIdNotHandle(token));
+	}
+
+	// 测试：多个线程同时续签，期间踢下线，结束后映射值必须仍为踢下线标记
+	@Test
+	public void concurrentRenewAndKickOut() throws InterruptedException {
+		for (int round = 0; round < 20; round++) {
+			String token = "race-token-" + round;
+			String mappingKey = stpLogic.splicingKeyTokenValue(token);
+			dao.set(mappingKey, stpLogic.toTokenMappingValue(10001), 3600);
+
+			List<Thread> threadList = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				Thread thread = new Thread(() -> {
+					// 新线程不在请求上下文中，每次续签都直接读取持久层
+					for (int k = 0; k < 500; k++) {
+						stpLogic.updateLastActivityToNow(token);
+					}
+				});
+				threadList.add(thread);
+				thread.start();
+			}
+			Thread.yield();
+			dao.update(mappingKey, NotLoginException.KICK_OUT);
+			for (Thread thread : threadList) {
+				thread.join();
+			}
+			Assert.assertEquals(NotLoginException.KICK_OUT, dao.get(mappingKey));
+		}
+	}
+
+}
@@ -0,0 +1,170 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.util.SaLocalCache;
+
+/**
+ * Sa-Token 本地缓存测试 (SaTokenDaoNearCache、StpInterfaceCache 共用)
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class LocalCacheTest {
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 本地缓存测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 本地缓存测试 end ... \n");
+	}
+
+	// 测试：超出上限时淘汰未被访问过的数据，被访问过的数据获得一次重新排队的机会
+	@Test
+	public void evictByClock() {
+		SaLocalCache<String> cache = new SaLocalCache<>(60 * 1000, 4);
+		for (int i = 1; i <= 4; i++) {
+			put(cache, "k" + i, "v" + i);
+		}
+		Assert.assertEquals("v1", cache.get("k1").value);
+		put(cache, "k5", "v5");
+		Assert.assertEquals(4, cache.size());
+		Assert.assertNull(cache.get("k2"));
+		Assert.assertEquals("v1", cache.get("k1").value);
+		Assert.assertEquals("v5", cache.get("k5").value);
+	}
+
+	// 测试：读取期间该键被清除过，读取结果不写入缓存
+	@Test
+	public void dropStaleLoad() {
+		SaLocalCache<String> cache = new SaLocalCache<>(60 * 1000, 4);
+		long version = cache.version("k");
+		cache.remove("k");
+		cache.put("k", "old", version);
+		Assert.assertNull(cache.get("k"));
+		put(cache, "k", "new");
+		Assert.assertEquals("new", cache.get("k").value);
+	}
+
+	// 测试：多线程并发写入后，条数与淘汰队列长度都不超出上限
+	@Test
+	public void boundedUnderConcurrentPut() throws InterruptedException {
+		SaLocalCache<String> cache = new SaLocalCache<>(60 * 1000, 1000);
+		runThreads(8, index -> {
+			for (int i = 0; i < 100000; i++) {
+				String key = "k" + ((i * 7 + index) % 5000);
+				if(cache.get(key) == null) {
+					put(cache, key, "v");
+				}
+			}
+		});
+		Assert.assertTrue(cache.size() <= 1000);
+		for (int i = 0; i < 5000; i++) {
+			SaLocalCache.Entry<String> entry = cache.get("k" + i);
+			Assert.assertTrue(entry == null || "v".equals(entry.value));
+		}
+	}
+
+	// 测试：读取不加锁，多个线程同时读取热点数据时总吞吐量随线程数增长
+	@Test
+	public void readsScale() throws InterruptedException {
+		int threadCount = Math.min(4, Runtime.getRuntime().availableProcessors());
+		Assume.assumeTrue("需要至少2个CPU", threadCount >= 2);
+
+		SaLocalCache<String> cache = new SaLocalCache<>(60 * 1000, 10000);
+		for (int i = 0; i < 100; i++) {
+			put(cache, "k" + i, "v");
+		}
+		int times = 2000000;
+		// 预热
+		readTimes(cache, 1, times);
+		long single = readTimes(cache, 1, times);
+		long multi = readTimes(cache, threadCount, times);
+		System.out.println("单线程: " + single / 1000000 + "ms, " + threadCount + "个线程: " + multi / 1000000 + "ms (每个线程读取 " + times + " 次)");
+		// 全局加锁时多线程的总耗时约为单线程的 threadCount 倍或更多，这里只要求明显低于该值
+		Assert.assertTrue(multi < single * threadCount * 3 / 4);
+	}
+
+	/**
+	 * 以读穿透的写法写入一条数据
+	 * @param cache 缓存
+	 * @param key 键
+	 * @param value 值
+	 */
+	static void put(SaLocalCache<String> cache, String key, String value) {
+		cache.put(key, value, cache.version(key));
+	}
+
+	/**
+	 * 多个线程同时读取缓存，每个线程读取 times 次
+	 * @return 全部线程结束的耗时 (单位: 纳秒)
+	 */
+	static long readTimes(SaLocalCache<String> cache, int threadCount, int times) throws InterruptedException {
+		AtomicLong hitCount = new AtomicLong();
+		long start = System.nanoTime();
+		runThreads(threadCount, index -> {
+			long hit = 0;
+			for (int i = 0; i < times; i++) {
+				if(cache.get("k" + (i & 63)) != null) {
+					hit++;
+				}
+			}
+			hitCount.addAndGet(hit);
+		});
+		long cost = System.nanoTime() - start;
+		Assert.assertEquals((long) threadCount * times, hitCount.get());
+		return cost;
+	}
+
+	/**
+	 * 启动多个线程同时执行，并等待全部结束
+	 */
+	static void runThreads(int threadCount, IndexRunnable runnable) throws InterruptedException {
+		CountDownLatch startLatch = new CountDownLatch(1);
+		List<Thread> threadList = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			int index = i;
+			Thread thread = new Thread(() -> {
+				try {
+					startLatch.await();
+				} catch (InterruptedException e) {
+					return;
+				}
+				runnable.run(index);
+			});
+			threadList.add(thread);
+			thread.start();
+		}
+		startLatch.countDown();
+		for (Thread thread : threadList) {
+			thread.join();
+		}
+	}
+
+	/**
+	 * 以线程序号为参数执行的任务
+	 */
+	interface IndexRunnable {
+		void run(int index);
+	}
+
+}
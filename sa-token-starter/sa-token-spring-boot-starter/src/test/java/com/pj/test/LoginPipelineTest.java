@@ -0,0 +1,144 @@
+package com.pj.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * Sa-Token 登录批量写入测试：统计一次登录对持久层的调用次数 (每次调用对应 Redis 下的一次网络往返，pipeline 整体计为一次)
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class LoginPipelineTest {
+
+	/**
+	 * 记录调用的持久层：只记录外层调用，pipeline 内的调用单独记录
+	 */
+	static class RecordDao implements InvocationHandler {
+
+		SaTokenDao target = new SaTokenDaoDefaultImpl();
+
+		/** 外层调用 (pipeline 内的调用不计入) */
+		List<String> callList = new ArrayList<>();
+
+		/** pipeline 内的调用 */
+		List<String> pipelineCallList = new ArrayList<>();
+
+		boolean inPipeline = false;
+
+		SaTokenDao proxy = (SaTokenDao) Proxy.newProxyInstance(SaTokenDao.class.getClassLoader(), new Class<?>[] {SaTokenDao.class}, this);
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			(inPipeline ? pipelineCallList : callList).add(method.getName());
+			boolean isOuterPipeline = method.getName().equals("pipeline") && inPipeline == false;
+			if(isOuterPipeline) {
+				inPipeline = true;
+			}
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getTargetException();
+			} finally {
+				if(isOuterPipeline) {
+					inPipeline = false;
+				}
+			}
+		}
+
+		void clear() {
+			callList.clear();
+			pipelineCallList.clear();
+		}
+	}
+
+	static RecordDao recordDao = new RecordDao();
+
+	/** 使用记录持久层的 StpLogic (不影响全局持久层) */
+	static StpLogic stpLogic = new StpLogic("pipeline-test") {
+		@Override
+		public SaTokenDao getSaTokenDao() {
+			return recordDao.proxy;
+		}
+	};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 登录批量写入测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		((SaTokenDaoDefaultImpl) recordDao.target).endRefreshThread();
+		System.out.println("\n------------ 登录批量写入测试 end ... \n");
+	}
+
+	// 测试：首次登录 4 次往返 (3 次读取 + 1 次 pipeline)，pipeline 内只有写操作
+	@Test
+	public void loginRoundTrips() {
+		recordDao.clear();
+		stpLogic.login(20001);
+		System.out.println("登录调用: " + recordDao.callList + " pipeline 内: " + recordDao.pipelineCallList);
+
+		Assert.assertEquals(4, recordDao.callList.size());
+		Assert.assertEquals("pipeline", recordDao.callList.get(recordDao.callList.size() - 1));
+		assertWriteOnly(recordDao.pipelineCallList);
+
+		// 写入的数据与逐条写入时一致
+		String token = stpLogic.getTokenValue();
+		Assert.assertEquals("20001", recordDao.target.get(stpLogic.splicingKeyTokenValue(token)));
+		SaSession session = recordDao.target.getSession(stpLogic.splicingKeySession(20001));
+		Assert.assertNotNull(session);
+		Assert.assertNotNull(session.getTokenSign(token));
+	}
+
+	// 测试：再次登录 (Session 已存在) 同样为 4 次往返
+	@Test
+	public void loginAgainRoundTrips() {
+		stpLogic.login(20002, "PC");
+		recordDao.clear();
+		stpLogic.login(20002, "APP");
+		System.out.println("再次登录调用: " + recordDao.callList + " pipeline 内: " + recordDao.pipelineCallList);
+
+		Assert.assertEquals(4, recordDao.callList.size());
+		Assert.assertEquals("pipeline", recordDao.callList.get(recordDao.callList.size() - 1));
+		assertWriteOnly(recordDao.pipelineCallList);
+		Assert.assertEquals(2, recordDao.target.getSession(stpLogic.splicingKeySession(20002)).getTokenSignList().size());
+	}
+
+	/**
+	 * 断言调用列表中只有写操作
+	 * @param callList /
+	 */
+	static void assertWriteOnly(List<String> callList) {
+		Assert.assertFalse(callList.isEmpty());
+		for (String name : callList) {
+			Assert.assertTrue("pipeline 内出现读操作: " + name,
+					name.startsWith("get") == false && name.startsWith("multiGet") == false && name.startsWith("search") == false
+					&& name.startsWith("scan") == false && name.equals("compareAndUpdate") == false
+					&& name.equals("update") == false && name.equals("updateObject") == false);
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.AntPathMatcher;
+
+import cn.dev33.satoken.router.SaPathTable;
+import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.spring.SaPathMatcherHolder;
+
+/**
+ * Sa-Token 路由表测试：随机生成路由匹配符与请求路径，SaPathTable 的匹配结果应与逐个调用 SaRouter.isMatch 完全一致
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class PathTableTest {
+
+	/** 生成路径时使用的目录 */
+	static final String[] SEGMENTS = {"a", "b", "static", "api", "User", "user", "x.js", "img"};
+
+	/** 生成匹配符时使用的通配符目录 */
+	static final String[] WILDCARDS = {"*", "**", "*.js", "u*", "{id}", "?"};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 路由表测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		SaPathMatcherHolder.setPathMatcher(null);
+		System.out.println("\n------------ 路由表测试 end ... \n");
+	}
+
+	// 测试：与逐个匹配的结果一致
+	@Test
+	public void matchEqualsPatternLoop() {
+		assertSameAsPatternLoop(new Random(1));
+	}
+
+	// 测试：匹配器忽略大小写时，结果同样一致 (前缀树不能误过滤大小写不同的目录)
+	@Test
+	public void matchEqualsPatternLoopIgnoreCase() {
+		AntPathMatcher matcher = new AntPathMatcher();
+		matcher.setCaseSensitive(false);
+		SaPathMatcherHolder.setPathMatcher(matcher);
+		try {
+			assertSameAsPatternLoop(new Random(2));
+		} finally {
+			SaPathMatcherHolder.setPathMatcher(null);
+		}
+	}
+
+	// 测试：集合被追加元素后需要重新编译
+	@Test
+	public void isCompiledFrom() {
+		List<String> patterns = new ArrayList<>();
+		patterns.add("/static/**");
+		SaPathTable table = new SaPathTable(patterns);
+		Assert.assertTrue(table.isCompiledFrom(patterns));
+		Assert.assertFalse(table.isCompiledFrom(new ArrayList<>(patterns)));
+		patterns.add("/favicon.ico");
+		Assert.assertFalse(table.isCompiledFrom(patterns));
+	}
+
+	// 测试：大量不同的请求路径不会使匹配结果缓存无限增长，过长的路径不缓存但结果依然正确
+	@Test
+	public void cacheBounded() {
+		List<String> patterns = new ArrayList<>();
+		patterns.add("/static/**");
+		patterns.add("/api/*/info");
+		SaPathTable table = new SaPathTable(patterns);
+
+		StringBuilder sb = new StringBuilder("/static/");
+		while (sb.length() <= SaPathTable.cacheMaxPathLength) {
+			sb.append("a");
+		}
+		String longPath = sb.toString();
+		Assert.assertTrue(table.match(longPath));
+		Assert.assertFalse(table.match(longPath.replace("/static/", "/other/")));
+		Assert.assertTrue(table.cache.isEmpty());
+
+		for (int i = 0; i < 100000; i++) {
+			String path = "/api/" + i + "/info" + (i % 2 == 0 ? "" : "/x");
+			Assert.assertEquals(i % 2 == 0, table.match(path));
+			Assert.assertTrue(table.cache.size() <= SaPathTable.cacheMaxSize);
+			Assert.assertTrue(table.cacheChars.get() <= SaPathTable.cacheMaxChars);
+		}
+		long chars = 0;
+		for (String path : table.cache.keySet()) {
+			chars += path.length();
+		}
+		Assert.assertEquals(chars, table.cacheChars.get());
+	}
+
+	/**
+	 * 随机生成多组路由匹配符，每组随机匹配多个路径，断言与逐个匹配的结果一致
+	 * @param random /
+	 */
+	static void assertSameAsPatternLoop(Random random) {
+		int hitCount = 0;
+		int total = 0;
+		for (int t = 0; t < 300; t++) {
+			List<String> patterns = new ArrayList<>();
+			int count = 1 + random.nextInt(30);
+			for (int i = 0; i < count; i++) {
+				patterns.add(randomPattern(random));
+			}
+			SaPathTable table = new SaPathTable(patterns);
+			for (int q = 0; q < 50; q++) {
+				String path = randomPath(random);
+				boolean expected = SaRouter.isMatch(patterns, path);
+				String message = patterns + " " + path;
+				Assert.assertEquals(message, expected, table.match(path));
+				// 第二次命中缓存
+				Assert.assertEquals(message, expected, table.match(path));
+				hitCount += expected ? 1 : 0;
+				total++;
+			}
+		}
+		// 命中与未命中的情况都应被充分覆盖
+		Assert.assertTrue(hitCount > total / 10 && hitCount < total * 9 / 10);
+	}
+
+	/**
+	 * 随机生成一个路由匹配符 (包括通配符、连续分隔符与结尾分隔符)
+	 * @param random /
+	 * @return /
+	 */
+	static String randomPattern(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int depth = 1 + random.nextInt(4);
+		for (int k = 0; k < depth; k++) {
+			sb.append(random.nextInt(15) == 0 ? "//" : "/");
+			sb.append(random.nextInt(4) == 0 ? WILDCARDS[random.nextInt(WILDCARDS.length)] : SEGMENTS[random.nextInt(SEGMENTS.length)]);
+		}
+		if(random.nextInt(10) == 0) {
+			sb.append("/");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 随机生成一个请求路径
+	 * @param random /
+	 * @return /
+	 */
+	static String randomPath(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int depth = random.nextInt(5);
+		for (int k = 0; k < depth; k++) {
+			sb.append(random.nextInt(20) == 0 ? "//" : "/");
+			sb.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+		}
+		if(depth == 0 || random.nextInt(8) == 0) {
+			sb.append("/");
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,145 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.stp.SaPermissionRegistry;
+import cn.dev33.satoken.stp.StpUtil;
+import cn.dev33.satoken.strategy.SaStrategy;
+
+/**
+ * Sa-Token 权限码注册表测试：按位判断的结果应与 hasElement 逐个匹配完全一致
+ *
+ * <p> 测试账号的权限码集合见 StpInterfaceImpl: user*, art-add, art-delete, art-update, art-get
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class PermissionRegistryTest {
+
+	/** 注册到注册表的权限码 */
+	static final String[] CODES = {"user-add", "user-delete", "art-add", "art-get", "comment-add", "comment-delete"};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 权限码注册表测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 权限码注册表测试 end ... \n");
+	}
+
+	@After
+	public void after() {
+		SaManager.getSaPermissionRegistry().clear();
+	}
+
+	// 测试：AND / OR 校验 (账号集合中的通配符对照注册表展开)
+	@Test
+	public void checkAndOr() {
+		SaManager.getSaPermissionRegistry().register(CODES);
+		StpUtil.login(10001);
+
+		Assert.assertTrue(StpUtil.hasPermission("user-add"));
+		Assert.assertTrue(StpUtil.hasPermission("art-get"));
+		Assert.assertFalse(StpUtil.hasPermission("comment-add"));
+
+		Assert.assertTrue(StpUtil.hasPermissionAnd("user-add", "user-delete", "art-add"));
+		Assert.assertFalse(StpUtil.hasPermissionAnd("user-add", "comment-add"));
+		Assert.assertTrue(StpUtil.hasPermissionOr("comment-add", "user-delete"));
+		Assert.assertFalse(StpUtil.hasPermissionOr("comment-add", "comment-delete"));
+
+		// 含有未注册的权限码时回退为逐个匹配
+		Assert.assertTrue(StpUtil.hasPermissionAnd("user-add", "user-list"));
+		Assert.assertFalse(StpUtil.hasPermissionOr("comment-add", "comment-list"));
+	}
+
+	// 测试：随机组合的 AND / OR 校验结果与未启用注册表时一致
+	@Test
+	public void sameAsHasElement() {
+		StpUtil.login(10001);
+		String[] pool = {"user-add", "user-delete", "user-list", "art-add", "art-get", "art-export", "comment-add", "comment-delete"};
+		Random random = new Random(1);
+		List<String[]> arrayList = new ArrayList<>();
+		List<Boolean> andList = new ArrayList<>();
+		List<Boolean> orList = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			String[] array = new String[1 + random.nextInt(3)];
+			for (int k = 0; k < array.length; k++) {
+				array[k] = pool[random.nextInt(pool.length)];
+			}
+			arrayList.add(array);
+			andList.add(StpUtil.hasPermissionAnd(array));
+			orList.add(StpUtil.hasPermissionOr(array));
+		}
+
+		SaManager.getSaPermissionRegistry().register(CODES);
+		for (int i = 0; i < arrayList.size(); i++) {
+			String message = Arrays.toString(arrayList.get(i));
+			Assert.assertEquals(message, andList.get(i), StpUtil.hasPermissionAnd(arrayList.get(i)));
+			Assert.assertEquals(message, orList.get(i), StpUtil.hasPermissionOr(arrayList.get(i)));
+		}
+	}
+
+	// 测试：注册新的权限码 (version 递增) 后，已缓存的位图重新展开
+	@Test
+	public void reExpandAfterRegister() {
+		SaPermissionRegistry registry = SaManager.getSaPermissionRegistry();
+		List<String> permissionList = Arrays.asList("user*", "art-add");
+		registry.register("user-add", "art-add");
+		int version = registry.version;
+		Assert.assertTrue(StpUtil.stpLogic.hasPermissionElement(permissionList, "user-add"));
+		Assert.assertFalse(SaPermissionRegistry.contains(registry.getBits(permissionList), 2));
+
+		// 重复注册不改变版本号
+		registry.register("user-add");
+		Assert.assertEquals(version, registry.version);
+
+		registry.register("user-export", "art-get");
+		Assert.assertTrue(registry.version > version);
+		Assert.assertTrue(SaPermissionRegistry.contains(registry.getBits(permissionList), registry.getId("user-export")));
+		Assert.assertTrue(StpUtil.stpLogic.hasPermissionElement(permissionList, "user-export"));
+		Assert.assertFalse(StpUtil.stpLogic.hasPermissionElement(permissionList, "art-get"));
+	}
+
+	// 测试：重写 hasElement 后，已注册的权限码同样交给重写后的函数判断
+	@Test
+	public void customHasElement() {
+		SaManager.getSaPermissionRegistry().register(CODES);
+		StpUtil.login(10001);
+		BiFunction<List<String>, String, Boolean> hasElement = SaStrategy.me.hasElement;
+		SaStrategy.me.setHasElement((list, element) -> element.startsWith("comment-"));
+		try {
+			Assert.assertFalse(SaStrategy.me.isDefaultHasElement());
+			Assert.assertTrue(StpUtil.hasPermission("comment-add"));
+			Assert.assertFalse(StpUtil.hasPermission("user-add"));
+			Assert.assertTrue(StpUtil.hasPermissionAnd("comment-add", "comment-delete"));
+			Assert.assertFalse(StpUtil.hasPermissionAnd("comment-add", "art-add"));
+			Assert.assertTrue(StpUtil.hasPermissionOr("art-add", "comment-add"));
+			Assert.assertFalse(StpUtil.hasPermissionOr("art-add", "user-add"));
+		} finally {
+			SaStrategy.me.setHasElement(hasElement);
+		}
+		Assert.assertTrue(SaStrategy.me.isDefaultHasElement());
+		Assert.assertTrue(StpUtil.hasPermission("user-add"));
+	}
+
+}
@@ -0,0 +1,165 @@
+package com.pj.test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.stp.SaRbacModel;
+import cn.dev33.satoken.stp.StpInterface;
+import cn.dev33.satoken.stp.StpInterfaceRbac;
+import cn.dev33.satoken.util.SaElementMatcher;
+
+/**
+ * Sa-Token RBAC 模型测试：角色继承与权限码的传递闭包、修改后的增量重算、StpInterfaceRbac 的合并结果
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class RbacModelTest {
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ RBAC 模型测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ RBAC 模型测试 end ... \n");
+	}
+
+	// 测试：多层继承的角色闭包与权限码闭包
+	@Test
+	public void closure() {
+		SaRbacModel model = newModel();
+		assertSet(model.getRoleClosure("admin"), "admin", "editor", "viewer");
+		assertSet(model.getRoleClosure("editor"), "editor", "viewer");
+		assertSet(model.getRoleClosure("viewer"), "viewer");
+		assertSet(model.getPermissionClosure("admin"), "user*", "art-add", "art-get");
+		assertSet(model.getPermissionClosure("editor"), "art-add", "art-get");
+		assertSet(model.getPermissionClosure("viewer"), "art-get");
+
+		// 模型中不存在的角色
+		assertSet(model.getRoleClosure("guest"), "guest");
+		assertSet(model.getPermissionClosure("guest"));
+	}
+
+	// 测试：修改后继承该角色的角色随之重算
+	@Test
+	public void refreshAffectedRoles() {
+		SaRbacModel model = newModel();
+		model.grant("viewer", "comment-get");
+		Assert.assertTrue(model.getPermissionClosure("admin").contains("comment-get"));
+		Assert.assertTrue(model.getPermissionClosure("editor").contains("comment-get"));
+
+		model.revoke("viewer", "comment-get");
+		Assert.assertFalse(model.getPermissionClosure("admin").contains("comment-get"));
+
+		model.removeParent("editor", "viewer");
+		assertSet(model.getRoleClosure("admin"), "admin", "editor");
+		assertSet(model.getPermissionClosure("admin"), "user*", "art-add");
+
+		model.addParent("editor", "viewer");
+		model.removeRole("editor");
+		assertSet(model.getRoleClosure("admin"), "admin");
+		assertSet(model.getPermissionClosure("admin"), "user*");
+		assertSet(model.getRoleClosure("editor"), "editor");
+		assertSet(model.getPermissionClosure("editor"));
+	}
+
+	// 测试：继承关系成环时闭包计算可以结束
+	@Test
+	public void cycle() {
+		SaRbacModel model = new SaRbacModel();
+		model.grant("a", "p-a").grant("b", "p-b");
+		model.addParent("a", "b").addParent("b", "a");
+		assertSet(model.getRoleClosure("a"), "a", "b");
+		assertSet(model.getRoleClosure("b"), "a", "b");
+		assertSet(model.getPermissionClosure("a"), "p-a", "p-b");
+		assertSet(model.getPermissionClosure("b"), "p-a", "p-b");
+	}
+
+	// 测试：多个角色的合并结果被缓存并编译为匹配器，模型修改后重新计算
+	@Test
+	public void unionCache() {
+		SaRbacModel model = newModel();
+		model.grant("auditor", "log-get");
+		List<String> roleList = Arrays.asList("editor", "auditor");
+		List<String> permissionList = model.getPermissionList(roleList);
+		assertSet(permissionList, "art-add", "art-get", "log-get");
+		Assert.assertTrue(permissionList instanceof SaElementMatcher.MatcherList);
+		Assert.assertSame(permissionList, model.getPermissionList(Arrays.asList("editor", "auditor")));
+		assertSet(model.getRoleList(roleList), "editor", "viewer", "auditor");
+
+		model.grant("auditor", "log-export");
+		Assert.assertNotSame(permissionList, model.getPermissionList(roleList));
+		assertSet(model.getPermissionList(roleList), "art-add", "art-get", "log-get", "log-export");
+	}
+
+	// 测试：StpInterfaceRbac 按账号直接拥有的角色展开，直接拥有的权限码只在开启 isDirectPermission 时合并
+	@Test
+	public void stpInterfaceRbac() {
+		int[] permissionCount = {0};
+		StpInterface target = new StpInterface() {
+			@Override
+			public List<String> getPermissionList(Object loginId, String loginType) {
+				permissionCount[0]++;
+				return Arrays.asList("comment-add");
+			}
+			@Override
+			public List<String> getRoleList(Object loginId, String loginType) {
+				return loginId.equals(10001) ? Arrays.asList("editor") : null;
+			}
+		};
+		StpInterfaceRbac rbac = new StpInterfaceRbac(target, newModel());
+
+		assertSet(rbac.getRoleList(10001, "login"), "editor", "viewer");
+		assertSet(rbac.getPermissionList(10001, "login"), "art-add", "art-get");
+		Assert.assertEquals(0, permissionCount[0]);
+
+		rbac.setIsDirectPermission(true);
+		List<String> permissionList = rbac.getPermissionList(10001, "login");
+		assertSet(permissionList, "comment-add", "art-add", "art-get");
+		Assert.assertTrue(SaElementMatcher.of(permissionList).match("comment-add"));
+		Assert.assertEquals(1, permissionCount[0]);
+
+		// 没有角色的账号
+		assertSet(rbac.getRoleList(10002, "login"));
+		assertSet(rbac.getPermissionList(10002, "login"), "comment-add");
+	}
+
+	/**
+	 * 创建模型：admin 继承 editor，editor 继承 viewer
+	 * @return /
+	 */
+	static SaRbacModel newModel() {
+		return new SaRbacModel()
+				.grant("viewer", "art-get")
+				.grant("editor", "art-add")
+				.grant("admin", "user*")
+				.addParent("editor", "viewer")
+				.addParent("admin", "editor");
+	}
+
+	/**
+	 * 断言集合中的元素 (不计顺序)
+	 * @param list 集合
+	 * @param elements 期望的元素
+	 */
+	static void assertSet(List<String> list, String... elements) {
+		Assert.assertEquals(elements.length, list.size());
+		Assert.assertEquals(new HashSet<>(Arrays.asList(elements)), new HashSet<>(list));
+	}
+
+}
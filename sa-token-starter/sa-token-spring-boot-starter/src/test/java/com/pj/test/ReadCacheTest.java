@@ -0,0 +1,157 @@
+package com.pj.test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.config.SaTokenConfig;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.exception.NotLoginException;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * Sa-Token 请求级读取缓存测试：同一请求内 Token-Id 映射与 [最后操作时间] 只读取一次，写入后缓存随之失效或更新
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class ReadCacheTest {
+
+	/**
+	 * 记录每个key被 get 次数的持久层
+	 */
+	static class CountDao extends SaTokenDaoDefaultImpl {
+
+		Map<String, AtomicInteger> countMap = new ConcurrentHashMap<>();
+
+		@Override
+		public String get(String key) {
+			countMap.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+			return super.get(key);
+		}
+
+		int count(String key) {
+			AtomicInteger count = countMap.get(key);
+			return count == null ? 0 : count.get();
+		}
+	}
+
+	static CountDao dao = new CountDao();
+
+	/** 开启 [临时有效期] 的配置 (不折叠存储，映射与 [最后操作时间] 分别读取) */
+	static SaTokenConfig config = new SaTokenConfig().setActivityTimeout(1800);
+
+	/** 使用上述配置与持久层的 StpLogic */
+	static StpLogic stpLogic = new StpLogic("read-cache-test") {
+		@Override
+		public SaTokenConfig getConfig() {
+			return config;
+		}
+		@Override
+		public SaTokenDao getSaTokenDao() {
+			return dao;
+		}
+	};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 请求级读取缓存测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		dao.endRefreshThread();
+		System.out.println("\n------------ 请求级读取缓存测试 end ... \n");
+	}
+
+	// 测试：同一请求内多次读取只访问一次持久层，不存在的值同样被缓存
+	@Test
+	public void readOncePerRequest() {
+		String token = saveToken("read-once-token", 80001);
+		String mappingKey = stpLogic.splicingKeyTokenValue(token);
+		String activityKey = stpLogic.splicingKeyLastActivityTime(token);
+
+		for (int i = 0; i < 3; i++) {
+			Assert.assertEquals("80001", stpLogic.getLoginIdNotHandle(token));
+			Assert.assertNotNull(stpLogic.getLastActivityTime(token));
+		}
+		Assert.assertEquals(1, dao.count(mappingKey));
+		Assert.assertEquals(1, dao.count(activityKey));
+
+		String noneKey = stpLogic.splicingKeyTokenValue("none-token");
+		Assert.assertNull(stpLogic.getLoginIdNotHandle("none-token"));
+		Assert.assertNull(stpLogic.getLoginIdNotHandle("none-token"));
+		Assert.assertEquals(1, dao.count(noneKey));
+	}
+
+	// 测试：通过 StpLogic 修改、删除映射后，本次请求再次读取时取到新值
+	@Test
+	public void writeInvalidates() {
+		String token = saveToken("write-token", 80002);
+		String mappingKey = stpLogic.splicingKeyTokenValue(token);
+		Assert.assertEquals("80002", stpLogic.getLoginIdNotHandle(token));
+
+		stpLogic.updateTokenToIdMapping(token, NotLoginException.KICK_OUT);
+		Assert.assertEquals(NotLoginException.KICK_OUT, stpLogic.getLoginIdNotHandle(token));
+		Assert.assertEquals(2, dao.count(mappingKey));
+
+		stpLogic.deleteTokenToIdMapping(token);
+		Assert.assertNull(stpLogic.getLoginIdNotHandle(token));
+		Assert.assertEquals(3, dao.count(mappingKey));
+	}
+
+	// 测试：续签时直接把缓存改为新值，不再重新读取
+	@Test
+	public void renewUpdatesCache() throws InterruptedException {
+		String token = saveToken("renew-token", 80003);
+		String activityKey = stpLogic.splicingKeyLastActivityTime(token);
+		String lastActivityTime = stpLogic.getLastActivityTime(token);
+
+		Thread.sleep(5);
+		stpLogic.updateLastActivityToNow(token);
+		String newTime = stpLogic.getLastActivityTime(token);
+		Assert.assertTrue(Long.parseLong(newTime) > Long.parseLong(lastActivityTime));
+		Assert.assertEquals(newTime, dao.get(activityKey));
+		Assert.assertEquals(2, dao.count(activityKey));
+	}
+
+	// 测试：不在请求上下文中 (例如新线程) 时每次都读取持久层
+	@Test
+	public void noCacheOutsideRequest() throws InterruptedException {
+		String token = saveToken("thread-token", 80004);
+		String mappingKey = stpLogic.splicingKeyTokenValue(token);
+		Thread thread = new Thread(() -> {
+			stpLogic.getLoginIdNotHandle(token);
+			stpLogic.getLoginIdNotHandle(token);
+		});
+		thread.start();
+		thread.join();
+		Assert.assertEquals(2, dao.count(mappingKey));
+	}
+
+	/**
+	 * 直接在持久层写入一个token的映射与 [最后操作时间]
+	 * @param token token值
+	 * @param loginId 账号id
+	 * @return token值
+	 */
+	static String saveToken(String token, Object loginId) {
+		dao.set(stpLogic.splicingKeyTokenValue(token), String.valueOf(loginId), 3600);
+		dao.set(stpLogic.splicingKeyLastActivityTime(token), String.valueOf(System.currentTimeMillis()), 3600);
+		return token;
+	}
+
+}
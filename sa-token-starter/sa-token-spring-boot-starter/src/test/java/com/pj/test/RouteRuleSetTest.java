@@ -0,0 +1,327 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import cn.dev33.satoken.exception.BackResultException;
+import cn.dev33.satoken.exception.StopMatchException;
+import cn.dev33.satoken.router.SaHttpMethod;
+import cn.dev33.satoken.router.SaRouteRule;
+import cn.dev33.satoken.router.SaRouteRuleSet;
+import cn.dev33.satoken.router.SaRouter;
+import cn.dev33.satoken.router.SaRouterStaff;
+
+/**
+ * Sa-Token 路由规则集测试：随机生成规则，SaRouteRuleSet 的执行结果应与逐条书写 SaRouter 链式匹配完全一致
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class RouteRuleSetTest {
+
+	/** 生成路径时使用的目录 */
+	static final String[] SEGMENTS = {"a", "b", "static", "api", "user", "admin", "x.js"};
+
+	/** 生成匹配符时使用的通配符目录 */
+	static final String[] WILDCARDS = {"*", "**", "*.js", "u*", "{id}"};
+
+	/** 生成请求时使用的请求方式 (包括未列入 SaHttpMethod 的 PROPFIND) */
+	static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "OPTIONS", "PROPFIND"};
+
+	/** 生成规则时使用的请求方式条件 */
+	static final SaHttpMethod[] RULE_METHODS = {SaHttpMethod.GET, SaHttpMethod.POST, SaHttpMethod.PUT, SaHttpMethod.DELETE, SaHttpMethod.ALL};
+
+	/** 校验函数的执行记录 */
+	static List<String> recordList = new ArrayList<>();
+
+	/**
+	 * 一条随机规则 (同时用于声明 SaRouteRule 与执行 SaRouter 链式匹配)
+	 */
+	static class RuleSpec {
+		String name;
+		List<List<String>> includeList = new ArrayList<>();
+		List<List<String>> excludeList = new ArrayList<>();
+		SaHttpMethod[] methods;
+		SaHttpMethod[] notMethods;
+		/** 0=继续 1=stop 2=back */
+		int end;
+
+		void declare(SaRouteRuleSet ruleSet) {
+			SaRouteRule rule = ruleSet.rule();
+			for (List<String> include : includeList) {
+				rule.match(include);
+			}
+			for (List<String> exclude : excludeList) {
+				rule.notMatch(exclude);
+			}
+			if(methods != null) {
+				rule.match(methods);
+			}
+			if(notMethods != null) {
+				rule.notMatch(notMethods);
+			}
+			rule.check(() -> recordList.add(name));
+			if(end == 1) {
+				rule.stop();
+			} else if(end == 2) {
+				rule.back("back-" + name);
+			}
+		}
+
+		void runChain() {
+			SaRouterStaff staff = SaRouter.newMatch();
+			for (List<String> include : includeList) {
+				staff.match(include);
+			}
+			for (List<String> exclude : excludeList) {
+				staff.notMatch(exclude);
+			}
+			if(methods != null) {
+				staff.match(methods);
+			}
+			if(notMethods != null) {
+				staff.notMatch(notMethods);
+			}
+			staff.check(() -> recordList.add(name));
+			if(end == 1) {
+				staff.stop();
+			} else if(end == 2) {
+				staff.back("back-" + name);
+			}
+		}
+	}
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 路由规则集测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 路由规则集测试 end ... \n");
+	}
+
+	@After
+	public void after() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	// 测试：与 SaRouter 链式匹配的执行结果一致 (执行了哪些校验函数、是否 stop、back 的结果)
+	@Test
+	public void runEqualsRouterChain() {
+		Random random = new Random(1);
+		int backCount = 0;
+		for (int t = 0; t < 200; t++) {
+			List<RuleSpec> specList = new ArrayList<>();
+			int count = 1 + random.nextInt(8);
+			for (int i = 0; i < count; i++) {
+				specList.add(randomSpec(random, "r" + i));
+			}
+			SaRouteRuleSet ruleSet = new SaRouteRuleSet();
+			for (RuleSpec spec : specList) {
+				spec.declare(ruleSet);
+			}
+			for (int q = 0; q < 30; q++) {
+				String path = randomPath(random);
+				String method = METHODS[random.nextInt(METHODS.length)];
+				setRequest(path, method);
+
+				// 链式匹配
+				recordList.clear();
+				Object expectedResult = null;
+				try {
+					for (RuleSpec spec : specList) {
+						spec.runChain();
+					}
+				} catch (StopMatchException e) {
+					// stop() 结束匹配
+				} catch (BackResultException e) {
+					expectedResult = e.result;
+				}
+				List<String> expectedList = new ArrayList<>(recordList);
+
+				// 规则集 (两次：第二次命中缓存)
+				for (int k = 0; k < 2; k++) {
+					recordList.clear();
+					Object result = ruleSet.run(path, method);
+					String message = method + " " + path + " " + describe(specList);
+					Assert.assertEquals(message, expectedList, recordList);
+					Assert.assertEquals(message, expectedResult, result);
+				}
+				backCount += expectedResult == null ? 0 : 1;
+			}
+		}
+		// back 的情况应被覆盖到
+		Assert.assertTrue(backCount > 0);
+	}
+
+	// 测试：使用当前请求执行规则集
+	@Test
+	public void runWithCurrentRequest() {
+		SaRouteRuleSet ruleSet = new SaRouteRuleSet();
+		ruleSet.rule().match("/**").notMatch("/user/doLogin", "/static/**").check(() -> recordList.add("login"));
+		ruleSet.rule().match("/admin/**").match(SaHttpMethod.POST, SaHttpMethod.PUT).check(() -> recordList.add("admin-write"));
+		ruleSet.rule().match("/open/**").back("open!");
+		ruleSet.add("/**", () -> recordList.add("tail"));
+
+		setRequest("/admin/user", "PUT");
+		recordList.clear();
+		Assert.assertNull(ruleSet.run());
+		Assert.assertEquals(Arrays.asList("login", "admin-write", "tail"), recordList);
+
+		setRequest("/open/a", "GET");
+		recordList.clear();
+		Assert.assertEquals("open!", ruleSet.run());
+		Assert.assertEquals(Arrays.asList("login"), recordList);
+	}
+
+	// 测试：大量不同的请求路径不会使路由命中缓存无限增长，过长的路径不缓存但结果依然正确
+	@Test
+	public void cacheBounded() {
+		SaRouteRuleSet ruleSet = new SaRouteRuleSet();
+		ruleSet.rule().match("/api/*/info").check(() -> recordList.add("info"));
+
+		StringBuilder sb = new StringBuilder("/api/");
+		while (sb.length() <= ruleSet.cacheMaxPathLength) {
+			sb.append("a");
+		}
+		String longPath = sb.append("/info").toString();
+		recordList.clear();
+		ruleSet.run(longPath, "GET");
+		Assert.assertEquals(Arrays.asList("info"), recordList);
+		Assert.assertTrue(ruleSet.cache.isEmpty());
+
+		for (int i = 0; i < 100000; i++) {
+			String path = "/api/" + i + "/info" + (i % 2 == 0 ? "" : "/x");
+			Assert.assertEquals(i % 2 == 0 ? 1 : 0, ruleSet.getPathHitRules(path).length);
+			Assert.assertTrue(ruleSet.cache.size() <= ruleSet.cacheMaxSize);
+			Assert.assertTrue(ruleSet.cacheChars.get() <= ruleSet.cacheMaxChars);
+		}
+	}
+
+	/**
+	 * 设置当前请求
+	 * @param path 请求路径
+	 * @param method 请求方式
+	 */
+	static void setRequest(String path, String method) {
+		MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+		request.setServletPath(path);
+		RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, new MockHttpServletResponse()));
+	}
+
+	/**
+	 * 随机生成一条规则
+	 * @param random /
+	 * @param name 规则名称
+	 * @return /
+	 */
+	static RuleSpec randomSpec(Random random, String name) {
+		RuleSpec spec = new RuleSpec();
+		spec.name = name;
+		int includeCount = 1 + random.nextInt(2);
+		for (int i = 0; i < includeCount; i++) {
+			spec.includeList.add(randomPatternList(random));
+		}
+		if(random.nextInt(2) == 0) {
+			spec.excludeList.add(randomPatternList(random));
+		}
+		if(random.nextInt(4) == 0) {
+			spec.methods = randomMethods(random);
+		}
+		if(random.nextInt(5) == 0) {
+			spec.notMethods = randomMethods(random);
+		}
+		int end = random.nextInt(10);
+		spec.end = end == 0 ? 1 : (end == 1 ? 2 : 0);
+		return spec;
+	}
+
+	/**
+	 * 随机生成一组路由匹配符
+	 * @param random /
+	 * @return /
+	 */
+	static List<String> randomPatternList(Random random) {
+		List<String> list = new ArrayList<>();
+		int count = 1 + random.nextInt(3);
+		for (int i = 0; i < count; i++) {
+			if(random.nextInt(6) == 0) {
+				list.add("/**");
+				continue;
+			}
+			StringBuilder sb = new StringBuilder();
+			int depth = 1 + random.nextInt(3);
+			for (int k = 0; k < depth; k++) {
+				sb.append("/");
+				sb.append(random.nextInt(3) == 0 ? WILDCARDS[random.nextInt(WILDCARDS.length)] : SEGMENTS[random.nextInt(SEGMENTS.length)]);
+			}
+			list.add(sb.toString());
+		}
+		return list;
+	}
+
+	/**
+	 * 随机生成一组请求方式条件
+	 * @param random /
+	 * @return /
+	 */
+	static SaHttpMethod[] randomMethods(Random random) {
+		int count = 1 + random.nextInt(2);
+		SaHttpMethod[] methods = new SaHttpMethod[count];
+		for (int i = 0; i < count; i++) {
+			methods[i] = RULE_METHODS[random.nextInt(RULE_METHODS.length)];
+		}
+		return methods;
+	}
+
+	/**
+	 * 随机生成一个请求路径
+	 * @param random /
+	 * @return /
+	 */
+	static String randomPath(Random random) {
+		StringBuilder sb = new StringBuilder();
+		int depth = 1 + random.nextInt(3);
+		for (int k = 0; k < depth; k++) {
+			sb.append("/");
+			sb.append(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * 输出规则的描述 (断言失败时用于定位)
+	 * @param specList /
+	 * @return /
+	 */
+	static String describe(List<RuleSpec> specList) {
+		StringBuilder sb = new StringBuilder();
+		for (RuleSpec spec : specList) {
+			sb.append(spec.name).append(spec.includeList).append(" !").append(spec.excludeList)
+				.append(" ").append(Arrays.toString(spec.methods)).append(" !").append(Arrays.toString(spec.notMethods))
+				.append(" end=").append(spec.end).append("; ");
+		}
+		return sb.toString();
+	}
+
+}
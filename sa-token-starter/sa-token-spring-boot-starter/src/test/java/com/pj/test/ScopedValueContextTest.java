@@ -0,0 +1,147 @@
+package com.pj.test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.context.SaTokenContextForScopedValue;
+import cn.dev33.satoken.context.SaTokenContextForScopedValueStorage;
+import cn.dev33.satoken.context.model.SaStorage;
+import cn.dev33.satoken.exception.SaTokenException;
+
+/**
+ * Sa-Token [ScopedValue版本] 上下文测试：绑定只在 runWithBox 执行期间有效，嵌套、异常后恢复，子线程不继承
+ *
+ * <p> 运行在不支持 ScopedValue 的 JDK 上时测试的是退化后的 ThreadLocal 实现，两者的行为应当一致
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class ScopedValueContextTest {
+
+	/**
+	 * 基于 Map 的存储器
+	 */
+	static class MapStorage implements SaStorage {
+
+		Map<String, Object> map = new HashMap<>();
+
+		@Override
+		public Object getSource() {
+			return map;
+		}
+
+		@Override
+		public void set(String key, Object value) {
+			map.put(key, value);
+		}
+
+		@Override
+		public Object get(String key) {
+			return map.get(key);
+		}
+
+		@Override
+		public void delete(String key) {
+			map.remove(key);
+		}
+	}
+
+	static SaTokenContextForScopedValue context = new SaTokenContextForScopedValue();
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ ScopedValue 上下文测试 star ...");
+		System.out.println("当前 JDK 是否支持 ScopedValue: " + SaTokenContextForScopedValueStorage.isScopedValueSupported());
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ ScopedValue 上下文测试 end ... \n");
+	}
+
+	// 测试：只在 runWithBox 执行期间可以取到存储器
+	@Test
+	public void boundOnlyInsideRun() {
+		assertUnbound();
+		MapStorage storage = new MapStorage();
+		SaTokenContextForScopedValueStorage.runWithBox(null, null, storage, () -> {
+			Assert.assertTrue(context.isValid());
+			context.getStorage().set("name", "zhang");
+		});
+		Assert.assertEquals("zhang", storage.get("name"));
+		assertUnbound();
+	}
+
+	// 测试：嵌套执行时内层可见内层的存储器，结束后恢复外层
+	@Test
+	public void nestedRestoresOuter() {
+		MapStorage outer = new MapStorage();
+		MapStorage inner = new MapStorage();
+		SaTokenContextForScopedValueStorage.runWithBox(null, null, outer, () -> {
+			SaTokenContextForScopedValueStorage.runWithBox(null, null, inner, () -> {
+				Assert.assertSame(inner, context.getStorage());
+			});
+			Assert.assertSame(outer, context.getStorage());
+		});
+		assertUnbound();
+	}
+
+	// 测试：函数抛出异常时原样抛出，且绑定随之失效
+	@Test
+	public void exceptionUnbinds() {
+		IllegalStateException exception = new IllegalStateException("test");
+		try {
+			SaTokenContextForScopedValueStorage.runWithBox(null, null, new MapStorage(), () -> {
+				throw exception;
+			});
+			Assert.fail();
+		} catch (IllegalStateException e) {
+			Assert.assertSame(exception, e);
+		}
+		assertUnbound();
+	}
+
+	// 测试：执行期间创建的子线程不继承绑定
+	@Test
+	public void childThreadNotInherited() throws InterruptedException {
+		AtomicReference<Boolean> childValid = new AtomicReference<>();
+		SaTokenContextForScopedValueStorage.runWithBox(null, null, new MapStorage(), () -> {
+			Thread thread = new Thread(() -> childValid.set(context.isValid()));
+			thread.start();
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new SaTokenException(e);
+			}
+		});
+		Assert.assertEquals(Boolean.FALSE, childValid.get());
+	}
+
+	/**
+	 * 断言当前没有绑定存储器
+	 */
+	static void assertUnbound() {
+		Assert.assertFalse(context.isValid());
+		Assert.assertNull(SaTokenContextForScopedValueStorage.getBox());
+		try {
+			context.getStorage();
+			Assert.fail();
+		} catch (SaTokenException e) {
+			// 未初始化上下文
+		}
+	}
+
+}
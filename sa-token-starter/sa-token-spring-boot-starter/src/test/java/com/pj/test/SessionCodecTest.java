@@ -0,0 +1,142 @@
+package com.pj.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.exception.SaTokenException;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.SaSessionCodecDefaultImpl;
+import cn.dev33.satoken.util.SaFoxUtil;
+
+/**
+ * Sa-Token Session 编解码测试
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class SessionCodecTest {
+
+	/** 静态初始化是否被执行过 */
+	static volatile boolean initialized = false;
+
+	/**
+	 * 自定义 Session
+	 */
+	public static class CustomSession extends SaSession {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * 不是 SaSession 子类、且带有静态初始化的类
+	 */
+	public static class NotSession {
+		static {
+			initialized = true;
+		}
+	}
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ Session 编解码测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ Session 编解码测试 end ... \n");
+	}
+
+	// 测试：自定义 Session 子类编码后可以还原为原来的类型
+	@Test
+	public void customSessionRoundTrip() {
+		SaSessionCodecDefaultImpl codec = new SaSessionCodecDefaultImpl();
+		CustomSession session = new CustomSession();
+		session.setId("satoken:login:session:10001");
+		session.getDataMap().put("name", "zhang");
+		SaSession decoded = codec.decode(codec.encode(session));
+		Assert.assertEquals(CustomSession.class, decoded.getClass());
+		Assert.assertEquals("zhang", decoded.get("name"));
+	}
+
+	// 测试：编码数据中的类名不是 SaSession 的子类时拒绝创建，且不执行该类的静态初始化
+	@Test
+	public void rejectNotSessionClass() throws IOException {
+		SaSessionCodecDefaultImpl codec = new SaSessionCodecDefaultImpl();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.write(SaSessionCodecDefaultImpl.MAGIC);
+		out.writeByte(SaSessionCodecDefaultImpl.VERSION);
+		codec.writeString(out, NotSession.class.getName());
+		codec.writeString(out, "satoken:login:session:10001");
+		out.writeLong(System.currentTimeMillis());
+		codec.writeVarInt(out, 0);
+		codec.writeVarInt(out, 0);
+		out.flush();
+
+		try {
+			codec.decode(bytes.toByteArray());
+			Assert.fail();
+		} catch (SaTokenException e) {
+			Assert.assertTrue(e.getMessage(), e.getMessage().contains("拒绝加载"));
+		}
+		Assert.assertFalse(initialized);
+
+		try {
+			codec.createSession("java.lang.ProcessBuilder");
+			Assert.fail();
+		} catch (SaTokenException e) {
+			// 拒绝创建
+		}
+		try {
+			SaFoxUtil.loadSubclass("com.pj.test.NoSuchSession", SaSession.class);
+			Assert.fail();
+		} catch (ClassNotFoundException e) {
+			// 类不存在
+		}
+	}
+
+
+	// 测试：优先使用线程上下文类加载器加载，上下文类加载器中不存在时退回 SaSession 所在的类加载器
+	@Test
+	public void contextClassLoaderFirst() throws ClassNotFoundException {
+		ClassLoader oldLoader = Thread.currentThread().getContextClassLoader();
+		List<String> loadList = new ArrayList<>();
+		try {
+			Thread.currentThread().setContextClassLoader(new ClassLoader(getClass().getClassLoader()) {
+				@Override
+				protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+					loadList.add(name);
+					return super.loadClass(name, resolve);
+				}
+			});
+			Assert.assertEquals(CustomSession.class, SaFoxUtil.loadSubclass(CustomSession.class.getName(), SaSession.class));
+			Assert.assertTrue(loadList.contains(CustomSession.class.getName()));
+
+			// 上下文类加载器中找不到
+			Thread.currentThread().setContextClassLoader(new ClassLoader(null) {
+				@Override
+				protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+					throw new ClassNotFoundException(name);
+				}
+			});
+			Assert.assertEquals(CustomSession.class, SaFoxUtil.loadSubclass(CustomSession.class.getName(), SaSession.class));
+		} finally {
+			Thread.currentThread().setContextClassLoader(oldLoader);
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.SaManager;
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.session.SaSession;
+
+/**
+ * Sa-Token Session 字段级写入测试：SaSession 的 set / delete 只把变化的字段交给持久层 (Redis 的 isHashSession 模式依赖此行为)
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class SessionDataHookTest {
+
+	/**
+	 * 记录 Session 写入方式的持久层
+	 */
+	static class RecordDao extends SaTokenDaoDefaultImpl {
+
+		List<String> callList = new ArrayList<>();
+
+		@Override
+		public void updateSession(SaSession session) {
+			callList.add("updateSession");
+			super.updateSession(session);
+		}
+
+		@Override
+		public void updateSessionData(SaSession session, String key, Object value) {
+			callList.add("updateSessionData:" + key);
+			super.updateSessionData(session, key, value);
+		}
+
+		@Override
+		public void deleteSessionData(SaSession session, String key) {
+			callList.add("deleteSessionData:" + key);
+			super.deleteSessionData(session, key);
+		}
+	}
+
+	static RecordDao recordDao = new RecordDao();
+
+	/** 原来的全局持久层 (SaSession 的写回始终使用全局持久层，测试期间临时替换) */
+	static SaTokenDao oldDao;
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ Session 字段级写入测试 star ...");
+		oldDao = SaManager.getSaTokenDao();
+		SaManager.setSaTokenDao(recordDao);
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		SaManager.setSaTokenDao(oldDao);
+		if(oldDao instanceof SaTokenDaoDefaultImpl) {
+			((SaTokenDaoDefaultImpl) oldDao).initRefreshThread();
+		}
+		System.out.println("\n------------ Session 字段级写入测试 end ... \n");
+	}
+
+	// 测试：set / delete 只写入变化的字段，不整体写回 Session
+	@Test
+	public void fieldLevelWrites() {
+		SaSession session = new SaSession("satoken:session-data-test:1");
+		recordDao.setSession(session, 600);
+		recordDao.callList.clear();
+
+		session.set("name", "zhang");
+		session.setDefaultValue("age", 18);
+		session.setDefaultValue("age", 20);
+		session.delete("name");
+		// 每次变化先交给字段级方法，默认实现再回退为整体写回 (第二次 setDefaultValue 值已存在，不写入)
+		Assert.assertEquals(Arrays.asList(
+				"updateSessionData:name", "updateSession",
+				"updateSessionData:age", "updateSession",
+				"deleteSessionData:name", "updateSession"), recordDao.callList);
+
+		// 整体写回后，值可以从持久层读到
+		Assert.assertEquals(18, recordDao.getSessionData(session.getId(), "age"));
+		Assert.assertNull(recordDao.getSessionData(session.getId(), "name"));
+		Assert.assertTrue(recordDao.getSessionTimeout(session.getId()) > 590);
+	}
+
+	// 测试：Session 不存在时 getSessionData 返回 null，字段写入不会凭空创建 Session
+	@Test
+	public void missingSession() {
+		String sessionId = "satoken:session-data-test:none";
+		Assert.assertNull(recordDao.getSessionData(sessionId, "name"));
+
+		SaSession session = new SaSession(sessionId);
+		session.set("name", "zhang");
+		Assert.assertNull(recordDao.getSession(sessionId));
+		Assert.assertNull(recordDao.getSessionData(sessionId, "name"));
+	}
+
+}
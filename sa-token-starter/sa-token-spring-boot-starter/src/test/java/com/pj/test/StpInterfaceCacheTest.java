@@ -0,0 +1,179 @@
+package com.pj.test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.dao.SaNearCacheBusDefaultImpl;
+import cn.dev33.satoken.stp.StpInterface;
+import cn.dev33.satoken.stp.StpInterfaceCache;
+import cn.dev33.satoken.util.SaElementMatcher;
+
+/**
+ * Sa-Token 权限认证接口缓存测试：命中、失效、跨节点广播，以及读取期间失效时不写入旧数据
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class StpInterfaceCacheTest {
+
+	/**
+	 * 记录调用次数的权限认证接口
+	 */
+	static class CountStpInterface implements StpInterface {
+
+		int permissionCount = 0;
+
+		int roleCount = 0;
+
+		List<String> permissionList = Arrays.asList("user*", "art-add");
+
+		@Override
+		public List<String> getPermissionList(Object loginId, String loginType) {
+			permissionCount++;
+			return permissionList;
+		}
+
+		@Override
+		public List<String> getRoleList(Object loginId, String loginType) {
+			roleCount++;
+			return Arrays.asList("admin");
+		}
+	}
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ 权限认证接口缓存测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		System.out.println("\n------------ 权限认证接口缓存测试 end ... \n");
+	}
+
+	// 测试：同一账号只读取一次，缓存的集合已编译为匹配器
+	@Test
+	public void hitAfterFirstLoad() {
+		CountStpInterface target = new CountStpInterface();
+		StpInterfaceCache cache = new StpInterfaceCache(target);
+		for (int i = 0; i < 5; i++) {
+			Assert.assertEquals(target.permissionList, cache.getPermissionList(10001, "login"));
+			Assert.assertEquals(Arrays.asList("admin"), cache.getRoleList(10001, "login"));
+		}
+		Assert.assertEquals(1, target.permissionCount);
+		Assert.assertEquals(1, target.roleCount);
+		Assert.assertEquals(8, cache.getHitCount());
+		Assert.assertEquals(2, cache.getMissCount());
+
+		List<String> list = cache.getPermissionList(10001, "login");
+		Assert.assertTrue(list instanceof SaElementMatcher.MatcherList);
+		Assert.assertTrue(SaElementMatcher.of(list).match("user-add"));
+
+		// 不同账号类型分别缓存
+		cache.getPermissionList(10001, "user");
+		Assert.assertEquals(2, target.permissionCount);
+	}
+
+	// 测试：按账号、按账号类型与账号、全部 三种方式失效
+	@Test
+	public void invalidate() {
+		CountStpInterface target = new CountStpInterface();
+		StpInterfaceCache cache = new StpInterfaceCache(target);
+		cache.getPermissionList(10001, "login");
+		cache.getPermissionList(10001, "user");
+		cache.getPermissionList(10002, "login");
+		cache.getRoleList(10002, "login");
+
+		cache.invalidate(10001, "user");
+		cache.getPermissionList(10001, "login");
+		cache.getPermissionList(10001, "user");
+		Assert.assertEquals(4, target.permissionCount);
+
+		// 所有账号类型下的 10001 失效，10002 不受影响
+		cache.invalidate(10001);
+		cache.getPermissionList(10001, "login");
+		cache.getPermissionList(10001, "user");
+		cache.getPermissionList(10002, "login");
+		Assert.assertEquals(6, target.permissionCount);
+
+		cache.invalidateAll();
+		cache.getPermissionList(10002, "login");
+		cache.getRoleList(10002, "login");
+		Assert.assertEquals(7, target.permissionCount);
+		Assert.assertEquals(2, target.roleCount);
+	}
+
+	// 测试：共用同一通知总线的其它节点同时失效
+	@Test
+	public void broadcastToOtherNode() {
+		SaNearCacheBusDefaultImpl bus = new SaNearCacheBusDefaultImpl();
+		CountStpInterface target1 = new CountStpInterface();
+		CountStpInterface target2 = new CountStpInterface();
+		StpInterfaceCache cache1 = new StpInterfaceCache(target1, bus);
+		StpInterfaceCache cache2 = new StpInterfaceCache(target2, bus);
+		cache1.getPermissionList(10001, "login");
+		cache2.getPermissionList(10001, "login");
+
+		cache1.invalidate(10001);
+		cache2.getPermissionList(10001, "login");
+		Assert.assertEquals(2, target2.permissionCount);
+	}
+
+	// 测试：读取期间该账号被失效，本次读取的结果不写入缓存；返回null时同样不缓存
+	@Test
+	public void dropLoadRacingInvalidate() {
+		CountStpInterface target = new CountStpInterface();
+		StpInterfaceCache[] holder = new StpInterfaceCache[1];
+		StpInterfaceCache cache = new StpInterfaceCache(new StpInterface() {
+			@Override
+			public List<String> getPermissionList(Object loginId, String loginType) {
+				List<String> list = target.getPermissionList(loginId, loginType);
+				if(target.permissionCount == 1) {
+					holder[0].invalidate(loginId);
+				}
+				return list;
+			}
+			@Override
+			public List<String> getRoleList(Object loginId, String loginType) {
+				return null;
+			}
+		});
+		holder[0] = cache;
+
+		cache.getPermissionList(10001, "login");
+		cache.getPermissionList(10001, "login");
+		cache.getPermissionList(10001, "login");
+		Assert.assertEquals(2, target.permissionCount);
+
+		cache.resetStats();
+		Assert.assertNull(cache.getRoleList(10001, "login"));
+		Assert.assertNull(cache.getRoleList(10001, "login"));
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(0, cache.roleCache.size());
+	}
+
+	// 测试：超出有效期后重新读取
+	@Test
+	public void expire() throws InterruptedException {
+		CountStpInterface target = new CountStpInterface();
+		StpInterfaceCache cache = new StpInterfaceCache(target).setTimeout(50);
+		cache.getPermissionList(10001, "login");
+		cache.getPermissionList(10001, "login");
+		Assert.assertEquals(1, target.permissionCount);
+		Thread.sleep(100);
+		cache.getPermissionList(10001, "login");
+		Assert.assertEquals(2, target.permissionCount);
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.pj.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import cn.dev33.satoken.dao.SaTokenDao;
+import cn.dev33.satoken.dao.SaTokenDaoDefaultImpl;
+import cn.dev33.satoken.session.SaSession;
+import cn.dev33.satoken.session.TokenSign;
+import cn.dev33.satoken.stp.StpLogic;
+
+/**
+ * Sa-Token token签名持久化钩子测试：登录时只把新增的签名交给 SaTokenDao.addTokenSign，
+ * 持久层以原子方式合并签名时 (如 Redis 的 isAtomicTokenSign 模式)，并发登录不会相互覆盖签名
+ *
+ * @author kong
+ *
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = StartUpApplication.class)
+public class TokenSignHookTest {
+
+	/**
+	 * 模拟 Redis 原子签名模式的持久层：签名单独存储并合并写入，每次读取 Session 都返回一份副本 (如同反序列化)
+	 */
+	static class SignMergeDao extends SaTokenDaoDefaultImpl {
+
+		/** Session id -> (token值 -> 签名) */
+		Map<String, Map<String, TokenSign>> signMap = new ConcurrentHashMap<>();
+
+		@Override
+		public SaSession getSession(String sessionId) {
+			SaSession session = super.getSession(sessionId);
+			if(session == null) {
+				return null;
+			}
+			SaSession copy = new SaSession(sessionId);
+			copy.getDataMap().putAll(session.getDataMap());
+			Map<String, TokenSign> signs = signMap.get(sessionId);
+			if(signs != null) {
+				copy.resetTokenSignList(new ArrayList<>(signs.values()));
+			}
+			return copy;
+		}
+
+		@Override
+		public void addTokenSign(SaSession session, TokenSign tokenSign, long timeout) {
+			synchronized (this) {
+				if(super.getSession(session.getId()) == null) {
+					setSession(new SaSession(session.getId()), timeout);
+				}
+			}
+			signMap.computeIfAbsent(session.getId(), k -> new ConcurrentHashMap<>()).put(tokenSign.getValue(), tokenSign);
+		}
+	}
+
+	static SignMergeDao dao = new SignMergeDao();
+
+	/** 使用上述持久层的 StpLogic */
+	static StpLogic stpLogic = new StpLogic("sign-hook-test") {
+		@Override
+		public SaTokenDao getSaTokenDao() {
+			return dao;
+		}
+		@Override
+		public void setTokenValue(String tokenValue, int cookieTimeout) {
+			// 登录线程不在请求上下文中，不写入当前会话
+		}
+	};
+
+	// 开始
+	@BeforeClass
+	public static void beforeClass() {
+		System.out.println("\n------------ token签名持久化钩子测试 star ...");
+	}
+
+	// 结束
+	@AfterClass
+	public static void afterClass() {
+		dao.endRefreshThread();
+		System.out.println("\n------------ token签名持久化钩子测试 end ... \n");
+	}
+
+	// 测试：默认实现整体写回 Session，传入 NOT_VALUE_EXPIRE 时保持原有效期
+	@Test
+	public void defaultHooks() {
+		SaTokenDaoDefaultImpl defaultDao = new SaTokenDaoDefaultImpl();
+		try {
+			SaSession session = new SaSession("satoken:sign-hook:session:1");
+			session.putTokenSign(new TokenSign("t1", "PC"));
+			defaultDao.addTokenSign(session, session.getTokenSign("t1"), 600);
+			Assert.assertNotNull(defaultDao.getSession(session.getId()).getTokenSign("t1"));
+			Assert.assertTrue(defaultDao.getSessionTimeout(session.getId()) > 590);
+
+			defaultDao.updateSessionTimeout(session.getId(), 1200);
+			session.putTokenSign(new TokenSign("t2", "APP"));
+			defaultDao.addTokenSign(session, session.getTokenSign("t2"), SaTokenDao.NOT_VALUE_EXPIRE);
+			Assert.assertEquals(2, defaultDao.getSession(session.getId()).getTokenSignList().size());
+			Assert.assertTrue(defaultDao.getSessionTimeout(session.getId()) > 1190);
+		} finally {
+			defaultDao.endRefreshThread();
+		}
+	}
+
+	// 测试：多个线程同时登录同一账号的不同设备，所有签名都被保留
+	@Test
+	public void concurrentLoginKeepsAllSigns() throws InterruptedException {
+		int threadCount = 8;
+		int loginCount = 50;
+		List<Thread> threadList = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			int index = i;
+			Thread thread = new Thread(() -> {
+				for (int k = 0; k < loginCount; k++) {
+					stpLogic.login(70001, "device-" + index + "-" + k);
+				}
+			});
+			threadList.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threadList) {
+			thread.join();
+		}
+
+		SaSession session = stpLogic.getSessionByLoginId(70001, false);
+		Assert.assertNotNull(session);
+		Assert.assertEquals(threadCount * loginCount, session.getTokenSignList().size());
+		for (TokenSign tokenSign : session.getTokenSignList()) {
+			Assert.assertEquals("70001", stpLogic.getLoginIdNotHandle(tokenSign.getValue()));
+		}
+	}
+
+}